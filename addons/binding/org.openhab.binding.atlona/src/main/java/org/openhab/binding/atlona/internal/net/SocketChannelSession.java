@@ -9,32 +9,45 @@
 package org.openhab.binding.atlona.internal.net;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
-import java.nio.channels.AsynchronousCloseException;
-import java.nio.channels.SocketChannel;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.openhab.binding.atlona.internal.net.SocketTransport.Connection;
+import org.openhab.binding.atlona.internal.net.SocketTransport.LineListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Represents a restartable socket connection to the underlying telnet session. Commands can be sent via
  * {@link #sendCommand(String)} and responses will be received on any {@link SocketSessionListener}. This implementation
- * of {@link SocketSession} communicates using a {@link SocketChannel} connection.
+ * of {@link SocketSession} communicates using a non-blocking connection of the shared {@link SocketTransport}.
  *
  * @author Tim Roberts
  */
 public class SocketChannelSession implements SocketSession {
     private final Logger logger = LoggerFactory.getLogger(SocketChannelSession.class);
 
+    /**
+     * The max number of responses waiting to be dispatched, reading is paused above it
+     */
+    private static final int MAX_RESPONSES = 50;
+
+    /**
+     * The timeout in milliseconds to connect to the device
+     */
+    private static final int CONNECT_TIMEOUT = 5000;
+
+    /**
+     * The thread pool dispatching the responses of all sessions
+     */
+    private static final ExecutorService DISPATCHER = ThreadPoolManager.getPool("atlona");
+
     /**
      * The host/ip address to connect to
      */
@@ -46,29 +59,29 @@ public class SocketChannelSession implements SocketSession {
     private final int _port;
 
     /**
-     * The actual socket being used. Will be null if not connected
+     * The actual connection being used. Will be null if not connected
      */
-    private final AtomicReference<SocketChannel> _socketChannel = new AtomicReference<SocketChannel>();
+    private final AtomicReference<Connection> _connection = new AtomicReference<Connection>();
 
     /**
-     * The {@link ResponseReader} that will be used to read from {@link #_readBuffer}
+     * The responses read from the {@link #_connection}
      */
-    private final ResponseReader _responseReader = new ResponseReader();
+    private final BlockingQueue<Object> _responses = new LinkedBlockingQueue<Object>();
 
     /**
-     * The responses read from the {@link #_responseReader}
+     * The {@link SocketSessionListener} that the responses are dispatched to
      */
-    private final BlockingQueue<Object> _responses = new ArrayBlockingQueue<Object>(50);
+    private List<SocketSessionListener> _listeners = new CopyOnWriteArrayList<SocketSessionListener>();
 
     /**
-     * The dispatcher of responses from {@link #_responses}
+     * Whether a dispatcher task is running for this session
      */
-    private final Dispatcher _dispatcher = new Dispatcher();
+    private final AtomicBoolean _dispatching = new AtomicBoolean(false);
 
     /**
-     * The {@link SocketSessionListener} that the {@link #_dispatcher} will call
+     * Whether reading from the {@link #_connection} is paused because of too many waiting responses
      */
-    private List<SocketSessionListener> _listeners = new CopyOnWriteArrayList<SocketSessionListener>();
+    private final AtomicBoolean _readingPaused = new AtomicBoolean(false);
 
     /**
      * Creates the socket session from the given host and port
@@ -94,6 +107,9 @@ public class SocketChannelSession implements SocketSession {
             throw new IllegalArgumentException("listener cannot be null");
         }
         _listeners.add(listener);
+
+        // dispatch the responses received while there was no listener
+        dispatch();
     }
 
     @Override
@@ -110,23 +126,12 @@ public class SocketChannelSession implements SocketSession {
     public void connect() throws IOException {
         disconnect();
 
-        final SocketChannel channel = SocketChannel.open();
-        channel.configureBlocking(true);
+        _responses.clear();
+        _readingPaused.set(false);
 
         logger.debug("Connecting to {}:{}", _host, _port);
-        channel.connect(new InetSocketAddress(_host, _port));
-
-        logger.debug("Waiting for connect");
-        while (!channel.finishConnect()) {
-            try {
-                Thread.sleep(250);
-            } catch (InterruptedException e) {
-            }
-        }
-
-        _socketChannel.set(channel);
-        new Thread(_dispatcher).start();
-        new Thread(_responseReader).start();
+        _connection.set(SocketTransport.getInstance().open(_host, _port, CONNECT_TIMEOUT, new ResponseReader(),
+                "Login: ", "Password: "));
     }
 
     @Override
@@ -134,11 +139,8 @@ public class SocketChannelSession implements SocketSession {
         if (isConnected()) {
             logger.debug("Disconnecting from {}:{}", _host, _port);
 
-            final SocketChannel channel = _socketChannel.getAndSet(null);
-            channel.close();
-
-            _dispatcher.stopRunning();
-            _responseReader.stopRunning();
+            final Connection conn = _connection.getAndSet(null);
+            conn.close();
 
             _responses.clear();
         }
@@ -146,8 +148,8 @@ public class SocketChannelSession implements SocketSession {
 
     @Override
     public boolean isConnected() {
-        final SocketChannel channel = _socketChannel.get();
-        return channel != null && channel.isConnected();
+        final Connection conn = _connection.get();
+        return conn != null && conn.isOpen();
     }
 
     @Override
@@ -160,220 +162,113 @@ public class SocketChannelSession implements SocketSession {
             throw new IOException("Cannot send message - disconnected");
         }
 
-        ByteBuffer toSend = ByteBuffer.wrap((command + "\r\n").getBytes());
-
-        final SocketChannel channel = _socketChannel.get();
-        if (channel == null) {
+        final Connection conn = _connection.get();
+        if (conn == null) {
             logger.debug("Cannot send command '{}' - socket channel was closed", command);
         } else {
             logger.debug("Sending Command: '{}'", command);
-            channel.write(toSend);
+            conn.write((command + "\r\n").getBytes());
         }
     }
 
     /**
-     * This is the runnable that will read from the socket and add messages to the responses queue (to be processed by
-     * the dispatcher)
-     *
-     * @author Tim Roberts
+     * Queues a response and starts dispatching it
      *
+     * @param response a non-null response or {@link IOException}
      */
-    private class ResponseReader implements Runnable {
-
-        /**
-         * Whether the reader is currently running
-         */
-        private final AtomicBoolean _isRunning = new AtomicBoolean(false);
-
-        /**
-         * Locking to allow proper shutdown of the reader
-         */
-        private final CountDownLatch _running = new CountDownLatch(1);
-
-        /**
-         * Stops the reader. Will wait 5 seconds for the runnable to stop
-         */
-        public void stopRunning() {
-            if (_isRunning.getAndSet(false)) {
-                try {
-                    if (!_running.await(5, TimeUnit.SECONDS)) {
-                        logger.warn("Waited too long for response reader to finish");
-                    }
-                } catch (InterruptedException e) {
-                    // Do nothing
-                }
+    private void addResponse(Object response) {
+        _responses.add(response);
+        if (_responses.size() >= MAX_RESPONSES && !_readingPaused.getAndSet(true)) {
+            logger.debug("Too many responses waiting, pausing reading from {}:{}", _host, _port);
+            final Connection conn = _connection.get();
+            if (conn != null) {
+                conn.setReading(false);
             }
         }
+        dispatch();
+    }
 
-        /**
-         * Runs the logic to read from the socket until {@link #_isRunning} is false. A 'response' is anything that ends
-         * with a carriage-return/newline combo. Additionally, the special "Login: " and "Password: " prompts are
-         * treated as responses for purposes of logging in.
-         */
-        @Override
-        public void run() {
-            final StringBuilder sb = new StringBuilder(100);
-            final ByteBuffer readBuffer = ByteBuffer.allocate(1024);
-
-            _isRunning.set(true);
-            _responses.clear();
-
-            while (_isRunning.get()) {
-                try {
-                    // if reader is null, sleep and try again
-                    if (readBuffer == null) {
-                        Thread.sleep(250);
-                        continue;
-                    }
-
-                    final SocketChannel channel = _socketChannel.get();
-                    if (channel == null) {
-                        // socket was closed
-                        _isRunning.set(false);
-                        break;
-                    }
-
-                    int bytesRead = channel.read(readBuffer);
-                    if (bytesRead == -1) {
-                        _responses.put(new IOException("server closed connection"));
-                        _isRunning.set(false);
-                        break;
-                    } else if (bytesRead == 0) {
-                        readBuffer.clear();
-                        continue;
-                    }
-
-                    readBuffer.flip();
-                    while (readBuffer.hasRemaining()) {
-                        final char ch = (char) readBuffer.get();
-                        sb.append(ch);
-                        if (ch == '\n' || ch == ' ') {
-                            final String str = sb.toString();
-                            if (str.endsWith("\r\n") || str.endsWith("Login: ") || str.endsWith("Password: ")) {
-                                sb.setLength(0);
-                                final String response = str.substring(0, str.length() - 2);
-                                _responses.put(response);
-                            }
-                        }
-                    }
-
-                    readBuffer.flip();
-
-                } catch (InterruptedException e) {
-                    // Do nothing - probably shutting down
-                } catch (AsynchronousCloseException e) {
-                    // socket was definitely closed by another thread
-                } catch (IOException e) {
-                    try {
-                        _isRunning.set(false);
-                        _responses.put(e);
-                    } catch (InterruptedException e1) {
-                        // Do nothing - probably shutting down
-                    }
-                }
-            }
-
-            _running.countDown();
+    /**
+     * Starts a dispatcher task, if there are listeners and no dispatcher task is running for this session
+     */
+    private void dispatch() {
+        if (!_listeners.isEmpty() && !_responses.isEmpty() && _dispatching.compareAndSet(false, true)) {
+            DISPATCHER.execute(new Dispatcher());
         }
     }
 
     /**
-     * The dispatcher runnable is responsible for reading the response queue and dispatching it to the current callable.
-     * Since the dispatcher is ONLY started when a callable is set, responses may pile up in the queue and be dispatched
-     * when a callable is set. Unlike the socket reader, this can be assigned to another thread (no state outside of the
-     * class).
+     * Receives the responses of the connection on the selector thread of the {@link SocketTransport}. A 'response' is
+     * anything that ends with a carriage-return/newline combo. Additionally, the special "Login: " and "Password: "
+     * prompts are treated as responses for purposes of logging in.
      *
      * @author Tim Roberts
      */
-    private class Dispatcher implements Runnable {
-
-        /**
-         * Whether the dispatcher is running or not
-         */
-        private final AtomicBoolean _isRunning = new AtomicBoolean(false);
-
-        /**
-         * Locking to allow proper shutdown of the reader
-         */
-        private final CountDownLatch _running = new CountDownLatch(1);
-
-        /**
-         * Whether the dispatcher is currently processing a message
-         */
-        private final AtomicReference<Thread> _processingThread = new AtomicReference<Thread>();
+    private class ResponseReader implements LineListener {
+        @Override
+        public void lineReceived(String line) {
+            addResponse(line);
+        }
 
-        /**
-         * Stops the reader. Will wait 5 seconds for the runnable to stop (should stop within 1 second based on the poll
-         * timeout below)
-         */
-        public void stopRunning() {
-            if (_isRunning.getAndSet(false)) {
-                // only wait if stopRunning didn't get called as part of processing a message
-                // (which would happen if we are processing an exception that forced a session close)
-                final Thread processingThread = _processingThread.get();
-                if (processingThread != null && Thread.currentThread() != processingThread) {
-                    try {
-                        if (!_running.await(5, TimeUnit.SECONDS)) {
-                            logger.warn("Waited too long for dispatcher to finish");
-                        }
-                    } catch (InterruptedException e) {
-                        // do nothing
-                    }
-                }
-            }
+        @Override
+        public void connectionFailed(IOException e) {
+            addResponse(e);
         }
+    }
 
+    /**
+     * The dispatcher task is responsible for reading the response queue and dispatching it to the current listeners.
+     * Since the dispatcher is ONLY started when a listener is set, responses may pile up in the queue and be
+     * dispatched when a listener is set. Only one dispatcher task runs per session, so the responses are dispatched in
+     * order.
+     *
+     * @author Tim Roberts
+     */
+    private class Dispatcher implements Runnable {
         /**
-         * Runs the logic to dispatch any responses to the current listeners until {@link #_isRunning} is false.
+         * Runs the logic to dispatch the queued responses to the current listeners.
          */
         @Override
         public void run() {
-            _processingThread.set(Thread.currentThread());
-
-            _isRunning.set(true);
-            while (_isRunning.get()) {
-                try {
-
-                    // if no listeners, we don't want to start dispatching yet.
-                    if (_listeners.size() == 0) {
-                        Thread.sleep(250);
-                        continue;
-                    }
-
-                    final Object response = _responses.poll(1, TimeUnit.SECONDS);
-
-                    if (response != null) {
-                        if (response instanceof String) {
+            try {
+                Object response;
+                while (!_listeners.isEmpty() && (response = _responses.poll()) != null) {
+                    final SocketSessionListener[] listeners = _listeners.toArray(new SocketSessionListener[0]);
+                    if (response instanceof String) {
+                        logger.debug("Dispatching response: {}", response);
+                        for (SocketSessionListener listener : listeners) {
                             try {
-                                logger.debug("Dispatching response: {}", response);
-                                final SocketSessionListener[] listeners = _listeners
-                                        .toArray(new SocketSessionListener[0]);
-                                for (SocketSessionListener listener : listeners) {
-                                    listener.responseReceived((String) response);
-                                }
+                                listener.responseReceived((String) response);
                             } catch (Exception e) {
                                 logger.warn("Exception occurred processing the response '{}': {}", response, e);
                             }
-                        } else if (response instanceof Exception) {
-                            logger.debug("Dispatching exception: {}", response);
-                            final SocketSessionListener[] listeners = _listeners.toArray(new SocketSessionListener[0]);
-                            for (SocketSessionListener listener : listeners) {
+                        }
+                    } else if (response instanceof Exception) {
+                        logger.debug("Dispatching exception: {}", response);
+                        for (SocketSessionListener listener : listeners) {
+                            try {
                                 listener.responseException((Exception) response);
+                            } catch (Exception e) {
+                                logger.warn("Exception occurred processing the exception '{}': {}", response, e);
                             }
-                        } else {
-                            logger.warn("Unknown response class: {}", response);
+                        }
+                    } else {
+                        logger.warn("Unknown response class: {}", response);
+                    }
+
+                    if (_responses.size() < MAX_RESPONSES / 2 && _readingPaused.getAndSet(false)) {
+                        final Connection conn = _connection.get();
+                        if (conn != null) {
+                            conn.setReading(true);
                         }
                     }
-                } catch (InterruptedException e) {
-                    // Do nothing
-                } catch (Exception e) {
-                    logger.debug("Uncaught exception {}", e.getMessage(), e);
-                    break;
                 }
+            } finally {
+                _dispatching.set(false);
             }
-            _isRunning.set(false);
-            _processingThread.set(null);
-            _running.countDown();
+
+            // a response may have been added after the queue was found empty
+            dispatch();
         }
     }
 }
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.client.RpcClient;
+import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
+import org.openhab.binding.homematic.internal.misc.HomematicClientException;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+import org.openhab.binding.homematic.internal.model.HmInterface;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.openhab.binding.homematic.internal.model.HmValueType;
+
+/**
+ * Tests for {@link DatapointWriteCoalescer}.
+ *
+ * @author agent - Initial contribution
+ */
+public class DatapointWriteCoalescerTest {
+
+    private RecordingRpcClient rpcClient;
+    private DatapointWriteCoalescer coalescer;
+
+    @Before
+    public void setUp() {
+        rpcClient = new RecordingRpcClient();
+        coalescer = new DatapointWriteCoalescer(hmInterface -> rpcClient);
+    }
+
+    @Test
+    public void testWritesOutsideBatchAreSentImmediately() throws IOException {
+        HmChannel channel = createChannel(HmInterface.RF, 1);
+        coalescer.setDatapointValue(createDatapoint(channel, "ON_TIME"), 10.0);
+        coalescer.setDatapointValue(createDatapoint(channel, "LEVEL"), 1.0);
+
+        assertEquals(Arrays.asList("setValue ON_TIME", "setValue LEVEL"), rpcClient.calls);
+    }
+
+    @Test
+    public void testWritesOfOneChannelAreSentWithOneMulticall() throws IOException, HomematicClientException {
+        HmChannel channel = createChannel(HmInterface.RF, 1);
+        HmDatapoint onTime = createDatapoint(channel, "ON_TIME");
+        HmDatapoint level = createDatapoint(channel, "LEVEL");
+
+        coalescer.batch(() -> {
+            coalescer.setDatapointValue(onTime, 10.0);
+            coalescer.setDatapointValue(level, 1.0);
+            assertTrue("Sent before the batch ends", rpcClient.calls.isEmpty());
+        });
+
+        assertEquals(Arrays.asList("multicall ON_TIME LEVEL"), rpcClient.calls);
+    }
+
+    @Test
+    public void testWritesAreSentPerChannel() throws IOException, HomematicClientException {
+        HmChannel first = createChannel(HmInterface.RF, 1);
+        HmChannel second = createChannel(HmInterface.RF, 2);
+
+        coalescer.batch(() -> {
+            coalescer.setDatapointValue(createDatapoint(first, "ON_TIME"), 10.0);
+            coalescer.setDatapointValue(createDatapoint(second, "STATE"), true);
+            coalescer.setDatapointValue(createDatapoint(first, "LEVEL"), 1.0);
+        });
+
+        assertEquals(Arrays.asList("multicall ON_TIME LEVEL", "setValue STATE"), rpcClient.calls);
+    }
+
+    @Test
+    public void testCuxdWritesAreNotBatched() throws IOException, HomematicClientException {
+        HmChannel channel = createChannel(HmInterface.CUXD, 1);
+
+        coalescer.batch(() -> {
+            coalescer.setDatapointValue(createDatapoint(channel, "ON_TIME"), 10.0);
+            coalescer.setDatapointValue(createDatapoint(channel, "LEVEL"), 1.0);
+        });
+
+        assertEquals(Arrays.asList("setValue ON_TIME", "setValue LEVEL"), rpcClient.calls);
+    }
+
+    @Test
+    public void testFailedWriteOfMulticallIsThrown() throws HomematicClientException {
+        HmChannel channel = createChannel(HmInterface.RF, 1);
+        rpcClient.failure = new IOException("LEVEL failed");
+
+        try {
+            coalescer.batch(() -> {
+                coalescer.setDatapointValue(createDatapoint(channel, "ON_TIME"), 10.0);
+                coalescer.setDatapointValue(createDatapoint(channel, "LEVEL"), 1.0);
+            });
+            fail("Failure not thrown");
+        } catch (IOException ex) {
+            assertSame(rpcClient.failure, ex);
+        }
+        assertEquals(Arrays.asList("multicall ON_TIME LEVEL"), rpcClient.calls);
+    }
+
+    private HmChannel createChannel(HmInterface hmInterface, int number) {
+        HmDevice device = new HmDevice();
+        device.setAddress("NEQ0000001");
+        device.setHmInterface(hmInterface);
+        HmChannel channel = new HmChannel();
+        channel.setNumber(number);
+        device.addChannel(channel);
+        return channel;
+    }
+
+    private HmDatapoint createDatapoint(HmChannel channel, String name) {
+        HmDatapoint dp = new HmDatapoint(name, name, HmValueType.FLOAT, null, false, HmParamsetType.VALUES);
+        channel.addDatapoint(dp);
+        return dp;
+    }
+
+    /**
+     * Records the datapoint writes instead of sending them, the last write of a multicall fails with the given
+     * failure.
+     */
+    private static class RecordingRpcClient extends RpcClient<Object> {
+        private final List<String> calls = new ArrayList<String>();
+        private IOException failure;
+
+        public RecordingRpcClient() {
+            super(new HomematicConfig());
+        }
+
+        @Override
+        public void setDatapointValue(HmDatapoint dp, Object value) throws IOException {
+            calls.add("setValue " + dp.getName());
+        }
+
+        @Override
+        public IOException[] setDatapointValues(HmChannel channel, List<HmDatapoint> dps, List<Object> values)
+                throws IOException {
+            StringBuilder call = new StringBuilder("multicall");
+            for (HmDatapoint dp : dps) {
+                call.append(' ').append(dp.getName());
+            }
+            calls.add(call.toString());
+
+            IOException[] failures = new IOException[dps.size()];
+            failures[dps.size() - 1] = failure;
+            return failures;
+        }
+
+        @Override
+        public void dispose() {
+        }
+
+        @Override
+        protected RpcRequest<Object> createRpcRequest(String methodName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        protected String getRpcCallbackUrl() {
+            return null;
+        }
+
+        @Override
+        protected Object[] sendMessage(int port, RpcRequest<Object> request) throws IOException {
+            throw new IOException("Not connected");
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.common.HomematicConfig;
+
+/**
+ * Tests for the socket reuse of {@link SocketHandler}.
+ *
+ * @author agent - Initial contribution
+ */
+public class SocketHandlerTest {
+
+    private ServerSocket serverSocket;
+    private SocketHandler socketHandler;
+    private int port;
+
+    @Before
+    public void setUp() throws IOException {
+        serverSocket = new ServerSocket(0, 10, InetAddress.getLoopbackAddress());
+        port = serverSocket.getLocalPort();
+
+        HomematicConfig config = new HomematicConfig();
+        config.setGatewayAddress(InetAddress.getLoopbackAddress().getHostAddress());
+        socketHandler = new SocketHandler(config);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        socketHandler.flush();
+        serverSocket.close();
+    }
+
+    @Test
+    public void testReturnedSocketIsReused() throws IOException {
+        SocketInfo created = socketHandler.borrowSocket(port);
+        assertFalse(created.isReused());
+        socketHandler.returnSocket(port, created);
+
+        SocketInfo reused = socketHandler.borrowSocket(port);
+        assertSame(created, reused);
+        assertTrue(reused.isReused());
+        socketHandler.returnSocket(port, reused);
+    }
+
+    @Test
+    public void testNewSocketIsCreatedWithoutReuse() throws IOException {
+        SocketInfo created = socketHandler.borrowSocket(port);
+        socketHandler.returnSocket(port, created);
+
+        SocketInfo fresh = socketHandler.borrowSocket(port, false);
+        assertNotSame(created, fresh);
+        assertFalse(fresh.isReused());
+        socketHandler.returnSocket(port, fresh);
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.model;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for the stale check of {@link HmChannel}.
+ *
+ * @author agent - Initial contribution
+ */
+public class HmChannelTest {
+
+    private HmChannel channel;
+    private HmDatapoint level;
+    private HmDatapoint working;
+
+    @Before
+    public void setUp() {
+        HmDevice device = new HmDevice();
+        device.setAddress("NEQ0000001");
+        channel = new HmChannel();
+        channel.setNumber(1);
+        device.addChannel(channel);
+
+        level = createDatapoint("LEVEL", HmParamsetType.VALUES, true);
+        working = createDatapoint("WORKING", HmParamsetType.VALUES, true);
+        createDatapoint("ON_TIME", HmParamsetType.VALUES, false);
+        createDatapoint("POWERUP_ACTION", HmParamsetType.MASTER, true);
+    }
+
+    @Test
+    public void testNotLoadedChannelIsStale() {
+        assertTrue(channel.isStale(0));
+    }
+
+    @Test
+    public void testChannelLoadedSinceIsNotStale() {
+        long staleSince = System.currentTimeMillis();
+        channel.setInitialized(true);
+
+        assertFalse(channel.isStale(staleSince));
+    }
+
+    @Test
+    public void testChannelIsStaleUntilAllReadableValuesReceivedEvents() {
+        channel.setInitialized(true);
+        long staleSince = System.currentTimeMillis() + 1;
+
+        level.setLastEventTime(staleSince);
+        assertTrue(channel.isStale(staleSince));
+
+        working.setLastEventTime(staleSince);
+        assertFalse(channel.isStale(staleSince));
+    }
+
+    @Test
+    public void testChannelIsStaleAfterReloadTriggered() {
+        long staleSince = System.currentTimeMillis();
+        channel.setInitialized(true);
+        channel.setInitialized(false);
+
+        assertTrue(channel.isStale(staleSince));
+    }
+
+    private HmDatapoint createDatapoint(String name, HmParamsetType paramsetType, boolean readable) {
+        HmDatapoint dp = new HmDatapoint(name, name, HmValueType.FLOAT, null, false, paramsetType);
+        dp.setReadable(readable);
+        channel.addDatapoint(dp);
+        return dp;
+    }
+}
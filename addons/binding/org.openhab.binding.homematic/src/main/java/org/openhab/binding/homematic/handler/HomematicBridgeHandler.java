@@ -46,6 +46,7 @@ import org.slf4j.LoggerFactory;
 public class HomematicBridgeHandler extends BaseBridgeHandler implements HomematicGatewayAdapter {
     private final Logger logger = LoggerFactory.getLogger(HomematicBridgeHandler.class);
     private static final long REINITIALIZE_DELAY_SECONDS = 10;
+    private static final long STALE_RELOAD_DELAY_SECONDS = 180;
     private static SimplePortPool portPool = new SimplePortPool();
 
     private HomematicConfig config;
@@ -287,7 +288,9 @@ public class HomematicBridgeHandler extends BaseBridgeHandler implements Homemat
      */
     @Override
     public void onServerRestart() {
-        reloadAllDeviceValues();
+        // events have been missed, devices which send cyclic status events refresh themselves meanwhile
+        final long restartTime = System.currentTimeMillis();
+        scheduler.schedule(() -> reloadStaleDeviceValues(restartTime), STALE_RELOAD_DELAY_SECONDS, TimeUnit.SECONDS);
     }
 
     /**
@@ -344,4 +347,23 @@ public class HomematicBridgeHandler extends BaseBridgeHandler implements Homemat
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void reloadStaleDeviceValues(long staleSince) {
+        int reloadedDevices = 0;
+        for (Thing hmThing : getThing().getThings()) {
+            try {
+                HmDevice device = gateway.getDevice(UidUtils.getHomematicAddress(hmThing));
+                if (gateway.triggerStaleDeviceValuesReload(device, staleSince)) {
+                    reloadedDevices++;
+                }
+            } catch (HomematicClientException ex) {
+                logger.warn("{}", ex.getMessage());
+            }
+        }
+        logger.debug("Reloaded stale values of {} of {} devices", reloadedDevices, getThing().getThings().size());
+    }
+
 }
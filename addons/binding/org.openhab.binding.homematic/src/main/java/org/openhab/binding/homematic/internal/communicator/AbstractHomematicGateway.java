@@ -10,6 +10,7 @@ package org.openhab.binding.homematic.internal.communicator;
 
 import static org.openhab.binding.homematic.internal.misc.HomematicConstants.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -21,18 +22,26 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.StringUtils;
+import org.eclipse.smarthome.config.core.ConfigConstants;
 import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
+import org.openhab.binding.homematic.internal.communicator.DatapointWriteCoalescer.WriteBatch;
 import org.openhab.binding.homematic.internal.communicator.client.BinRpcClient;
 import org.openhab.binding.homematic.internal.communicator.client.RpcClient;
 import org.openhab.binding.homematic.internal.communicator.client.TransferMode;
 import org.openhab.binding.homematic.internal.communicator.client.UnknownParameterSetException;
 import org.openhab.binding.homematic.internal.communicator.client.XmlRpcClient;
+import org.openhab.binding.homematic.internal.communicator.parser.GetParamsetDescriptionParser;
 import org.openhab.binding.homematic.internal.communicator.server.BinRpcServer;
 import org.openhab.binding.homematic.internal.communicator.server.RpcEventListener;
 import org.openhab.binding.homematic.internal.communicator.server.RpcServer;
@@ -82,6 +91,8 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     public static final double DEFAULT_DISABLE_DELAY = 2.0;
     private static final long CONNECTION_TRACKER_INTERVAL_SECONDS = 15;
     private static final String GATEWAY_POOL_NAME = "homematicGateway";
+    private static final String METADATA_POOL_NAME = "homematicMetadata";
+    private static final int METADATA_LOAD_PARALLELISM = 3;
 
     private Map<TransferMode, RpcClient<?>> rpcClients = new HashMap<TransferMode, RpcClient<?>>();
     private Map<TransferMode, RpcServer> rpcServers = new HashMap<TransferMode, RpcServer>();
@@ -99,7 +110,9 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
     private Map<String, HmDevice> devices = Collections.synchronizedMap(new HashMap<String, HmDevice>());
     private Map<HmInterface, TransferMode> availableInterfaces = new TreeMap<HmInterface, TransferMode>();
     private static List<VirtualDatapointHandler> virtualDatapointHandlers = new ArrayList<VirtualDatapointHandler>();
-    private boolean cancelLoadAllMetadata;
+    private volatile boolean cancelLoadAllMetadata;
+    private ParamsetDescriptionCache paramsetDescriptionCache;
+    private DatapointWriteCoalescer writeCoalescer;
     private boolean initialized;
 
     static {
@@ -126,6 +139,9 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         this.id = id;
         this.config = config;
         this.gatewayAdapter = gatewayAdapter;
+        this.paramsetDescriptionCache = new ParamsetDescriptionCache(new File(ConfigConstants.getUserDataFolder()
+                + File.separator + "homematic" + File.separator + id + "-paramsets.cache"));
+        this.writeCoalescer = new DatapointWriteCoalescer(this::getRpcClient);
     }
 
     /**
@@ -376,55 +392,105 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         cancelLoadAllMetadata = false;
         // load all device descriptions
         List<HmDevice> deviceDescriptions = getDeviceDescriptions();
+        paramsetDescriptionCache.load();
 
-        // loading datapoints for all channels
-        Set<String> loadedDevices = new HashSet<String>();
-        Map<String, Collection<HmDatapoint>> datapointsByChannelIdCache = new HashMap<String, Collection<HmDatapoint>>();
+        // loading datapoints for all channels, the devices of each interface are loaded concurrently
+        Map<HmInterface, ConcurrentLinkedQueue<HmDevice>> devicesByInterface = new TreeMap<>();
         for (HmDevice device : deviceDescriptions) {
-            if (!cancelLoadAllMetadata) {
-                try {
-                    logger.trace("Loading metadata for device '{}' of type '{}'", device.getAddress(),
-                            device.getType());
-                    if (device.isGatewayExtras()) {
-                        loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_VARIABLE));
-                        loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_SCRIPT));
-                    } else {
-                        for (HmChannel channel : device.getChannels()) {
-                            logger.trace("  Loading channel {}", channel);
-                            // speed up metadata generation a little bit for equal channels in the gateway devices
-                            if ((DEVICE_TYPE_VIRTUAL.equals(device.getType())
-                                    || DEVICE_TYPE_VIRTUAL_WIRED.equals(device.getType())) && channel.getNumber() > 1) {
-                                HmChannel previousChannel = device.getChannel(channel.getNumber() - 1);
-                                cloneAllDatapointsIntoChannel(channel, previousChannel.getDatapoints().values());
-                            } else {
-                                String channelId = String.format("%s:%s:%s", channel.getDevice().getType(),
-                                        channel.getDevice().getFirmware(), channel.getNumber());
-                                Collection<HmDatapoint> cachedDatapoints = datapointsByChannelIdCache.get(channelId);
-                                if (cachedDatapoints != null) {
-                                    // clone all datapoints
-                                    cloneAllDatapointsIntoChannel(channel, cachedDatapoints);
-                                } else {
-                                    logger.trace("    Loading datapoints into channel {}", channel);
-                                    addChannelDatapoints(channel, HmParamsetType.MASTER);
-                                    addChannelDatapoints(channel, HmParamsetType.VALUES);
-                                    datapointsByChannelIdCache.put(channelId, channel.getDatapoints().values());
-                                }
-                            }
+            if (!devicesByInterface.containsKey(device.getHmInterface())) {
+                devicesByInterface.put(device.getHmInterface(), new ConcurrentLinkedQueue<HmDevice>());
+            }
+            devicesByInterface.get(device.getHmInterface()).add(device);
+        }
+
+        final Set<HmDevice> metadataLoadedDevices = Collections.synchronizedSet(new HashSet<HmDevice>());
+        final Map<String, Collection<HmDatapoint>> datapointsByChannelIdCache = new ConcurrentHashMap<>();
+        ExecutorService executor = ThreadPoolManager.getPool(METADATA_POOL_NAME);
+        List<Future<?>> workers = new ArrayList<Future<?>>();
+        for (final ConcurrentLinkedQueue<HmDevice> queue : devicesByInterface.values()) {
+            int parallelism = Math.min(METADATA_LOAD_PARALLELISM, queue.size());
+            for (int i = 0; i < parallelism; i++) {
+                workers.add(executor.submit(() -> {
+                    HmDevice device;
+                    while (!cancelLoadAllMetadata && (device = queue.poll()) != null) {
+                        try {
+                            loadDeviceMetadata(device, datapointsByChannelIdCache);
+                            metadataLoadedDevices.add(device);
+                        } catch (IOException ex) {
+                            logger.warn("Can't load device with address '{}' from gateway '{}': {}",
+                                    device.getAddress(), id, ex.getMessage());
                         }
                     }
-                    prepareDevice(device);
-                    loadedDevices.add(device.getAddress());
-                    gatewayAdapter.onDeviceLoaded(device);
-                } catch (IOException ex) {
-                    logger.warn("Can't load device with address '{}' from gateway '{}': {}", device.getAddress(), id,
-                            ex.getMessage());
-                }
+                }));
+            }
+        }
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (InterruptedException ex) {
+                cancelLoadAllMetadata = true;
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException ex) {
+                logger.warn("Error loading device metadata from gateway '{}': {}", id, ex.getMessage(), ex);
+            }
+        }
+        paramsetDescriptionCache.save();
+
+        // publish the devices in the order of the gateway
+        Set<String> loadedDevices = new HashSet<String>();
+        for (HmDevice device : deviceDescriptions) {
+            if (!cancelLoadAllMetadata && metadataLoadedDevices.contains(device)) {
+                prepareDevice(device);
+                loadedDevices.add(device.getAddress());
+                gatewayAdapter.onDeviceLoaded(device);
             }
         }
         if (!cancelLoadAllMetadata) {
             devices.keySet().retainAll(loadedDevices);
         }
         initialized = true;
+
+        if (logger.isDebugEnabled()) {
+            for (Map.Entry<TransferMode, RpcClient<?>> entry : rpcClients.entrySet()) {
+                logger.debug("{} statistics of gateway '{}' after loading all device metadata: {}", entry.getKey(),
+                        id, entry.getValue().getStatistics());
+            }
+        }
+    }
+
+    /**
+     * Loads the datapoints of all channels of the device.
+     */
+    private void loadDeviceMetadata(HmDevice device, Map<String, Collection<HmDatapoint>> datapointsByChannelIdCache)
+            throws IOException {
+        logger.trace("Loading metadata for device '{}' of type '{}'", device.getAddress(), device.getType());
+        if (device.isGatewayExtras()) {
+            loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_VARIABLE));
+            loadChannelValues(device.getChannel(HmChannel.CHANNEL_NUMBER_SCRIPT));
+        } else {
+            for (HmChannel channel : device.getChannels()) {
+                logger.trace("  Loading channel {}", channel);
+                // speed up metadata generation a little bit for equal channels in the gateway devices
+                if ((DEVICE_TYPE_VIRTUAL.equals(device.getType()) || DEVICE_TYPE_VIRTUAL_WIRED.equals(device.getType()))
+                        && channel.getNumber() > 1) {
+                    HmChannel previousChannel = device.getChannel(channel.getNumber() - 1);
+                    cloneAllDatapointsIntoChannel(channel, previousChannel.getDatapoints().values());
+                } else {
+                    String channelId = String.format("%s:%s:%s", channel.getDevice().getType(),
+                            channel.getDevice().getFirmware(), channel.getNumber());
+                    Collection<HmDatapoint> cachedDatapoints = datapointsByChannelIdCache.get(channelId);
+                    if (cachedDatapoints != null) {
+                        // clone all datapoints
+                        cloneAllDatapointsIntoChannel(channel, cachedDatapoints);
+                    } else {
+                        logger.trace("    Loading datapoints into channel {}", channel);
+                        addChannelDatapoints(channel, HmParamsetType.MASTER);
+                        addChannelDatapoints(channel, HmParamsetType.VALUES);
+                        datapointsByChannelIdCache.put(channelId, channel.getDatapoints().values());
+                    }
+                }
+            }
+        }
     }
 
     /**
@@ -432,7 +498,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
      */
     protected void addChannelDatapoints(HmChannel channel, HmParamsetType paramsetType) throws IOException {
         try {
-            getRpcClient(channel.getDevice().getHmInterface()).addChannelDatapoints(channel, paramsetType);
+            loadChannelDatapoints(channel, paramsetType);
         } catch (UnknownParameterSetException ex) {
             logger.info(
                     "Can not load metadata for device: {}, channel: {}, paramset: {}, maybe there are no channels available",
@@ -440,6 +506,23 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         }
     }
 
+    /**
+     * Loads all datapoints from the paramset description cache or, if not cached, from the gateway.
+     */
+    protected void loadChannelDatapoints(HmChannel channel, HmParamsetType paramsetType) throws IOException {
+        // CUxD devices can be reconfigured without changing type or firmware, never persist them
+        boolean cacheable = channel.getDevice().getHmInterface() != HmInterface.CUXD;
+        Object[] description = cacheable ? paramsetDescriptionCache.get(channel, paramsetType) : null;
+        if (description == null) {
+            description = getRpcClient(channel.getDevice().getHmInterface()).getParamsetDescription(channel,
+                    paramsetType);
+            if (cacheable) {
+                paramsetDescriptionCache.put(channel, paramsetType, description);
+            }
+        }
+        new GetParamsetDescriptionParser(channel, paramsetType).parse(description);
+    }
+
     /**
      * Loads all device descriptions from the gateway.
      */
@@ -555,6 +638,27 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         gatewayAdapter.reloadDeviceValues(device);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean triggerStaleDeviceValuesReload(HmDevice device, long staleSince) {
+        int staleChannels = 0;
+        for (HmChannel channel : device.getChannels()) {
+            if (channel.isStale(staleSince)) {
+                channel.setInitialized(false);
+                staleChannels++;
+            }
+        }
+        if (staleChannels == 0) {
+            return false;
+        }
+        logger.debug("Triggering values reload for {} stale channel(s) of device '{}'", staleChannels,
+                device.getAddress());
+        gatewayAdapter.reloadDeviceValues(device);
+        return true;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -573,6 +677,14 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         sendDatapoint(dp, dpConfig, newValue, false);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void sendDatapointBatch(WriteBatch batch) throws IOException, HomematicClientException {
+        writeCoalescer.batch(batch);
+    }
+
     /**
      * Main method for sending datapoints to the gateway. It handles scripts, variables, virtual datapoints, delayed
      * executions and auto disabling.
@@ -612,7 +724,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                     } else {
                         logger.debug("Sending datapoint '{}' with value '{}' to gateway with id '{}'", dpInfo, newValue,
                                 id);
-                        getRpcClient(dp.getChannel().getDevice().getHmInterface()).setDatapointValue(dp, newValue);
+                        writeCoalescer.setDatapointValue(dp, newValue);
                     }
                     dp.setValue(newValue);
 
@@ -652,6 +764,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
         } else {
             try {
                 final HmDatapoint dp = getDatapoint(dpInfo);
+                dp.setLastEventTime(lastEventTime);
                 HmDatapointConfig config = gatewayAdapter.getDatapointConfig(dp);
                 receiveDelayedExecutor.start(dpInfo, config.getReceiveDelay(), () -> {
                     dp.setValue(newValue);
@@ -698,6 +811,7 @@ public abstract class AbstractHomematicGateway implements RpcEventListener, Home
                     logger.error("{}", ex.getMessage(), ex);
                 }
             }
+            paramsetDescriptionCache.save();
         }
     }
 
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openhab.binding.homematic.internal.communicator.client.RpcClient;
+import org.openhab.binding.homematic.internal.misc.HomematicClientException;
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDatapoint;
+import org.openhab.binding.homematic.internal.model.HmInterface;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends datapoint writes to the gateway. Writes issued by the current thread within {@link #batch(WriteBatch)} are
+ * collected per channel and sent with one system.multicall per channel when the batch ends, in the order they were
+ * issued. All other writes are sent immediately.
+ *
+ * @author agent - Initial contribution
+ */
+public class DatapointWriteCoalescer {
+    private final Logger logger = LoggerFactory.getLogger(DatapointWriteCoalescer.class);
+
+    private RpcClientProvider rpcClientProvider;
+    private ThreadLocal<Map<HmChannel, List<PendingWrite>>> batches = new ThreadLocal<>();
+
+    public DatapointWriteCoalescer(RpcClientProvider rpcClientProvider) {
+        this.rpcClientProvider = rpcClientProvider;
+    }
+
+    /**
+     * Sets the value of the datapoint, either immediately or, within a batch, when the batch ends.
+     */
+    public void setDatapointValue(HmDatapoint dp, Object value) throws IOException {
+        HmChannel channel = dp.getChannel();
+        Map<HmChannel, List<PendingWrite>> batch = batches.get();
+        if (batch == null || channel.getDevice().getHmInterface() == HmInterface.CUXD) {
+            getRpcClient(channel).setDatapointValue(dp, value);
+            return;
+        }
+
+        List<PendingWrite> writes = batch.get(channel);
+        if (writes == null) {
+            writes = new ArrayList<PendingWrite>();
+            batch.put(channel, writes);
+        }
+        writes.add(new PendingWrite(dp, value));
+    }
+
+    /**
+     * Executes the writes and sends the datapoint values they set per channel. If the writes fail, nothing is sent. A
+     * batch started within a batch joins the outer batch.
+     */
+    public void batch(WriteBatch writeBatch) throws IOException, HomematicClientException {
+        if (batches.get() != null) {
+            writeBatch.write();
+            return;
+        }
+
+        Map<HmChannel, List<PendingWrite>> batch = new LinkedHashMap<HmChannel, List<PendingWrite>>();
+        batches.set(batch);
+        try {
+            writeBatch.write();
+        } finally {
+            batches.remove();
+        }
+
+        IOException failure = null;
+        for (Map.Entry<HmChannel, List<PendingWrite>> entry : batch.entrySet()) {
+            try {
+                flush(entry.getKey(), entry.getValue());
+            } catch (IOException ex) {
+                if (failure == null) {
+                    failure = ex;
+                } else {
+                    logger.warn("Failed to send datapoints of channel {}: {}", entry.getKey(), ex.getMessage());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Sends the writes of the channel, throws the first failure after all writes have been sent.
+     */
+    private void flush(HmChannel channel, List<PendingWrite> writes) throws IOException {
+        RpcClient<?> rpcClient = getRpcClient(channel);
+        if (writes.size() == 1) {
+            rpcClient.setDatapointValue(writes.get(0).dp, writes.get(0).value);
+            return;
+        }
+
+        List<HmDatapoint> dps = new ArrayList<HmDatapoint>(writes.size());
+        List<Object> values = new ArrayList<Object>(writes.size());
+        for (PendingWrite write : writes) {
+            dps.add(write.dp);
+            values.add(write.value);
+        }
+
+        // not retried if the multicall fails as a whole, the gateway may have applied some of the writes already
+        logger.debug("Sending {} datapoints of channel {} with one multicall", writes.size(), channel);
+        IOException[] failures = rpcClient.setDatapointValues(channel, dps, values);
+        IOException failure = null;
+        for (int i = 0; i < failures.length; i++) {
+            if (failures[i] != null) {
+                logger.warn("Failed to send datapoint '{}' of channel {}: {}", dps.get(i).getName(), channel,
+                        failures[i].getMessage());
+                if (failure == null) {
+                    failure = failures[i];
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private RpcClient<?> getRpcClient(HmChannel channel) throws IOException {
+        return rpcClientProvider.getRpcClient(channel.getDevice().getHmInterface());
+    }
+
+    /**
+     * Returns the RPC client of an interface.
+     */
+    @FunctionalInterface
+    public interface RpcClientProvider {
+        RpcClient<?> getRpcClient(HmInterface hmInterface) throws IOException;
+    }
+
+    /**
+     * Writes datapoint values, which are sent together when it returns.
+     */
+    @FunctionalInterface
+    public interface WriteBatch {
+        void write() throws IOException, HomematicClientException;
+    }
+
+    /**
+     * A datapoint value waiting to be sent.
+     */
+    private static class PendingWrite {
+        private final HmDatapoint dp;
+        private final Object value;
+
+        public PendingWrite(HmDatapoint dp, Object value) {
+            this.dp = dp;
+            this.value = value;
+        }
+    }
+}
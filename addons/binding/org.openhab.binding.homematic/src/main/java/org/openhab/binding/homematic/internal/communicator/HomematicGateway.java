@@ -64,6 +64,12 @@ public interface HomematicGateway {
      */
     public void triggerDeviceValuesReload(HmDevice device);
 
+    /**
+     * Prepares the stale channels of the device, whose values have not been updated since the given time, for reloading
+     * their values from the gateway. Returns true, if a reload has been triggered.
+     */
+    public boolean triggerStaleDeviceValuesReload(HmDevice device, long staleSince);
+
     /**
      * Sends the datapoint to the Homematic gateway or executes virtual datapoints.
      */
@@ -44,6 +44,12 @@ public interface HomematicGatewayAdapter {
      */
     public void reloadAllDeviceValues();
 
+    /**
+     * Called when the values of all stale channels, which have not been updated since the given time, should be
+     * reloaded from the gateway.
+     */
+    public void reloadStaleDeviceValues(long staleSince);
+
     /**
      * Called when a device has been loaded from the gateway.
      */
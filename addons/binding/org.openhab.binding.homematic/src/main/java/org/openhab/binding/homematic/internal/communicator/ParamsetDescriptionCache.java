@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openhab.binding.homematic.internal.model.HmChannel;
+import org.openhab.binding.homematic.internal.model.HmDevice;
+import org.openhab.binding.homematic.internal.model.HmParamsetType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache for the raw paramset descriptions of the Homematic gateway. The descriptions only depend on the
+ * device type, the firmware and the channel, so they can be reused across restarts of the bridge.
+ *
+ * @author agent - Initial contribution
+ */
+public class ParamsetDescriptionCache {
+    private final Logger logger = LoggerFactory.getLogger(ParamsetDescriptionCache.class);
+    private static final int CACHE_VERSION = 1;
+
+    private File cacheFile;
+    private Map<String, Object[]> descriptions = new ConcurrentHashMap<String, Object[]>();
+    private volatile boolean modified;
+
+    public ParamsetDescriptionCache(File cacheFile) {
+        this.cacheFile = cacheFile;
+    }
+
+    /**
+     * Returns the cached paramset description for the channel or null, if it's not cached.
+     */
+    public Object[] get(HmChannel channel, HmParamsetType paramsetType) {
+        return descriptions.get(getKey(channel, paramsetType));
+    }
+
+    /**
+     * Adds the paramset description for the channel to the cache.
+     */
+    public void put(HmChannel channel, HmParamsetType paramsetType, Object[] description) {
+        descriptions.put(getKey(channel, paramsetType), description);
+        modified = true;
+    }
+
+    /**
+     * Returns the cache key (interface:type:firmware:channel:paramset) of the channel.
+     */
+    private String getKey(HmChannel channel, HmParamsetType paramsetType) {
+        HmDevice device = channel.getDevice();
+        return String.format("%s:%s:%s:%s:%s", device.getHmInterface(), device.getType(), device.getFirmware(),
+                channel.getNumber(), paramsetType);
+    }
+
+    /**
+     * Loads the cache from the file, an outdated or unreadable file is ignored.
+     */
+    @SuppressWarnings("unchecked")
+    public void load() {
+        descriptions.clear();
+        modified = false;
+        if (!cacheFile.exists()) {
+            return;
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(
+                new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            int version = ois.readInt();
+            if (version != CACHE_VERSION) {
+                logger.debug("Ignoring paramset description cache '{}' with version {}", cacheFile, version);
+                return;
+            }
+            descriptions.putAll((Map<String, Object[]>) ois.readObject());
+            logger.debug("Loaded {} paramset descriptions from cache '{}'", descriptions.size(), cacheFile);
+        } catch (IOException | ClassNotFoundException | ClassCastException ex) {
+            logger.warn("Can't load paramset description cache '{}': {}", cacheFile, ex.getMessage());
+            descriptions.clear();
+        }
+    }
+
+    /**
+     * Saves the cache to the file, if it has been modified.
+     */
+    public synchronized void save() {
+        if (!modified) {
+            return;
+        }
+        File folder = cacheFile.getParentFile();
+        if (folder != null && !folder.exists() && !folder.mkdirs()) {
+            logger.warn("Can't create folder '{}' for the paramset description cache", folder);
+            return;
+        }
+        // descriptions put while saving mark the cache as modified again
+        modified = false;
+        try (ObjectOutputStream oos = new ObjectOutputStream(
+                new BufferedOutputStream(new FileOutputStream(cacheFile)))) {
+            oos.writeInt(CACHE_VERSION);
+            oos.writeObject(new HashMap<String, Object[]>(descriptions));
+            logger.debug("Saved {} paramset descriptions to cache '{}'", descriptions.size(), cacheFile);
+        } catch (IOException ex) {
+            modified = true;
+            logger.warn("Can't save paramset description cache '{}': {}", cacheFile, ex.getMessage());
+        }
+    }
+}
@@ -10,6 +10,7 @@ package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.io.IOException;
 import java.net.Socket;
+import java.net.SocketTimeoutException;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
@@ -39,6 +40,7 @@ public class BinRpcClient extends RpcClient<byte[]> {
      */
     @Override
     public void dispose() {
+        logger.debug("BinRpcClient statistics: {}", statistics);
         socketHandler.flush();
     }
 
@@ -71,37 +73,67 @@ public class BinRpcClient extends RpcClient<byte[]> {
      * Sends a BIN-RPC message and parses the response to see if there was an error.
      */
     @Override
-    protected synchronized Object[] sendMessage(int port, RpcRequest<byte[]> request) throws IOException {
+    protected Object[] sendMessage(int port, RpcRequest<byte[]> request) throws IOException {
         if (logger.isTraceEnabled()) {
             logger.trace("Client BinRpcRequest:\n{}", request);
         }
-        return sendMessage(port, request, 0);
+        return sendMessage(port, request, 0, true);
     }
 
     /**
-     * Sends the message, retries if there was an error.
+     * Sends the message, retries if there was an error. If a pooled socket fails, it most likely has been closed by
+     * the server while it was idle. The other idle sockets are discarded as well and the message is sent again once
+     * on a new socket, without counting as a retry.
      */
-    private Object[] sendMessage(int port, RpcRequest<byte[]> request, int rpcRetryCounter) throws IOException {
+    private Object[] sendMessage(int port, RpcRequest<byte[]> request, int rpcRetryCounter, boolean reuseSocket)
+            throws IOException {
         BinRpcMessage resp = null;
+        SocketInfo socketInfo = null;
+        boolean healthy = false;
         try {
-            Socket socket = socketHandler.getSocket(port);
+            long start = System.nanoTime();
+            socketInfo = socketHandler.borrowSocket(port, reuseSocket);
+            long sent = System.nanoTime();
+            statistics.recordQueueWait(sent - start);
+
+            Socket socket = socketInfo.getSocket();
             socket.getOutputStream().write(request.createMessage());
             resp = new BinRpcMessage(socket.getInputStream(), false, config.getEncoding());
+            healthy = true;
+            statistics.recordLatency(request.getMethodName(), System.nanoTime() - sent);
             return new RpcResponseParser(request).parse(resp.getResponseData());
         } catch (UnknownRpcFailureException | UnknownParameterSetException rpcEx) {
             // throw immediately, don't retry the message
             throw rpcEx;
         } catch (IOException ioEx) {
-            if ("init".equals(request.getMethodName()) || rpcRetryCounter >= MAX_RPC_RETRY) {
+            if (!healthy && socketInfo != null && socketInfo.isReused()
+                    && !(ioEx instanceof SocketTimeoutException)) {
+                logger.debug("Pooled socket on port {} has been closed by the server, sending message again: {}",
+                        port, ioEx.getMessage());
+                socketHandler.invalidateSocket(port, socketInfo);
+                socketInfo = null;
+                socketHandler.removeSocket(port);
+                return sendMessage(port, request, rpcRetryCounter, false);
+            } else if ("init".equals(request.getMethodName()) || rpcRetryCounter >= MAX_RPC_RETRY) {
                 throw ioEx;
             } else {
                 rpcRetryCounter++;
                 logger.debug("BinRpcMessage socket failure, sending message again {}/{}", rpcRetryCounter,
                         MAX_RPC_RETRY);
-                socketHandler.removeSocket(port);
-                return sendMessage(port, request, rpcRetryCounter);
+                if (socketInfo != null) {
+                    socketHandler.invalidateSocket(port, socketInfo);
+                    socketInfo = null;
+                }
+                return sendMessage(port, request, rpcRetryCounter, true);
             }
         } finally {
+            if (socketInfo != null) {
+                if (healthy) {
+                    socketHandler.returnSocket(port, socketInfo);
+                } else {
+                    socketHandler.invalidateSocket(port, socketInfo);
+                }
+            }
             if (logger.isTraceEnabled()) {
                 logger.trace("Client BinRpcResponse:\n{}", resp == null ? "null" : resp.toString());
             }
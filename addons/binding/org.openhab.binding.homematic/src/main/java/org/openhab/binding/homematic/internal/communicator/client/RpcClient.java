@@ -9,6 +9,7 @@
 package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
@@ -20,12 +21,12 @@ import org.openhab.binding.homematic.internal.communicator.message.RpcRequest;
 import org.openhab.binding.homematic.internal.communicator.parser.GetAllScriptsParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetAllSystemVariablesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetDeviceDescriptionParser;
-import org.openhab.binding.homematic.internal.communicator.parser.GetParamsetDescriptionParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetParamsetParser;
 import org.openhab.binding.homematic.internal.communicator.parser.GetValueParser;
 import org.openhab.binding.homematic.internal.communicator.parser.HomegearLoadDeviceNamesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.ListBidcosInterfacesParser;
 import org.openhab.binding.homematic.internal.communicator.parser.ListDevicesParser;
+import org.openhab.binding.homematic.internal.communicator.parser.RpcResponseParser;
 import org.openhab.binding.homematic.internal.communicator.parser.RssiInfoParser;
 import org.openhab.binding.homematic.internal.model.HmChannel;
 import org.openhab.binding.homematic.internal.model.HmDatapoint;
@@ -47,11 +48,19 @@ public abstract class RpcClient<T> {
     protected static final int MAX_RPC_RETRY = 1;
 
     protected HomematicConfig config;
+    protected RpcStatistics statistics = new RpcStatistics();
 
     public RpcClient(HomematicConfig config) {
         this.config = config;
     }
 
+    /**
+     * Returns the queue wait and latency statistics of the client.
+     */
+    public RpcStatistics getStatistics() {
+        return statistics;
+    }
+
     /**
      * Disposes the client.
      */
@@ -141,13 +150,13 @@ public abstract class RpcClient<T> {
     }
 
     /**
-     * Loads all datapoint metadata into the given channel.
+     * Returns the raw paramset description of the given channel.
      */
-    public void addChannelDatapoints(HmChannel channel, HmParamsetType paramsetType) throws IOException {
+    public Object[] getParamsetDescription(HmChannel channel, HmParamsetType paramsetType) throws IOException {
         RpcRequest<T> request = createRpcRequest("getParamsetDescription");
         request.addArg(getRpcAddress(channel.getDevice().getAddress()) + ":" + channel.getNumber());
         request.addArg(paramsetType.toString());
-        new GetParamsetDescriptionParser(channel, paramsetType).parse(sendMessage(config.getRpcPort(channel), request));
+        return sendMessage(config.getRpcPort(channel), request);
     }
 
     /**
@@ -260,25 +269,72 @@ public abstract class RpcClient<T> {
      * Sets the value of the datapoint.
      */
     public void setDatapointValue(HmDatapoint dp, Object value) throws IOException {
+        RpcRequest<T> request = createRpcRequest(getSetValueMethodName(dp));
+        for (Object arg : getSetValueArgs(dp, value)) {
+            request.addArg(arg);
+        }
+        sendMessage(config.getRpcPort(dp.getChannel()), request);
+    }
+
+    /**
+     * Sets the values of multiple datapoints of the same channel with one system.multicall. Returns the failure for
+     * each datapoint or null, if the value has been set.
+     */
+    public IOException[] setDatapointValues(HmChannel channel, List<HmDatapoint> dps, List<Object> values)
+            throws IOException {
+        RpcRequest<T> request = createRpcRequest("system.multicall");
+        List<Map<String, Object>> calls = new ArrayList<Map<String, Object>>();
+        for (int i = 0; i < dps.size(); i++) {
+            Map<String, Object> call = new HashMap<String, Object>();
+            call.put("methodName", getSetValueMethodName(dps.get(i)));
+            call.put("params", getSetValueArgs(dps.get(i), values.get(i)));
+            calls.add(call);
+        }
+        request.addArg(calls);
+        Object[] response = sendMessage(config.getRpcPort(channel), request);
+
+        if (!(response[0] instanceof Object[]) || ((Object[]) response[0]).length != dps.size()) {
+            throw new IOException("Unexpected system.multicall result for channel " + channel);
+        }
+        Object[] results = (Object[]) response[0];
+        IOException[] failures = new IOException[dps.size()];
+        for (int i = 0; i < results.length; i++) {
+            try {
+                new RpcResponseParser(request).parse(new Object[] { results[i] });
+            } catch (IOException ex) {
+                failures[i] = ex;
+            }
+        }
+        return failures;
+    }
+
+    /**
+     * Returns the RPC method name to set the value of the datapoint.
+     */
+    private String getSetValueMethodName(HmDatapoint dp) {
+        return HmParamsetType.VALUES == dp.getParamsetType() ? "setValue" : "putParamset";
+    }
+
+    /**
+     * Returns the RPC arguments to set the value of the datapoint.
+     */
+    private List<Object> getSetValueArgs(HmDatapoint dp, Object value) {
         if (dp.isIntegerType() && value instanceof Double) {
             value = ((Number) value).intValue();
         }
 
-        RpcRequest<T> request;
+        List<Object> args = new ArrayList<Object>();
+        args.add(getRpcAddress(dp.getChannel().getDevice().getAddress()) + ":" + dp.getChannel().getNumber());
         if (HmParamsetType.VALUES == dp.getParamsetType()) {
-            request = createRpcRequest("setValue");
-            request.addArg(getRpcAddress(dp.getChannel().getDevice().getAddress()) + ":" + dp.getChannel().getNumber());
-            request.addArg(dp.getName());
-            request.addArg(value);
+            args.add(dp.getName());
+            args.add(value);
         } else {
-            request = createRpcRequest("putParamset");
-            request.addArg(getRpcAddress(dp.getChannel().getDevice().getAddress()) + ":" + dp.getChannel().getNumber());
-            request.addArg(HmParamsetType.MASTER.toString());
+            args.add(HmParamsetType.MASTER.toString());
             Map<String, Object> paramSet = new HashMap<String, Object>();
             paramSet.put(dp.getName(), value);
-            request.addArg(paramSet);
+            args.add(paramSet);
         }
-        sendMessage(config.getRpcPort(dp.getChannel()), request);
+        return args;
     }
 
     /**
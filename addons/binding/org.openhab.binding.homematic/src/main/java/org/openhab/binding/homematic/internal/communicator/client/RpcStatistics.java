@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects the time RPC calls wait for a free connection and the latency of the calls per method.
+ *
+ * @author agent - Initial contribution
+ */
+public class RpcStatistics {
+    private final Timing queueWait = new Timing();
+    private final Map<String, Timing> latencyByMethod = new ConcurrentHashMap<String, Timing>();
+
+    /**
+     * Records the time a call waited for a free connection.
+     */
+    public void recordQueueWait(long nanos) {
+        queueWait.record(nanos);
+    }
+
+    /**
+     * Records the latency of a call of the given method.
+     */
+    public void recordLatency(String methodName, long nanos) {
+        Timing timing = latencyByMethod.get(methodName);
+        if (timing == null) {
+            latencyByMethod.putIfAbsent(methodName, new Timing());
+            timing = latencyByMethod.get(methodName);
+        }
+        timing.record(nanos);
+    }
+
+    /**
+     * Returns the queue wait timing.
+     */
+    public Timing getQueueWait() {
+        return queueWait;
+    }
+
+    /**
+     * Returns the latency timings by method name.
+     */
+    public Map<String, Timing> getLatencyByMethod() {
+        return new TreeMap<String, Timing>(latencyByMethod);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("queueWait ").append(queueWait);
+        for (Map.Entry<String, Timing> entry : getLatencyByMethod().entrySet()) {
+            sb.append(", ").append(entry.getKey()).append(" ").append(entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Count, total and max of a timing.
+     */
+    public static class Timing {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            long max;
+            while (nanos > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, nanos)) {
+                // retry
+            }
+        }
+
+        /**
+         * Returns the number of recorded timings.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Returns the average in milliseconds.
+         */
+        public double getAverageMillis() {
+            long c = count.sum();
+            return c == 0 ? 0 : (double) totalNanos.sum() / c / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * Returns the maximum in milliseconds.
+         */
+        public double getMaxMillis() {
+            return (double) maxNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString() {
+            return String.format("count=%d avg=%.1fms max=%.1fms", getCount(), getAverageMillis(), getMaxMillis());
+        }
+    }
+}
@@ -11,22 +11,26 @@ package org.openhab.binding.homematic.internal.communicator.client;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Simple socket cache class.
+ * Socket pool with a bounded number of connections per port.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class SocketHandler {
     private final Logger logger = LoggerFactory.getLogger(SocketHandler.class);
+    public static final int MAX_CONNECTIONS_PER_PORT = 3;
 
-    private Map<Integer, SocketInfo> socketsPerPort = new HashMap<Integer, SocketInfo>();
+    private Map<Integer, SocketPool> poolsPerPort = new ConcurrentHashMap<Integer, SocketPool>();
     private HomematicConfig config;
 
     public SocketHandler(HomematicConfig config) {
@@ -34,55 +38,120 @@ public class SocketHandler {
     }
 
     /**
-     * Returns a socket for the given port, (re)creates it if required.
+     * Borrows a socket for the given port, waits until a connection is available and (re)creates it if required. The
+     * socket must be given back with {@link #returnSocket(int, SocketInfo)} or
+     * {@link #invalidateSocket(int, SocketInfo)}.
      */
-    public Socket getSocket(int port) throws IOException {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo == null) {
+    public SocketInfo borrowSocket(int port) throws IOException {
+        return borrowSocket(port, true);
+    }
+
+    /**
+     * Borrows a socket for the given port like {@link #borrowSocket(int)}, but always creates a new connection if
+     * reuse is false.
+     */
+    public SocketInfo borrowSocket(int port, boolean reuse) throws IOException {
+        SocketPool pool = getPool(port);
+        try {
+            if (!pool.permits.tryAcquire(config.getTimeout(), TimeUnit.SECONDS)) {
+                throw new IOException("Timeout waiting for a free connection on port " + port);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a free connection on port " + port, ex);
+        }
+
+        try {
+            SocketInfo socketInfo;
+            while (reuse && (socketInfo = pool.idleSockets.pollFirst()) != null) {
+                if (isHealthy(port, socketInfo)) {
+                    logger.trace("Returning socket for port {}", port);
+                    socketInfo.setReused(true);
+                    return socketInfo;
+                }
+                closeSilent(socketInfo.getSocket());
+            }
+
             logger.trace("Creating new socket for port {}", port);
             Socket socket = new Socket();
             socket.setSoTimeout(config.getTimeout() * 1000);
             socket.connect(new InetSocketAddress(config.getGatewayAddress(), port), socket.getSoTimeout());
-            socketInfo = new SocketInfo(socket);
-            socketsPerPort.put(port, socketInfo);
-        } else {
-            boolean isMaxAliveReached = System.currentTimeMillis()
-                    - socketInfo.getCreated() > (config.getSocketMaxAlive() * 1000);
-
-            if (isMaxAliveReached) {
-                logger.debug("Max alive time reached for socket on port {}", port);
-                removeSocket(port);
-                return getSocket(port);
-            }
-            logger.trace("Returning socket for port {}", port);
+            return new SocketInfo(socket);
+        } catch (IOException | RuntimeException ex) {
+            pool.permits.release();
+            throw ex;
         }
-        return socketInfo.getSocket();
     }
 
     /**
-     * Removes the socket for the given port from the cache.
+     * Gives a healthy socket back to the pool.
+     */
+    public void returnSocket(int port, SocketInfo socketInfo) {
+        SocketPool pool = getPool(port);
+        pool.idleSockets.offerFirst(socketInfo);
+        pool.permits.release();
+    }
+
+    /**
+     * Closes a broken socket and frees its connection slot.
+     */
+    public void invalidateSocket(int port, SocketInfo socketInfo) {
+        logger.trace("Closing Socket on port {}", port);
+        closeSilent(socketInfo.getSocket());
+        getPool(port).permits.release();
+    }
+
+    /**
+     * Closes all idle sockets for the given port.
      */
     public void removeSocket(int port) {
-        SocketInfo socketInfo = socketsPerPort.get(port);
-        if (socketInfo != null) {
-            logger.trace("Closing Socket on port {}", port);
-            socketsPerPort.remove(port);
-            closeSilent(socketInfo.getSocket());
+        SocketPool pool = poolsPerPort.get(port);
+        if (pool != null) {
+            SocketInfo socketInfo;
+            while ((socketInfo = pool.idleSockets.pollFirst()) != null) {
+                logger.trace("Closing Socket on port {}", port);
+                closeSilent(socketInfo.getSocket());
+            }
         }
     }
 
     /**
-     * Removes all cached sockets.
+     * Removes all idle sockets.
      */
     public void flush() {
-        synchronized (SocketHandler.class) {
-            Integer[] portsToRemove = socketsPerPort.keySet().toArray(new Integer[0]);
-            for (Integer key : portsToRemove) {
-                removeSocket(key);
-            }
+        for (Integer port : poolsPerPort.keySet()) {
+            removeSocket(port);
         }
     }
 
+    /**
+     * Returns true, if the socket is still connected and the max alive time is not reached. A connection closed by the
+     * server is not detected, see {@link BinRpcClient}.
+     */
+    private boolean isHealthy(int port, SocketInfo socketInfo) {
+        Socket socket = socketInfo.getSocket();
+        if (socket.isClosed() || !socket.isConnected() || socket.isInputShutdown() || socket.isOutputShutdown()) {
+            logger.debug("Discarding disconnected socket on port {}", port);
+            return false;
+        }
+        boolean isMaxAliveReached = System.currentTimeMillis() - socketInfo.getCreated() > (config.getSocketMaxAlive()
+                * 1000L);
+        if (isMaxAliveReached) {
+            logger.debug("Max alive time reached for socket on port {}", port);
+            return false;
+        }
+        return true;
+    }
+
+    private SocketPool getPool(int port) {
+        SocketPool pool = poolsPerPort.get(port);
+        if (pool == null) {
+            poolsPerPort.putIfAbsent(port, new SocketPool());
+            pool = poolsPerPort.get(port);
+        }
+        return pool;
+    }
+
     /**
      * Silently closes the given socket.
      */
@@ -93,4 +162,12 @@ public class SocketHandler {
             // ignore
         }
     }
+
+    /**
+     * The idle sockets and the free connection slots of a port.
+     */
+    private static class SocketPool {
+        private final Semaphore permits = new Semaphore(MAX_CONNECTIONS_PER_PORT, true);
+        private final ConcurrentLinkedDeque<SocketInfo> idleSockets = new ConcurrentLinkedDeque<SocketInfo>();
+    }
 }
@@ -18,6 +18,7 @@ import java.net.Socket;
 public class SocketInfo {
     private Socket socket;
     private long created;
+    private boolean reused;
 
     public SocketInfo(Socket socket) {
         this.socket = socket;
@@ -37,4 +38,18 @@ public class SocketInfo {
     public long getCreated() {
         return created;
     }
+
+    /**
+     * Returns true, if the socket has been taken from the pool instead of being newly created.
+     */
+    public boolean isReused() {
+        return reused;
+    }
+
+    /**
+     * Sets if the socket has been taken from the pool.
+     */
+    public void setReused(boolean reused) {
+        this.reused = reused;
+    }
 }
@@ -11,6 +11,7 @@ package org.openhab.binding.homematic.internal.communicator.client;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.ContentResponse;
@@ -37,6 +38,7 @@ public class XmlRpcClient extends RpcClient<String> {
         super(config);
         httpClient = new HttpClient();
         httpClient.setConnectTimeout(config.getTimeout() * 1000L);
+        httpClient.setMaxConnectionsPerDestination(SocketHandler.MAX_CONNECTIONS_PER_PORT);
 
         try {
             httpClient.start();
@@ -50,6 +52,7 @@ public class XmlRpcClient extends RpcClient<String> {
      */
     @Override
     public void dispose() {
+        logger.debug("XmlRpcClient statistics: {}", statistics);
         if (httpClient != null) {
             httpClient.destroy();
         }
@@ -75,7 +78,7 @@ public class XmlRpcClient extends RpcClient<String> {
      * {@inheritDoc}
      */
     @Override
-    protected synchronized Object[] sendMessage(int port, RpcRequest<String> request) throws IOException {
+    protected Object[] sendMessage(int port, RpcRequest<String> request) throws IOException {
         if (logger.isTraceEnabled()) {
             logger.trace("Client XmlRpcRequest (port {}):\n{}", port, request);
         }
@@ -85,8 +88,7 @@ public class XmlRpcClient extends RpcClient<String> {
     /**
      * Sends the message, retries if there was an error.
      */
-    private synchronized Object[] sendMessage(int port, RpcRequest<String> request, int rpcRetryCounter)
-            throws IOException {
+    private Object[] sendMessage(int port, RpcRequest<String> request, int rpcRetryCounter) throws IOException {
         try {
             BytesContentProvider content = new BytesContentProvider(
                     request.createMessage().getBytes(config.getEncoding()));
@@ -94,17 +96,23 @@ public class XmlRpcClient extends RpcClient<String> {
             if (port == config.getGroupPort()) {
                 url += "/groups";
             }
+            // the HttpClient queues the request until one of the connections to the port is free
+            long start = System.nanoTime();
+            AtomicLong sent = new AtomicLong(start);
             ContentResponse response = httpClient.POST(url).content(content)
                     .timeout(config.getTimeout(), TimeUnit.SECONDS)
-                    .header(HttpHeader.CONTENT_TYPE, "text/xml;charset=" + config.getEncoding()).send();
+                    .header(HttpHeader.CONTENT_TYPE, "text/xml;charset=" + config.getEncoding())
+                    .onRequestBegin(req -> sent.set(System.nanoTime())).send();
+            statistics.recordQueueWait(sent.get() - start);
+            statistics.recordLatency(request.getMethodName(), System.nanoTime() - sent.get());
 
-            String result = new String(response.getContent(), config.getEncoding());
+            byte[] result = response.getContent();
             if (logger.isTraceEnabled()) {
-                logger.trace("Client XmlRpcResponse (port {}):\n{}", port, result);
+                logger.trace("Client XmlRpcResponse (port {}):\n{}", port, new String(result, config.getEncoding()));
             }
 
-            Object[] data = new XmlRpcResponse(new ByteArrayInputStream(result.getBytes(config.getEncoding())),
-                    config.getEncoding()).getResponseData();
+            Object[] data = new XmlRpcResponse(new ByteArrayInputStream(result), config.getEncoding())
+                    .getResponseData();
             return new RpcResponseParser(request).parse(data);
         } catch (UnknownRpcFailureException | UnknownParameterSetException ex) {
             throw ex;
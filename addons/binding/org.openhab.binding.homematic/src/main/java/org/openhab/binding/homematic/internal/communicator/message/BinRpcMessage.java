@@ -8,6 +8,9 @@
  */
 package org.openhab.binding.homematic.internal.communicator.message;
 
+import static org.openhab.binding.homematic.internal.misc.HomematicConstants.RPC_METHODNAME_EVENT;
+
+import java.io.DataInputStream;
 import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -19,14 +22,11 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.lang.ArrayUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -50,7 +50,9 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     private String methodName;
     private TYPE type;
     private int args;
+    private int argsOffset;
     private String encoding;
+    private boolean decoded;
 
     public BinRpcMessage(String methodName, String encoding) {
         this(methodName, TYPE.REQUEST, encoding);
@@ -70,20 +72,31 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
      * Decodes a BIN-RPC message from the given InputStream.
      */
     public BinRpcMessage(InputStream is, boolean methodHeader, String encoding) throws IOException {
+        this(is, methodHeader, true, encoding);
+    }
+
+    /**
+     * Decodes a BIN-RPC message from the given InputStream. If decodeData is false, only the method name is decoded,
+     * the data can be decoded later with {@link #decodeResponseData()} or {@link #visitMulticall(RpcMulticallVisitor)}.
+     */
+    public BinRpcMessage(InputStream is, boolean methodHeader, boolean decodeData, String encoding)
+            throws IOException {
         this.encoding = encoding;
+        DataInputStream dis = new DataInputStream(is);
         byte sig[] = new byte[8];
-        int length = is.read(sig, 0, 4);
-        if (length != 4) {
-            throw new EOFException("Only " + length + " bytes received reading signature");
-        }
+        dis.readFully(sig, 0, 4);
         validateBinXSignature(sig);
-        length = is.read(sig, 4, 4);
-        if (length != 4) {
-            throw new EOFException("Only " + length + " bytes received reading message length");
+        int datasize = dis.readInt();
+        if (datasize < 0) {
+            throw new IOException("Invalid BIN-RPC message length " + datasize);
         }
-        int datasize = (new BigInteger(ArrayUtils.subarray(sig, 4, 8))).intValue();
-        byte[] message = ArrayUtils.addAll(sig, IOUtils.toByteArray(is, datasize));
-        decodeMessage(message, methodHeader);
+
+        // read the header and the payload into one exactly sized array, no intermediate copies
+        byte[] message = new byte[8 + datasize];
+        System.arraycopy(sig, 0, message, 0, 4);
+        setInt(message, 4, datasize);
+        dis.readFully(message, 8, datasize);
+        decodeMessage(message, methodHeader, decodeData);
     }
 
     private void validateBinXSignature(byte[] sig) throws UnsupportedEncodingException {
@@ -101,11 +114,12 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             throw new EOFException("Only " + message.length + " bytes received");
         }
         validateBinXSignature(message);
-        decodeMessage(message, methodHeader);
+        decodeMessage(message, methodHeader, true);
     }
 
-    private void decodeMessage(byte[] message, boolean methodHeader) throws IOException {
+    private void decodeMessage(byte[] message, boolean methodHeader, boolean decodeData) throws IOException {
         binRpcData = message;
+        decoded = true;
 
         offset = 8;
 
@@ -113,15 +127,20 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             methodName = readString();
             readInt();
         }
-        generateResponseData();
+        if (decodeData) {
+            decodeResponseData();
+        }
     }
 
     public void setType(TYPE type) {
         binRpcData[3] = type == TYPE.RESPONSE ? (byte) 1 : (byte) 0;
     }
 
-    private void generateResponseData() throws IOException {
-        offset = 8 + (methodName != null ? methodName.length() + 8 : 0);
+    /**
+     * Decodes the data of the message into Object[], Map and scalar values.
+     */
+    public void decodeResponseData() throws IOException {
+        skipHeader();
         List<Object> values = new ArrayList<Object>();
         while (offset < binRpcData.length) {
             values.add(readRpcValue());
@@ -130,14 +149,93 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
         values.clear();
     }
 
+    private void skipHeader() {
+        offset = 8;
+        if (methodName != null) {
+            // skip the method name and the argument count
+            int methodNameLength = readInt();
+            offset += methodNameLength + 4;
+        }
+    }
+
+    /**
+     * Decodes the calls of a system.multicall one after the other and hands them over to the visitor, without
+     * building the Object[] and Map trees of the whole message. Event calls are handed over with their scalar
+     * arguments, all other calls with their decoded parameters.
+     */
+    public void visitMulticall(RpcMulticallVisitor visitor) throws IOException {
+        skipHeader();
+        if (offset >= binRpcData.length) {
+            return;
+        }
+        int type = readInt();
+        if (type != 0x100) {
+            throw new IOException("Unexpected multicall data type " + type);
+        }
+        int numCalls = readInt();
+        while (numCalls-- > 0) {
+            visitCall(visitor);
+        }
+    }
+
+    private void visitCall(RpcMulticallVisitor visitor) throws IOException {
+        int type = readInt();
+        if (type != 0x101) {
+            throw new IOException("Unexpected multicall call type " + type);
+        }
+        int numElements = readInt();
+        String callMethodName = null;
+        Object[] params = null;
+        boolean visited = false;
+        while (numElements-- > 0) {
+            String name = readString();
+            if ("methodName".equals(name)) {
+                callMethodName = String.valueOf(readRpcValue());
+            } else if ("params".equals(name)) {
+                if (RPC_METHODNAME_EVENT.equals(callMethodName) && visitEvent(visitor)) {
+                    visited = true;
+                } else {
+                    Object value = readRpcValue();
+                    params = value instanceof Object[] ? (Object[]) value : new Object[] { value };
+                }
+            } else {
+                readRpcValue();
+            }
+        }
+        if (!visited && callMethodName != null) {
+            visitor.methodCall(callMethodName, params == null ? new Object[0] : params);
+        }
+    }
+
+    /**
+     * Reads the parameters of an event call without creating an array for them. Returns false and leaves the
+     * parameters unread if they are not the expected interface id, address, key and value.
+     */
+    private boolean visitEvent(RpcMulticallVisitor visitor) throws IOException {
+        int start = offset;
+        if (readInt() != 0x100 || readInt() != 4) {
+            offset = start;
+            return false;
+        }
+        Object interfaceId = readRpcValue();
+        Object address = readRpcValue();
+        Object key = readRpcValue();
+        if (!(interfaceId instanceof String) || !(address instanceof String) || !(key instanceof String)) {
+            offset = start;
+            return false;
+        }
+        visitor.event((String) interfaceId, (String) address, (String) key, readRpcValue());
+        return true;
+    }
+
     private void createHeader() {
         binRpcData = new byte[256];
         addString("Bin ");
         setType(type);
         addInt(0); // placeholder content length
         if (methodName != null) {
-            addInt(methodName.length());
-            addString(methodName);
+            addLengthPrefixedString(methodName);
+            argsOffset = offset;
             addInt(0); // placeholder arguments
         }
         setInt(4, offset - 8);
@@ -152,7 +250,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
         setInt(4, offset - 8);
 
         if (methodName != null) {
-            setInt(12 + methodName.length(), ++args);
+            setInt(argsOffset, ++args);
         }
     }
 
@@ -190,10 +288,10 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
 
     // read rpc values
     private int readInt() {
-        byte bi[] = new byte[4];
-        System.arraycopy(binRpcData, offset, bi, 0, 4);
+        int value = ((binRpcData[offset] & 0xff) << 24) | ((binRpcData[offset + 1] & 0xff) << 16)
+                | ((binRpcData[offset + 2] & 0xff) << 8) | (binRpcData[offset + 3] & 0xff);
         offset += 4;
-        return (new BigInteger(bi)).intValue();
+        return value;
     }
 
     private String readString() throws UnsupportedEncodingException {
@@ -206,7 +304,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
         int type = readInt();
         switch (type) {
             case 1:
-                return new Integer(readInt());
+                return Integer.valueOf(readInt());
             case 2:
                 return binRpcData[offset++] != 0 ? Boolean.TRUE : Boolean.FALSE;
             case 3:
@@ -214,22 +312,21 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             case 4:
                 int mantissa = readInt();
                 int exponent = readInt();
-                BigDecimal bd = new BigDecimal((double) mantissa / (double) (1 << 30) * Math.pow(2, exponent));
-                return bd.setScale(6, RoundingMode.HALF_DOWN).doubleValue();
+                return roundHalfDown(Math.scalb((double) mantissa, exponent - 30));
             case 5:
-                return new Date(readInt() * 1000);
+                return new Date(readInt() * 1000L);
             case 0x100:
                 // Array
                 int numElements = readInt();
-                Collection<Object> array = new ArrayList<Object>();
-                while (numElements-- > 0) {
-                    array.add(readRpcValue());
+                Object[] array = new Object[numElements];
+                for (int i = 0; i < numElements; i++) {
+                    array[i] = readRpcValue();
                 }
-                return array.toArray();
+                return array;
             case 0x101:
                 // Struct
                 numElements = readInt();
-                Map<String, Object> struct = new TreeMap<String, Object>();
+                Map<String, Object> struct = new HashMap<String, Object>((int) (numElements / 0.75f) + 1);
                 while (numElements-- > 0) {
                     String name = readString();
                     struct.put(name, readRpcValue());
@@ -244,27 +341,45 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
         }
     }
 
+    /**
+     * Rounds the value to six decimal places, ties towards zero, like BigDecimal with RoundingMode.HALF_DOWN.
+     */
+    private static double roundHalfDown(double value) {
+        double scaled = Math.abs(value) * 1000000d;
+        double floor = Math.floor(scaled);
+        double rounded = scaled - floor > 0.5d ? floor + 1 : floor;
+        return Math.copySign(rounded / 1000000d, value);
+    }
+
     private void setInt(int position, int value) {
-        int temp = offset;
-        offset = position;
-        addInt(value);
-        offset = temp;
+        setInt(binRpcData, position, value);
     }
 
-    private void addByte(byte b) {
-        if (offset == binRpcData.length) {
-            byte newdata[] = new byte[binRpcData.length * 2];
-            System.arraycopy(binRpcData, 0, newdata, 0, binRpcData.length);
+    private static void setInt(byte[] data, int position, int value) {
+        data[position] = (byte) (value >> 24);
+        data[position + 1] = (byte) (value >> 16);
+        data[position + 2] = (byte) (value >> 8);
+        data[position + 3] = (byte) (value);
+    }
+
+    private void ensureCapacity(int additional) {
+        int required = offset + additional;
+        if (required > binRpcData.length) {
+            byte newdata[] = new byte[Math.max(binRpcData.length * 2, required)];
+            System.arraycopy(binRpcData, 0, newdata, 0, offset);
             binRpcData = newdata;
         }
+    }
+
+    private void addByte(byte b) {
+        ensureCapacity(1);
         binRpcData[offset++] = b;
     }
 
     private void addInt(int value) {
-        addByte((byte) (value >> 24));
-        addByte((byte) (value >> 16));
-        addByte((byte) (value >> 8));
-        addByte((byte) (value));
+        ensureCapacity(4);
+        setInt(offset, value);
+        offset += 4;
     }
 
     private void addDouble(double value) {
@@ -290,17 +405,32 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     }
 
     private void addString(String string) {
-        byte sd[];
+        addBytes(encode(string));
+    }
+
+    /**
+     * Adds the string prefixed with the length of its encoded bytes.
+     */
+    private void addLengthPrefixedString(String string) {
+        byte sd[] = encode(string);
+        addInt(sd.length);
+        addBytes(sd);
+    }
+
+    private byte[] encode(String string) {
         try {
-            sd = string.getBytes(encoding);
+            return string.getBytes(encoding);
         } catch (UnsupportedEncodingException use) {
-            sd = string.getBytes();
-        }
-        for (byte ch : sd) {
-            addByte(ch);
+            return string.getBytes();
         }
     }
 
+    private void addBytes(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, binRpcData, offset, bytes.length);
+        offset += bytes.length;
+    }
+
     private void addList(Collection<?> collection) {
         for (Object object : collection) {
             addObject(object);
@@ -310,9 +440,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     private void addObject(Object object) {
         if (object.getClass() == String.class) {
             addInt(3);
-            String string = (String) object;
-            addInt(string.length());
-            addString(string);
+            addLengthPrefixedString((String) object);
         } else if (object.getClass() == Boolean.class) {
             addInt(2);
             addByte(((Boolean) object).booleanValue() ? (byte) 1 : (byte) 0);
@@ -334,7 +462,7 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             addDouble(((BigInteger) object).doubleValue());
         } else if (object.getClass() == Date.class) {
             addInt(5);
-            addInt((int) ((Date) object).getTime() / 1000);
+            addInt((int) (((Date) object).getTime() / 1000));
         } else if (object instanceof List<?>) {
             Collection<?> list = (Collection<?>) object;
             addInt(0x100);
@@ -345,10 +473,8 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
             addInt(0x101);
             addInt(map.size());
             for (Map.Entry<?, ?> entry : map.entrySet()) {
-                String key = (String) entry.getKey();
-                addInt(key.length());
-                addString(key);
-                addList(Collections.singleton(entry.getValue()));
+                addLengthPrefixedString((String) entry.getKey());
+                addObject(entry.getValue());
             }
         }
     }
@@ -360,8 +486,10 @@ public class BinRpcMessage implements RpcRequest<byte[]>, RpcResponse {
     @Override
     public String toString() {
         try {
-            trimBinRpcData();
-            generateResponseData();
+            if (!decoded) {
+                trimBinRpcData();
+            }
+            decodeResponseData();
             return RpcUtils.dumpRpcMessage(methodName, messageData);
         } catch (Exception e) {
             throw new RuntimeException(e.getMessage(), e);
@@ -0,0 +1,29 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.message;
+
+import java.io.IOException;
+
+/**
+ * Receives the calls of a system.multicall while the message is decoded.
+ *
+ * @author agent - Initial contribution
+ */
+public interface RpcMulticallVisitor {
+
+    /**
+     * Called for an event call with its decoded arguments.
+     */
+    public void event(String interfaceId, String addressWithChannel, String key, Object value) throws IOException;
+
+    /**
+     * Called for any other call with its decoded parameters.
+     */
+    public void methodCall(String methodName, Object[] params) throws IOException;
+}
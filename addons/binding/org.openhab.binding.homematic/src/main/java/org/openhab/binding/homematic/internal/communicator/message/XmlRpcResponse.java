@@ -33,6 +33,9 @@ import org.xml.sax.helpers.DefaultHandler;
  * @author Gerhard Riegler - Initial contribution
  */
 public class XmlRpcResponse implements RpcResponse {
+    private static final SAXParserFactory SAX_PARSER_FACTORY = SAXParserFactory.newInstance();
+    private static final ThreadLocal<SAXParser> SAX_PARSER = new ThreadLocal<SAXParser>();
+
     private String methodName;
     private Object[] responseData;
 
@@ -41,11 +44,28 @@ public class XmlRpcResponse implements RpcResponse {
      */
     public XmlRpcResponse(InputStream is, String encoding)
             throws SAXException, ParserConfigurationException, IOException {
-        SAXParserFactory factory = SAXParserFactory.newInstance();
-        SAXParser saxParser = factory.newSAXParser();
+        SAXParser saxParser = getSaxParser();
         InputSource inputSource = new InputSource(is);
         inputSource.setEncoding(encoding);
-        saxParser.parse(inputSource, new XmlRpcHandler());
+        try {
+            saxParser.parse(inputSource, new XmlRpcHandler());
+        } finally {
+            saxParser.reset();
+        }
+    }
+
+    /**
+     * Returns the SAX parser of the current thread, parsers are not thread safe but can be reused after a reset.
+     */
+    private static SAXParser getSaxParser() throws ParserConfigurationException, SAXException {
+        SAXParser saxParser = SAX_PARSER.get();
+        if (saxParser == null) {
+            synchronized (SAX_PARSER_FACTORY) {
+                saxParser = SAX_PARSER_FACTORY.newSAXParser();
+            }
+            SAX_PARSER.set(saxParser);
+        }
+        return saxParser;
     }
 
     /**
@@ -81,7 +101,7 @@ public class XmlRpcResponse implements RpcResponse {
     private class XmlRpcHandler extends DefaultHandler {
         private List<Object> result = new ArrayList<Object>();
         private LinkedList<List<Object>> currentDataObject = new LinkedList<List<Object>>();
-        private StringBuilder tagValue;
+        private StringBuilder tagValue = new StringBuilder();
         private boolean isValueTag;
 
         /**
@@ -112,7 +132,7 @@ public class XmlRpcResponse implements RpcResponse {
                 currentDataObject.addLast(new ArrayList<Object>());
             }
             isValueTag = tag.equals("value");
-            tagValue = new StringBuilder();
+            tagValue.setLength(0);
         }
 
         /**
@@ -130,15 +150,18 @@ public class XmlRpcResponse implements RpcResponse {
                     break;
                 case "int":
                 case "i4":
-                    data.add(new Integer(currentValue));
+                    data.add(Integer.valueOf(currentValue));
                     break;
                 case "double":
-                    data.add(new Double(currentValue));
+                    data.add(Double.valueOf(currentValue));
                     break;
                 case "string":
-                case "name":
                     data.add(currentValue);
                     break;
+                case "name":
+                    // struct member names are repeated in every message
+                    data.add(currentValue.intern());
+                    break;
                 case "value":
                     if (isValueTag) {
                         data.add(currentValue);
@@ -169,7 +192,7 @@ public class XmlRpcResponse implements RpcResponse {
                     }
                     break;
                 case "methodname":
-                    methodName = currentValue;
+                    methodName = currentValue.intern();
                     break;
                 case "params":
                 case "param":
@@ -189,7 +212,7 @@ public class XmlRpcResponse implements RpcResponse {
          */
         @Override
         public void characters(char[] ch, int start, int length) throws SAXException {
-            tagValue.append(new String(ch, start, length));
+            tagValue.append(ch, start, length);
         }
 
     }
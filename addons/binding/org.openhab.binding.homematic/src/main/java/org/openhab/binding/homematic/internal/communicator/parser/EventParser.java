@@ -30,9 +30,16 @@ public class EventParser extends CommonRpcParser<Object[], HmDatapointInfo> {
      */
     @Override
     public HmDatapointInfo parse(Object[] message) throws IOException {
+        return parse(message[1], message[2], message[3]);
+    }
+
+    /**
+     * Parses the address, datapoint name and value of an event.
+     */
+    public HmDatapointInfo parse(Object addressWithChannelObject, Object nameObject, Object value) {
         String address;
         Integer channel = 0;
-        String addressWithChannel = toString(message[1]);
+        String addressWithChannel = toString(addressWithChannelObject);
         if ("".equals(addressWithChannel)) {
             address = HmDevice.ADDRESS_GATEWAY_EXTRAS;
             channel = HmChannel.CHANNEL_NUMBER_VARIABLE;
@@ -44,8 +51,8 @@ public class EventParser extends CommonRpcParser<Object[], HmDatapointInfo> {
             }
         }
 
-        String name = toString(message[2]);
-        value = message[3];
+        String name = toString(nameObject);
+        this.value = value;
 
         return new HmDatapointInfo(address, HmParamsetType.VALUES, channel, name);
     }
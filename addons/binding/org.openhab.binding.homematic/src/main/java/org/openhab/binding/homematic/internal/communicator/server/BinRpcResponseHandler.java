@@ -8,12 +8,15 @@
  */
 package org.openhab.binding.homematic.internal.communicator.server;
 
+import static org.openhab.binding.homematic.internal.misc.HomematicConstants.RPC_METHODNAME_SYSTEM_MULTICALL;
+
 import java.io.EOFException;
 import java.io.IOException;
 import java.net.Socket;
 
 import org.openhab.binding.homematic.internal.common.HomematicConfig;
 import org.openhab.binding.homematic.internal.communicator.message.BinRpcMessage;
+import org.openhab.binding.homematic.internal.communicator.message.RpcMulticallVisitor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,10 +44,28 @@ public class BinRpcResponseHandler implements Runnable {
     @Override
     public void run() {
         try {
-            BinRpcMessage message = new BinRpcMessage(socket.getInputStream(), true, config.getEncoding());
+            BinRpcMessage message = new BinRpcMessage(socket.getInputStream(), true, false, config.getEncoding());
             logger.trace("Event BinRpcMessage: {}", message);
-            byte[] returnValue = rpcResponseHandler.handleMethodCall(message.getMethodName(),
-                    message.getResponseData());
+            byte[] returnValue;
+            if (RPC_METHODNAME_SYSTEM_MULTICALL.equals(message.getMethodName())) {
+                // the CCU sends its events as multicall, dispatch them while decoding
+                message.visitMulticall(new RpcMulticallVisitor() {
+
+                    @Override
+                    public void event(String interfaceId, String addressWithChannel, String key, Object value) {
+                        rpcResponseHandler.handleEvent(addressWithChannel, key, value);
+                    }
+
+                    @Override
+                    public void methodCall(String methodName, Object[] params) throws IOException {
+                        rpcResponseHandler.handleMethodCall(methodName, params);
+                    }
+                });
+                returnValue = rpcResponseHandler.getMulticallResult();
+            } else {
+                message.decodeResponseData();
+                returnValue = rpcResponseHandler.handleMethodCall(message.getMethodName(), message.getResponseData());
+            }
             if (returnValue != null) {
                 socket.getOutputStream().write(returnValue);
             }
@@ -70,6 +70,22 @@ public abstract class RpcResponseHandler<T> {
         }
     }
 
+    /**
+     * Populates an event of a system.multicall, which has been decoded call by call, to the listener.
+     */
+    public void handleEvent(String addressWithChannel, String key, Object value) {
+        EventParser eventParser = new EventParser();
+        HmDatapointInfo dpInfo = eventParser.parse(addressWithChannel, key, value);
+        listener.eventReceived(dpInfo, value);
+    }
+
+    /**
+     * Returns the result of a system.multicall whose calls have been handled one by one.
+     */
+    public T getMulticallResult() {
+        return getEmptyEventListResult();
+    }
+
     /**
      * Creates a BINRPC message with the supported method names.
      */
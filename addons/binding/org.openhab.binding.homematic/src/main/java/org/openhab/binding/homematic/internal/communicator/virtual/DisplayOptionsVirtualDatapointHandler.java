@@ -69,19 +69,22 @@ public class DisplayOptionsVirtualDatapointHandler extends AbstractVirtualDatapo
         DisplayOptionsParser rcOptionsParser = new DisplayOptionsParser(channel);
         rcOptionsParser.parse(value);
 
-        if (StringUtils.isNotBlank(rcOptionsParser.getText())) {
-            sendDatapoint(gateway, channel, DATAPOINT_NAME_TEXT, rcOptionsParser.getText());
-        }
+        // all options are sent with one request, SUBMIT last
+        gateway.sendDatapointBatch(() -> {
+            if (StringUtils.isNotBlank(rcOptionsParser.getText())) {
+                sendDatapoint(gateway, channel, DATAPOINT_NAME_TEXT, rcOptionsParser.getText());
+            }
 
-        sendDatapoint(gateway, channel, DATAPOINT_NAME_BEEP, rcOptionsParser.getBeep());
-        sendDatapoint(gateway, channel, DATAPOINT_NAME_UNIT, rcOptionsParser.getUnit());
-        sendDatapoint(gateway, channel, DATAPOINT_NAME_BACKLIGHT, rcOptionsParser.getBacklight());
+            sendDatapoint(gateway, channel, DATAPOINT_NAME_BEEP, rcOptionsParser.getBeep());
+            sendDatapoint(gateway, channel, DATAPOINT_NAME_UNIT, rcOptionsParser.getUnit());
+            sendDatapoint(gateway, channel, DATAPOINT_NAME_BACKLIGHT, rcOptionsParser.getBacklight());
 
-        for (String symbol : rcOptionsParser.getSymbols()) {
-            sendDatapoint(gateway, channel, symbol, Boolean.TRUE);
-        }
+            for (String symbol : rcOptionsParser.getSymbols()) {
+                sendDatapoint(gateway, channel, symbol, Boolean.TRUE);
+            }
 
-        sendDatapoint(gateway, channel, DATAPOINT_NAME_SUBMIT, Boolean.TRUE);
+            sendDatapoint(gateway, channel, DATAPOINT_NAME_SUBMIT, Boolean.TRUE);
+        });
         dp.setValue(value);
     }
 
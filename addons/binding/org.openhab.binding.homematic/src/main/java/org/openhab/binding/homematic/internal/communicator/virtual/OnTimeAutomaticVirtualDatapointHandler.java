@@ -85,14 +85,17 @@ public class OnTimeAutomaticVirtualDatapointHandler extends AbstractVirtualDatap
             HmChannel channel = dp.getChannel();
             HmDatapoint dpOnTime = channel
                     .getDatapoint(HmDatapointInfo.createValuesInfo(channel, DATAPOINT_NAME_ON_TIME));
-            if (dpOnTime != null) {
-                gateway.sendDatapoint(dpOnTime, new HmDatapointConfig(), getVirtualDatapointValue(channel));
-            } else {
-                logger.warn(
-                        "Can't find ON_TIME datapoint in channel '{}' in device '{}', ignoring virtual datapoint '{}'",
-                        channel.getNumber(), channel.getDevice().getAddress(), getName());
-            }
-            gateway.sendDatapointIgnoreVirtual(dp, dpConfig, value);
+            // ON_TIME and the switched datapoint are sent with one request, ON_TIME first
+            gateway.sendDatapointBatch(() -> {
+                if (dpOnTime != null) {
+                    gateway.sendDatapoint(dpOnTime, new HmDatapointConfig(), getVirtualDatapointValue(channel));
+                } else {
+                    logger.warn("Can't find ON_TIME datapoint in channel '{}' in device '{}', "
+                            + "ignoring virtual datapoint '{}'", channel.getNumber(), channel.getDevice().getAddress(),
+                            getName());
+                }
+                gateway.sendDatapointIgnoreVirtual(dp, dpConfig, value);
+            });
         } else {
             dp.setValue(value);
         }
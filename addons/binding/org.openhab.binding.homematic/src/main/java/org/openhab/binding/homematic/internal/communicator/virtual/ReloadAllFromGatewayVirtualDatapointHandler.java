@@ -11,6 +11,7 @@ package org.openhab.binding.homematic.internal.communicator.virtual;
 import static org.openhab.binding.homematic.internal.misc.HomematicConstants.VIRTUAL_DATAPOINT_NAME_RELOAD_ALL_FROM_GATEWAY;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 
 import org.openhab.binding.homematic.internal.communicator.AbstractHomematicGateway;
 import org.openhab.binding.homematic.internal.misc.HomematicClientException;
@@ -22,11 +23,13 @@ import org.openhab.binding.homematic.internal.model.HmDevice;
 import org.openhab.binding.homematic.internal.model.HmValueType;
 
 /**
- * A virtual Switch datapoint which reloads all device values from the gateway.
+ * A virtual Switch datapoint which reloads all device values from the gateway, which have neither been loaded nor
+ * updated by an event within the last five minutes.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class ReloadAllFromGatewayVirtualDatapointHandler extends AbstractVirtualDatapointHandler {
+    private static final long STALE_VALUES_AGE = TimeUnit.MINUTES.toMillis(5);
 
     /**
      * {@inheritDoc}
@@ -63,7 +66,7 @@ public class ReloadAllFromGatewayVirtualDatapointHandler extends AbstractVirtual
         dp.setValue(value);
         if (MiscUtils.isTrueValue(dp.getValue())) {
             try {
-                gateway.getGatewayAdapter().reloadAllDeviceValues();
+                gateway.getGatewayAdapter().reloadStaleDeviceValues(System.currentTimeMillis() - STALE_VALUES_AGE);
             } finally {
                 gateway.disableDatapoint(dp, AbstractHomematicGateway.DEFAULT_DISABLE_DELAY);
             }
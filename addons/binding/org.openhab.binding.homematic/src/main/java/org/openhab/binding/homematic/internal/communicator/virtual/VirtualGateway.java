@@ -10,6 +10,7 @@ package org.openhab.binding.homematic.internal.communicator.virtual;
 
 import java.io.IOException;
 
+import org.openhab.binding.homematic.internal.communicator.DatapointWriteCoalescer.WriteBatch;
 import org.openhab.binding.homematic.internal.communicator.HomematicGateway;
 import org.openhab.binding.homematic.internal.communicator.HomematicGatewayAdapter;
 import org.openhab.binding.homematic.internal.communicator.client.RpcClient;
@@ -31,6 +32,11 @@ public interface VirtualGateway extends HomematicGateway {
     public void sendDatapointIgnoreVirtual(HmDatapoint dp, HmDatapointConfig dpConfig, Object newValue)
             throws IOException, HomematicClientException;
 
+    /**
+     * Executes the batch and sends the datapoints it sets per channel with one request, when the batch returns.
+     */
+    public void sendDatapointBatch(WriteBatch batch) throws IOException, HomematicClientException;
+
     /**
      * Returns the rpc client.
      */
@@ -9,24 +9,32 @@
 package org.openhab.binding.homematic.internal.misc;
 
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.openhab.binding.homematic.internal.model.HmDatapointInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Executes a callback method either immediately or after a given delay for a datapoint.
+ * Executes a callback method either immediately or after a given delay for a datapoint. A new delayed event for a
+ * datapoint replaces the pending one, all delayed events share one scheduled thread pool.
  *
  * @author Gerhard Riegler - Initial contribution
  */
 public class DelayedExecuter {
     private final Logger logger = LoggerFactory.getLogger(DelayedExecuter.class);
+    private static final String DELAYED_EXECUTER_POOL_NAME = "homematicDelay";
 
-    private Map<HmDatapointInfo, Timer> delayedEvents = new HashMap<HmDatapointInfo, Timer>();
+    private Map<HmDatapointInfo, DelayedEvent> delayedEvents = new ConcurrentHashMap<HmDatapointInfo, DelayedEvent>();
+    private LongAdder coalescedEvents = new LongAdder();
+    private LongAdder executedEvents = new LongAdder();
+    private AtomicLong lastFireLatency = new AtomicLong();
 
     /**
      * Executes a callback method either immediately or after a given delay.
@@ -34,29 +42,31 @@ public class DelayedExecuter {
     public void start(final HmDatapointInfo dpInfo, final double delay, final DelayedExecuterCallback callback)
             throws IOException, HomematicClientException {
         if (delay > 0.0) {
-            synchronized (DelayedExecuter.class) {
-                logger.debug("Delaying event for {} seconds: '{}'", delay, dpInfo);
+            logger.debug("Delaying event for {} seconds: '{}'", delay, dpInfo);
+            final long delayMillis = (long) (delay * 1000);
 
-                Timer timer = delayedEvents.get(dpInfo);
-                if (timer != null) {
-                    timer.cancel();
+            delayedEvents.compute(dpInfo, (info, pendingEvent) -> {
+                if (pendingEvent != null) {
+                    pendingEvent.future.cancel(false);
+                    coalescedEvents.increment();
                 }
-
-                timer = new Timer();
-                delayedEvents.put(dpInfo, timer);
-                timer.schedule(new TimerTask() {
-                    @Override
-                    public void run() {
-                        logger.debug("Executing delayed event for '{}'", dpInfo);
-                        delayedEvents.remove(dpInfo);
-                        try {
-                            callback.execute();
-                        } catch (Exception ex) {
-                            logger.error("{}", ex.getMessage(), ex);
-                        }
+                DelayedEvent delayedEvent = new DelayedEvent(System.currentTimeMillis() + delayMillis);
+                delayedEvent.future = ThreadPoolManager.getScheduledPool(DELAYED_EXECUTER_POOL_NAME).schedule(() -> {
+                    if (!delayedEvents.remove(dpInfo, delayedEvent)) {
+                        // replaced by a newer event
+                        return;
+                    }
+                    lastFireLatency.set(System.currentTimeMillis() - delayedEvent.dueTime);
+                    executedEvents.increment();
+                    logger.debug("Executing delayed event for '{}'", dpInfo);
+                    try {
+                        callback.execute();
+                    } catch (Exception ex) {
+                        logger.error("{}", ex.getMessage(), ex);
                     }
-                }, (long) (delay * 1000));
-            }
+                }, delayMillis, TimeUnit.MILLISECONDS);
+                return delayedEvent;
+            });
         } else {
             callback.execute();
         }
@@ -66,12 +76,54 @@ public class DelayedExecuter {
      * Stops all delayed events.
      */
     public void stop() {
-        for (Timer timer : delayedEvents.values()) {
-            timer.cancel();
+        logger.debug("Stopping delayed executer: {} pending, {} executed, {} coalesced, last fire latency {} ms",
+                getPendingEventCount(), getExecutedEventCount(), getCoalescedEventCount(), getLastFireLatency());
+        for (DelayedEvent delayedEvent : delayedEvents.values()) {
+            delayedEvent.future.cancel(false);
         }
         delayedEvents.clear();
     }
 
+    /**
+     * Returns the number of pending delayed events.
+     */
+    public int getPendingEventCount() {
+        return delayedEvents.size();
+    }
+
+    /**
+     * Returns the number of delayed events which have been replaced by a newer event for the same datapoint.
+     */
+    public long getCoalescedEventCount() {
+        return coalescedEvents.sum();
+    }
+
+    /**
+     * Returns the number of executed delayed events.
+     */
+    public long getExecutedEventCount() {
+        return executedEvents.sum();
+    }
+
+    /**
+     * Returns the milliseconds the last delayed event has been executed after its due time.
+     */
+    public long getLastFireLatency() {
+        return lastFireLatency.get();
+    }
+
+    /**
+     * A pending delayed event with its due time.
+     */
+    private static class DelayedEvent {
+        private final long dueTime;
+        private ScheduledFuture<?> future;
+
+        public DelayedEvent(long dueTime) {
+            this.dueTime = dueTime;
+        }
+    }
+
     /**
      * Callback interface for the {@link DelayedExecuter}.
      *
@@ -31,7 +31,8 @@ public class HmChannel {
     private Integer number;
     private String type;
     private HmDevice device;
-    private boolean initialized;
+    private volatile boolean initialized;
+    private volatile long loadedTime;
     private Map<HmDatapointInfo, HmDatapoint> datapoints = new HashMap<HmDatapointInfo, HmDatapoint>();
 
     /**
@@ -83,6 +84,9 @@ public class HmChannel {
      */
     public void setInitialized(boolean initialized) {
         this.initialized = initialized;
+        if (initialized) {
+            loadedTime = System.currentTimeMillis();
+        }
     }
 
     /**
@@ -92,6 +96,27 @@ public class HmChannel {
         return initialized;
     }
 
+    /**
+     * Returns true, if the values of the channel may be outdated. This is the case if the channel has not been loaded
+     * since the given time and at least one of its readable values has not received an event since then either.
+     * Gateway variables and scripts send no events and are always stale.
+     */
+    public boolean isStale(long staleSince) {
+        if (!initialized || device.isGatewayExtras()) {
+            return true;
+        }
+        if (loadedTime >= staleSince) {
+            return false;
+        }
+        for (HmDatapoint dp : datapoints.values()) {
+            if (!dp.isVirtual() && dp.isReadable() && dp.getParamsetType() == HmParamsetType.VALUES
+                    && dp.getLastEventTime() < staleSince) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     /**
      * Returns true, if the channel contains gateway scripts.
      */
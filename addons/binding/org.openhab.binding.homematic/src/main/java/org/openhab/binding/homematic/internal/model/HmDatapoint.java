@@ -37,6 +37,7 @@ public class HmDatapoint implements Cloneable {
     private String info;
     private String unit;
     private boolean virtual;
+    private volatile long lastEventTime;
 
     public HmDatapoint() {
     }
@@ -115,6 +116,20 @@ public class HmDatapoint implements Cloneable {
         this.value = value;
     }
 
+    /**
+     * Returns the time in milliseconds of the last event received for this datapoint, 0 if no event has been received.
+     */
+    public long getLastEventTime() {
+        return lastEventTime;
+    }
+
+    /**
+     * Sets the time in milliseconds of the last event received for this datapoint.
+     */
+    public void setLastEventTime(long lastEventTime) {
+        this.lastEventTime = lastEventTime;
+    }
+
     /**
      * Returns the option list.
      */
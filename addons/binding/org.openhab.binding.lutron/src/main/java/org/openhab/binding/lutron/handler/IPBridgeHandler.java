@@ -11,14 +11,16 @@ package org.openhab.binding.lutron.handler;
 import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.smarthome.config.discovery.DiscoveryService;
@@ -28,6 +30,7 @@ import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
+import org.eclipse.smarthome.core.thing.binding.ThingHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.lutron.config.IPBridgeConfig;
 import org.openhab.binding.lutron.internal.discovery.LutronDeviceDiscoveryService;
@@ -46,7 +49,8 @@ import org.slf4j.LoggerFactory;
  * @author Allan Tong - Initial contribution
  */
 public class IPBridgeHandler extends BaseBridgeHandler {
-    private static final Pattern STATUS_REGEX = Pattern.compile("~(OUTPUT|DEVICE|SYSTEM),([^,]+),(.*)");
+    private static final LutronCommandType[] STATUS_TYPES = { LutronCommandType.OUTPUT, LutronCommandType.DEVICE,
+            LutronCommandType.SYSTEM };
 
     private static final String DB_UPDATE_DATE_FORMAT = "MM/dd/yyyy HH:mm:ss";
 
@@ -57,6 +61,8 @@ public class IPBridgeHandler extends BaseBridgeHandler {
 
     private static final int MAX_LOGIN_ATTEMPTS = 2;
 
+    private static final int MAX_COMMANDS_PER_WRITE = 20;
+
     private static final String DEFAULT_USER = "lutron";
     private static final String DEFAULT_PASSWORD = "integration";
 
@@ -67,6 +73,9 @@ public class IPBridgeHandler extends BaseBridgeHandler {
     private TelnetSession session;
     private BlockingQueue<LutronCommand> sendQueue = new LinkedBlockingQueue<>();
 
+    // Handlers of the child things by integration ID
+    private final Map<Integer, LutronHandler> childHandlers = new ConcurrentHashMap<>();
+
     private ScheduledFuture<?> messageSender;
     private ScheduledFuture<?> keepAlive;
     private ScheduledFuture<?> keepAliveReconnect;
@@ -103,6 +112,12 @@ public class IPBridgeHandler extends BaseBridgeHandler {
     public void initialize() {
         this.config = getThing().getConfiguration().as(IPBridgeConfig.class);
 
+        for (Thing thing : getThing().getThings()) {
+            if (thing.getHandler() instanceof LutronHandler) {
+                addChildHandler((LutronHandler) thing.getHandler());
+            }
+        }
+
         if (validConfiguration(this.config)) {
             LutronDeviceDiscoveryService discovery = new LutronDeviceDiscoveryService(this);
 
@@ -188,26 +203,38 @@ public class IPBridgeHandler extends BaseBridgeHandler {
     }
 
     private void sendCommands() {
+        List<LutronCommand> commands = new ArrayList<>(MAX_COMMANDS_PER_WRITE);
+        List<String> lines = new ArrayList<>(MAX_COMMANDS_PER_WRITE);
+
         try {
             while (true) {
-                LutronCommand command = this.sendQueue.take();
+                commands.add(this.sendQueue.take());
 
-                this.logger.debug("Sending command {}", command);
+                // Commands queued in the meantime, e.g. when a scene changes many outputs, are written at once.
+                this.sendQueue.drainTo(commands, MAX_COMMANDS_PER_WRITE - 1);
+
+                for (LutronCommand command : commands) {
+                    this.logger.debug("Sending command {}", command);
+                    lines.add(command.toString());
+                }
 
                 try {
-                    this.session.writeLine(command.toString());
+                    this.session.writeLines(lines);
                 } catch (IOException e) {
                     this.logger.error("Communication error, will try to reconnect", e);
                     updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR);
 
-                    // Requeue command
-                    this.sendQueue.add(command);
+                    // Requeue commands
+                    this.sendQueue.addAll(commands);
 
                     reconnect();
 
                     // reconnect() will start a new thread; terminate this one
                     break;
                 }
+
+                commands.clear();
+                lines.clear();
             }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
@@ -271,18 +298,34 @@ public class IPBridgeHandler extends BaseBridgeHandler {
         this.sendQueue.add(command);
     }
 
-    private LutronHandler findThingHandler(int integrationId) {
-        for (Thing thing : getThing().getThings()) {
-            if (thing.getHandler() instanceof LutronHandler) {
-                LutronHandler handler = (LutronHandler) thing.getHandler();
+    @Override
+    public void childHandlerInitialized(ThingHandler childHandler, Thing childThing) {
+        if (childHandler instanceof LutronHandler) {
+            addChildHandler((LutronHandler) childHandler);
+        }
+    }
 
-                if (handler.getIntegrationId() == integrationId) {
-                    return handler;
-                }
-            }
+    @Override
+    public void childHandlerDisposed(ThingHandler childHandler, Thing childThing) {
+        if (childHandler instanceof LutronHandler) {
+            this.childHandlers.values().remove(childHandler);
         }
+    }
 
-        return null;
+    private void addChildHandler(LutronHandler handler) {
+        int integrationId;
+
+        try {
+            integrationId = handler.getIntegrationId();
+        } catch (IllegalStateException e) {
+            // Not initialized yet, the handler is added when it is initialized.
+            return;
+        }
+
+        if (integrationId > 0) {
+            this.childHandlers.values().remove(handler);
+            this.childHandlers.put(integrationId, handler);
+        }
     }
 
     private void parseUpdates() {
@@ -299,37 +342,95 @@ public class IPBridgeHandler extends BaseBridgeHandler {
                 this.keepAliveReconnect.cancel(true);
             }
 
-            Matcher matcher = STATUS_REGEX.matcher(line);
+            if (!parseStatus(line)) {
+                this.logger.info("Ignoring message {}", line);
+            }
+        }
+    }
 
-            if (matcher.find()) {
-                LutronCommandType type = LutronCommandType.valueOf(matcher.group(1));
+    /**
+     * Parses a status message like "~OUTPUT,12,1,100.00" and passes it to the handler of its integration ID. The
+     * message is parsed by hand, as the bridge sends a line per output when a scene changes.
+     *
+     * @return false if the line is not a status message
+     */
+    private boolean parseStatus(String line) {
+        int start = line.indexOf('~');
+        int typeEnd = start < 0 ? -1 : line.indexOf(',', start + 1);
+        int idEnd = typeEnd < 0 ? -1 : line.indexOf(',', typeEnd + 1);
+
+        if (idEnd < 0 || idEnd == typeEnd + 1) {
+            return false;
+        }
 
-                if (type == LutronCommandType.SYSTEM) {
-                    // SYSTEM messages are assumed to be a response to the SYSTEM_DBEXPORTDATETIME
-                    // query. The response returns the last time the device database was updated.
-                    setDbUpdateDate(matcher.group(2), matcher.group(3));
+        LutronCommandType type = parseStatusType(line, start + 1, typeEnd);
 
-                    continue;
-                }
+        if (type == null) {
+            return false;
+        }
 
-                Integer integrationId = new Integer(matcher.group(2));
-                LutronHandler handler = findThingHandler(integrationId);
+        if (type == LutronCommandType.SYSTEM) {
+            // SYSTEM messages are assumed to be a response to the SYSTEM_DBEXPORTDATETIME
+            // query. The response returns the last time the device database was updated.
+            setDbUpdateDate(line.substring(typeEnd + 1, idEnd), line.substring(idEnd + 1));
 
-                if (handler != null) {
-                    String paramString = matcher.group(3);
+            return true;
+        }
 
-                    try {
-                        handler.handleUpdate(type, paramString.split(","));
-                    } catch (Exception e) {
-                        this.logger.error("Error processing update", e);
-                    }
-                } else {
-                    this.logger.info("No thing configured for integration ID {}", integrationId);
-                }
-            } else {
-                this.logger.info("Ignoring message {}", line);
+        int integrationId = parseIntegrationId(line, typeEnd + 1, idEnd);
+
+        if (integrationId < 0) {
+            return false;
+        }
+
+        LutronHandler handler = this.childHandlers.get(integrationId);
+
+        if (handler != null) {
+            try {
+                handler.handleUpdate(type, line.substring(idEnd + 1).split(","));
+            } catch (Exception e) {
+                this.logger.error("Error processing update", e);
             }
+        } else {
+            this.logger.info("No thing configured for integration ID {}", integrationId);
         }
+
+        return true;
+    }
+
+    private static LutronCommandType parseStatusType(String line, int start, int end) {
+        for (LutronCommandType type : STATUS_TYPES) {
+            String name = type.name();
+
+            if (end - start == name.length() && line.startsWith(name, start)) {
+                return type;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the integration ID or -1 if the text is not a number
+     */
+    private static int parseIntegrationId(String line, int start, int end) {
+        if (end - start > 9) {
+            return -1;
+        }
+
+        int integrationId = 0;
+
+        for (int i = start; i < end; i++) {
+            char c = line.charAt(i);
+
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+
+            integrationId = integrationId * 10 + (c - '0');
+        }
+
+        return integrationId;
     }
 
     private void sendKeepAlive() {
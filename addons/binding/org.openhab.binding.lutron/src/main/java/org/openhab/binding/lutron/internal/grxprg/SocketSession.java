@@ -8,27 +8,23 @@
  */
 package org.openhab.binding.lutron.internal.grxprg;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintStream;
-import java.net.Socket;
-import java.net.SocketTimeoutException;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.openhab.binding.lutron.internal.grxprg.SocketTransport.Connection;
+import org.openhab.binding.lutron.internal.grxprg.SocketTransport.LineListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Represents a restartable socket connection to the underlying telnet session with an GRX-PRG/GRX-CI-PRG. Commands can
- * be sent via {@link #sendCommand(String)} and responses will be received on the {@link SocketSessionCallback}
+ * be sent via {@link #sendCommand(String)} and responses will be received on the {@link SocketSessionCallback}. The
+ * connection is a non-blocking connection of the shared {@link SocketTransport}.
  *
  * @author Tim Roberts
  */
@@ -36,47 +32,52 @@ public class SocketSession {
     private final Logger logger = LoggerFactory.getLogger(SocketSession.class);
 
     /**
-     * The host/ip address to connect to
+     * The max number of responses waiting to be dispatched, reading is paused above it
      */
-    private final String _host;
+    private static final int MAX_RESPONSES = 50;
 
     /**
-     * The port to connect to
+     * The timeout in milliseconds to connect to the device
      */
-    private final int _port;
+    private static final int CONNECT_TIMEOUT = 5000;
 
     /**
-     * The actual socket being used. Will be null if not connected
+     * The thread pool dispatching the responses of all sessions
      */
-    private Socket _client;
+    private static final ExecutorService DISPATCHER = ThreadPoolManager.getPool("lutron");
 
     /**
-     * The writer to the {@link #_client}. Will be null if not connected
+     * The host/ip address to connect to
      */
-    private PrintStream _writer;
+    private final String _host;
+
+    /**
+     * The port to connect to
+     */
+    private final int _port;
 
     /**
-     * The reader from the {@link #_client}. Will be null if not connected
+     * The actual connection being used. Will be null if not connected
      */
-    private BufferedReader _reader;
+    private final AtomicReference<Connection> _connection = new AtomicReference<Connection>();
 
     /**
-     * The {@link ResponseReader} that will be used to read from {@link #_reader}
+     * The responses read from the {@link #_connection}
      */
-    private final ResponseReader _responseReader = new ResponseReader();
+    private final BlockingQueue<Object> _responses = new LinkedBlockingQueue<Object>();
 
     /**
-     * The responses read from the {@link #_responseReader}
+     * Whether a {@link Dispatcher} task is running for this session
      */
-    private final BlockingQueue<Object> _responses = new ArrayBlockingQueue<Object>(50);
+    private final AtomicBoolean _dispatching = new AtomicBoolean(false);
 
     /**
-     * The dispatcher of responses from {@link #_responses}
+     * Whether reading from the {@link #_connection} is paused because of too many waiting responses
      */
-    private final Dispatcher _dispatcher = new Dispatcher();
+    private final AtomicBoolean _readingPaused = new AtomicBoolean(false);
 
     /**
-     * The {@link SocketSessionCallback} that the {@link #_dispatcher} will call
+     * The {@link SocketSessionCallback} that the {@link Dispatcher} will call
      */
     private AtomicReference<SocketSessionCallback> _callback = new AtomicReference<SocketSessionCallback>(null);
 
@@ -109,35 +110,32 @@ public class SocketSession {
             throw new IllegalArgumentException("callback cannot be null");
         }
         _callback.set(callback);
+
+        // dispatch the responses received while there was no callback
+        dispatch();
     }
 
     /**
      * Will attempt to connect to the {@link #_host} on port {@link #_port}. If we are current connected, will
-     * {@link #disconnect()} first. Once connected, the {@link #_writer} and {@link #_reader} will be created, the
-     * {@link #_dispatcher} and {@link #_responseReader} will be started.
+     * {@link #disconnect()} first. Once connected, the responses are read by the {@link SocketTransport} and dispatched
+     * to the {@link #_callback}.
      *
      * @throws java.io.IOException if an exception occurs during the connection attempt
      */
     public void connect() throws IOException {
         disconnect();
 
-        _client = new Socket(_host, _port);
-        _client.setKeepAlive(true);
-        _client.setSoTimeout(1000); // allow reader to check to see if it should stop every 1 second
+        _responses.clear();
+        _readingPaused.set(false);
 
         logger.debug("Connecting to {}:{}", _host, _port);
-        _writer = new PrintStream(_client.getOutputStream());
-        _reader = new BufferedReader(new InputStreamReader(_client.getInputStream()));
-
-        new Thread(_responseReader).start();
-        new Thread(_dispatcher).start();
+        _connection.set(
+                SocketTransport.getInstance().open(_host, _port, CONNECT_TIMEOUT, new ResponseReader(), "login: "));
     }
 
     /**
-     * Disconnects from the {@link #_host} if we are {@link #isConnected()}. The {@link #_writer}, {@link #_reader} and
-     * {@link #_client}
-     * will be closed and set to null. The {@link #_dispatcher} and {@link #_responseReader} will be stopped, the
-     * {@link #_callback} will be nulled and the {@link #_responses} will be cleared.
+     * Disconnects from the {@link #_host} if we are {@link #isConnected()}. The {@link #_connection} will be closed and
+     * set to null, the {@link #_callback} will be nulled and the {@link #_responses} will be cleared.
      *
      * @throws java.io.IOException if an exception occurs during the disconnect attempt
      */
@@ -145,17 +143,8 @@ public class SocketSession {
         if (isConnected()) {
             logger.debug("Disconnecting from {}:{}", _host, _port);
 
-            _dispatcher.stopRunning();
-            _responseReader.stopRunning();
-
-            _writer.close();
-            _writer = null;
-
-            _reader.close();
-            _reader = null;
-
-            _client.close();
-            _client = null;
+            final Connection connection = _connection.getAndSet(null);
+            connection.close();
 
             _callback.set(null);
             _responses.clear();
@@ -163,12 +152,13 @@ public class SocketSession {
     }
 
     /**
-     * Returns true if we are connected ({@link #_client} is not null and is connected)
+     * Returns true if we are connected ({@link #_connection} is not null and is open)
      *
      * @return true if connected, false otherwise
      */
     public boolean isConnected() {
-        return _client != null && _client.isConnected();
+        final Connection connection = _connection.get();
+        return connection != null && connection.isOpen();
     }
 
     /**
@@ -182,204 +172,106 @@ public class SocketSession {
             throw new IllegalArgumentException("command cannot be null");
         }
 
-        if (!isConnected()) {
+        final Connection connection = _connection.get();
+        if (connection == null || !connection.isOpen()) {
             throw new IOException("Cannot send message - disconnected");
         }
 
         logger.debug("Sending Command: '{}'", command);
-        _writer.println(command + "\n"); // as pre spec - each command must have a newline
-        _writer.flush();
-
+        // as pre spec - each command must have a newline
+        connection.write((command + "\n" + System.lineSeparator()).getBytes());
     }
 
     /**
-     * This is the runnable that will read from the socket and add messages to the responses queue (to be processed by
-     * the dispatcher)
-     *
-     * @author Tim Roberts
+     * Queues a response and starts dispatching it
      *
+     * @param response a non-null response or {@link IOException}
      */
-    private class ResponseReader implements Runnable {
-
-        /**
-         * Whether the reader is currently running
-         */
-        private final AtomicBoolean _isRunning = new AtomicBoolean(false);
-
-        /**
-         * Locking to allow proper shutdown of the reader
-         */
-        private final Lock _lock = new ReentrantLock();
-        private final Condition _running = _lock.newCondition();
-
-        /**
-         * Stops the reader. Will wait 5 seconds for the runnable to stop (should stop within 1 second based on the
-         * setSOTimeout)
-         */
-        public void stopRunning() {
-            _lock.lock();
-            try {
-                if (_isRunning.getAndSet(false)) {
-                    if (!_running.await(5, TimeUnit.SECONDS)) {
-                        logger.warn("Waited too long for dispatcher to finish");
-                    }
-                }
-            } catch (InterruptedException e) {
-                // shouldn't happen
-            } finally {
-                _lock.unlock();
+    private void addResponse(Object response) {
+        _responses.add(response);
+        if (_responses.size() >= MAX_RESPONSES && !_readingPaused.getAndSet(true)) {
+            logger.debug("Too many responses waiting, pausing reading from {}:{}", _host, _port);
+            final Connection connection = _connection.get();
+            if (connection != null) {
+                connection.setReading(false);
             }
         }
+        dispatch();
+    }
 
-        /**
-         * Runs the logic to read from the socket until {@link #_isRunning} is false. A 'response' is anything that ends
-         * with a carriage-return/newline combo. Additionally, the special "login" prompts are
-         * treated as responses for purposes of logging in.
-         */
-        @Override
-        public void run() {
-            final StringBuilder sb = new StringBuilder(100);
-            int c;
-
-            _isRunning.set(true);
-            _responses.clear();
-
-            while (_isRunning.get()) {
-                try {
-                    // if reader is null, sleep and try again
-                    if (_reader == null) {
-                        Thread.sleep(250);
-                        continue;
-                    }
+    /**
+     * Starts a {@link Dispatcher} task, if there is a callback and no dispatcher task is running for this session
+     */
+    private void dispatch() {
+        if (_callback.get() != null && !_responses.isEmpty() && _dispatching.compareAndSet(false, true)) {
+            DISPATCHER.execute(new Dispatcher());
+        }
+    }
 
-                    c = _reader.read();
-                    if (c == -1) {
-                        _responses.put(new IOException("server closed connection"));
-                        _isRunning.set(false);
-                        break;
-                    }
-                    final char ch = (char) c;
-                    sb.append(ch);
-                    if (ch == '\n' || ch == ' ') {
-                        final String str = sb.toString();
-                        if (str.endsWith("\r\n") || str.endsWith("login: ")) {
-                            sb.setLength(0);
-                            final String response = str.substring(0, str.length() - 2);
-                            logger.debug("Received response: {}", response);
-                            _responses.put(response);
-                        }
-                    }
-                    // logger.debug(">>> reading: " + sb + ":" + (int) ch);
-                } catch (SocketTimeoutException e) {
-                    // do nothing - we expect this (setSOTimeout) to check the _isReading
-                } catch (InterruptedException e) {
-                    // Do nothing - probably shutting down
-                } catch (IOException e) {
-                    try {
-                        _isRunning.set(false);
-                        _responses.put(e);
-                    } catch (InterruptedException e1) {
-                        // Do nothing - probably shutting down
-                    }
-                }
-            }
+    /**
+     * Receives the responses of the connection on the selector thread of the {@link SocketTransport}. A 'response' is
+     * anything that ends with a carriage-return/newline combo. Additionally, the special "login" prompts are treated as
+     * responses for purposes of logging in.
+     *
+     * @author Tim Roberts
+     */
+    private class ResponseReader implements LineListener {
+        @Override
+        public void lineReceived(String line) {
+            logger.debug("Received response: {}", line);
+            addResponse(line);
+        }
 
-            _lock.lock();
-            try {
-                _running.signalAll();
-            } finally {
-                _lock.unlock();
-            }
+        @Override
+        public void connectionFailed(IOException e) {
+            addResponse(e);
         }
     }
 
     /**
-     * The dispatcher runnable is responsible for reading the response queue and dispatching it to the current callable.
+     * The dispatcher task is responsible for reading the response queue and dispatching it to the current callable.
      * Since the dispatcher is ONLY started when a callable is set, responses may pile up in the queue and be dispatched
-     * when a callable is set. Unlike the socket reader, this can be assigned to another thread (no state outside of the
-     * class).
+     * when a callable is set. Only one dispatcher task runs per session, so the responses are dispatched in order.
      *
      * @author Tim Roberts
      */
     private class Dispatcher implements Runnable {
-
-        /**
-         * Whether the dispatcher is running or not
-         */
-        private final AtomicBoolean _isRunning = new AtomicBoolean(false);
-
-        /**
-         * Locking to allow proper shutdown of the reader
-         */
-        private final Lock _lock = new ReentrantLock();
-        private final Condition _running = _lock.newCondition();
-
         /**
-         * Stops the reader. Will wait 5 seconds for the runnable to stop (should stop within 1 second based on the poll
-         * timeout below)
-         */
-        public void stopRunning() {
-
-            _lock.lock();
-            try {
-                if (_isRunning.getAndSet(false)) {
-                    if (!_running.await(5, TimeUnit.SECONDS)) {
-                        logger.warn("Waited too long for dispatcher to finish");
-                    }
-                }
-            } catch (InterruptedException e) {
-                // do nothing
-            } finally {
-                _lock.unlock();
-            }
-
-        }
-
-        /**
-         * Runs the logic to dispatch any responses to the current _callback until {@link #_isRunning} is false.
+         * Runs the logic to dispatch the queued responses to the current _callback.
          */
         @Override
         public void run() {
-            _isRunning.set(true);
-            while (_isRunning.get()) {
-                try {
-                    final SocketSessionCallback callback = _callback.get();
-
-                    // if callback is null, we don't want to start dispatching yet.
-                    if (callback == null) {
-                        Thread.sleep(250);
-                        continue;
+            try {
+                SocketSessionCallback callback;
+                Object response;
+                while ((callback = _callback.get()) != null && (response = _responses.poll()) != null) {
+                    if (response instanceof String) {
+                        try {
+                            logger.debug("Dispatching response: {}", response);
+                            callback.responseReceived((String) response);
+                        } catch (Exception e) {
+                            logger.warn("Exception occurred processing the response '{}': {}", response, e);
+                        }
+                    } else if (response instanceof Exception) {
+                        logger.debug("Dispatching exception: {}", response);
+                        callback.responseException((Exception) response);
+                    } else {
+                        logger.error("Unknown response class: {}", response);
                     }
 
-                    final Object response = _responses.poll(1, TimeUnit.SECONDS);
-
-                    if (response != null) {
-                        if (response instanceof String) {
-                            try {
-                                logger.debug("Dispatching response: {}", response);
-                                callback.responseReceived((String) response);
-                            } catch (Exception e) {
-                                logger.warn("Exception occurred processing the response '{}': {}", response, e);
-                            }
-                        } else if (response instanceof Exception) {
-                            logger.debug("Dispatching exception: {}", response);
-                            callback.responseException((Exception) response);
-                        } else {
-                            logger.error("Unknown response class: {}", response);
+                    if (_responses.size() < MAX_RESPONSES / 2 && _readingPaused.getAndSet(false)) {
+                        final Connection connection = _connection.get();
+                        if (connection != null) {
+                            connection.setReading(true);
                         }
                     }
-                } catch (InterruptedException e) {
-                    // Do nothing
                 }
-            }
-
-            _lock.lock();
-            try {
-                // Signal that we are done
-                _running.signalAll();
             } finally {
-                _lock.unlock();
+                _dispatching.set(false);
             }
+
+            // a response may have been added after the queue was found empty
+            dispatch();
         }
     }
 }
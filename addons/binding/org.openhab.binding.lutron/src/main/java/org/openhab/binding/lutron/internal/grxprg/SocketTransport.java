@@ -0,0 +1,416 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.lutron.internal.grxprg;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Non-blocking transport shared by all socket sessions of the binding. A single selector thread reads from all
+ * connections, splits the received bytes into lines and hands them to the {@link LineListener} of the connection.
+ * Writes are done by the calling thread and only handed to the selector thread if the socket buffer is full. The
+ * selector thread is started with the first connection and ends when the last connection is closed.
+ *
+ * @author agent - Initial contribution
+ */
+public class SocketTransport implements Runnable {
+    private final Logger logger = LoggerFactory.getLogger(SocketTransport.class);
+
+    private static final SocketTransport INSTANCE = new SocketTransport();
+
+    /**
+     * The line terminator, which ends every response
+     */
+    private static final byte[] LINE_TERMINATOR = { '\r', '\n' };
+
+    /**
+     * Tasks to run on the selector thread (registrations and interest changes)
+     */
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+
+    /**
+     * The buffer all connections read into, only used by the selector thread
+     */
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(8192);
+
+    /**
+     * The selector and its thread - will be null if there are no connections
+     */
+    private Selector selector;
+    private Thread selectorThread;
+
+    /**
+     * Receives the lines read from a connection. The methods are called by the selector thread and must not block.
+     */
+    public interface LineListener {
+        /**
+         * Called for every line received, without the line terminator
+         *
+         * @param line a non-null, possibly empty line
+         */
+        void lineReceived(String line);
+
+        /**
+         * Called once when the connection failed or was closed by the server
+         *
+         * @param e a non-null exception
+         */
+        void connectionFailed(IOException e);
+    }
+
+    /**
+     * Returns the transport shared by all sessions
+     *
+     * @return the non-null transport
+     */
+    public static SocketTransport getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Connects to the given host and port and starts reading from the connection.
+     *
+     * @param host a non-null, non-empty host/ip address
+     * @param port the port number between 1 and 65535
+     * @param timeout the connection timeout in milliseconds
+     * @param listener a non-null {@link LineListener} receiving the lines
+     * @param prompts prompts, which are treated as line ends, although they are not followed by a line terminator.
+     *            As with the line terminator, the last two characters of the prompt are removed from the line
+     * @return the non-null connection
+     * @throws IOException if the connection could not be established
+     */
+    public Connection open(String host, int port, int timeout, LineListener listener, String... prompts)
+            throws IOException {
+        final SocketChannel channel = SocketChannel.open();
+        try {
+            channel.socket().setKeepAlive(true);
+            channel.socket().connect(new InetSocketAddress(host, port), timeout);
+            channel.configureBlocking(false);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        final Connection connection = new Connection(channel, listener, prompts);
+        execute(connection::register);
+        return connection;
+    }
+
+    /**
+     * Runs the task on the selector thread, starting the thread if needed
+     */
+    private synchronized void execute(Runnable task) throws IOException {
+        if (selectorThread == null) {
+            selector = Selector.open();
+            selectorThread = new Thread(this, "Lutron socket transport");
+            selectorThread.setDaemon(true);
+            selectorThread.start();
+        }
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    private synchronized void wakeup() {
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (true) {
+                selector.select();
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                final Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    final SelectionKey key = it.next();
+                    it.remove();
+                    ((Connection) key.attachment()).handle(key);
+                }
+
+                synchronized (this) {
+                    if (tasks.isEmpty() && !hasValidKeys()) {
+                        // no more connections
+                        selector.close();
+                        selector = null;
+                        selectorThread = null;
+                        return;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Socket transport failed: {}", e.getMessage(), e);
+            synchronized (this) {
+                for (SelectionKey key : selector.keys()) {
+                    ((Connection) key.attachment()).fail(new IOException("Socket transport failed", e));
+                }
+                try {
+                    selector.close();
+                } catch (IOException e1) {
+                    // ignore - shutting down anyway
+                }
+                selector = null;
+                selectorThread = null;
+            }
+        }
+    }
+
+    private boolean hasValidKeys() {
+        for (SelectionKey key : selector.keys()) {
+            if (key.isValid()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A connection of the transport. Lines are framed directly in the shared read buffer, only a line spanning
+     * several reads is copied into the connection's own buffer.
+     */
+    public class Connection {
+        private final SocketChannel channel;
+        private final LineListener listener;
+        private final byte[][] terminators;
+
+        private SelectionKey key;
+        private volatile boolean closed;
+
+        /**
+         * Bytes of a line, which has not been completely read yet
+         */
+        private byte[] partialLine = new byte[256];
+        private int partialLength;
+
+        /**
+         * Writes waiting for the socket buffer to drain
+         */
+        private final Deque<ByteBuffer> pendingWrites = new ArrayDeque<ByteBuffer>();
+
+        private Connection(SocketChannel channel, LineListener listener, String... prompts) {
+            this.channel = channel;
+            this.listener = listener;
+            terminators = new byte[prompts.length + 1][];
+            terminators[0] = LINE_TERMINATOR;
+            for (int i = 0; i < prompts.length; i++) {
+                terminators[i + 1] = prompts[i].getBytes(StandardCharsets.ISO_8859_1);
+            }
+        }
+
+        /**
+         * Whether the connection is still open
+         *
+         * @return true if open, false if closed or failed
+         */
+        public boolean isOpen() {
+            return !closed && channel.isConnected();
+        }
+
+        /**
+         * Writes the data to the connection. The data is written immediately if the socket buffer has room for it,
+         * otherwise it is written by the selector thread as soon as the socket buffer drains.
+         *
+         * @param data the non-null data to write
+         * @throws IOException if the connection is closed or the write fails
+         */
+        public void write(byte[] data) throws IOException {
+            if (closed) {
+                throw new IOException("Cannot send message - disconnected");
+            }
+            final ByteBuffer buffer = ByteBuffer.wrap(data);
+            synchronized (pendingWrites) {
+                if (pendingWrites.isEmpty()) {
+                    channel.write(buffer);
+                    if (!buffer.hasRemaining()) {
+                        return;
+                    }
+                }
+                pendingWrites.add(buffer);
+            }
+            execute(() -> setInterest(SelectionKey.OP_WRITE, true));
+        }
+
+        /**
+         * Pauses or resumes reading from the connection, used to stop reading while the received lines can not be
+         * processed fast enough.
+         *
+         * @param reading true to read, false to pause reading
+         */
+        public void setReading(boolean reading) {
+            try {
+                execute(() -> setInterest(SelectionKey.OP_READ, reading));
+            } catch (IOException e) {
+                logger.debug("Cannot change reading of connection: {}", e.getMessage());
+            }
+        }
+
+        /**
+         * Closes the connection. The {@link LineListener} is not called anymore.
+         */
+        public void close() {
+            closed = true;
+            try {
+                channel.close();
+                // wake up the selector to let it stop, if this was the last connection
+                wakeup();
+            } catch (IOException e) {
+                logger.debug("Error closing connection: {}", e.getMessage());
+            }
+        }
+
+        private void register() {
+            try {
+                key = channel.register(selector, SelectionKey.OP_READ, this);
+            } catch (ClosedChannelException e) {
+                // closed before it was registered
+            }
+        }
+
+        private void setInterest(int op, boolean enabled) {
+            if (key == null || !key.isValid()) {
+                return;
+            }
+            try {
+                key.interestOps(enabled ? key.interestOps() | op : key.interestOps() & ~op);
+            } catch (CancelledKeyException e) {
+                // closed meanwhile
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            try {
+                if (key.isValid() && key.isWritable()) {
+                    flushWrites();
+                }
+                if (key.isValid() && key.isReadable()) {
+                    read();
+                }
+            } catch (CancelledKeyException e) {
+                // closed meanwhile
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        private void flushWrites() throws IOException {
+            synchronized (pendingWrites) {
+                while (!pendingWrites.isEmpty()) {
+                    final ByteBuffer buffer = pendingWrites.peek();
+                    channel.write(buffer);
+                    if (buffer.hasRemaining()) {
+                        return;
+                    }
+                    pendingWrites.poll();
+                }
+                setInterest(SelectionKey.OP_WRITE, false);
+            }
+        }
+
+        private void read() throws IOException {
+            readBuffer.clear();
+            final int bytesRead = channel.read(readBuffer);
+            if (bytesRead == -1) {
+                fail(new IOException("server closed connection"));
+                return;
+            }
+
+            final byte[] data = readBuffer.array();
+            int lineStart = 0;
+            for (int i = 0; i < bytesRead && !closed; i++) {
+                if (data[i] != '\n' && data[i] != ' ') {
+                    continue;
+                }
+                for (byte[] terminator : terminators) {
+                    if (endsWith(data, lineStart, i + 1, terminator)) {
+                        lineReceived(data, lineStart, i + 1);
+                        lineStart = i + 1;
+                        break;
+                    }
+                }
+            }
+            appendPartial(data, lineStart, bytesRead);
+        }
+
+        /**
+         * Checks if the partial line followed by data[start..end) ends with the terminator
+         */
+        private boolean endsWith(byte[] data, int start, int end, byte[] terminator) {
+            final int length = end - start;
+            if (partialLength + length < terminator.length) {
+                return false;
+            }
+            for (int j = 1; j <= terminator.length; j++) {
+                final byte b = j <= length ? data[end - j] : partialLine[partialLength - (j - length)];
+                if (b != terminator[terminator.length - j]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Passes the partial line followed by data[start..end) without its last two characters to the listener
+         */
+        private void lineReceived(byte[] data, int start, int end) {
+            final String line;
+            if (partialLength == 0) {
+                line = new String(data, start, end - start - 2, StandardCharsets.ISO_8859_1);
+            } else {
+                appendPartial(data, start, end);
+                line = new String(partialLine, 0, partialLength - 2, StandardCharsets.ISO_8859_1);
+                partialLength = 0;
+            }
+            listener.lineReceived(line);
+        }
+
+        private void appendPartial(byte[] data, int start, int end) {
+            final int length = end - start;
+            if (partialLength + length > partialLine.length) {
+                partialLine = Arrays.copyOf(partialLine, Math.max(partialLine.length * 2, partialLength + length));
+            }
+            System.arraycopy(data, start, partialLine, partialLength, length);
+            partialLength += length;
+        }
+
+        private void fail(IOException e) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                channel.close();
+            } catch (IOException e1) {
+                // ignore - already failed
+            }
+            listener.connectionFailed(e);
+        }
+    }
+}
@@ -16,6 +16,7 @@ import java.io.PrintStream;
 import java.nio.CharBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.regex.MatchResult;
@@ -218,4 +219,24 @@ public class TelnetSession implements Closeable {
             throw new IOException("Could not write to stream");
         }
     }
+
+    /**
+     * Writes the lines and flushes them to the connection at once, rather than flushing each line on its own.
+     *
+     * @param lines the lines to write
+     * @throws IOException if the lines could not be written
+     */
+    public void writeLines(Collection<String> lines) throws IOException {
+        StringBuilder builder = new StringBuilder();
+
+        for (String line : lines) {
+            builder.append(line).append("\r\n");
+        }
+
+        this.outstream.print(builder.toString());
+
+        if (this.outstream.checkError()) {
+            throw new IOException("Could not write to stream");
+        }
+    }
 }
@@ -19,12 +19,16 @@ import java.net.ConnectException;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -44,6 +48,7 @@ import org.eclipse.smarthome.core.types.Command;
 import org.eclipse.smarthome.core.types.RefreshType;
 import org.openhab.binding.max.MaxBinding;
 import org.openhab.binding.max.config.MaxCubeBridgeConfiguration;
+import org.openhab.binding.max.internal.Utils;
 import org.openhab.binding.max.internal.command.A_Command;
 import org.openhab.binding.max.internal.command.C_Command;
 import org.openhab.binding.max.internal.command.CubeCommand;
@@ -53,8 +58,10 @@ import org.openhab.binding.max.internal.command.M_Command;
 import org.openhab.binding.max.internal.command.N_Command;
 import org.openhab.binding.max.internal.command.Q_Command;
 import org.openhab.binding.max.internal.command.S_Command;
+import org.openhab.binding.max.internal.command.S_ConfigCommand;
 import org.openhab.binding.max.internal.command.T_Command;
 import org.openhab.binding.max.internal.command.UdpCubeCommand;
+import org.openhab.binding.max.internal.command.Z_Command;
 import org.openhab.binding.max.internal.device.Device;
 import org.openhab.binding.max.internal.device.DeviceConfiguration;
 import org.openhab.binding.max.internal.device.DeviceInformation;
@@ -68,6 +75,7 @@ import org.openhab.binding.max.internal.message.F_Message;
 import org.openhab.binding.max.internal.message.H_Message;
 import org.openhab.binding.max.internal.message.L_Message;
 import org.openhab.binding.max.internal.message.M_Message;
+import org.openhab.binding.max.internal.message.MaxTokenizer;
 import org.openhab.binding.max.internal.message.Message;
 import org.openhab.binding.max.internal.message.MessageProcessor;
 import org.openhab.binding.max.internal.message.MessageType;
@@ -105,6 +113,24 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     private ArrayList<RoomInformation> rooms;
     private HashSet<String> lastActiveDevices = new HashSet<String>();
 
+    /** The devices by upper case serial number and by RF address, to find a device without searching the list */
+    private HashMap<String, Device> devicesBySerialNumber = new HashMap<String, Device>();
+    private HashMap<String, Device> devicesByRfAddress = new HashMap<String, Device>();
+
+    /** The real time information of the devices received in the last L message by RF address */
+    private HashMap<String, byte[]> deviceStates = new HashMap<String, byte[]>();
+
+    /** The serial numbers of the devices whose real time information changed since the last notification */
+    private HashSet<String> changedDevices = new HashSet<String>();
+
+    /**
+     * Unchanged devices are passed to the listeners again after this interval (ms), as the listeners use the
+     * notifications to check if the actual temperature of a thermostat needs to be refreshed
+     */
+    private static final long UNCHANGED_DEVICES_INTERVAL = TimeUnit.MINUTES.toMillis(5);
+    private long lastUnchangedDevicesUpdate = 0;
+    private volatile boolean updateUnchangedDevices = true;
+
     /** MAX! Thermostat default off temperature */
     private static final DecimalType DEFAULT_OFF_TEMPERATURE = new DecimalType(4.5);
 
@@ -115,7 +141,16 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
 
     /** maximum queue size that we're allowing */
     private static final int MAX_COMMANDS = 50;
-    private ArrayBlockingQueue<SendCommand> commandQueue = new ArrayBlockingQueue<SendCommand>(MAX_COMMANDS);
+    private Deque<SendCommand> commandQueue = new ArrayDeque<SendCommand>(MAX_COMMANDS);
+
+    /** maximum number of commands sent to the Cube per send command interval */
+    private static final int MAX_COMMANDS_PER_INTERVAL = 10;
+
+    /**
+     * Commands sent by radio are held back from this duty cycle (%) on, as the Cube discards them when it reaches its
+     * duty cycle limit
+     */
+    private static final int MAX_DUTY_CYCLE = 80;
 
     private SendCommand lastCommandId = null;
 
@@ -137,9 +172,14 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     private int dutyCycle = 0;
 
     /**
-     * The available memory slots of the cube
+     * The available memory slots of the cube, -1 until reported by the cube
+     */
+    private int freeMemorySlots = -1;
+
+    /**
+     * Whether the cube discarded the last command sent by radio
      */
-    private int freeMemorySlots;
+    private boolean commandDiscarded = false;
 
     /**
      * connection socket and reader/writer for execute method
@@ -172,6 +212,7 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     public void handleCommand(ChannelUID channelUID, Command command) {
         if (command instanceof RefreshType) {
             logger.debug("Refresh command received.");
+            updateUnchangedDevices = true;
             refreshData();
         } else {
             logger.warn("No bridge commands defined. Cannot process '{}'.", command.toString());
@@ -327,18 +368,31 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
     }
 
     /**
-     * Takes a command from the command queue and send it to
-     * {@link executeCommand} for execution.
-     *
+     * Takes the commands from the command queue and sends them to the MAX! Cube. Up to
+     * {@link #MAX_COMMANDS_PER_INTERVAL} commands are sent. While the duty cycle of the Cube is high, it has no free
+     * memory slots or it discarded a command, only one command sent by radio is sent per interval. The Cube reports its
+     * duty cycle and free memory slots in the response to these commands.
      */
     private synchronized void sendCommands() {
-
-        SendCommand sendCommand = commandQueue.poll();
-        if (sendCommand != null) {
+        boolean radioCommandSent = false;
+        for (int sent = 0; sent < MAX_COMMANDS_PER_INTERVAL; sent++) {
+            SendCommand sendCommand = commandQueue.peek();
+            if (sendCommand == null) {
+                return;
+            }
             CubeCommand cmd = sendCommand.getCubeCommand();
             if (cmd == null) {
                 cmd = getCommand(sendCommand);
             }
+            if (cmd != null && isRadioCommand(cmd)) {
+                if (radioCommandSent && !isRadioAvailable()) {
+                    logger.debug("Command {} ({}) held back. Duty Cycle: {}, Free Memory Slots: {}, Discarded: {}",
+                            sendCommand.getId(), sendCommand.getKey(), dutyCycle, freeMemorySlots, commandDiscarded);
+                    return;
+                }
+                radioCommandSent = true;
+            }
+            commandQueue.poll();
             if (cmd != null) {
                 // Actual sending of the data to the Max! Cube Lan Gateway
                 logger.debug("Command {} ({}:{}) sent to MAX! Cube at IP: {}", sendCommand.getId(),
@@ -350,11 +404,27 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
                 } else {
                     logger.warn("Error sending command {} ({}:{}) to MAX! Cube at IP: {}", sendCommand.getId(),
                             sendCommand.getKey(), sendCommand.getCommandText(), ipAddress);
+                    // try the remaining commands in the next interval
+                    return;
                 }
             }
         }
     }
 
+    /**
+     * @return true if the command is sent to a device by radio, using the duty cycle of the Cube
+     */
+    private boolean isRadioCommand(CubeCommand cmd) {
+        return cmd instanceof S_Command || cmd instanceof S_ConfigCommand || cmd instanceof Z_Command;
+    }
+
+    /**
+     * @return true if the Cube can accept commands sent by radio
+     */
+    private boolean isRadioAvailable() {
+        return !commandDiscarded && dutyCycle < MAX_DUTY_CYCLE && freeMemorySlots != 0;
+    }
+
     /**
      * initiates read data from the MAX! Cube bridge
      */
@@ -364,8 +434,12 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
             if (sendCubeCommand(new L_Command())) {
                 updateStatus(ThingStatus.ONLINE);
                 previousOnline = true;
+                Set<String> changed = takeChangedDevices();
                 for (Device di : devices) {
                     if (lastActiveDevices != null && lastActiveDevices.contains(di.getSerialNumber())) {
+                        if (changed != null && !changed.contains(di.getSerialNumber())) {
+                            continue;
+                        }
                         for (DeviceStatusListener deviceStatusListener : deviceStatusListeners) {
                             try {
                                 deviceStatusListener.onDeviceStateChanged(getThing().getUID(), di);
@@ -398,6 +472,24 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
         }
     }
 
+    /**
+     * Takes the serial numbers of the devices whose real time information changed since the last call.
+     *
+     * @return the serial numbers or null if all devices need to be passed to the listeners
+     */
+    private synchronized Set<String> takeChangedDevices() {
+        long now = System.currentTimeMillis();
+        if (updateUnchangedDevices || now - lastUnchangedDevicesUpdate >= UNCHANGED_DEVICES_INTERVAL) {
+            updateUnchangedDevices = false;
+            lastUnchangedDevicesUpdate = now;
+            changedDevices.clear();
+            return null;
+        }
+        Set<String> changed = new HashSet<String>(changedDevices);
+        changedDevices.clear();
+        return changed;
+    }
+
     public void onConnectionLost() {
         logger.debug("Bridge connection lost. Updating thing status to OFFLINE.");
         previousOnline = false;
@@ -422,7 +514,8 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
         }
         boolean result = deviceStatusListeners.add(deviceStatusListener);
         if (result) {
-            // onUpdate();
+            // pass all devices to the new listener with the next refresh
+            updateUnchangedDevices = true;
         }
         return result;
     }
@@ -651,13 +744,14 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
                     }
                 }
             } else if (message.getType() == MessageType.L) {
-                ((L_Message) message).updateDevices(devices, configurations);
+                updateDevices((L_Message) message);
                 logger.trace("{} devices found.", devices.size());
             } else if (message.getType() == MessageType.S) {
                 dutyCycle = ((S_Message) message).getDutyCycle();
                 freeMemorySlots = ((S_Message) message).getFreeMemorySlots();
                 updateCubeState();
-                if (((S_Message) message).isCommandDiscarded()) {
+                commandDiscarded = ((S_Message) message).isCommandDiscarded();
+                if (commandDiscarded) {
                     logger.warn("Last Send Command discarded. Duty Cycle: {}, Free Memory Slots: {}", dutyCycle,
                             freeMemorySlots);
                 } else {
@@ -673,6 +767,51 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
         }
     }
 
+    /**
+     * Updates the devices with the real time information of the L message. The information of a device is only
+     * decoded if it differs from the information received in the previous L message, the serial numbers of the updated
+     * devices are added to the changed devices.
+     *
+     * @param message the L message
+     */
+    private void updateDevices(L_Message message) {
+        MaxTokenizer tokenizer = message.getDeviceTokens();
+        while (tokenizer.hasMoreElements()) {
+            byte[] token = tokenizer.nextElement();
+            if (token.length < 3) {
+                continue;
+            }
+            String rfAddress = Utils.toHex(token[0] & 0xFF, token[1] & 0xFF, token[2] & 0xFF);
+            Device device = devicesByRfAddress.get(rfAddress);
+            if (device == null) {
+                device = Device.create(token, configurations);
+                if (device == null) {
+                    continue;
+                }
+                addDevice(device);
+            } else if (Arrays.equals(token, deviceStates.get(rfAddress))) {
+                continue;
+            } else {
+                Device.update(token, configurations, device);
+            }
+            deviceStates.put(rfAddress, token);
+            changedDevices.add(device.getSerialNumber());
+        }
+    }
+
+    private void addDevice(Device device) {
+        devices.add(device);
+        devicesBySerialNumber.put(device.getSerialNumber().toUpperCase(), device);
+        devicesByRfAddress.put(device.getRFAddress().toUpperCase(), device);
+    }
+
+    private void removeDevice(Device device) {
+        devices.remove(device);
+        devicesBySerialNumber.remove(device.getSerialNumber().toUpperCase());
+        devicesByRfAddress.remove(device.getRFAddress().toUpperCase());
+        deviceStates.remove(device.getRFAddress().toUpperCase());
+    }
+
     /**
      * @param {@link: N_Message} returned from the Cube with new device information
      */
@@ -744,15 +883,6 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
         logger.debug("NTP properties updated");
     }
 
-    private Device getDevice(String serialNumber, ArrayList<Device> devices) {
-        for (Device device : devices) {
-            if (device.getSerialNumber().toUpperCase().equals(serialNumber)) {
-                return device;
-            }
-        }
-        return null;
-    }
-
     /**
      * Returns the MAX! Device decoded during the last refreshData
      *
@@ -762,7 +892,7 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
      */
 
     public Device getDevice(String serialNumber) {
-        return getDevice(serialNumber, devices);
+        return devicesBySerialNumber.get(serialNumber);
     }
 
     /**
@@ -771,6 +901,9 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
      * item-channel combination are send prior that they are processed by the
      * Max! Cube, they will be removed from the queue as they would not be
      * meaningful. This will improve the behavior when using sliders in the GUI.
+     * As the Cube sends the setpoint of a device in a room to all devices of the
+     * room, a queued setpoint command for another device of the same room is
+     * removed as well.
      *
      * @param SendCommand
      *            the SendCommand containing the serial number of the device as
@@ -779,15 +912,27 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
      */
     public synchronized void queueCommand(SendCommand sendCommand) {
 
-        if (commandQueue.offer(sendCommand)) {
-            if (lastCommandId != null) {
-                if (lastCommandId.getKey().equals(sendCommand.getKey())) {
-                    if (commandQueue.remove(lastCommandId)) {
-                        logger.debug("Removed Command id {} ({}) from queue. Superceeded by {}", lastCommandId.getId(),
-                                lastCommandId.getKey(), sendCommand.getId());
-                    }
+        if (sendCommand.getChannelUID() != null) {
+            int roomId = getSetpointRoomId(sendCommand);
+            Iterator<SendCommand> iterator = commandQueue.iterator();
+            while (iterator.hasNext()) {
+                SendCommand queuedCommand = iterator.next();
+                if (queuedCommand.getChannelUID() != null && (queuedCommand.getKey().equals(sendCommand.getKey())
+                        || (roomId != 0 && getSetpointRoomId(queuedCommand) == roomId))) {
+                    iterator.remove();
+                    logger.debug("Removed Command id {} ({}) from queue. Superceeded by {}", queuedCommand.getId(),
+                            queuedCommand.getKey(), sendCommand.getId());
                 }
             }
+        } else if (lastCommandId != null && lastCommandId.getKey().equals(sendCommand.getKey())) {
+            if (commandQueue.remove(lastCommandId)) {
+                logger.debug("Removed Command id {} ({}) from queue. Superceeded by {}", lastCommandId.getId(),
+                        lastCommandId.getKey(), sendCommand.getId());
+            }
+        }
+
+        if (commandQueue.size() < MAX_COMMANDS) {
+            commandQueue.add(sendCommand);
             lastCommandId = sendCommand;
             logger.debug("Command queued id {} ({}:{}).", sendCommand.getId(), sendCommand.getKey(),
                     sendCommand.getCommandText());
@@ -798,6 +943,18 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
 
     }
 
+    /**
+     * @return the room of the device of a setpoint command or 0 if it is no setpoint command or the device is not
+     *         in a room
+     */
+    private int getSetpointRoomId(SendCommand sendCommand) {
+        if (!CHANNEL_SETTEMP.equals(sendCommand.getChannelUID().getId())) {
+            return 0;
+        }
+        Device device = getDevice(sendCommand.getDeviceSerial());
+        return device != null && device.getRoomId() > 0 ? device.getRoomId() : 0;
+    }
+
     /**
      * Processes device command and sends it to the MAX! Cube Lan Gateway.
      *
@@ -813,7 +970,7 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
         Command command = sendCommand.getCommand();
 
         // send command to MAX! Cube LAN Gateway
-        HeatingThermostat device = (HeatingThermostat) getDevice(serialNumber, devices);
+        HeatingThermostat device = (HeatingThermostat) getDevice(serialNumber);
 
         if (device == null) {
             logger.debug("Cannot send command to device with serial number {}, device not listed.", serialNumber);
@@ -888,7 +1045,7 @@ public class MaxCubeBridgeHandler extends BaseBridgeHandler {
             SendCommand sendCommand = new SendCommand(maxDeviceSerial, new T_Command(device.getRFAddress(), true),
                     "Delete device " + maxDeviceSerial + " from Cube!");
             queueCommand(sendCommand);
-            devices.remove(device);
+            removeDevice(device);
             sendDeviceAndRoomNameUpdate("Remove name entry for " + maxDeviceSerial);
             sendCommand = new SendCommand(maxDeviceSerial, new Q_Command(), "Reload Data");
             queueCommand(sendCommand);
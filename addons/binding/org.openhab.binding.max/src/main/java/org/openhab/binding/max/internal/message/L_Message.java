@@ -13,7 +13,6 @@ import java.util.Collection;
 import java.util.List;
 
 import org.apache.commons.net.util.Base64;
-import org.openhab.binding.max.internal.Utils;
 import org.openhab.binding.max.internal.device.Device;
 import org.openhab.binding.max.internal.device.DeviceConfiguration;
 import org.slf4j.Logger;
@@ -36,9 +35,7 @@ public final class L_Message extends Message {
 
         List<Device> devices = new ArrayList<Device>();
 
-        byte[] decodedRawMessage = Base64.decodeBase64(getPayload().getBytes());
-
-        MaxTokenizer tokenizer = new MaxTokenizer(decodedRawMessage);
+        MaxTokenizer tokenizer = getDeviceTokens();
 
         while (tokenizer.hasMoreElements()) {
             byte[] token = tokenizer.nextElement();
@@ -51,38 +48,14 @@ public final class L_Message extends Message {
         return devices;
     }
 
-    public Collection<? extends Device> updateDevices(List<Device> devices, List<DeviceConfiguration> configurations) {
-
-        byte[] decodedRawMessage = Base64.decodeBase64(getPayload().getBytes());
-
-        MaxTokenizer tokenizer = new MaxTokenizer(decodedRawMessage);
-
-        while (tokenizer.hasMoreElements()) {
-            byte[] token = tokenizer.nextElement();
-            String rfAddress = Utils.toHex(token[0] & 0xFF, token[1] & 0xFF, token[2] & 0xFF);
-            // logger.debug("token: "+token+" rfaddress: "+rfAddress);
-
-            Device foundDevice = null;
-            for (Device device : devices) {
-                // logger.debug(device.getRFAddress().toUpperCase()+ " vs "+rfAddress);
-                if (device.getRFAddress().toUpperCase().equals(rfAddress)) {
-                    // logger.debug("Updating device..."+rfAddress);
-                    foundDevice = device;
-                }
-            }
-            if (foundDevice != null) {
-                foundDevice = Device.update(token, configurations, foundDevice);
-                // devices.remove(token);
-                // devices.add(foundDevice);
-            } else {
-                Device tempDevice = Device.create(token, configurations);
-                if (tempDevice != null) {
-                    devices.add(tempDevice);
-                }
-            }
-        }
-
-        return devices;
+    /**
+     * Returns the real time information of the devices in this message, one token per device. The tokens are decoded
+     * while enumerating, the first three bytes of a token are the RF address of the device.
+     *
+     * @return the tokens of the devices
+     */
+    public MaxTokenizer getDeviceTokens() {
+        return new MaxTokenizer(Base64.decodeBase64(getPayload().getBytes()));
     }
 
     @Override
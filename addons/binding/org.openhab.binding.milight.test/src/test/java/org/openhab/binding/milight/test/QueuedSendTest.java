@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.milight.test;
+
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.milight.MilightBindingConstants;
+import org.openhab.binding.milight.internal.MilightThingState;
+import org.openhab.binding.milight.internal.protocol.MilightV6RGB_CW_WW;
+import org.openhab.binding.milight.internal.protocol.MilightV6SessionManager;
+import org.openhab.binding.milight.internal.protocol.QueueItem;
+import org.openhab.binding.milight.internal.protocol.QueuedSend;
+
+/**
+ * Tests the {@link QueuedSend} of a v6 session against the {@link EmulatedV6Bridge}.
+ *
+ * @author agent - Initial contribution
+ */
+public class QueuedSendTest {
+
+    private static final String BRIDGE_ID = "ACCF23F57AD4";
+    private static final int CONFIRMATION_DELAY = 20;
+    private static final long TIMEOUT = 5000;
+
+    private EmulatedV6Bridge bridge;
+    private ScheduledExecutorService scheduler;
+    private QueuedSend sendQueue;
+    private MilightV6SessionManager session;
+
+    @Before
+    public void setUp() throws Exception {
+        bridge = new EmulatedV6Bridge();
+        bridge.setConfirmationDelay(CONFIRMATION_DELAY);
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+
+        InetAddress address = InetAddress.getLoopbackAddress();
+        sendQueue = new QueuedSend();
+        sendQueue.setAddress(address);
+        sendQueue.setPort(MilightBindingConstants.PORT_VER6);
+        sendQueue.start();
+        session = new MilightV6SessionManager(sendQueue, BRIDGE_ID, scheduler, state -> {
+        }, address);
+
+        // the registration is the first confirmed command
+        assertTrue("Session not established", waitFor(() -> session.isValid() && sendQueue.getConfirmedPackets() > 0));
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        session.dispose();
+        sendQueue.dispose();
+        sendQueue.getSocket().close();
+        bridge.dispose();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testQueuedCommandsOfSameCategoryAreReplaced() throws InterruptedException {
+        MilightV6RGB_CW_WW bulb = new MilightV6RGB_CW_WW(sendQueue, session, 1);
+        MilightThingState state = new MilightThingState();
+        int issued = 100;
+        // the session handshake may have replaced items already
+        long replaced = sendQueue.getReplacedItems();
+
+        for (int i = 0; i < issued; ++i) {
+            bulb.setColorTemperature(i, state);
+        }
+
+        assertTrue("Commands not send", waitFor(() -> sendQueue.getQueuedItems() == 0
+                && bridge.getReceivedZones().size() == issued - (sendQueue.getReplacedItems() - replaced)));
+        assertTrue("No command replaced", sendQueue.getReplacedItems() > replaced);
+        assertEquals(Collections.nCopies(bridge.getReceivedZones().size(), 1), bridge.getReceivedZones());
+    }
+
+    @Test
+    public void testZonesTakeTurns() throws InterruptedException {
+        MilightV6RGB_CW_WW zone1 = new MilightV6RGB_CW_WW(sendQueue, session, 1);
+        MilightV6RGB_CW_WW zone2 = new MilightV6RGB_CW_WW(sendQueue, session, 2);
+        MilightThingState state = new MilightThingState();
+
+        // hold the queue back until the commands of both zones are queued
+        byte[] keepAlive = { (byte) 0xD0, 0, 0, 0, 2, session.getSid1(), session.getSid2() };
+        sendQueue.queue(QueueItem.createRepeatable(QueuedSend.NO_CATEGORY, keepAlive, 300));
+        zone1.setBrightness(50, state);
+        zone1.setSaturation(50, state);
+        zone1.setColorTemperature(50, state);
+        zone2.setBrightness(50, state);
+        zone2.setSaturation(50, state);
+        zone2.setColorTemperature(50, state);
+
+        assertTrue("Commands not send", waitFor(() -> bridge.getReceivedZones().size() == 6));
+        assertEquals(Arrays.asList(1, 2, 1, 2, 1, 2), bridge.getReceivedZones());
+    }
+
+    @Test
+    public void testDelayIsPacedByConfirmations() throws InterruptedException {
+        MilightV6RGB_CW_WW bulb = new MilightV6RGB_CW_WW(sendQueue, session, 1);
+        MilightThingState state = new MilightThingState();
+        int delayBetweenCommands = 400;
+        int issued = 10;
+        sendQueue.setDelayBetweenCommands(delayBetweenCommands);
+        long confirmed = sendQueue.getConfirmedPackets();
+
+        long start = System.currentTimeMillis();
+        // speed changes are relative and never replaced
+        for (int i = 0; i < issued; ++i) {
+            bulb.changeSpeed(2, state);
+        }
+        assertTrue("Commands not send", waitFor(() -> bridge.getReceivedZones().size() == issued));
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertTrue("Commands not confirmed", sendQueue.getConfirmedPackets() > confirmed);
+        long reactionTime = sendQueue.getReactionTime();
+        assertTrue("Reaction time " + reactionTime + " ms",
+                reactionTime >= CONFIRMATION_DELAY && reactionTime < delayBetweenCommands);
+        assertTrue("Commands send within " + elapsed + " ms", elapsed < (issued - 1) * delayBetweenCommands / 2);
+    }
+
+    private boolean waitFor(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+}
@@ -105,12 +105,13 @@ public abstract class AbstractBulbInterface {
 
     /**
      * Generates a unique command id for the {@see QueuedSend}. It incorporates the zone, bulb type and command
-     * category.
-     * @param command_category The category of the command.
+     * category. The send queue uses the zone and bulb type part to let the zones take turns.
+     * @param command_category The category of the command. Use {@see QueuedSend.NO_CATEGORY} for commands that
+     *            must not be replaced by later commands.
      *
      * @return
      */
     protected int uidc(int command_category) {
-        return (zone + type_offset + 1) * 64 + command_category;
+        return ((zone + type_offset + 1) << QueuedSend.CATEGORY_BITS) + command_category;
     }
 }
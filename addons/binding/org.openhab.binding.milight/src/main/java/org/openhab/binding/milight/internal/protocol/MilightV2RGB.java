@@ -136,7 +136,7 @@ public class MilightV2RGB extends AbstractBulbInterface {
             int steps = (int) Math.abs(Math.floor(relative_brightness * brLevels / 100.0));
             for (int s = 0; s < steps; ++s) {
                 byte[] t = { (byte) (relative_brightness < 0 ? 0x24 : 0x23), 0x00, 0x55 };
-                sendQueue.queue(QueueItem.createNonRepeatable(t));
+                sendQueue.queue(QueueItem.createNonRepeatable(uidc(QueuedSend.NO_CATEGORY), t));
             }
         }
         state.brightness = newPercent;
@@ -150,14 +150,14 @@ public class MilightV2RGB extends AbstractBulbInterface {
     @Override
     public void previousAnimationMode(MilightThingState state) {
         setPower(true, state);
-        sendQueue.queue(QueueItem.createNonRepeatable(new byte[] { 0x28, 0x00, 0x55 }));
+        sendQueue.queue(QueueItem.createNonRepeatable(uidc(QueuedSend.NO_CATEGORY), new byte[] { 0x28, 0x00, 0x55 }));
         state.animationMode = Math.min(state.animationMode - 1, 0);
     }
 
     @Override
     public void nextAnimationMode(MilightThingState state) {
         setPower(true, state);
-        sendQueue.queue(QueueItem.createNonRepeatable(new byte[] { 0x27, 0x00, 0x55 }));
+        sendQueue.queue(QueueItem.createNonRepeatable(uidc(QueuedSend.NO_CATEGORY), new byte[] { 0x27, 0x00, 0x55 }));
         state.animationMode = Math.max(state.animationMode + 1, 100);
     }
 
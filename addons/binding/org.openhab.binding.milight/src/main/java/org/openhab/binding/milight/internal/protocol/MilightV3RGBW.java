@@ -116,7 +116,7 @@ public class MilightV3RGBW extends MilightV3 {
 
         final byte c_on[] = { command_on[zone], 0x00, 0x55 };
         final byte c_speed[] = { (byte) (relative_speed > 0 ? 0x44 : 0x43), 0x00, 0x55 };
-        sendQueue.queue(QueueItem.createRepeatable(c_on).addNonRepeatable(c_speed));
+        sendQueue.queue(QueueItem.createRepeatable(uidc(QueuedSend.NO_CATEGORY), c_on).addNonRepeatable(c_speed));
     }
 
     // This bulb actually doesn't implement a previous animation mode command. We just use the next mode command
@@ -124,14 +124,16 @@ public class MilightV3RGBW extends MilightV3 {
     @Override
     public void previousAnimationMode(MilightThingState state) {
         final byte c_on[] = { command_on[zone], 0x00, 0x55 };
-        sendQueue.queue(QueueItem.createRepeatable(c_on).addNonRepeatable(next_animation_mode));
+        sendQueue.queue(
+                QueueItem.createRepeatable(uidc(QueuedSend.NO_CATEGORY), c_on).addNonRepeatable(next_animation_mode));
         state.animationMode = (state.animationMode + 1) % (MAX_ANIM_MODES + 1);
     }
 
     @Override
     public void nextAnimationMode(MilightThingState state) {
         final byte c_on[] = { command_on[zone], 0x00, 0x55 };
-        sendQueue.queue(QueueItem.createRepeatable(c_on).addNonRepeatable(next_animation_mode));
+        sendQueue.queue(
+                QueueItem.createRepeatable(uidc(QueuedSend.NO_CATEGORY), c_on).addNonRepeatable(next_animation_mode));
         state.animationMode = (state.animationMode + 1) % (MAX_ANIM_MODES + 1);
     }
 }
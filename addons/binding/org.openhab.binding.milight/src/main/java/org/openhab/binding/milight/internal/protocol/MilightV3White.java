@@ -105,7 +105,7 @@ public class MilightV3White extends MilightV3 {
         state.colorTemperature = Math.min(100, Math.max(state.colorTemperature + color_temp_relative, 0));
         final byte c_on[] = { command_on[zone], 0x00, 0x55 };
         final byte c_temp[] = { (byte) (color_temp_relative > 0 ? 0x3E : 0x3F), 0x00, 0x55 };
-        sendQueue.queue(QueueItem.createRepeatable(c_on).addNonRepeatable(c_temp));
+        sendQueue.queue(QueueItem.createRepeatable(uidc(QueuedSend.NO_CATEGORY), c_on).addNonRepeatable(c_temp));
     }
 
     // This just emulates an absolute brightness command with the relative commands.
@@ -125,7 +125,7 @@ public class MilightV3White extends MilightV3 {
         // When turning on start from full brightness
         int oldLevel;
         final byte c_full[] = { command_full[zone], 0x00, 0x55 };
-        QueueItem item = QueueItem.createRepeatable(c_full);
+        QueueItem item = QueueItem.createRepeatable(uidc(QueuedSend.NO_CATEGORY), c_full);
         boolean skipFirst = false;
 
         if (state.brightness == 0) {
@@ -168,7 +168,7 @@ public class MilightV3White extends MilightV3 {
         } else {
             final byte c_on[] = { command_on[zone], 0x00, 0x55 };
             final byte c_br[] = { (byte) (relative_brightness < 0 ? 0x34 : 0x3C), 0x00, 0x55 };
-            sendQueue.queue(QueueItem.createRepeatable(c_on).addNonRepeatable(c_br));
+            sendQueue.queue(QueueItem.createRepeatable(uidc(QueuedSend.NO_CATEGORY), c_on).addNonRepeatable(c_br));
         }
     }
 
@@ -180,14 +180,16 @@ public class MilightV3White extends MilightV3 {
     @Override
     public void previousAnimationMode(MilightThingState state) {
         final byte c_on[] = { command_on[zone], 0x00, 0x55 };
-        sendQueue.queue(QueueItem.createRepeatable(c_on).addNonRepeatable(prev_animation_mode));
+        sendQueue.queue(
+                QueueItem.createRepeatable(uidc(QueuedSend.NO_CATEGORY), c_on).addNonRepeatable(prev_animation_mode));
         state.animationMode = Math.max(state.animationMode - 1, 0);
     }
 
     @Override
     public void nextAnimationMode(MilightThingState state) {
         final byte c_on[] = { command_on[zone], 0x00, 0x55 };
-        sendQueue.queue(QueueItem.createRepeatable(c_on).addNonRepeatable(next_animation_mode));
+        sendQueue.queue(
+                QueueItem.createRepeatable(uidc(QueuedSend.NO_CATEGORY), c_on).addNonRepeatable(next_animation_mode));
         state.animationMode = Math.min(state.animationMode + 1, MAX_ANIM_MODES);
     }
 
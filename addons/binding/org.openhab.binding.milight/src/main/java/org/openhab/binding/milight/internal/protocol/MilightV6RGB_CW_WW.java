@@ -113,9 +113,9 @@ public class MilightV6RGB_CW_WW extends MilightV6 {
     @Override
     public void changeSpeed(int relative_speed, MilightThingState state) {
         if (relative_speed > 1) {
-            sendQueue.queue(QueueItem.createNonRepeatable(make_command(4, 3)));
+            sendQueue.queue(QueueItem.createNonRepeatable(uidc(QueuedSend.NO_CATEGORY), make_command(4, 3)));
         } else if (relative_speed < 1) {
-            sendQueue.queue(QueueItem.createNonRepeatable(make_command(4, 4)));
+            sendQueue.queue(QueueItem.createNonRepeatable(uidc(QueuedSend.NO_CATEGORY), make_command(4, 4)));
         }
     }
 }
@@ -94,9 +94,9 @@ public class MilightV6RGB_IBOX extends MilightV6 {
     @Override
     public void changeSpeed(int relative_speed, MilightThingState state) {
         if (relative_speed > 1) {
-            sendQueue.queue(QueueItem.createNonRepeatable(make_command(3, 2)));
+            sendQueue.queue(QueueItem.createNonRepeatable(uidc(QueuedSend.NO_CATEGORY), make_command(3, 2)));
         } else if (relative_speed < 1) {
-            sendQueue.queue(QueueItem.createNonRepeatable(make_command(3, 1)));
+            sendQueue.queue(QueueItem.createNonRepeatable(uidc(QueuedSend.NO_CATEGORY), make_command(3, 1)));
         }
     }
 
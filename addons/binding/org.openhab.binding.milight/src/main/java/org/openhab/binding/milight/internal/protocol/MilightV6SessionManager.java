@@ -101,7 +101,7 @@ public class MilightV6SessionManager implements Runnable {
     // Quits the receive thread if set to true
     private boolean willbeclosed = false;
     // Keep track of send commands and their sequence number
-    private Map<Byte, Long> used_sequence_no = new TreeMap<Byte, Long>();
+    private final Map<Byte, Long> used_sequence_no = new TreeMap<Byte, Long>();
     // The receive thread for all bridge responses.
     private Thread sessionThread;
 
@@ -204,19 +204,21 @@ public class MilightV6SessionManager implements Runnable {
     // The bridge response will remove the queued number. This method also checks
     // for non confirmed sequence numbers older that 2 seconds and report them.
     byte getNextSequenceNo2() {
-        byte t = sequence_no;
-        long current = System.currentTimeMillis();
-        used_sequence_no.put(t, current);
-        // Check old seq no:
-        for (Iterator<Map.Entry<Byte, Long>> it = used_sequence_no.entrySet().iterator(); it.hasNext();) {
-            Map.Entry<Byte, Long> entry = it.next();
-            if (entry.getValue() + 2000 < current) {
-                logger.warn("Command not confirmed: {}", entry.getKey());
-                it.remove();
+        synchronized (used_sequence_no) {
+            byte t = sequence_no;
+            long current = System.currentTimeMillis();
+            used_sequence_no.put(t, current);
+            // Check old seq no:
+            for (Iterator<Map.Entry<Byte, Long>> it = used_sequence_no.entrySet().iterator(); it.hasNext();) {
+                Map.Entry<Byte, Long> entry = it.next();
+                if (entry.getValue() + 2000 < current) {
+                    logger.warn("Command not confirmed: {}", entry.getKey());
+                    it.remove();
+                }
             }
+            ++sequence_no;
+            return t;
         }
-        ++sequence_no;
-        return t;
     }
 
     // You have to call that if you are done with this object, we have to clean up
@@ -515,8 +517,13 @@ public class MilightV6SessionManager implements Runnable {
                         break;
                     }
                     // 88 00 00 00 03 SN SN 00 // two byte sequence number, we use the later one only
-                    case (byte) 0x88:
-                        used_sequence_no.remove(buffer[6]);
+                    case (byte) 0x88: {
+                        final byte confirmed_no = buffer[6];
+                        synchronized (used_sequence_no) {
+                            used_sequence_no.remove(confirmed_no);
+                        }
+                        // Command packets are 22 bytes long and contain the sequence number at position 8
+                        sendQueue.confirmationReceived(data -> data.length == 22 && data[8] == confirmed_no);
                         if (buffer[07] == 0) {
                             if (DEBUG_SESSION) {
                                 logger.debug("Confirmation received for command: {}", String.valueOf(buffer[6]));
@@ -525,6 +532,7 @@ public class MilightV6SessionManager implements Runnable {
                             logger.info("Bridge reports an invalid command: {}", String.valueOf(buffer[6]));
                         }
                         break;
+                    }
                     // D8 00 00 00 07 (AC CF 23 F5 7A D4) 01
                     // Response to the keepAlive() packet
                     case (byte) 0xD8: {
@@ -532,6 +540,7 @@ public class MilightV6SessionManager implements Runnable {
                         if (eq) {
                             sessionState = SessionState.SESSION_VALID;
                             lastSessionConfirmed = System.currentTimeMillis();
+                            sendQueue.confirmationReceived(data -> data[0] == (byte) 0xD0);
                             if (DEBUG_SESSION) {
                                 logger.debug("Keep alive received");
                             }
@@ -13,7 +13,6 @@ package org.openhab.binding.milight.internal.protocol;
  * @author David Graeff - Initial contribution
  */
 public class QueueItem {
-    static final int INVALID = -1;
     byte[] data;
     int unique_command_id;
     boolean repeatable;
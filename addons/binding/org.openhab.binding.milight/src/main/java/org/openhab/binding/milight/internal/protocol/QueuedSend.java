@@ -12,10 +12,13 @@ import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
 import java.net.SocketException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
-import java.util.NoSuchElementException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,6 +30,14 @@ import org.slf4j.LoggerFactory;
  * delay only. The user may issue absolute brightness or color changes faster than 1/10s though, and we don't
  * want to just queue up those commands but apply the newest command only.
  *
+ * The id of an item consists of the zone (upper bits) and the category (lower {@link #CATEGORY_BITS} bits) of the
+ * command, see {@link AbstractBulbInterface#uidc(int)}. Items are queued per zone and the zones take turns, so a
+ * zone with many queued commands does not delay the commands for other zones. Items of the same zone are send in
+ * the order they have been added.
+ *
+ * If the bridge confirms commands (v6 bridges), the time between sending a command and its confirmation is measured
+ * and the delay between commands is reduced to twice the reaction time of the bridge.
+ *
  * @author David Graeff <david.graeff@web.de>
  * @since 2.1
  *
@@ -34,7 +45,23 @@ import org.slf4j.LoggerFactory;
 public class QueuedSend implements Runnable {
     private final Logger logger = LoggerFactory.getLogger(QueuedSend.class);
 
-    BlockingQueue<QueueItem> queue = new LinkedBlockingQueue<>(20);
+    // The number of lower bits of a command id that contain the command category
+    static final int CATEGORY_BITS = 6;
+    private static final int CATEGORY_MASK = (1 << CATEGORY_BITS) - 1;
+
+    // The maximum number of queued items. Categorised items replace each other, so this is only reached by
+    // non-categorised items.
+    private static final int MAX_QUEUED_ITEMS = 50;
+
+    // The delay between commands is not reduced below this value (ms)
+    private static final int MIN_PACED_DELAY = 5;
+    // Measured reaction times are used for this time after the last confirmation
+    private static final long PACING_VALIDITY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    // Queued items per zone. The zone of the next item to send is moved to the end.
+    private final Map<Integer, Deque<QueueItem>> zones = new LinkedHashMap<>();
+    private int queuedItems = 0;
+
     protected final DatagramPacket packet;
     protected final DatagramSocket datagramSocket;
     private int delay_between_commands = 100;
@@ -42,6 +69,18 @@ public class QueuedSend implements Runnable {
     private boolean willbeclosed = false;
     private Thread thread;
 
+    // The last packet send and the time it was send, used to measure the reaction time of the bridge
+    private final Object pacingLock = new Object();
+    private byte[] lastSentData = null;
+    private long lastSentNanos = 0;
+    private long reactionNanos = 0;
+    private long lastConfirmationNanos = 0;
+
+    // Statistics
+    private long sentPackets = 0;
+    private long replacedItems = 0;
+    private long confirmedPackets = 0;
+
     public static final byte NO_CATEGORY = 0;
 
     /**
@@ -96,7 +135,7 @@ public class QueuedSend implements Runnable {
             } else {
                 try {
                     // block/wait for another item
-                    item = queue.take();
+                    item = take();
                 } catch (InterruptedException e) {
                     if (!willbeclosed) {
                         logger.error("Queue take failed: {}", e.getLocalizedMessage());
@@ -105,15 +144,20 @@ public class QueuedSend implements Runnable {
                 }
             }
 
-            if (item == null || item.unique_command_id == QueueItem.INVALID) {
-                // Just in case it is a command chain, set the item to null to not process any chained commands.
-                item = null;
-                continue;
-            }
-
             packet.setData(item.data);
             try {
                 for (int i = 0; i < (item.repeatable ? repeat_commands : 1); ++i) {
+                    // Don't repeat a command that has been replaced by a newer one in the meantime
+                    if (i > 0 && isQueued(item.unique_command_id)) {
+                        break;
+                    }
+                    synchronized (pacingLock) {
+                        if (i == 0) {
+                            lastSentData = item.data;
+                            lastSentNanos = System.nanoTime();
+                        }
+                        ++sentPackets;
+                    }
                     datagramSocket.send(packet);
 
                     if (logger.isDebugEnabled()) {
@@ -132,7 +176,7 @@ public class QueuedSend implements Runnable {
             }
 
             try {
-                Thread.sleep((item.custom_delay_time != 0) ? item.custom_delay_time : delay_between_commands);
+                Thread.sleep((item.custom_delay_time != 0) ? item.custom_delay_time : getPacedDelay());
             } catch (InterruptedException e) {
                 if (!willbeclosed) {
                     logger.error("Queue sleep failed: {}", e.getLocalizedMessage());
@@ -163,28 +207,80 @@ public class QueuedSend implements Runnable {
     }
 
     /**
-     * Mark all commands in the queue invalid that have the same unique id as the given one. This does not synchronise
-     * with the sender thread. If an element has been started to being processed, this method has no more effect on that
-     * element. Command chains are always executed in a row. Even if the head of the command queue has been marked
-     * as invalid, if the processing has been started, the chain will be processed completely.
+     * Called for each confirmation received from the bridge. If the confirmation belongs to the last send packet, the
+     * time between sending the packet and receiving the confirmation is used to pace the following commands.
      *
-     * @param unique_command_id
+     * @param isConfirmed Returns true if the given data of the last send packet is confirmed.
      */
-    private void remove_from_queue(int unique_command_id) {
-        Iterator<QueueItem> iterator = queue.iterator();
-        while (iterator.hasNext()) {
-            try {
-                QueueItem item = iterator.next();
-                if (item != null && item.unique_command_id == unique_command_id) {
-                    item.unique_command_id = QueueItem.INVALID; // invalidate
+    public void confirmationReceived(Predicate<byte[]> isConfirmed) {
+        synchronized (pacingLock) {
+            if (lastSentData == null || !isConfirmed.test(lastSentData)) {
+                return;
+            }
+            long now = System.nanoTime();
+            long reaction = now - lastSentNanos;
+            // Smooth the measured reaction time, a single slow confirmation should not slow down all commands
+            reactionNanos = reactionNanos == 0 ? reaction : (7 * reactionNanos + reaction) / 8;
+            lastConfirmationNanos = now;
+            lastSentData = null;
+            ++confirmedPackets;
+        }
+    }
+
+    /**
+     * Returns the delay between commands. This is twice the reaction time of the bridge if confirmations are received,
+     * but never more than the configured delay between commands.
+     */
+    private int getPacedDelay() {
+        synchronized (pacingLock) {
+            if (reactionNanos == 0 || System.nanoTime() - lastConfirmationNanos > PACING_VALIDITY_NANOS) {
+                return delay_between_commands;
+            }
+            long pacedDelay = TimeUnit.NANOSECONDS.toMillis(2 * reactionNanos);
+            return (int) Math.min(delay_between_commands, Math.max(MIN_PACED_DELAY, pacedDelay));
+        }
+    }
+
+    /**
+     * Takes the next item to send. The zones take turns, the zone of the returned item is moved to the end.
+     *
+     * @throws InterruptedException
+     */
+    private QueueItem take() throws InterruptedException {
+        synchronized (zones) {
+            while (queuedItems == 0) {
+                zones.wait();
+            }
+            Iterator<Map.Entry<Integer, Deque<QueueItem>>> iterator = zones.entrySet().iterator();
+            Map.Entry<Integer, Deque<QueueItem>> entry = iterator.next();
+            Deque<QueueItem> zoneQueue = entry.getValue();
+            QueueItem item = zoneQueue.poll();
+            iterator.remove();
+            if (!zoneQueue.isEmpty()) {
+                zones.put(entry.getKey(), zoneQueue);
+            }
+            --queuedItems;
+            return item;
+        }
+    }
+
+    /**
+     * Return true if an item with the given categorised id is queued.
+     */
+    private boolean isQueued(int unique_command_id) {
+        if ((unique_command_id & CATEGORY_MASK) == NO_CATEGORY) {
+            return false;
+        }
+        synchronized (zones) {
+            Deque<QueueItem> zoneQueue = zones.get(unique_command_id >> CATEGORY_BITS);
+            if (zoneQueue != null) {
+                for (QueueItem item : zoneQueue) {
+                    if (item.unique_command_id == unique_command_id) {
+                        return true;
+                    }
                 }
-            } catch (IllegalStateException e) {
-                // Ignore threading errors
-                logger.error("{}", e.getLocalizedMessage());
-            } catch (NoSuchElementException e) {
-                // The element might have been processed already while iterate.
-                // Ignore NoSuchElementException here.
             }
+            return false;
         }
     }
 
@@ -202,13 +298,12 @@ public class QueuedSend implements Runnable {
      * @param data Data to be send
      */
     public void queueRepeatable(int unique_command_id, byte[]... data) {
-        remove_from_queue(unique_command_id);
         QueueItem item = QueueItem.createRepeatable(unique_command_id, data[0]);
         QueueItem next = item;
         for (int i = 1; i < data.length; ++i) {
             next = next.addRepeatable(data[i]);
         }
-        queue.offer(item);
+        queue(item);
     }
 
     /**
@@ -220,10 +315,78 @@ public class QueuedSend implements Runnable {
      * @param item A queue item, cannot be null.
      */
     public void queue(QueueItem item) {
-        if (item.unique_command_id != NO_CATEGORY) {
-            remove_from_queue(item.unique_command_id);
+        int zone = item.unique_command_id >> CATEGORY_BITS;
+        synchronized (zones) {
+            Deque<QueueItem> zoneQueue = zones.get(zone);
+            if (zoneQueue == null) {
+                zoneQueue = new ArrayDeque<>();
+                zones.put(zone, zoneQueue);
+            }
+            if ((item.unique_command_id & CATEGORY_MASK) != NO_CATEGORY) {
+                for (Iterator<QueueItem> iterator = zoneQueue.iterator(); iterator.hasNext();) {
+                    if (iterator.next().unique_command_id == item.unique_command_id) {
+                        iterator.remove();
+                        --queuedItems;
+                        ++replacedItems;
+                    }
+                }
+            }
+            if (queuedItems >= MAX_QUEUED_ITEMS) {
+                logger.warn("Send queue full, dropping command for bridge {}", packet.getAddress());
+                if (zoneQueue.isEmpty()) {
+                    zones.remove(zone);
+                }
+                return;
+            }
+            zoneQueue.add(item);
+            ++queuedItems;
+            zones.notifyAll();
+        }
+    }
+
+    /**
+     * Return the number of queued items.
+     */
+    public int getQueuedItems() {
+        synchronized (zones) {
+            return queuedItems;
+        }
+    }
+
+    /**
+     * Return the number of packets send, including repeated packets.
+     */
+    public long getSentPackets() {
+        synchronized (pacingLock) {
+            return sentPackets;
+        }
+    }
+
+    /**
+     * Return the number of queued items that have been replaced by a newer item before being send.
+     */
+    public long getReplacedItems() {
+        synchronized (zones) {
+            return replacedItems;
+        }
+    }
+
+    /**
+     * Return the number of packets confirmed by the bridge.
+     */
+    public long getConfirmedPackets() {
+        synchronized (pacingLock) {
+            return confirmedPackets;
+        }
+    }
+
+    /**
+     * Return the measured reaction time of the bridge in ms or 0 if the bridge does not confirm commands.
+     */
+    public long getReactionTime() {
+        synchronized (pacingLock) {
+            return TimeUnit.NANOSECONDS.toMillis(reactionNanos);
         }
-        queue.offer(item);
     }
 
     public InetAddress getAddr() {
@@ -12,8 +12,11 @@ import java.io.IOException;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetAddress;
+import java.net.SocketException;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import org.openhab.binding.milight.MilightBindingConstants;
 import org.slf4j.Logger;
@@ -29,7 +32,16 @@ import org.slf4j.LoggerFactory;
  */
 public class EmulatedV6Bridge {
     protected final Logger logger = LoggerFactory.getLogger(EmulatedV6Bridge.class);
-    private boolean willbeclosed = false;
+    private volatile boolean willbeclosed = false;
+    private final DatagramSocket discoverSocket;
+    private final DatagramSocket controlSocket;
+    private final Thread discoverThread;
+    private final Thread controlThread;
+
+    // Emulates the reaction time of a real bridge
+    private volatile int confirmationDelay = 0;
+    // The zones of the received light commands, including repeated commands
+    private final List<Integer> receivedZones = new ArrayList<>();
     private byte SID1 = (byte) 0xed;
     private byte SID2 = (byte) 0xab;
     private byte PW1 = 0;
@@ -88,19 +100,28 @@ public class EmulatedV6Bridge {
     private byte[] KEEP_ALIVE_RESPONSE = { (byte) 0xD8, 0, 0, 0, (byte) 0x07, FAKE_MAC[0], FAKE_MAC[1], FAKE_MAC[2],
             FAKE_MAC[3], FAKE_MAC[4], FAKE_MAC[5], 1 };
 
-    EmulatedV6Bridge() {
-        new Thread(new Runnable() {
+    EmulatedV6Bridge() throws SocketException {
+        discoverSocket = new DatagramSocket(MilightBindingConstants.PORT_DISCOVER);
+        try {
+            controlSocket = new DatagramSocket(MilightBindingConstants.PORT_VER6);
+        } catch (SocketException e) {
+            discoverSocket.close();
+            throw e;
+        }
+        discoverThread = new Thread(new Runnable() {
             @Override
             public void run() {
                 runDiscovery();
             }
-        }).start();
-        new Thread(new Runnable() {
+        });
+        discoverThread.start();
+        controlThread = new Thread(new Runnable() {
             @Override
             public void run() {
                 runBrigde();
             }
-        }).start();
+        });
+        controlThread.start();
     }
 
     private void replaceWithMac(byte data[], int offset) {
@@ -118,7 +139,7 @@ public class EmulatedV6Bridge {
         try {
             byte[] a = new byte[0];
             DatagramPacket s_packet = new DatagramPacket(a, a.length);
-            DatagramSocket datagramSocket = new DatagramSocket(MilightBindingConstants.PORT_DISCOVER);
+            DatagramSocket datagramSocket = discoverSocket;
 
             debug_session("EmulatedV6Bridge discover thread ready");
             byte[] buffer = new byte[1024];
@@ -155,7 +176,7 @@ public class EmulatedV6Bridge {
         try {
             byte[] a = new byte[0];
             DatagramPacket s_packet = new DatagramPacket(a, a.length);
-            DatagramSocket datagramSocket = new DatagramSocket(MilightBindingConstants.PORT_VER6);
+            DatagramSocket datagramSocket = controlSocket;
 
             debug_session("EmulatedV6Bridge control thread ready");
             byte[] buffer = new byte[1024];
@@ -299,9 +320,19 @@ public class EmulatedV6Bridge {
                                 debugStr.append(String.format("%02X ", buffer[i]));
                             }
                             logger.debug("{}", debugStr);
+                            synchronized (receivedZones) {
+                                receivedZones.add((int) buffer[19]);
+                            }
                         }
                     }
 
+                    if (confirmationDelay > 0) {
+                        try {
+                            Thread.sleep(confirmationDelay);
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
                     byte response[] = { (byte) 0x88, 0, 0, 0, (byte) 0x03, 0, seq, 0 };
                     sendMessage(s_packet, datagramSocket, response);
                     continue;
@@ -319,6 +350,39 @@ public class EmulatedV6Bridge {
         }
     }
 
+    /**
+     * Set the time the emulated bridge waits before confirming a command.
+     *
+     * @param ms Delay in milliseconds
+     */
+    public void setConfirmationDelay(int ms) {
+        confirmationDelay = ms;
+    }
+
+    /**
+     * Return the zones of the received light commands in the order they have been received, including repeated
+     * commands.
+     */
+    public List<Integer> getReceivedZones() {
+        synchronized (receivedZones) {
+            return new ArrayList<>(receivedZones);
+        }
+    }
+
+    /**
+     * Stop the emulated bridge and close its sockets. The ports are free again when this method returns.
+     *
+     * @throws InterruptedException
+     */
+    public void dispose() throws InterruptedException {
+        willbeclosed = true;
+        discoverSocket.close();
+        controlSocket.close();
+        controlThread.interrupt();
+        discoverThread.join();
+        controlThread.join();
+    }
+
     protected void logUnknownPacket(byte[] data, int len, String reason) {
         StringBuilder s = new StringBuilder();
         for (int i = 0; i < len; ++i) {
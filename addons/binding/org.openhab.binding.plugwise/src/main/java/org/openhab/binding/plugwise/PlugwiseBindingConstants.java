@@ -46,6 +46,7 @@ public class PlugwiseBindingConstants {
 
     // List of all property IDs
     public static final String PROPERTY_HERTZ = "hertz";
+    public static final String PROPERTY_LAST_ENERGY_UPDATE = "lastEnergyUpdate";
     public static final String PROPERTY_MAC_ADDRESS = "macAddress";
 
     // List of all Thing Type UIDs
@@ -165,6 +165,12 @@ public abstract class AbstractPlugwiseThingHandler extends BaseThingHandler impl
 
     protected abstract boolean shouldOnlineTaskBeScheduled();
 
+    protected void sendBackfillMessage(Message message) {
+        if (stickHandler != null) {
+            stickHandler.sendMessage(message, PlugwiseMessagePriority.BACKFILL);
+        }
+    }
+
     protected void sendCommandMessage(Message message) {
         if (stickHandler != null) {
             stickHandler.sendMessage(message, PlugwiseMessagePriority.COMMAND);
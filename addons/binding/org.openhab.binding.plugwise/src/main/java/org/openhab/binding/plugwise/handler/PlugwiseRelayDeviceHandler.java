@@ -12,8 +12,14 @@ import static org.eclipse.smarthome.core.thing.ThingStatus.*;
 import static org.openhab.binding.plugwise.PlugwiseBindingConstants.*;
 
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.smarthome.config.core.Configuration;
@@ -26,6 +32,8 @@ import org.eclipse.smarthome.core.thing.ThingStatus;
 import org.eclipse.smarthome.core.thing.ThingStatusDetail;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.plugwise.internal.PlugwiseDeviceTask;
+import org.openhab.binding.plugwise.internal.PlugwiseEnergyBuffer;
+import org.openhab.binding.plugwise.internal.PlugwiseHistoryStore;
 import org.openhab.binding.plugwise.internal.PlugwiseUtils;
 import org.openhab.binding.plugwise.internal.config.PlugwiseRelayConfig;
 import org.openhab.binding.plugwise.internal.config.PlugwiseRelayConfig.PowerStateChanging;
@@ -68,6 +76,11 @@ import com.google.common.collect.Lists;
  * class with {@link PowerCalibration} data.
  * </p>
  * <p>
+ * The intervals missed while openHAB was not running or the Stick was busy are retrieved from the energy log of the
+ * Circle in the background. They are kept in a {@link PlugwiseEnergyBuffer} and stored with the time they were
+ * measured by the {@link PlugwiseHistoryStore}, while the most recent interval is published as channel state.
+ * </p>
+ * <p>
  * A Circle+ is a special Circle. There is one Circle+ in a Plugwise network. The Circle+ serves as a master controller
  * in a Plugwise network. It also provides clock data to the other devices and sends messages from and to the Stick.
  * </p>
@@ -83,6 +96,19 @@ public class PlugwiseRelayDeviceHandler extends AbstractPlugwiseThingHandler {
     private static final int INVALID_WATT_THRESHOLD = 10000;
     private static final int POWER_STATE_RETRIES = 3;
 
+    /** The number of energy measurement intervals kept per device, one week of hourly intervals */
+    private static final int ENERGY_BUFFER_CAPACITY = 168;
+
+    /** Each log address of the energy log contains 4 measurement intervals */
+    private static final int INTERVALS_PER_LOG_ADDRESS = 4;
+
+    /** The energy log is a ring buffer, after the last log address a Circle continues with log address 0 */
+    private static final int LOG_ADDRESS_COUNT = 6016;
+
+    private static final int MAX_BACKFILL_LOG_ADDRESSES = ENERGY_BUFFER_CAPACITY / INTERVALS_PER_LOG_ADDRESS;
+    private static final Duration BACKFILL_TIMEOUT = Duration.ofMinutes(1);
+    private static final int BACKFILL_RETRIES = 3;
+
     private class PendingPowerStateChange {
         final OnOffType onOff;
         int retries;
@@ -213,8 +239,25 @@ public class PlugwiseRelayDeviceHandler extends AbstractPlugwiseThingHandler {
     private MACAddress macAddress;
 
     private PowerCalibration calibration;
-    private Energy energy;
     private int recentLogAddress = -1;
+
+    private final PlugwiseHistoryStore historyStore;
+    private final PlugwiseEnergyBuffer energyBuffer = new PlugwiseEnergyBuffer(ENERGY_BUFFER_CAPACITY);
+
+    // Guards the interval ends and backfill state below, which are used by the scheduler and message threads
+    private final Object energyLock = new Object();
+
+    // The end of the last energy measurement interval that was published or stored (epoch seconds)
+    private long lastEnergyUpdate = Long.MIN_VALUE;
+
+    // The end of the last energy measurement interval published as channel state (epoch seconds)
+    private long publishedEnergyEnd = Long.MIN_VALUE;
+
+    // The next log address requested while backfilling energy measurement intervals, -1 when not backfilling
+    private int backfillLogAddress = -1;
+    private int remainingBackfillLogAddresses;
+    private int backfillRetries;
+    private ScheduledFuture<?> backfillTimeoutJob;
     private PendingPowerStateChange pendingPowerStateChange;
 
     // Flag that keeps track of the pending "measurement interval" device configuration update. When the corresponding
@@ -222,8 +265,9 @@ public class PlugwiseRelayDeviceHandler extends AbstractPlugwiseThingHandler {
     // update the device configuration. When the Circle/Stealth acknowledges the command the flag is again set to false.
     private boolean updateMeasurementInterval;
 
-    public PlugwiseRelayDeviceHandler(Thing thing) {
+    public PlugwiseRelayDeviceHandler(Thing thing, PlugwiseHistoryStore historyStore) {
         super(thing);
+        this.historyStore = historyStore;
         deviceType = getDeviceType();
     }
 
@@ -259,6 +303,9 @@ public class PlugwiseRelayDeviceHandler extends AbstractPlugwiseThingHandler {
     @Override
     public void dispose() {
         stopTasks(recurringTasks);
+        synchronized (energyLock) {
+            stopBackfill();
+        }
         super.dispose();
     }
 
@@ -371,7 +418,7 @@ public class PlugwiseRelayDeviceHandler extends AbstractPlugwiseThingHandler {
             correctPowerState(powerState);
         }
 
-        if (energy == null && isCalibrated()) {
+        if (energyBuffer.isEmpty() && isCalibrated()) {
             updateEnergy();
         }
 
@@ -393,22 +440,47 @@ public class PlugwiseRelayDeviceHandler extends AbstractPlugwiseThingHandler {
             return;
         }
 
-        Energy mostRecentEnergy = message.getMostRecentDatapoint();
+        // When the current time is '11:44:55.888' and the measurement interval 1 hour, then the end of the most
+        // recent energy measurement interval is at '11:00:00.000'
+        Duration interval = configuration.getMeasurementInterval();
+        long oneIntervalAgo = Instant.now().minus(interval).getEpochSecond();
 
-        if (mostRecentEnergy != null) {
-            // When the current time is '11:44:55.888' and the measurement interval 1 hour, then the end of the most
-            // recent energy measurement interval is at '11:00:00.000'
-            LocalDateTime oneIntervalAgo = LocalDateTime.now().minus(configuration.getMeasurementInterval());
+        Energy lastInterval = null;
+        for (Energy datapoint : message.getDatapoints()) {
+            if (datapoint != null) {
+                datapoint.setInterval(interval);
+                long end = datapoint.getUtcEnd().toEpochSecond();
+                energyBuffer.add(end, (int) interval.getSeconds(), correctSign(datapoint.tokWh(calibration)));
+                if (end > oneIntervalAgo) {
+                    lastInterval = datapoint;
+                }
+            }
+        }
+
+        // The last interval is always published immediately, also while backfilling
+        if (lastInterval != null) {
+            publishEnergy(lastInterval);
+        }
 
-            boolean isLastInterval = mostRecentEnergy.getEnd().isAfter(oneIntervalAgo);
-            if (isLastInterval) {
-                energy = mostRecentEnergy;
-                energy.setInterval(configuration.getMeasurementInterval());
-                logger.trace("Updating {} ({}) energy with: {}", deviceType, macAddress, mostRecentEnergy);
-                updateState(CHANNEL_ENERGY, new DecimalType(correctSign(energy.tokWh(calibration))));
-                updateState(CHANNEL_ENERGY_STAMP, PlugwiseUtils.newDateTimeType(energy.getStart()));
+        int nextBackfillLogAddress = -1;
+        synchronized (energyLock) {
+            if (isBackfilling() && message.getLogAddress() == backfillLogAddress) {
+                remainingBackfillLogAddresses--;
+                if (remainingBackfillLogAddresses > 0) {
+                    backfillLogAddress = toLogAddress(backfillLogAddress + 1);
+                    backfillRetries = 0;
+                    nextBackfillLogAddress = backfillLogAddress;
+                } else {
+                    logger.debug("Finished backfilling {} ({}) energy", deviceType, macAddress);
+                    stopBackfill();
+                }
             }
         }
+
+        if (nextBackfillLogAddress >= 0) {
+            requestBackfill(nextBackfillLogAddress);
+        }
+        storeEnergyHistory();
     }
 
     private void handlePowerInformationResponse(PowerInformationResponseMessage message) {
@@ -470,6 +542,9 @@ public class PlugwiseRelayDeviceHandler extends AbstractPlugwiseThingHandler {
     public void initialize() {
         configuration = getConfigAs(PlugwiseRelayConfig.class);
         macAddress = configuration.getMACAddress();
+        if (lastEnergyUpdate == Long.MIN_VALUE) {
+            restoreLastEnergyUpdate();
+        }
         if (!isInitialized()) {
             setUpdateCommandFlags(null, configuration);
         }
@@ -480,6 +555,36 @@ public class PlugwiseRelayDeviceHandler extends AbstractPlugwiseThingHandler {
         super.initialize();
     }
 
+    private void handleBackfillTimeout(int logAddress) {
+        boolean retry;
+        synchronized (energyLock) {
+            if (backfillLogAddress != logAddress) {
+                return;
+            }
+            retry = backfillRetries < BACKFILL_RETRIES;
+            if (retry) {
+                backfillRetries++;
+            } else {
+                logger.debug("Failed to backfill {} ({}) energy at log address {}", deviceType, macAddress,
+                        logAddress);
+                stopBackfill();
+            }
+        }
+
+        if (retry) {
+            requestBackfill(logAddress);
+        } else {
+            // Store the intervals that could be retrieved
+            storeEnergyHistory();
+        }
+    }
+
+    private boolean isBackfilling() {
+        synchronized (energyLock) {
+            return backfillLogAddress >= 0;
+        }
+    }
+
     private boolean isCalibrated() {
         return calibration != null;
     }
@@ -493,6 +598,39 @@ public class PlugwiseRelayDeviceHandler extends AbstractPlugwiseThingHandler {
         return recentLogAddress >= 0;
     }
 
+    private void publishEnergy(Energy energy) {
+        logger.trace("Updating {} ({}) energy with: {}", deviceType, macAddress, energy);
+        updateState(CHANNEL_ENERGY, new DecimalType(correctSign(energy.tokWh(calibration))));
+        updateState(CHANNEL_ENERGY_STAMP, PlugwiseUtils.newDateTimeType(energy.getStart()));
+        synchronized (energyLock) {
+            publishedEnergyEnd = Math.max(publishedEnergyEnd, energy.getUtcEnd().toEpochSecond());
+        }
+    }
+
+    private void requestBackfill(int logAddress) {
+        sendBackfillMessage(new PowerBufferRequestMessage(macAddress, logAddress));
+        synchronized (energyLock) {
+            if (backfillTimeoutJob != null) {
+                backfillTimeoutJob.cancel(false);
+            }
+            backfillTimeoutJob = scheduler.schedule(() -> handleBackfillTimeout(logAddress),
+                    BACKFILL_TIMEOUT.getSeconds(), TimeUnit.SECONDS);
+        }
+    }
+
+    private void restoreLastEnergyUpdate() {
+        String property = thing.getProperties().get(PROPERTY_LAST_ENERGY_UPDATE);
+        if (property != null) {
+            try {
+                synchronized (energyLock) {
+                    lastEnergyUpdate = Instant.parse(property).getEpochSecond();
+                }
+            } catch (DateTimeParseException e) {
+                logger.debug("Ignoring invalid {} ({}) last energy update: {}", deviceType, macAddress, property);
+            }
+        }
+    }
+
     @Override
     protected void sendConfigurationUpdateCommands() {
         logger.debug("Sending {} ({}) configuration update commands", deviceType, macAddress);
@@ -540,14 +678,91 @@ public class PlugwiseRelayDeviceHandler extends AbstractPlugwiseThingHandler {
         super.updateConfiguration(configuration);
     }
 
-    private void updateEnergy() {
-        int previousLogAddress = recentLogAddress - 1;
-        while (previousLogAddress <= recentLogAddress) {
-            PowerBufferRequestMessage message = new PowerBufferRequestMessage(macAddress, previousLogAddress);
-            previousLogAddress = previousLogAddress + 1;
-            sendMessage(message);
+    /**
+     * Starts requesting the log addresses with the intervals missed since the last energy update, apart from the two
+     * most recent log addresses requested by {@link #updateEnergy()}. The log addresses are requested one by one with
+     * the lowest priority, so backfilling does not delay other messages.
+     */
+    private void startBackfill() {
+        int firstLogAddress;
+        synchronized (energyLock) {
+            if (isBackfilling() || lastEnergyUpdate == Long.MIN_VALUE || !historyStore.isAvailable()) {
+                return;
+            }
+
+            long intervalSeconds = configuration.getMeasurementInterval().getSeconds();
+            long missedIntervals = (Instant.now().getEpochSecond() - lastEnergyUpdate) / intervalSeconds;
+            int missedLogAddresses = (int) Math.min(MAX_BACKFILL_LOG_ADDRESSES,
+                    (missedIntervals + INTERVALS_PER_LOG_ADDRESS - 1) / INTERVALS_PER_LOG_ADDRESS);
+            if (missedLogAddresses <= 2) {
+                return;
+            }
+
+            firstLogAddress = toLogAddress(recentLogAddress - missedLogAddresses);
+            backfillLogAddress = firstLogAddress;
+            remainingBackfillLogAddresses = missedLogAddresses - 2;
+            backfillRetries = 0;
         }
-    };
+
+        logger.debug("Backfilling {} ({}) energy from log address {} to {}", deviceType, macAddress, firstLogAddress,
+                toLogAddress(recentLogAddress - 2));
+        requestBackfill(firstLogAddress);
+    }
+
+    private void stopBackfill() {
+        backfillLogAddress = -1;
+        if (backfillTimeoutJob != null) {
+            backfillTimeoutJob.cancel(false);
+            backfillTimeoutJob = null;
+        }
+    }
+
+    private void storeEnergy(long end, int duration, double kWh) {
+        LocalDateTime start = LocalDateTime.ofInstant(Instant.ofEpochSecond(end - duration), ZoneId.systemDefault());
+        logger.trace("Storing {} ({}) energy of {} kWh since {}", deviceType, macAddress, kWh, start);
+        Date date = Date.from(Instant.ofEpochSecond(end));
+        historyStore.store(new ChannelUID(getThing().getUID(), CHANNEL_ENERGY), date, new DecimalType(kWh));
+        historyStore.store(new ChannelUID(getThing().getUID(), CHANNEL_ENERGY_STAMP), date,
+                PlugwiseUtils.newDateTimeType(start));
+    }
+
+    /**
+     * Stores the intervals that ended after the last energy update and before the last published interval with the
+     * time they were measured, oldest first. While backfilling nothing is stored, so the last energy update is only
+     * moved past intervals that have all been retrieved.
+     */
+    private void storeEnergyHistory() {
+        long storeAfter;
+        long storeBefore;
+        synchronized (energyLock) {
+            if (isBackfilling() || publishedEnergyEnd <= lastEnergyUpdate) {
+                return;
+            }
+            storeAfter = lastEnergyUpdate;
+            storeBefore = publishedEnergyEnd;
+            lastEnergyUpdate = publishedEnergyEnd;
+
+            Map<String, String> properties = editProperties();
+            properties.put(PROPERTY_LAST_ENERGY_UPDATE, Instant.ofEpochSecond(lastEnergyUpdate).toString());
+            updateProperties(properties);
+        }
+
+        // Without a previous energy update there are no missed intervals
+        if (storeAfter != Long.MIN_VALUE) {
+            energyBuffer.forEachBetween(storeAfter, storeBefore, this::storeEnergy);
+        }
+    }
+
+    private int toLogAddress(int logAddress) {
+        return Math.floorMod(logAddress, LOG_ADDRESS_COUNT);
+    }
+
+    private void updateEnergy() {
+        startBackfill();
+
+        sendMessage(new PowerBufferRequestMessage(macAddress, toLogAddress(recentLogAddress - 1)));
+        sendMessage(new PowerBufferRequestMessage(macAddress, recentLogAddress));
+    }
 
     @Override
     protected void updateStatus(ThingStatus status, ThingStatusDetail statusDetail, String description) {
@@ -9,12 +9,9 @@
 package org.openhab.binding.plugwise.internal;
 
 import java.io.IOException;
-import java.util.Comparator;
 import java.util.Enumeration;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.PriorityBlockingQueue;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.io.IOUtils;
 import org.openhab.binding.plugwise.internal.config.PlugwiseStickConfig;
@@ -51,25 +48,12 @@ public class PlugwiseCommunicationContext {
 
     public static final int MAX_BUFFER_SIZE = 1024;
 
-    private static final Comparator<? super PlugwiseQueuedMessage> QUEUED_MESSAGE_COMPERATOR = new Comparator<PlugwiseQueuedMessage>() {
-        @Override
-        public int compare(PlugwiseQueuedMessage o1, PlugwiseQueuedMessage o2) {
-            int result = o1.getPriority().compareTo(o2.getPriority());
-            if (result == 0) {
-                result = o1.getDateTime().compareTo(o2.getDateTime());
-            }
-            return result;
-        }
-    };
-
     private final Logger logger = LoggerFactory.getLogger(PlugwiseCommunicationContext.class);
     private final BlockingQueue<AcknowledgementMessage> acknowledgedQueue = new ArrayBlockingQueue<>(MAX_BUFFER_SIZE,
             true);
     private final BlockingQueue<Message> receivedQueue = new ArrayBlockingQueue<>(MAX_BUFFER_SIZE, true);
-    private final PriorityBlockingQueue<PlugwiseQueuedMessage> sendQueue = new PriorityBlockingQueue<>(MAX_BUFFER_SIZE,
-            QUEUED_MESSAGE_COMPERATOR);
-    private final BlockingQueue<PlugwiseQueuedMessage> sentQueue = new ArrayBlockingQueue<>(MAX_BUFFER_SIZE, true);
-    private final ReentrantLock sentQueueLock = new ReentrantLock();
+    private final PlugwiseMessageQueue sendQueue = new PlugwiseMessageQueue();
+    private final PlugwiseInFlightMessages inFlightMessages = new PlugwiseInFlightMessages();
     private final PlugwiseFilteredMessageListenerList filteredListeners = new PlugwiseFilteredMessageListenerList();
 
     private PlugwiseStickConfig configuration;
@@ -79,7 +63,7 @@ public class PlugwiseCommunicationContext {
         acknowledgedQueue.clear();
         receivedQueue.clear();
         sendQueue.clear();
-        sentQueue.clear();
+        inFlightMessages.clear();
     }
 
     public void closeSerialPort() {
@@ -136,16 +120,12 @@ public class PlugwiseCommunicationContext {
         return receivedQueue;
     }
 
-    public PriorityBlockingQueue<PlugwiseQueuedMessage> getSendQueue() {
+    public PlugwiseMessageQueue getSendQueue() {
         return sendQueue;
     }
 
-    public BlockingQueue<PlugwiseQueuedMessage> getSentQueue() {
-        return sentQueue;
-    }
-
-    public ReentrantLock getSentQueueLock() {
-        return sentQueueLock;
+    public PlugwiseInFlightMessages getInFlightMessages() {
+        return inFlightMessages;
     }
 
     public SerialPort getSerialPort() {
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.plugwise.internal;
+
+/**
+ * A ring buffer with the energy measurement intervals of a device (Circle, Circle+, Stealth) ordered by their end
+ * time. The intervals are stored in primitive arrays, so the buffer of each device remains small. Intervals that are
+ * added again replace the stored interval with the same end time. When the buffer is full the oldest interval is
+ * removed.
+ *
+ * @author agent - Initial contribution
+ */
+public class PlugwiseEnergyBuffer {
+
+    /**
+     * Receives the intervals of the buffer.
+     */
+    public interface IntervalConsumer {
+        void accept(long end, int duration, double kWh);
+    }
+
+    private final long[] ends;
+    private final int[] durations;
+    private final double[] kWhs;
+
+    /** The index of the oldest interval */
+    private int head;
+    private int size;
+
+    /**
+     * @param capacity the maximum number of intervals in the buffer
+     */
+    public PlugwiseEnergyBuffer(int capacity) {
+        ends = new long[capacity];
+        durations = new int[capacity];
+        kWhs = new double[capacity];
+    }
+
+    /**
+     * Adds an interval to the buffer.
+     *
+     * @param end the end of the interval (epoch seconds)
+     * @param duration the duration of the interval (seconds)
+     * @param kWh the energy consumed/produced during the interval
+     * @return true if the interval was added or replaced an interval, false if it is older than all intervals of a
+     *         full buffer
+     */
+    public synchronized boolean add(long end, int duration, double kWh) {
+        // Find the position from the newest interval, as intervals are usually added in order
+        int position = size;
+        while (position > 0 && ends[index(position - 1)] > end) {
+            position--;
+        }
+
+        if (position > 0 && ends[index(position - 1)] == end) {
+            set(index(position - 1), end, duration, kWh);
+            return true;
+        }
+
+        if (size == ends.length) {
+            if (position == 0) {
+                return false;
+            }
+            // remove the oldest interval
+            head = index(1);
+            size--;
+            position--;
+        }
+
+        for (int i = size; i > position; i--) {
+            int from = index(i - 1);
+            set(index(i), ends[from], durations[from], kWhs[from]);
+        }
+        set(index(position), end, duration, kWh);
+        size++;
+        return true;
+    }
+
+    /**
+     * Passes the intervals that end after and before the given times to the consumer, oldest first.
+     *
+     * @param after the end of the last interval that is skipped (epoch seconds)
+     * @param before the end of the first interval that is no longer passed (epoch seconds)
+     * @param consumer receives the intervals
+     */
+    public synchronized void forEachBetween(long after, long before, IntervalConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            int index = index(i);
+            if (ends[index] > after && ends[index] < before) {
+                consumer.accept(ends[index], durations[index], kWhs[index]);
+            }
+        }
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int index(int position) {
+        return (head + position) % ends.length;
+    }
+
+    private void set(int index, long end, int duration, double kWh) {
+        ends[index] = end;
+        durations[index] = duration;
+        kWhs[index] = kWh;
+    }
+
+}
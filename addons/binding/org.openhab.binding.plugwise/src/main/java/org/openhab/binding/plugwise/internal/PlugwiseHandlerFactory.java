@@ -15,12 +15,15 @@ import java.util.Hashtable;
 import java.util.Map;
 
 import org.eclipse.smarthome.config.discovery.DiscoveryService;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.persistence.PersistenceServiceRegistry;
 import org.eclipse.smarthome.core.thing.Bridge;
 import org.eclipse.smarthome.core.thing.Thing;
 import org.eclipse.smarthome.core.thing.ThingTypeUID;
 import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseThingHandlerFactory;
 import org.eclipse.smarthome.core.thing.binding.ThingHandler;
+import org.eclipse.smarthome.core.thing.link.ItemChannelLinkRegistry;
 import org.openhab.binding.plugwise.handler.PlugwiseRelayDeviceHandler;
 import org.openhab.binding.plugwise.handler.PlugwiseScanHandler;
 import org.openhab.binding.plugwise.handler.PlugwiseSenseHandler;
@@ -42,6 +45,8 @@ public class PlugwiseHandlerFactory extends BaseThingHandlerFactory {
 
     private Map<ThingUID, ServiceRegistration<?>> discoveryServiceRegistrations = new HashMap<>();
 
+    private final PlugwiseHistoryStore historyStore = new PlugwiseHistoryStore();
+
     @Override
     protected ThingHandler createHandler(Thing thing) {
 
@@ -53,7 +58,7 @@ public class PlugwiseHandlerFactory extends BaseThingHandlerFactory {
             return handler;
         } else if (thingTypeUID.equals(THING_TYPE_CIRCLE) || thingTypeUID.equals(THING_TYPE_CIRCLE_PLUS)
                 || thingTypeUID.equals(THING_TYPE_STEALTH)) {
-            return new PlugwiseRelayDeviceHandler(thing);
+            return new PlugwiseRelayDeviceHandler(thing, historyStore);
         } else if (thingTypeUID.equals(THING_TYPE_SCAN)) {
             return new PlugwiseScanHandler(thing);
         } else if (thingTypeUID.equals(THING_TYPE_SENSE)) {
@@ -87,4 +92,28 @@ public class PlugwiseHandlerFactory extends BaseThingHandlerFactory {
         }
     }
 
+    protected void setItemRegistry(ItemRegistry itemRegistry) {
+        historyStore.setItemRegistry(itemRegistry);
+    }
+
+    protected void unsetItemRegistry(ItemRegistry itemRegistry) {
+        historyStore.setItemRegistry(null);
+    }
+
+    protected void setItemChannelLinkRegistry(ItemChannelLinkRegistry itemChannelLinkRegistry) {
+        historyStore.setItemChannelLinkRegistry(itemChannelLinkRegistry);
+    }
+
+    protected void unsetItemChannelLinkRegistry(ItemChannelLinkRegistry itemChannelLinkRegistry) {
+        historyStore.setItemChannelLinkRegistry(null);
+    }
+
+    protected void setPersistenceServiceRegistry(PersistenceServiceRegistry persistenceServiceRegistry) {
+        historyStore.setPersistenceServiceRegistry(persistenceServiceRegistry);
+    }
+
+    protected void unsetPersistenceServiceRegistry(PersistenceServiceRegistry persistenceServiceRegistry) {
+        historyStore.setPersistenceServiceRegistry(null);
+    }
+
 }
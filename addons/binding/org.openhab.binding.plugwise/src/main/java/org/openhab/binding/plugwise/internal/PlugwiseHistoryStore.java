@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.plugwise.internal;
+
+import java.util.Date;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemNotFoundException;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.persistence.ModifiablePersistenceService;
+import org.eclipse.smarthome.core.persistence.PersistenceService;
+import org.eclipse.smarthome.core.persistence.PersistenceServiceRegistry;
+import org.eclipse.smarthome.core.thing.ChannelUID;
+import org.eclipse.smarthome.core.thing.link.ItemChannelLinkRegistry;
+import org.eclipse.smarthome.core.types.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Stores historic channel states with the time they were measured. The states are stored for all items linked to the
+ * channel in the default persistence service, if it supports storing states with a timestamp. Unlike state updates,
+ * these states do not change the current state of the items.
+ *
+ * @author agent - Initial contribution
+ */
+public class PlugwiseHistoryStore {
+
+    private final Logger logger = LoggerFactory.getLogger(PlugwiseHistoryStore.class);
+
+    private volatile ItemRegistry itemRegistry;
+    private volatile ItemChannelLinkRegistry itemChannelLinkRegistry;
+    private volatile PersistenceServiceRegistry persistenceServiceRegistry;
+
+    /**
+     * @return true if historic states can be stored
+     */
+    public boolean isAvailable() {
+        return getPersistenceService() != null;
+    }
+
+    /**
+     * Stores the state of the channel measured at the given time.
+     *
+     * @return true if the state was stored for at least one item
+     */
+    public boolean store(ChannelUID channelUID, Date date, State state) {
+        ModifiablePersistenceService persistenceService = getPersistenceService();
+        ItemRegistry itemRegistry = this.itemRegistry;
+        ItemChannelLinkRegistry itemChannelLinkRegistry = this.itemChannelLinkRegistry;
+        if (persistenceService == null || itemRegistry == null || itemChannelLinkRegistry == null) {
+            return false;
+        }
+
+        boolean stored = false;
+        for (String itemName : itemChannelLinkRegistry.getLinkedItemNames(channelUID)) {
+            try {
+                Item item = itemRegistry.getItem(itemName);
+                persistenceService.store(item, date, state);
+                stored = true;
+            } catch (ItemNotFoundException e) {
+                logger.debug("Not storing historic state of unknown item '{}'", itemName);
+            }
+        }
+        return stored;
+    }
+
+    private ModifiablePersistenceService getPersistenceService() {
+        PersistenceServiceRegistry persistenceServiceRegistry = this.persistenceServiceRegistry;
+        if (persistenceServiceRegistry == null) {
+            return null;
+        }
+        PersistenceService persistenceService = persistenceServiceRegistry.getDefault();
+        return persistenceService instanceof ModifiablePersistenceService
+                ? (ModifiablePersistenceService) persistenceService
+                : null;
+    }
+
+    public void setItemRegistry(ItemRegistry itemRegistry) {
+        this.itemRegistry = itemRegistry;
+    }
+
+    public void setItemChannelLinkRegistry(ItemChannelLinkRegistry itemChannelLinkRegistry) {
+        this.itemChannelLinkRegistry = itemChannelLinkRegistry;
+    }
+
+    public void setPersistenceServiceRegistry(PersistenceServiceRegistry persistenceServiceRegistry) {
+        this.persistenceServiceRegistry = persistenceServiceRegistry;
+    }
+
+}
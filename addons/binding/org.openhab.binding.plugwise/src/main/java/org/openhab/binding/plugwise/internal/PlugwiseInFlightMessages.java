@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.plugwise.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the messages acknowledged by the Stick that are waiting for a response, indexed by the sequence number
+ * the Stick assigned to them. Responses are matched by their sequence number. Messages for which no response is
+ * received within the response timeout are removed, because some requests are never answered.
+ *
+ * @author agent - Initial contribution
+ */
+public class PlugwiseInFlightMessages {
+
+    private final Logger logger = LoggerFactory.getLogger(PlugwiseInFlightMessages.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition removed = lock.newCondition();
+    private final Map<Integer, PlugwiseQueuedMessage> messages = new LinkedHashMap<>();
+
+    /**
+     * Waits until less than the given number of messages are waiting for a response.
+     *
+     * @param maxMessages the maximum number of messages waiting for a response
+     * @param responseTimeout the time in milliseconds after which a response is no longer expected
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitCapacity(int maxMessages, long responseTimeout) throws InterruptedException {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(responseTimeout);
+        lock.lockInterruptibly();
+        try {
+            while (true) {
+                long oldestSentTime = removeExpired(timeoutNanos);
+                if (messages.size() < maxMessages) {
+                    return;
+                }
+                // wait for a response or the oldest message to expire
+                removed.awaitNanos(Math.max(1, oldestSentTime + timeoutNanos - System.nanoTime()));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            messages.clear();
+            removed.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void put(int sequenceNumber, PlugwiseQueuedMessage queuedMessage) {
+        lock.lock();
+        try {
+            // sequence numbers wrap around, so remove a message that is still waiting with the same number
+            messages.remove(sequenceNumber);
+            messages.put(sequenceNumber, queuedMessage);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the message with the given sequence number.
+     *
+     * @param sequenceNumber the sequence number of the response
+     * @return the removed message or null if no message with the sequence number is waiting for a response
+     */
+    public PlugwiseQueuedMessage remove(int sequenceNumber) {
+        lock.lock();
+        try {
+            PlugwiseQueuedMessage queuedMessage = messages.remove(sequenceNumber);
+            if (queuedMessage != null) {
+                removed.signalAll();
+            }
+            return queuedMessage;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return messages.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes the messages sent before the timeout, the messages are ordered by the time they were sent.
+     *
+     * @return the time the oldest remaining message was sent
+     */
+    private long removeExpired(long timeoutNanos) {
+        long now = System.nanoTime();
+        Iterator<PlugwiseQueuedMessage> iterator = messages.values().iterator();
+        while (iterator.hasNext()) {
+            PlugwiseQueuedMessage queuedMessage = iterator.next();
+            if (now - queuedMessage.getSentTime() < timeoutNanos) {
+                return queuedMessage.getSentTime();
+            }
+            logger.debug("No response received for: {}", queuedMessage.getMessage());
+            iterator.remove();
+        }
+        return now;
+    }
+
+}
@@ -29,6 +29,12 @@ public enum PlugwiseMessagePriority {
      * Messages for normal state updates and Thing discovery. E.g. scheduled tasks that update the state of a
      * channel.
      */
-    UPDATE_AND_DISCOVERY;
+    UPDATE_AND_DISCOVERY,
+
+    /**
+     * Messages that retrieve historical data missed while openHAB was not running or the Stick was busy. E.g. energy
+     * measurements of past intervals.
+     */
+    BACKFILL;
 
 }
@@ -12,7 +12,6 @@ import static org.openhab.binding.plugwise.internal.PlugwiseCommunicationContext
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.util.Iterator;
 import java.util.TooManyListenersException;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -146,24 +145,12 @@ public class PlugwiseMessageProcessor implements SerialPortEventListener {
         context.getFilteredListeners().notifyListeners(message);
 
         // After processing the response to a message, we remove any reference to the original request
-        // stored in the sentQueue
+        // waiting for a response
         // WARNING: We assume that each request sent out can only be followed bye EXACTLY ONE response - so
         // far it seems that the Plugwise protocol is operating in that way
-
-        try {
-            context.getSentQueueLock().lock();
-
-            Iterator<PlugwiseQueuedMessage> messageIterator = context.getSentQueue().iterator();
-            while (messageIterator.hasNext()) {
-                PlugwiseQueuedMessage queuedSentMessage = messageIterator.next();
-                if (queuedSentMessage.getMessage().getSequenceNumber() == message.getSequenceNumber()) {
-                    logger.debug("Removing from sentQueue: {}", queuedSentMessage.getMessage());
-                    context.getSentQueue().remove(queuedSentMessage);
-                    break;
-                }
-            }
-        } finally {
-            context.getSentQueueLock().unlock();
+        PlugwiseQueuedMessage queuedSentMessage = context.getInFlightMessages().remove(message.getSequenceNumber());
+        if (queuedSentMessage != null) {
+            logger.debug("Removing from inFlightMessages: {}", queuedSentMessage.getMessage());
         }
     }
 
@@ -0,0 +1,171 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.plugwise.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.openhab.binding.plugwise.internal.protocol.Message;
+import org.openhab.binding.plugwise.internal.protocol.field.MACAddress;
+
+/**
+ * The queue of messages waiting to be sent to the Stick. Messages are taken by {@link PlugwiseMessagePriority} first.
+ * Messages with the same priority are taken in turns per device, so a device with many queued messages does not delay
+ * the messages of other devices. An update or backfill message that is already queued for a device is not queued
+ * again, so updates do not pile up when the Stick cannot keep up with the scheduled updates.
+ *
+ * @author agent - Initial contribution
+ */
+public class PlugwiseMessageQueue {
+
+    /** The key used for the messages without MAC address, e.g. messages to the Stick */
+    private static final MACAddress NO_MAC_ADDRESS = new MACAddress("0000000000000000");
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Map<PlugwiseMessagePriority, LinkedHashMap<MACAddress, Deque<PlugwiseQueuedMessage>>> queues = new EnumMap<>(
+            PlugwiseMessagePriority.class);
+    private int size;
+
+    public PlugwiseMessageQueue() {
+        for (PlugwiseMessagePriority priority : PlugwiseMessagePriority.values()) {
+            queues.put(priority, new LinkedHashMap<>());
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            for (LinkedHashMap<MACAddress, Deque<PlugwiseQueuedMessage>> deviceQueues : queues.values()) {
+                deviceQueues.clear();
+            }
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a message and takes it from the queue.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout
+     * @return the message or null if no message was queued before the timeout elapsed
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public PlugwiseQueuedMessage poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                if (nanos <= 0) {
+                    return null;
+                }
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits for a message and takes it from the queue.
+     *
+     * @return the message
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public PlugwiseQueuedMessage take() throws InterruptedException {
+        lock.lockInterruptibly();
+        try {
+            while (size == 0) {
+                notEmpty.await();
+            }
+            return dequeue();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queues a message.
+     *
+     * @param queuedMessage the message to queue
+     * @return true if the message was queued, false if the same update message is already queued
+     */
+    public boolean put(PlugwiseQueuedMessage queuedMessage) {
+        MACAddress macAddress = queuedMessage.getMessage().getMACAddress();
+        lock.lock();
+        try {
+            Deque<PlugwiseQueuedMessage> deviceQueue = queues.get(queuedMessage.getPriority())
+                    .computeIfAbsent(macAddress != null ? macAddress : NO_MAC_ADDRESS, key -> new ArrayDeque<>());
+            if (queuedMessage.getPriority().compareTo(PlugwiseMessagePriority.UPDATE_AND_DISCOVERY) >= 0
+                    && containsMessage(deviceQueue, queuedMessage.getMessage())) {
+                return false;
+            }
+            deviceQueue.addLast(queuedMessage);
+            size++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean containsMessage(Deque<PlugwiseQueuedMessage> deviceQueue, Message message) {
+        String hexString = message.toHexString();
+        for (PlugwiseQueuedMessage queuedMessage : deviceQueue) {
+            if (queuedMessage.getMessage().toHexString().equals(hexString)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Takes the first message of the first device with the highest priority. The device is moved to the end of the
+     * devices, so the other devices with queued messages are served first.
+     */
+    private PlugwiseQueuedMessage dequeue() {
+        for (LinkedHashMap<MACAddress, Deque<PlugwiseQueuedMessage>> deviceQueues : queues.values()) {
+            Iterator<Entry<MACAddress, Deque<PlugwiseQueuedMessage>>> iterator = deviceQueues.entrySet().iterator();
+            if (iterator.hasNext()) {
+                Entry<MACAddress, Deque<PlugwiseQueuedMessage>> entry = iterator.next();
+                MACAddress macAddress = entry.getKey();
+                Deque<PlugwiseQueuedMessage> deviceQueue = entry.getValue();
+                PlugwiseQueuedMessage queuedMessage = deviceQueue.pollFirst();
+                iterator.remove();
+                if (!deviceQueue.isEmpty()) {
+                    deviceQueues.put(macAddress, deviceQueue);
+                }
+                size--;
+                return queuedMessage;
+            }
+        }
+        return null;
+    }
+
+}
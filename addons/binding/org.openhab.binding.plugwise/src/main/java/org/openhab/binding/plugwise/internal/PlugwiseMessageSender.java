@@ -45,8 +45,9 @@ public class PlugwiseMessageSender {
                     if (queuedMessage == null) {
                         continue;
                     }
+                    context.getInFlightMessages().awaitCapacity(MAX_IN_FLIGHT_MESSAGES, RESPONSE_TIMEOUT);
                     sendMessage(queuedMessage);
-                    sleep(context.getConfiguration().getMessageWaitTime());
+                    sleep(waitTime);
                 } catch (InterruptedException e) {
                     // That's our signal to stop
                     break;
@@ -64,6 +65,19 @@ public class PlugwiseMessageSender {
     /** After exceeding this threshold the Stick is set offline */
     private static final int MAX_SEQUENTIAL_WRITE_ERRORS = 15;
 
+    /** The maximum number of acknowledged messages waiting for a response before sending is paused */
+    private static final int MAX_IN_FLIGHT_MESSAGES = 8;
+
+    /** The time (in ms) after which a response to an acknowledged message is no longer expected */
+    private static final long RESPONSE_TIMEOUT = 5000;
+
+    /** The bounds of the time (in ms) to wait for an acknowledgement, normally it is received within 75ms */
+    private static final long MIN_ACK_TIMEOUT = 250;
+    private static final long MAX_ACK_TIMEOUT = 1000;
+
+    /** The maximum time (in ms) to wait between messages while backing off after missing or negative ACKs */
+    private static final long MAX_WAIT_TIME = 1000;
+
     private final Logger logger = LoggerFactory.getLogger(PlugwiseMessageSender.class);
     private final PlugwiseCommunicationContext context;
 
@@ -71,6 +85,13 @@ public class PlugwiseMessageSender {
     private int sequentialWriteErrors;
     private MessageSenderThread thread;
 
+    /** The smoothed ACK latency and its variation (in ms), only used by the sender thread */
+    private double ackLatency;
+    private double ackLatencyVariation;
+
+    /** The time (in ms) to wait between messages, adapted to the ACK latency */
+    private volatile long waitTime;
+
     public PlugwiseMessageSender(PlugwiseCommunicationContext context) {
         this.context = context;
     }
@@ -82,8 +103,11 @@ public class PlugwiseMessageSender {
         }
 
         if (message != null) {
-            logger.debug("Adding {} message to sendQueue: {}", priority, message);
-            context.getSendQueue().put(new PlugwiseQueuedMessage(message, priority));
+            if (context.getSendQueue().put(new PlugwiseQueuedMessage(message, priority))) {
+                logger.debug("Added {} message to sendQueue: {}", priority, message);
+            } else {
+                logger.debug("Skipped {} message already in sendQueue: {}", priority, message);
+            }
         }
     }
 
@@ -99,6 +123,10 @@ public class PlugwiseMessageSender {
             bytebuffer.put(packetString.getBytes());
             bytebuffer.rewind();
 
+            // ACKs are not correlated with the messages, so discard any ACK of a message that timed out before
+            context.getAcknowledgedQueue().clear();
+
+            long sentTime = System.nanoTime();
             try {
                 logger.debug("Sending: {} as {}", message, messageHexString);
                 outputChannel.write(bytebuffer);
@@ -110,34 +138,28 @@ public class PlugwiseMessageSender {
                 return;
             }
 
-            // Poll the acknowledgement message for at most 1 second, normally it is received within 75ms
-            AcknowledgementMessage ack = context.getAcknowledgedQueue().poll(1, TimeUnit.SECONDS);
+            long ackTimeout = getAckTimeout();
+            AcknowledgementMessage ack = context.getAcknowledgedQueue().poll(ackTimeout, TimeUnit.MILLISECONDS);
             logger.debug("Removing from acknowledgedQueue: {}", ack);
 
             if (ack == null) {
-                logger.warn("Error sending: No ACK received after 1 second: {}", packetString);
+                logger.warn("Error sending: No ACK received after {}ms: {}", ackTimeout, packetString);
+                backOff();
             } else if (!ack.isSuccess()) {
                 if (ack.isError()) {
                     logger.warn("Error sending: Negative ACK: {}", packetString);
                 }
+                backOff();
             } else {
+                updateWaitTime(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentTime));
+
                 // Update the sent message with the new sequence number
                 message.setSequenceNumber(ack.getSequenceNumber());
 
-                // Place the sent message in the sent queue
-                logger.debug("Adding to sentQueue: {}", message);
-                context.getSentQueueLock().lock();
-                try {
-                    if (context.getSentQueue().size() == PlugwiseCommunicationContext.MAX_BUFFER_SIZE) {
-                        // For some reason Plugwise devices, or the Stick, does not send responses to Requests.
-                        // They clog the sent queue. Let's flush some part of the queue
-                        PlugwiseQueuedMessage someMessage = context.getSentQueue().poll();
-                        logger.debug("Flushing from sentQueue: {}", someMessage);
-                    }
-                    context.getSentQueue().put(queuedMessage);
-                } finally {
-                    context.getSentQueueLock().unlock();
-                }
+                // Keep the sent message until the response with the same sequence number is received
+                logger.debug("Adding to inFlightMessages: {}", message);
+                queuedMessage.setSentTime(sentTime);
+                context.getInFlightMessages().put(ack.getSequenceNumber(), queuedMessage);
             }
         } else {
             // Max attempts reached. We give up, and to a network reset
@@ -146,8 +168,52 @@ public class PlugwiseMessageSender {
         }
     }
 
+    /**
+     * The ACK timeout is derived from the measured ACK latency like the TCP retransmission timeout
+     */
+    private long getAckTimeout() {
+        if (ackLatency == 0) {
+            return MAX_ACK_TIMEOUT;
+        }
+        long timeout = Math.round(ackLatency + 4 * ackLatencyVariation);
+        return Math.max(MIN_ACK_TIMEOUT, Math.min(MAX_ACK_TIMEOUT, timeout));
+    }
+
+    /**
+     * Updates the ACK latency and waits twice the ACK latency between messages, at most the configured message wait
+     * time. When the Stick is busy the ACK latency increases and messages are sent at a slower pace.
+     */
+    private void updateWaitTime(long latency) {
+        if (ackLatency == 0) {
+            ackLatency = latency;
+            ackLatencyVariation = latency / 2.0;
+        } else {
+            ackLatencyVariation = 0.75 * ackLatencyVariation + 0.25 * Math.abs(ackLatency - latency);
+            ackLatency = 0.875 * ackLatency + 0.125 * latency;
+        }
+
+        long messageWaitTime = context.getConfiguration().getMessageWaitTime();
+        long targetWaitTime = Math.min(messageWaitTime, Math.round(2 * ackLatency));
+        // recover gradually from backing off
+        waitTime = waitTime > targetWaitTime ? Math.max(targetWaitTime, waitTime / 2) : targetWaitTime;
+        logger.trace("ACK latency {}ms (average {}ms), waiting {}ms between messages", latency,
+                Math.round(ackLatency), waitTime);
+    }
+
+    /**
+     * Doubles the time waited between messages after a missing or negative ACK
+     */
+    private void backOff() {
+        long messageWaitTime = context.getConfiguration().getMessageWaitTime();
+        waitTime = Math.min(MAX_WAIT_TIME, Math.max(messageWaitTime, 2 * waitTime));
+        logger.debug("Waiting {}ms between messages", waitTime);
+    }
+
     public void start() throws PlugwiseInitializationException {
         sequentialWriteErrors = 0;
+        ackLatency = 0;
+        ackLatencyVariation = 0;
+        waitTime = context.getConfiguration().getMessageWaitTime();
         try {
             outputChannel = Channels.newChannel(context.getSerialPort().getOutputStream());
         } catch (IOException e) {
@@ -69,6 +69,10 @@ public class Energy {
         return pulses;
     }
 
+    public ZonedDateTime getUtcEnd() {
+        return utcEnd;
+    }
+
     public LocalDateTime getStart() {
         return utcStart.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
     }
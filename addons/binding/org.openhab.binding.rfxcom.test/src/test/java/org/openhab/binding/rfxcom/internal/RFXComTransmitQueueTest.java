@@ -0,0 +1,123 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComTemperatureMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComTemperatureMessage.SubType;
+
+/**
+ * Test for RFXCom-binding
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComTransmitQueueTest {
+    private ScheduledExecutorService scheduler;
+    private List<byte[]> transmitted = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private RFXComBaseMessage createMessage(int sensorId) {
+        RFXComTemperatureMessage msg = new RFXComTemperatureMessage();
+        msg.subType = SubType.TEMP1;
+        msg.sensorId = sensorId;
+        msg.temperature = 20.0;
+        return msg;
+    }
+
+    private int getSensorId(byte[] data) {
+        return (data[4] & 0xFF) << 8 | (data[5] & 0xFF);
+    }
+
+    @Test
+    public void testWindow() throws IOException {
+        RFXComTransmitQueue queue = new RFXComTransmitQueue(transmitted::add, scheduler, 2, 10000);
+        queue.enqueue(createMessage(1));
+        queue.enqueue(createMessage(2));
+        queue.enqueue(createMessage(3));
+        assertEquals("Transmitted before start", 0, transmitted.size());
+
+        queue.start();
+        assertEquals("Transmitted", 2, transmitted.size());
+        assertEquals("In flight", 2, queue.getInFlightCount());
+        assertEquals("Queue depth", 1, queue.getQueueDepth());
+
+        // acknowledge the second message first
+        queue.acknowledge(transmitted.get(1)[3]);
+        assertEquals("Transmitted", 3, transmitted.size());
+        assertEquals("Sensor id", 3, getSensorId(transmitted.get(2)));
+        assertEquals("Queue depth", 0, queue.getQueueDepth());
+
+        queue.acknowledge(transmitted.get(0)[3]);
+        queue.acknowledge(transmitted.get(2)[3]);
+        assertEquals("In flight", 0, queue.getInFlightCount());
+    }
+
+    @Test
+    public void testOrder() throws IOException {
+        RFXComTransmitQueue queue = new RFXComTransmitQueue(transmitted::add, scheduler, 1, 10000);
+        queue.enqueue(createMessage(1));
+        queue.enqueue(createMessage(2));
+        queue.enqueue(createMessage(3));
+        queue.start();
+
+        for (int i = 0; i < 3; i++) {
+            queue.acknowledge(transmitted.get(i)[3]);
+        }
+        assertEquals("Sensor id", 1, getSensorId(transmitted.get(0)));
+        assertEquals("Sensor id", 2, getSensorId(transmitted.get(1)));
+        assertEquals("Sensor id", 3, getSensorId(transmitted.get(2)));
+    }
+
+    @Test
+    public void testTimeout() throws IOException, InterruptedException {
+        RFXComTransmitQueue queue = new RFXComTransmitQueue(data -> {
+            synchronized (transmitted) {
+                transmitted.add(data);
+            }
+        }, scheduler, 1, 20);
+        queue.enqueue(createMessage(1));
+        queue.enqueue(createMessage(2));
+        queue.start();
+
+        for (int i = 0; i < 100 && queue.getDroppedCount() < 2; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals("Dropped", 2, queue.getDroppedCount());
+        assertEquals("Timeouts", 4, queue.getTimeoutCount());
+
+        // every message is transmitted twice before it's dropped
+        synchronized (transmitted) {
+            assertEquals("Transmitted", 4, transmitted.size());
+            assertEquals("Sensor id", 1, getSensorId(transmitted.get(0)));
+            assertEquals("Sensor id", 1, getSensorId(transmitted.get(1)));
+            assertEquals("Sensor id", 2, getSensorId(transmitted.get(2)));
+            assertEquals("Sensor id", 2, getSensorId(transmitted.get(3)));
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal.messages;
+
+import static org.junit.Assert.*;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.junit.Test;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComMessageNotImplementedException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
+
+/**
+ * Test for RFXCom-binding
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComMessageFactoryTest {
+
+    @Test
+    public void testCreateMessageByPacketType() throws RFXComException {
+        RFXComMessage msg = RFXComMessageFactory.createMessage(PacketType.TEMPERATURE);
+        assertTrue("Message class", msg instanceof RFXComTemperatureMessage);
+        assertEquals("Packet type", PacketType.TEMPERATURE, ((RFXComBaseMessage) msg).packetType);
+    }
+
+    @Test(expected = RFXComMessageNotImplementedException.class)
+    public void testNotImplementedMessage() throws RFXComException {
+        RFXComMessageFactory.createMessage(PacketType.FAN);
+    }
+
+    @Test
+    public void testReusableMessage() throws RFXComException {
+        byte[] first = DatatypeConverter.parseHexBinary("08500110000180BC69");
+        byte[] second = DatatypeConverter.parseHexBinary("0850021DFB0100D770");
+
+        RFXComTemperatureMessage msg1 = (RFXComTemperatureMessage) RFXComMessageFactory.createReusableMessage(first);
+        assertEquals("Sensor Id", "1", msg1.getDeviceId());
+        assertEquals("Temperature", -18.8, msg1.temperature, 0.001);
+
+        RFXComTemperatureMessage msg2 = (RFXComTemperatureMessage) RFXComMessageFactory.createReusableMessage(second);
+        assertSame("Reused message", msg1, msg2);
+        assertEquals("Sensor Id", "64257", msg2.getDeviceId());
+        assertEquals("Temperature", 21.5, msg2.temperature, 0.001);
+        assertEquals("Message converted back", "0850021DFB0100D770",
+                DatatypeConverter.printHexBinary(msg2.decodeMessage()));
+
+        assertNotSame("New message", msg2, RFXComMessageFactory.createMessage(second));
+    }
+
+    @Test
+    public void testNotReusableMessage() throws RFXComException {
+        byte[] packet = DatatypeConverter.parseHexBinary("0B11000600109B520B000080");
+
+        RFXComMessage msg1 = RFXComMessageFactory.createReusableMessage(packet);
+        RFXComMessage msg2 = RFXComMessageFactory.createReusableMessage(packet);
+        assertTrue("Message class", msg1 instanceof RFXComLighting2Message);
+        assertNotSame("New message", msg1, msg2);
+    }
+}
@@ -11,12 +11,13 @@ package org.openhab.binding.rfxcom.handler;
 import java.io.IOException;
 import java.util.HashSet;
 import java.util.List;
-import java.util.Queue;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.xml.bind.DatatypeConverter;
 
@@ -28,6 +29,7 @@ import org.eclipse.smarthome.core.thing.ThingUID;
 import org.eclipse.smarthome.core.thing.binding.BaseBridgeHandler;
 import org.eclipse.smarthome.core.types.Command;
 import org.openhab.binding.rfxcom.internal.DeviceMessageListener;
+import org.openhab.binding.rfxcom.internal.RFXComTransmitQueue;
 import org.openhab.binding.rfxcom.internal.config.RFXComBridgeConfiguration;
 import org.openhab.binding.rfxcom.internal.connector.RFXComConnectorInterface;
 import org.openhab.binding.rfxcom.internal.connector.RFXComEventListener;
@@ -37,6 +39,7 @@ import org.openhab.binding.rfxcom.internal.connector.RFXComTcpConnector;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComMessageNotImplementedException;
 import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType;
 import org.openhab.binding.rfxcom.internal.messages.RFXComInterfaceControlMessage;
 import org.openhab.binding.rfxcom.internal.messages.RFXComInterfaceMessage;
 import org.openhab.binding.rfxcom.internal.messages.RFXComInterfaceMessage.Commands;
@@ -61,52 +64,21 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
     private Logger logger = LoggerFactory.getLogger(RFXComBridgeHandler.class);
 
-    RFXComConnectorInterface connector = null;
+    volatile RFXComConnectorInterface connector = null;
     private MessageListener eventListener = new MessageListener();
 
     private List<DeviceMessageListener> deviceStatusListeners = new CopyOnWriteArrayList<>();
+    private Map<String, DeviceMessageListener> deviceListenersById = new ConcurrentHashMap<>();
+
+    private LongAdder routedMessages = new LongAdder();
+    private LongAdder unknownMessages = new LongAdder();
+    private LongAdder droppedMessages = new LongAdder();
 
     private RFXComBridgeConfiguration configuration = null;
     private ScheduledFuture<?> connectorTask;
     private Set<ThingUID> knownDevices = new HashSet<>();
 
-    private class TransmitQueue {
-        private Queue<RFXComBaseMessage> queue = new LinkedBlockingQueue<RFXComBaseMessage>();
-
-        public synchronized void enqueue(RFXComBaseMessage msg) throws IOException {
-            boolean wasEmpty = queue.isEmpty();
-            if (queue.offer(msg)) {
-                if (wasEmpty) {
-                    send();
-                }
-            } else {
-                logger.error("Transmit queue overflow. Lost message: {}", msg);
-            }
-        }
-
-        public synchronized void sendNext() throws IOException {
-            queue.poll();
-            send();
-        }
-
-        public synchronized void send() throws IOException {
-            while (!queue.isEmpty()) {
-                RFXComBaseMessage msg = queue.peek();
-
-                try {
-                    logger.debug("Transmitting message '{}'", msg);
-                    byte[] data = msg.decodeMessage();
-                    connector.sendMessage(data);
-                    break;
-                } catch (RFXComException rfxe) {
-                    logger.error("Error during send of {}", msg, rfxe);
-                    queue.poll();
-                }
-            }
-        }
-    }
-
-    private TransmitQueue transmitQueue = new TransmitQueue();
+    private RFXComTransmitQueue transmitQueue;
 
     public RFXComBridgeHandler(Bridge br) {
         super(br);
@@ -119,11 +91,18 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
 
     @Override
     public synchronized void dispose() {
-        logger.debug("Handler disposed.");
+        logger.debug("Handler disposed, {} messages routed, {} from unknown devices, {} dropped.",
+                getRoutedMessageCount(), getUnknownMessageCount(), getDroppedMessageCount());
 
         for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
             unregisterDeviceStatusListener(deviceStatusListener);
         }
+        deviceListenersById.clear();
+
+        if (transmitQueue != null) {
+            logger.debug("Transmit queue: {}", transmitQueue);
+            transmitQueue.clear();
+        }
 
         if (connector != null) {
             connector.removeEventListener(eventListener);
@@ -145,6 +124,8 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         updateStatus(ThingStatus.OFFLINE);
 
         configuration = getConfigAs(RFXComBridgeConfiguration.class);
+        transmitQueue = new RFXComTransmitQueue(this::transmit, scheduler, configuration.transmitWindow,
+                configuration.transmitTimeout * 1000L);
 
         if (connectorTask == null || connectorTask.isCancelled()) {
             connectorTask = scheduler.scheduleAtFixedRate(new Runnable() {
@@ -160,6 +141,14 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         }
     }
 
+    private void transmit(byte[] data) throws IOException {
+        RFXComConnectorInterface connector = this.connector;
+        if (connector == null) {
+            throw new IOException("Not connected to RFXCOM transceiver");
+        }
+        connector.sendMessage(data);
+    }
+
     private synchronized void connect() {
         logger.debug("Connecting to RFXCOM transceiver");
 
@@ -179,6 +168,7 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
             }
 
             if (connector != null) {
+                transmitQueue.stop();
                 connector.disconnect();
                 connector.connect(configuration);
 
@@ -230,7 +220,8 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         @Override
         public void packetReceived(byte[] packet) {
             try {
-                RFXComMessage message = RFXComMessageFactory.createMessage(packet);
+                // the message is dispatched synchronously on the reader thread, so its object can be reused
+                RFXComMessage message = RFXComMessageFactory.createReusableMessage(packet);
                 logger.debug("Message received: {}", message);
 
                 if (message instanceof RFXComInterfaceMessage) {
@@ -277,30 +268,25 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
                     } else if (msg.subType == SubType.START_RECEIVER) {
                         updateStatus(ThingStatus.ONLINE);
                         logger.debug("Start TX of any queued messages");
-                        transmitQueue.send();
+                        transmitQueue.start();
                     } else {
                         logger.debug("Interface response received: {}", msg);
-                        transmitQueue.sendNext();
+                        transmitQueue.acknowledge(msg.seqNbr);
                     }
                 } else if (message instanceof RFXComTransmitterMessage) {
                     RFXComTransmitterMessage resp = (RFXComTransmitterMessage) message;
 
                     logger.debug("Transmitter response received: {}", resp);
 
-                    transmitQueue.sendNext();
+                    transmitQueue.acknowledge(resp.seqNbr);
                 } else {
-
-                    for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
-                        try {
-                            deviceStatusListener.onDeviceMessageReceived(getThing().getUID(), message);
-                        } catch (Exception e) {
-                            logger.error("An exception occurred while calling the DeviceStatusListener", e);
-                        }
-                    }
+                    dispatchDeviceMessage(message);
                 }
             } catch (RFXComMessageNotImplementedException e) {
+                droppedMessages.increment();
                 logger.debug("Message not supported, data: {}", DatatypeConverter.printHexBinary(packet));
             } catch (RFXComException e) {
+                droppedMessages.increment();
                 logger.error("Error occurred during packet receiving, data: {}",
                         DatatypeConverter.printHexBinary(packet), e);
             } catch (IOException e) {
@@ -311,10 +297,65 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         @Override
         public void errorOccurred(String error) {
             logger.error("Error occurred: {}", error);
+            transmitQueue.stop();
             updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR);
         }
     }
 
+    /**
+     * Passes a device message to the listener registered for its packet type and device id. Messages of devices
+     * without a registered listener are passed to the generic listeners, e.g. the discovery service.
+     */
+    private void dispatchDeviceMessage(RFXComMessage message) throws RFXComException {
+        String key = getDeviceKey(((RFXComBaseMessage) message).packetType, message.getDeviceId());
+        DeviceMessageListener deviceListener = deviceListenersById.get(key);
+        if (deviceListener != null) {
+            routedMessages.increment();
+            notifyListener(deviceListener, message);
+        } else if (!deviceStatusListeners.isEmpty()) {
+            unknownMessages.increment();
+            logger.trace("No thing registered for device '{}', passing message to discovery", key);
+            for (DeviceMessageListener deviceStatusListener : deviceStatusListeners) {
+                notifyListener(deviceStatusListener, message);
+            }
+        } else {
+            droppedMessages.increment();
+            logger.trace("No listener registered for device '{}', dropping message", key);
+        }
+    }
+
+    private void notifyListener(DeviceMessageListener listener, RFXComMessage message) {
+        try {
+            listener.onDeviceMessageReceived(getThing().getUID(), message);
+        } catch (Exception e) {
+            logger.error("An exception occurred while calling the DeviceStatusListener", e);
+        }
+    }
+
+    private static String getDeviceKey(PacketType packetType, String deviceId) {
+        return packetType + ":" + deviceId;
+    }
+
+    /**
+     * Registers a listener for the messages of a single device.
+     */
+    public boolean registerDeviceStatusListener(PacketType packetType, String deviceId,
+            DeviceMessageListener deviceStatusListener) {
+        if (deviceStatusListener == null) {
+            throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
+        }
+        DeviceMessageListener previous = deviceListenersById.put(getDeviceKey(packetType, deviceId),
+                deviceStatusListener);
+        if (previous != null && previous != deviceStatusListener) {
+            logger.warn("Device '{}' with id '{}' is used by more than one thing, only the last one gets updates",
+                    packetType, deviceId);
+        }
+        return previous != deviceStatusListener;
+    }
+
+    /**
+     * Registers a listener for the messages of all devices without an own listener.
+     */
     public boolean registerDeviceStatusListener(DeviceMessageListener deviceStatusListener) {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
@@ -327,7 +368,29 @@ public class RFXComBridgeHandler extends BaseBridgeHandler {
         if (deviceStatusListener == null) {
             throw new IllegalArgumentException("It's not allowed to pass a null deviceStatusListener.");
         }
-        return deviceStatusListeners.remove(deviceStatusListener);
+        boolean removed = deviceListenersById.values().removeIf(listener -> listener == deviceStatusListener);
+        return deviceStatusListeners.remove(deviceStatusListener) || removed;
+    }
+
+    /**
+     * Returns the number of messages routed to the thing of their device.
+     */
+    public long getRoutedMessageCount() {
+        return routedMessages.sum();
+    }
+
+    /**
+     * Returns the number of messages of devices without a thing, which have been passed to discovery.
+     */
+    public long getUnknownMessageCount() {
+        return unknownMessages.sum();
+    }
+
+    /**
+     * Returns the number of messages which could not be decoded or had no listener.
+     */
+    public long getDroppedMessageCount() {
+        return droppedMessages.sum();
     }
 
     public RFXComBridgeConfiguration getConfiguration() {
@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.rfxcom.internal;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
+import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Queue for the messages transmitted to a RFXCOM transceiver. Every transmitted message gets its own sequence number,
+ * which the transceiver returns in its response. Up to a configurable number of messages may wait for their response
+ * at the same time. A message without response is retransmitted once after the timeout and dropped after the second
+ * timeout. Messages are transmitted in the order they have been queued.
+ *
+ * @author agent - Initial contribution
+ */
+public class RFXComTransmitQueue {
+    private final Logger logger = LoggerFactory.getLogger(RFXComTransmitQueue.class);
+
+    private static final int MAX_RETRIES = 1;
+
+    /**
+     * Sends the raw data of a message to the transceiver.
+     */
+    @FunctionalInterface
+    public interface Transmitter {
+        void transmit(byte[] data) throws IOException;
+    }
+
+    private final Transmitter transmitter;
+    private final ScheduledExecutorService scheduler;
+    private final int window;
+    private final long timeout;
+
+    private final Deque<PendingMessage> queuedMessages = new ArrayDeque<>();
+    private final Map<Byte, PendingMessage> inFlightMessages = new HashMap<>();
+    private boolean started;
+    private byte nextSeqNbr;
+
+    private long ackCount;
+    private long totalAckLatency;
+    private long maxAckLatency;
+    private long timeoutCount;
+    private long droppedCount;
+
+    /**
+     * Creates a transmit queue.
+     *
+     * @param transmitter sends the messages to the transceiver
+     * @param scheduler scheduler for the response timeouts
+     * @param window max number of messages waiting for their response, between 1 and 255
+     * @param timeout time in milliseconds to wait for the response to a message
+     */
+    public RFXComTransmitQueue(Transmitter transmitter, ScheduledExecutorService scheduler, int window,
+            long timeout) {
+        this.transmitter = transmitter;
+        this.scheduler = scheduler;
+        this.window = Math.max(1, Math.min(window, 255));
+        this.timeout = timeout;
+    }
+
+    /**
+     * Adds a message to the queue and transmits it, if the transceiver is started and the window is not full.
+     */
+    public synchronized void enqueue(RFXComBaseMessage msg) throws IOException {
+        queuedMessages.addLast(new PendingMessage(msg));
+        transmitPending();
+    }
+
+    /**
+     * Starts transmitting the queued messages, called after the receiver of the transceiver has been started.
+     */
+    public synchronized void start() throws IOException {
+        started = true;
+        transmitPending();
+    }
+
+    /**
+     * Stops transmitting, messages waiting for their response are queued again.
+     */
+    public synchronized void stop() {
+        started = false;
+        for (PendingMessage pending : inFlightMessages.values()) {
+            pending.timeoutJob.cancel(false);
+            queuedMessages.addFirst(pending);
+        }
+        inFlightMessages.clear();
+    }
+
+    /**
+     * Removes all queued messages.
+     */
+    public synchronized void clear() {
+        stop();
+        queuedMessages.clear();
+    }
+
+    /**
+     * Handles the response of the transceiver to the message with the given sequence number and transmits the next
+     * queued messages.
+     */
+    public synchronized void acknowledge(byte seqNbr) throws IOException {
+        PendingMessage pending = inFlightMessages.remove(seqNbr);
+        if (pending == null) {
+            logger.debug("Received response for unknown sequence number {}", seqNbr & 0xFF);
+        } else {
+            pending.timeoutJob.cancel(false);
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pending.transmitTime);
+            ackCount++;
+            totalAckLatency += latency;
+            maxAckLatency = Math.max(maxAckLatency, latency);
+        }
+        transmitPending();
+    }
+
+    private synchronized void responseTimedOut(PendingMessage pending) {
+        if (inFlightMessages.get(pending.seqNbr) != pending) {
+            return;
+        }
+        inFlightMessages.remove(pending.seqNbr);
+        timeoutCount++;
+        if (pending.attempts <= MAX_RETRIES) {
+            logger.debug("No response for message '{}', transmitting it again", pending.msg);
+            queuedMessages.addFirst(pending);
+        } else {
+            logger.warn("No response for message '{}' after {} attempts, dropping it", pending.msg, pending.attempts);
+            droppedCount++;
+        }
+
+        try {
+            transmitPending();
+        } catch (IOException e) {
+            logger.warn("Error transmitting queued messages: {}", e.getMessage());
+        }
+    }
+
+    private void transmitPending() throws IOException {
+        while (started && inFlightMessages.size() < window) {
+            PendingMessage pending = queuedMessages.pollFirst();
+            if (pending == null) {
+                return;
+            }
+
+            try {
+                pending.seqNbr = getNextSeqNbr();
+                pending.msg.seqNbr = pending.seqNbr;
+                byte[] data = pending.msg.decodeMessage();
+                logger.debug("Transmitting message '{}'", pending.msg);
+                transmitter.transmit(data);
+            } catch (RFXComException e) {
+                logger.error("Error during send of {}", pending.msg, e);
+                droppedCount++;
+                continue;
+            } catch (IOException e) {
+                queuedMessages.addFirst(pending);
+                throw e;
+            }
+
+            pending.attempts++;
+            pending.transmitTime = System.nanoTime();
+            inFlightMessages.put(pending.seqNbr, pending);
+            pending.timeoutJob = scheduler.schedule(() -> responseTimedOut(pending), timeout, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private byte getNextSeqNbr() {
+        while (inFlightMessages.containsKey(nextSeqNbr)) {
+            nextSeqNbr++;
+        }
+        return nextSeqNbr++;
+    }
+
+    /**
+     * Returns the number of messages waiting to be transmitted.
+     */
+    public synchronized int getQueueDepth() {
+        return queuedMessages.size();
+    }
+
+    /**
+     * Returns the number of transmitted messages waiting for their response.
+     */
+    public synchronized int getInFlightCount() {
+        return inFlightMessages.size();
+    }
+
+    /**
+     * Returns the average time in milliseconds between transmitting a message and receiving its response.
+     */
+    public synchronized long getAverageAckLatency() {
+        return ackCount == 0 ? 0 : totalAckLatency / ackCount;
+    }
+
+    /**
+     * Returns the maximum time in milliseconds between transmitting a message and receiving its response.
+     */
+    public synchronized long getMaxAckLatency() {
+        return maxAckLatency;
+    }
+
+    /**
+     * Returns the number of responses which have not been received in time.
+     */
+    public synchronized long getTimeoutCount() {
+        return timeoutCount;
+    }
+
+    /**
+     * Returns the number of messages dropped without response.
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("queued %d, in flight %d, acked %d (avg %d ms, max %d ms), timeouts %d, dropped %d",
+                getQueueDepth(), getInFlightCount(), ackCount, getAverageAckLatency(), maxAckLatency, timeoutCount,
+                droppedCount);
+    }
+
+    /**
+     * A queued or transmitted message.
+     */
+    private static class PendingMessage {
+        private final RFXComBaseMessage msg;
+        private byte seqNbr;
+        private int attempts;
+        private long transmitTime;
+        private ScheduledFuture<?> timeoutJob;
+
+        public PendingMessage(RFXComBaseMessage msg) {
+            this.msg = msg;
+        }
+    }
+}
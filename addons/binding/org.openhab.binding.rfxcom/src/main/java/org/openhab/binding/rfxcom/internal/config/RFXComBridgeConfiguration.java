@@ -38,6 +38,12 @@ public class RFXComBridgeConfiguration {
 
     public int transmitPower;
 
+    // Max number of transmitted messages waiting for their response
+    public int transmitWindow = 1;
+
+    // Time in seconds to wait for the response to a transmitted message
+    public int transmitTimeout = 5;
+
     // Won't configure protocols to RFXCOM transceiver
     public boolean ignoreConfig;
 
@@ -78,6 +78,10 @@ public class RFXComInterfaceControlMessage extends RFXComBaseMessage {
         data[13] = 0;
     }
 
+    public RFXComInterfaceControlMessage() {
+        packetType = PacketType.INTERFACE_CONTROL;
+    }
+
     public RFXComInterfaceControlMessage(byte[] data) throws RFXComException {
         // We should never receive control messages
         throw new RFXComException("Not supported");
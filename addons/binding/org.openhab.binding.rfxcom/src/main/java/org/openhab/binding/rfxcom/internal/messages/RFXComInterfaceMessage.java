@@ -207,6 +207,10 @@ public class RFXComInterfaceMessage extends RFXComBaseMessage {
 
     public FirmwareType firmwareType;
 
+    public RFXComInterfaceMessage() {
+        packetType = PacketType.INTERFACE_MESSAGE;
+    }
+
     public RFXComInterfaceMessage(byte[] data) throws RFXComException {
         encodeMessage(data);
     }
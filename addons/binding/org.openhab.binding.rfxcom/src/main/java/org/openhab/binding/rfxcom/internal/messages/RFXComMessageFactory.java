@@ -8,11 +8,12 @@
  */
 package org.openhab.binding.rfxcom.internal.messages;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
 
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComException;
 import org.openhab.binding.rfxcom.internal.exceptions.RFXComMessageNotImplementedException;
@@ -25,58 +26,72 @@ import org.openhab.binding.rfxcom.internal.messages.RFXComBaseMessage.PacketType
 public class RFXComMessageFactory {
 
     @SuppressWarnings("serial")
-    private static final Map<PacketType, Class<? extends RFXComMessage>> MESSAGE_CLASSES = Collections
-            .unmodifiableMap(new HashMap<PacketType, Class<? extends RFXComMessage>>() {
+    private static final Map<PacketType, Supplier<RFXComMessage>> MESSAGE_SUPPLIERS = Collections
+            .unmodifiableMap(new EnumMap<PacketType, Supplier<RFXComMessage>>(PacketType.class) {
                 {
-                    put(PacketType.INTERFACE_CONTROL, RFXComInterfaceControlMessage.class);
-                    put(PacketType.INTERFACE_MESSAGE, RFXComInterfaceMessage.class);
-                    put(PacketType.TRANSMITTER_MESSAGE, RFXComTransmitterMessage.class);
-                    put(PacketType.UNDECODED_RF_MESSAGE, RFXComUndecodedRFMessage.class);
-                    put(PacketType.LIGHTING1, RFXComLighting1Message.class);
-                    put(PacketType.LIGHTING2, RFXComLighting2Message.class);
-                    // put(PacketType.LIGHTING3, RFXComLighting3Message.class);
-                    put(PacketType.LIGHTING4, RFXComLighting4Message.class);
-                    put(PacketType.LIGHTING5, RFXComLighting5Message.class);
-                    put(PacketType.LIGHTING6, RFXComLighting6Message.class);
-                    put(PacketType.CHIME, RFXComChimeMessage.class);
-                    // put(PacketType.FAN, RFXComFanMessage.class);
-                    put(PacketType.CURTAIN1, RFXComCurtain1Message.class);
-                    put(PacketType.BLINDS1, RFXComBlinds1Message.class);
-                    put(PacketType.RFY, RFXComRfyMessage.class);
-                    put(PacketType.HOME_CONFORT, RFXComHomeConfortMessage.class);
-                    put(PacketType.SECURITY1, RFXComSecurity1Message.class);
-                    put(PacketType.SECURITY2, RFXComSecurity2Message.class);
-                    // put(PacketType.CAMERA1, RFXComCamera1Message.class);
-                    // put(PacketType.REMOTE_CONTROL, RFXComRemoteControlMessage.class);
-                    put(PacketType.THERMOSTAT1, RFXComThermostat1Message.class);
-                    // put(PacketType.THERMOSTAT2, RFXComThermostat2Message.class);
-                    // put(PacketType.THERMOSTAT3, RFXComThermostat3Message.class);
-                    // put(PacketType.RADIATOR1, RFXComRadiator1Message.class);
-                    // put(PacketType.BBQ1, RFXComBBQMessage.class);
-                    put(PacketType.TEMPERATURE_RAIN, RFXComTemperatureRainMessage.class);
-                    put(PacketType.TEMPERATURE, RFXComTemperatureMessage.class);
-                    put(PacketType.HUMIDITY, RFXComHumidityMessage.class);
-                    put(PacketType.TEMPERATURE_HUMIDITY, RFXComTemperatureHumidityMessage.class);
-                    // put(PacketType.BAROMETRIC, RFXComBarometricMessage.class);
-                    put(PacketType.TEMPERATURE_HUMIDITY_BAROMETRIC, RFXComTemperatureHumidityBarometricMessage.class);
-                    put(PacketType.RAIN, RFXComRainMessage.class);
-                    put(PacketType.WIND, RFXComWindMessage.class);
-                    put(PacketType.UV, RFXComUVMessage.class);
-                    put(PacketType.DATE_TIME, RFXComDateTimeMessage.class);
-                    // put(PacketType.CURRENT, RFXComCurrentMessage.class);
-                    put(PacketType.ENERGY, RFXComEnergyMessage.class);
-                    put(PacketType.CURRENT_ENERGY, RFXComCurrentEnergyMessage.class);
-                    // put(PacketType.POWER, RFXComPowerMessage.class);
-                    // put(PacketType.WEIGHT, RFXComWeightMessage.class);
-                    // put(PacketType.GAS, RFXComGasMessage.class);
-                    // put(PacketType.WATER, RFXComWaterMessage.class);
-                    // put(PacketType.RFXSENSOR, RFXComRFXSensorMessage.class);
-                    // put(PacketType.RFXMETER, RFXComRFXMeterMessage.class);
-                    // put(PacketType.FS20, RFXComFS20Message.class);
-                    // put(PacketType.IO_LINES, RFXComIOLinesMessage.class);
+                    put(PacketType.INTERFACE_CONTROL, RFXComInterfaceControlMessage::new);
+                    put(PacketType.INTERFACE_MESSAGE, RFXComInterfaceMessage::new);
+                    put(PacketType.TRANSMITTER_MESSAGE, RFXComTransmitterMessage::new);
+                    put(PacketType.UNDECODED_RF_MESSAGE, RFXComUndecodedRFMessage::new);
+                    put(PacketType.LIGHTING1, RFXComLighting1Message::new);
+                    put(PacketType.LIGHTING2, RFXComLighting2Message::new);
+                    // put(PacketType.LIGHTING3, RFXComLighting3Message::new);
+                    put(PacketType.LIGHTING4, RFXComLighting4Message::new);
+                    put(PacketType.LIGHTING5, RFXComLighting5Message::new);
+                    put(PacketType.LIGHTING6, RFXComLighting6Message::new);
+                    put(PacketType.CHIME, RFXComChimeMessage::new);
+                    // put(PacketType.FAN, RFXComFanMessage::new);
+                    put(PacketType.CURTAIN1, RFXComCurtain1Message::new);
+                    put(PacketType.BLINDS1, RFXComBlinds1Message::new);
+                    put(PacketType.RFY, RFXComRfyMessage::new);
+                    put(PacketType.HOME_CONFORT, RFXComHomeConfortMessage::new);
+                    put(PacketType.SECURITY1, RFXComSecurity1Message::new);
+                    put(PacketType.SECURITY2, RFXComSecurity2Message::new);
+                    // put(PacketType.CAMERA1, RFXComCamera1Message::new);
+                    // put(PacketType.REMOTE_CONTROL, RFXComRemoteControlMessage::new);
+                    put(PacketType.THERMOSTAT1, RFXComThermostat1Message::new);
+                    // put(PacketType.THERMOSTAT2, RFXComThermostat2Message::new);
+                    // put(PacketType.THERMOSTAT3, RFXComThermostat3Message::new);
+                    // put(PacketType.RADIATOR1, RFXComRadiator1Message::new);
+                    // put(PacketType.BBQ1, RFXComBBQMessage::new);
+                    put(PacketType.TEMPERATURE_RAIN, RFXComTemperatureRainMessage::new);
+                    put(PacketType.TEMPERATURE, RFXComTemperatureMessage::new);
+                    put(PacketType.HUMIDITY, RFXComHumidityMessage::new);
+                    put(PacketType.TEMPERATURE_HUMIDITY, RFXComTemperatureHumidityMessage::new);
+                    // put(PacketType.BAROMETRIC, RFXComBarometricMessage::new);
+                    put(PacketType.TEMPERATURE_HUMIDITY_BAROMETRIC, RFXComTemperatureHumidityBarometricMessage::new);
+                    put(PacketType.RAIN, RFXComRainMessage::new);
+                    put(PacketType.WIND, RFXComWindMessage::new);
+                    put(PacketType.UV, RFXComUVMessage::new);
+                    put(PacketType.DATE_TIME, RFXComDateTimeMessage::new);
+                    // put(PacketType.CURRENT, RFXComCurrentMessage::new);
+                    put(PacketType.ENERGY, RFXComEnergyMessage::new);
+                    put(PacketType.CURRENT_ENERGY, RFXComCurrentEnergyMessage::new);
+                    // put(PacketType.POWER, RFXComPowerMessage::new);
+                    // put(PacketType.WEIGHT, RFXComWeightMessage::new);
+                    // put(PacketType.GAS, RFXComGasMessage::new);
+                    // put(PacketType.WATER, RFXComWaterMessage::new);
+                    // put(PacketType.RFXSENSOR, RFXComRFXSensorMessage::new);
+                    // put(PacketType.RFXMETER, RFXComRFXMeterMessage::new);
+                    // put(PacketType.FS20, RFXComFS20Message::new);
+                    // put(PacketType.IO_LINES, RFXComIOLinesMessage::new);
                 }
             });
 
+    /**
+     * Packet types which may be decoded into a reused message object. The decoders of these messages write every field
+     * of the message, so nothing of the previously decoded packet is left in the object.
+     */
+    private static final Set<PacketType> REUSABLE_PACKET_TYPES = Collections.unmodifiableSet(EnumSet.of(
+            PacketType.TEMPERATURE_RAIN, PacketType.TEMPERATURE, PacketType.HUMIDITY, PacketType.TEMPERATURE_HUMIDITY,
+            PacketType.TEMPERATURE_HUMIDITY_BAROMETRIC, PacketType.UV, PacketType.ENERGY, PacketType.CURRENT_ENERGY));
+
+    /**
+     * Message objects of the current thread, which are reused for decoding received packets.
+     */
+    private static final ThreadLocal<Map<PacketType, RFXComMessage>> REUSABLE_MESSAGES = ThreadLocal
+            .withInitial(() -> new EnumMap<PacketType, RFXComMessage>(PacketType.class));
+
     /**
      * Command to reset RFXCOM controller.
      *
@@ -106,37 +121,38 @@ public class RFXComMessageFactory {
             0x00, 0x00, 0x00, 0x00, 0x00 };
 
     public static RFXComMessage createMessage(PacketType packetType) throws RFXComException {
-
-        try {
-            Class<? extends RFXComMessage> cl = MESSAGE_CLASSES.get(packetType);
-            if (cl == null) {
-                throw new RFXComMessageNotImplementedException("Message " + packetType + " not implemented");
-            }
-            return cl.newInstance();
-        } catch (IllegalAccessException | InstantiationException e) {
-            throw new RFXComException(e);
+        Supplier<RFXComMessage> supplier = MESSAGE_SUPPLIERS.get(packetType);
+        if (supplier == null) {
+            throw new RFXComMessageNotImplementedException("Message " + packetType + " not implemented");
         }
+        return supplier.get();
     }
 
     public static RFXComMessage createMessage(byte[] packet) throws RFXComException {
-        PacketType packetType = PacketType.fromByte(packet[1]);
+        RFXComMessage message = createMessage(PacketType.fromByte(packet[1]));
+        message.encodeMessage(packet);
+        return message;
+    }
 
-        try {
-            Class<? extends RFXComMessage> cl = MESSAGE_CLASSES.get(packetType);
-            if (cl == null) {
-                throw new RFXComMessageNotImplementedException("Message " + packetType + " not implemented");
-            }
-            Constructor<?> c = cl.getConstructor(byte[].class);
-            return (RFXComMessage) c.newInstance(packet);
-        } catch (InvocationTargetException e) {
-            if (e.getCause() instanceof RFXComException) {
-                throw (RFXComException) e.getCause();
-            } else {
-                throw new RFXComException(e);
-            }
-        } catch (NoSuchMethodException | IllegalAccessException | InstantiationException e) {
-            throw new RFXComException(e);
+    /**
+     * Decodes the packet into a message object, which is owned by the calling thread and reused for the next packet
+     * of the same type. The message is only valid until the thread decodes the next packet, so it must not be kept
+     * or handed over to other threads. Packets of types whose decoder leaves fields untouched are decoded into a new
+     * message object, like {@link #createMessage(byte[])} does.
+     */
+    public static RFXComMessage createReusableMessage(byte[] packet) throws RFXComException {
+        PacketType packetType = PacketType.fromByte(packet[1]);
+        if (!REUSABLE_PACKET_TYPES.contains(packetType)) {
+            return createMessage(packet);
+        }
+        Map<PacketType, RFXComMessage> messages = REUSABLE_MESSAGES.get();
+        RFXComMessage message = messages.get(packetType);
+        if (message == null) {
+            message = createMessage(packetType);
+            messages.put(packetType, message);
         }
+        message.encodeMessage(packet);
+        return message;
     }
 
     public static PacketType convertPacketType(String packetType) throws IllegalArgumentException {
@@ -9,30 +9,40 @@
 package org.openhab.binding.russound.internal.net;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.nio.ByteBuffer;
-import java.nio.channels.AsynchronousCloseException;
-import java.nio.channels.SocketChannel;
 import java.util.List;
-import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
+import org.openhab.binding.russound.internal.net.SocketTransport.Connection;
+import org.openhab.binding.russound.internal.net.SocketTransport.LineListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Represents a restartable socket connection to the underlying telnet session. Commands can be sent via
  * {@link #sendCommand(String)} and responses will be received on any {@link SocketSessionListener}. This implementation
- * of {@link SocketSession} communicates using a {@link SocketChannel} connection.
+ * of {@link SocketSession} communicates using a non-blocking connection of the shared {@link SocketTransport}.
  *
  * @author Tim Roberts
  */
 public class SocketChannelSession implements SocketSession {
     private final Logger logger = LoggerFactory.getLogger(SocketChannelSession.class);
 
+    /**
+     * The max number of responses waiting to be dispatched, reading is paused above it
+     */
+    private static final int MAX_RESPONSES = 50;
+
+    /**
+     * The thread pool dispatching the responses of all sessions
+     */
+    private static final ExecutorService DISPATCHER = ThreadPoolManager.getPool("russound");
+
     /**
      * The host/ip address to connect to
      */
@@ -44,29 +54,29 @@ public class SocketChannelSession implements SocketSession {
     private final int port;
 
     /**
-     * The actual socket being used. Will be null if not connected
+     * The actual connection being used. Will be null if not connected
      */
-    private final AtomicReference<SocketChannel> socketChannel = new AtomicReference<SocketChannel>();
+    private final AtomicReference<Connection> connection = new AtomicReference<Connection>();
 
     /**
-     * The responses read from the {@link #responseReader}
+     * The responses read from the {@link #connection}
      */
-    private final BlockingQueue<Object> responses = new ArrayBlockingQueue<Object>(50);
+    private final BlockingQueue<Object> responses = new LinkedBlockingQueue<Object>();
 
     /**
-     * The {@link SocketSessionListener} that the {@link #dispatcher} will call
+     * The {@link SocketSessionListener} that the responses are dispatched to
      */
     private List<SocketSessionListener> sessionListeners = new CopyOnWriteArrayList<SocketSessionListener>();
 
     /**
-     * The thread dispatching responses - will be null if not connected
+     * Whether a dispatcher task is running for this session
      */
-    private Thread dispatchingThread = null;
+    private final AtomicBoolean dispatching = new AtomicBoolean(false);
 
     /**
-     * The thread processing responses - will be null if not connected
+     * Whether reading from the {@link #connection} is paused because of too many waiting responses
      */
-    private Thread responseThread = null;
+    private final AtomicBoolean readingPaused = new AtomicBoolean(false);
 
     /**
      * Creates the socket session from the given host and port
@@ -99,6 +109,9 @@ public class SocketChannelSession implements SocketSession {
             throw new IllegalArgumentException("listener cannot be null");
         }
         sessionListeners.add(listener);
+
+        // dispatch the responses received while there was no listener
+        dispatch();
     }
 
     /*
@@ -142,21 +155,12 @@ public class SocketChannelSession implements SocketSession {
     public void connect(int timeout) throws IOException {
         disconnect();
 
-        final SocketChannel channel = SocketChannel.open();
-        channel.configureBlocking(true);
-
-        logger.debug("Connecting to {}:{}", host, port);
-        channel.socket().connect(new InetSocketAddress(host, port), timeout);
-
-        socketChannel.set(channel);
-
         responses.clear();
+        readingPaused.set(false);
 
-        dispatchingThread = new Thread(new Dispatcher());
-        responseThread = new Thread(new ResponseReader());
-
-        dispatchingThread.start();
-        responseThread.start();
+        logger.debug("Connecting to {}:{}", host, port);
+        connection.set(SocketTransport.getInstance().open(host, port, timeout, new ResponseReader(), "Login: ",
+                "Password: "));
     }
 
     /*
@@ -169,14 +173,8 @@ public class SocketChannelSession implements SocketSession {
         if (isConnected()) {
             logger.debug("Disconnecting from {}:{}", host, port);
 
-            final SocketChannel channel = socketChannel.getAndSet(null);
-            channel.close();
-
-            dispatchingThread.interrupt();
-            dispatchingThread = null;
-
-            responseThread.interrupt();
-            responseThread = null;
+            final Connection conn = connection.getAndSet(null);
+            conn.close();
 
             responses.clear();
         }
@@ -189,8 +187,8 @@ public class SocketChannelSession implements SocketSession {
      */
     @Override
     public boolean isConnected() {
-        final SocketChannel channel = socketChannel.get();
-        return channel != null && channel.isConnected();
+        final Connection conn = connection.get();
+        return conn != null && conn.isOpen();
     }
 
     /*
@@ -212,149 +210,113 @@ public class SocketChannelSession implements SocketSession {
             throw new IOException("Cannot send message - disconnected");
         }
 
-        ByteBuffer toSend = ByteBuffer.wrap((command + "\r\n").getBytes());
-
-        final SocketChannel channel = socketChannel.get();
-        if (channel == null) {
+        final Connection conn = connection.get();
+        if (conn == null) {
             logger.debug("Cannot send command '{}' - socket channel was closed", command);
         } else {
             logger.debug("Sending Command: '{}'", command);
-            channel.write(toSend);
+            conn.write((command + "\r\n").getBytes());
         }
     }
 
     /**
-     * This is the runnable that will read from the socket and add messages to the responses queue (to be processed by
-     * the dispatcher)
-     *
-     * @author Tim Roberts
+     * Queues a response and starts dispatching it
      *
+     * @param response a non-null response or {@link IOException}
      */
-    private class ResponseReader implements Runnable {
-
-        /**
-         * Runs the logic to read from the socket until {@link #isRunning} is false. A 'response' is anything that ends
-         * with a carriage-return/newline combo. Additionally, the special "Login: " and "Password: " prompts are
-         * treated as responses for purposes of logging in.
-         */
-        @Override
-        public void run() {
-            final StringBuilder sb = new StringBuilder(100);
-            final ByteBuffer readBuffer = ByteBuffer.allocate(1024);
-
-            responses.clear();
-
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    // if reader is null, sleep and try again
-                    if (readBuffer == null) {
-                        Thread.sleep(250);
-                        continue;
-                    }
-
-                    final SocketChannel channel = socketChannel.get();
-                    if (channel == null) {
-                        // socket was closed
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
+    private void addResponse(Object response) {
+        responses.add(response);
+        if (responses.size() >= MAX_RESPONSES && !readingPaused.getAndSet(true)) {
+            logger.debug("Too many responses waiting, pausing reading from {}:{}", host, port);
+            final Connection conn = connection.get();
+            if (conn != null) {
+                conn.setReading(false);
+            }
+        }
+        dispatch();
+    }
 
-                    int bytesRead = channel.read(readBuffer);
-                    if (bytesRead == -1) {
-                        responses.put(new IOException("server closed connection"));
-                        break;
-                    } else if (bytesRead == 0) {
-                        readBuffer.clear();
-                        continue;
-                    }
+    /**
+     * Starts a dispatcher task, if there are listeners and no dispatcher task is running for this session
+     */
+    private void dispatch() {
+        if (!sessionListeners.isEmpty() && !responses.isEmpty() && dispatching.compareAndSet(false, true)) {
+            DISPATCHER.execute(new Dispatcher());
+        }
+    }
 
-                    readBuffer.flip();
-                    while (readBuffer.hasRemaining()) {
-                        final char ch = (char) readBuffer.get();
-                        sb.append(ch);
-                        if (ch == '\n' || ch == ' ') {
-                            final String str = sb.toString();
-                            if (str.endsWith("\r\n") || str.endsWith("Login: ") || str.endsWith("Password: ")) {
-                                sb.setLength(0);
-                                final String response = str.substring(0, str.length() - 2);
-                                responses.put(response);
-                            }
-                        }
-                    }
+    /**
+     * Receives the responses of the connection on the selector thread of the {@link SocketTransport}. A 'response' is
+     * anything that ends with a carriage-return/newline combo. Additionally, the special "Login: " and "Password: "
+     * prompts are treated as responses for purposes of logging in.
+     *
+     * @author Tim Roberts
+     */
+    private class ResponseReader implements LineListener {
+        @Override
+        public void lineReceived(String line) {
+            addResponse(line);
+        }
 
-                    readBuffer.flip();
-
-                } catch (InterruptedException e) {
-                    // Ending thread execution
-                    Thread.currentThread().interrupt();
-                } catch (AsynchronousCloseException e) {
-                    // socket was closed by another thread but interrupt our loop anyway
-                    Thread.currentThread().interrupt();
-                } catch (IOException e) {
-                    // set before pushing the response since we'll likely call back our stop
-                    Thread.currentThread().interrupt();
-
-                    try {
-                        responses.put(e);
-                        break;
-                    } catch (InterruptedException e1) {
-                        // Do nothing - probably shutting down
-                        // Since we set isRunning to false, will drop out of loop and end the thread
-                    }
-                }
-            }
+        @Override
+        public void connectionFailed(IOException e) {
+            addResponse(e);
         }
     }
 
     /**
-     * The dispatcher runnable is responsible for reading the response queue and dispatching it to the current callable.
-     * Since the dispatcher is ONLY started when a callable is set, responses may pile up in the queue and be dispatched
-     * when a callable is set. Unlike the socket reader, this can be assigned to another thread (no state outside of the
-     * class).
+     * The dispatcher task is responsible for reading the response queue and dispatching it to the current listeners.
+     * Since the dispatcher is ONLY started when a listener is set, responses may pile up in the queue and be
+     * dispatched when a listener is set. Only one dispatcher task runs per session, so the responses are dispatched in
+     * order.
      *
      * @author Tim Roberts
      */
     private class Dispatcher implements Runnable {
         /**
-         * Runs the logic to dispatch any responses to the current listeners until {@link #isRunning} is false.
+         * Runs the logic to dispatch the queued responses to the current listeners.
          */
         @Override
         public void run() {
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
+            try {
+                Object response;
+                while (!sessionListeners.isEmpty() && (response = responses.poll()) != null) {
                     final SocketSessionListener[] listeners = sessionListeners.toArray(new SocketSessionListener[0]);
-
-                    // if no listeners, we don't want to start dispatching yet.
-                    if (listeners.length == 0) {
-                        Thread.sleep(250);
-                        continue;
-                    }
-
-                    final Object response = responses.poll(1, TimeUnit.SECONDS);
-
-                    if (response != null) {
-                        if (response instanceof String) {
-                            logger.debug("Dispatching response: {}", response);
-                            for (SocketSessionListener listener : listeners) {
+                    if (response instanceof String) {
+                        logger.debug("Dispatching response: {}", response);
+                        for (SocketSessionListener listener : listeners) {
+                            try {
                                 listener.responseReceived((String) response);
+                            } catch (Exception e) {
+                                logger.warn("Exception occurred processing the response '{}': {}", response, e);
                             }
-                        } else if (response instanceof IOException) {
-                            logger.debug("Dispatching exception: {}", response);
-                            for (SocketSessionListener listener : listeners) {
+                        }
+                    } else if (response instanceof IOException) {
+                        logger.debug("Dispatching exception: {}", response);
+                        for (SocketSessionListener listener : listeners) {
+                            try {
                                 listener.responseException((IOException) response);
+                            } catch (Exception e) {
+                                logger.warn("Exception occurred processing the exception '{}': {}", response, e);
                             }
-                        } else {
-                            logger.warn("Unknown response class: {}", response);
+                        }
+                    } else {
+                        logger.warn("Unknown response class: {}", response);
+                    }
+
+                    if (responses.size() < MAX_RESPONSES / 2 && readingPaused.getAndSet(false)) {
+                        final Connection conn = connection.get();
+                        if (conn != null) {
+                            conn.setReading(true);
                         }
                     }
-                } catch (InterruptedException e) {
-                    // Ending thread execution
-                    Thread.currentThread().interrupt();
-                } catch (Exception e) {
-                    logger.debug("Uncaught exception {}: {}", e.getMessage(), e);
-                    Thread.currentThread().interrupt();
                 }
+            } finally {
+                dispatching.set(false);
             }
+
+            // a response may have been added after the queue was found empty
+            dispatch();
         }
     }
 }
@@ -36,14 +36,14 @@ public abstract class AbstractRioProtocol implements SocketSessionListener {
     private final RioHandlerCallback callback;
 
     /**
-     * Constructs the protocol handler from given parameters and will add this handler as a
-     * {@link SocketSessionListener} to the specified {@link SocketSession} via
-     * {@link SocketSession#addListener(SocketSessionListener)}
+     * Constructs the protocol handler from given parameters and will register this handler with the
+     * {@link RioResponseRouter} of the specified {@link SocketSession} to receive the responses about the given keys
      *
      * @param session a non-null {@link SocketSession} (may be connected or disconnected)
      * @param callback a non-null {@link RioHandlerCallback} to update state and status
+     * @param routingKeys the {@link RioResponseRouter} keys of the responses this handler processes
      */
-    protected AbstractRioProtocol(SocketSession session, RioHandlerCallback callback) {
+    protected AbstractRioProtocol(SocketSession session, RioHandlerCallback callback, int... routingKeys) {
 
         if (session == null) {
             throw new IllegalArgumentException("session cannot be null");
@@ -54,8 +54,8 @@ public abstract class AbstractRioProtocol implements SocketSessionListener {
         }
 
         this.session = session;
-        this.session.addListener(this);
         this.callback = callback;
+        RioResponseRouter.register(session, this, routingKeys);
     }
 
     /**
@@ -108,10 +108,10 @@ public abstract class AbstractRioProtocol implements SocketSessionListener {
 
     /**
      * Disposes of the protocol by removing ourselves from listening to the socket via
-     * {@link SocketSession#removeListener(SocketSessionListener)}
+     * {@link RioResponseRouter#unregister(SocketSession, SocketSessionListener)}
      */
     public void dispose() {
-        session.removeListener(this);
+        RioResponseRouter.unregister(session, this);
     }
 
     /**
@@ -58,6 +58,13 @@ public class RioPresetsProtocol extends AbstractRioProtocol {
      */
     private static final Pattern RSP_SRCTYPENOTIFICATION = Pattern.compile("^[SN] S\\[(\\d+)\\]\\.type=\"(.*)\"$");
 
+    /**
+     * The {@link RioResponseRouter} keys of the 8 sources we track presets for
+     */
+    private static final int[] SOURCE_KEYS = { RioResponseRouter.sourceKey(1), RioResponseRouter.sourceKey(2),
+            RioResponseRouter.sourceKey(3), RioResponseRouter.sourceKey(4), RioResponseRouter.sourceKey(5),
+            RioResponseRouter.sourceKey(6), RioResponseRouter.sourceKey(7), RioResponseRouter.sourceKey(8) };
+
     /**
      * All 36 presets represented by two dimensions - 8 source by 36 presets
      */
@@ -106,7 +113,7 @@ public class RioPresetsProtocol extends AbstractRioProtocol {
      * @param callback a non-null {@link RioHandlerCallback} to use
      */
     public RioPresetsProtocol(SocketSession session, RioHandlerCallback callback) {
-        super(session, callback);
+        super(session, callback, SOURCE_KEYS);
 
         gson = GsonUtilities.createGson();
         for (int s = 1; s <= 8; s++) {
@@ -0,0 +1,359 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.russound.internal.rio;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openhab.binding.russound.internal.net.SocketSession;
+import org.openhab.binding.russound.internal.net.SocketSessionListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Routes the responses of a {@link SocketSession} to the protocol handlers owning the key the response is about. The
+ * key path of a response ("C[x].Z[y]...", "C[x]...", "S[x]...", "System...") is parsed once by a simple tokenizer and
+ * the response is only passed to the listeners registered for that key, rather than every protocol handler of the
+ * session running its regular expressions against every response. One router is registered per session, as long as
+ * there are listeners registered with it.
+ *
+ * @author agent - Initial contribution
+ */
+public class RioResponseRouter implements SocketSessionListener {
+    private final Logger logger = LoggerFactory.getLogger(RioResponseRouter.class);
+
+    /**
+     * The key of "System." notifications
+     */
+    public static final int KEY_SYSTEM = 1 << 16;
+
+    /**
+     * The key of the "VERSION" response
+     */
+    public static final int KEY_VERSION = 2 << 16;
+
+    /**
+     * The key of error ("E ...") responses
+     */
+    public static final int KEY_ERROR = 3 << 16;
+
+    /**
+     * The key of media management menu responses (json text starting with '{')
+     */
+    public static final int KEY_MENU = 4 << 16;
+
+    private static final int TYPE_CONTROLLER = 5 << 16;
+    private static final int TYPE_ZONE = 6 << 16;
+    private static final int TYPE_SOURCE = 7 << 16;
+
+    /**
+     * The key returned for responses without a known key
+     */
+    private static final int NO_KEY = -1;
+
+    /**
+     * The routers of the sessions, only accessed while synchronized on the map
+     */
+    private static final Map<SocketSession, RioResponseRouter> ROUTERS = new HashMap<>();
+
+    /**
+     * The session we are listening to
+     */
+    private final SocketSession session;
+
+    /**
+     * The listeners by key
+     */
+    private final Map<Integer, List<SocketSessionListener>> routes = new ConcurrentHashMap<>();
+
+    /**
+     * All listeners, used to pass exceptions
+     */
+    private final List<SocketSessionListener> listeners = new CopyOnWriteArrayList<SocketSessionListener>();
+
+    /**
+     * The number of responses routed, responses without listener and the time spent parsing the keys
+     */
+    private final AtomicLong routedResponses = new AtomicLong();
+    private final AtomicLong unroutedResponses = new AtomicLong();
+    private final AtomicLong parseNanos = new AtomicLong();
+
+    private RioResponseRouter(SocketSession session) {
+        this.session = session;
+    }
+
+    /**
+     * Registers the listener for responses about the given keys of the session, adding the router of the session as a
+     * {@link SocketSessionListener} if it is the first listener of the session
+     *
+     * @param session a non-null {@link SocketSession}
+     * @param listener a non-null {@link SocketSessionListener} to receive the responses
+     * @param keys the keys, see the KEY_ constants and {@link #controllerKey(int)}, {@link #zoneKey(int, int)} and
+     *            {@link #sourceKey(int)}
+     */
+    public static void register(SocketSession session, SocketSessionListener listener, int... keys) {
+        if (session == null) {
+            throw new IllegalArgumentException("session cannot be null");
+        }
+        if (listener == null) {
+            throw new IllegalArgumentException("listener cannot be null");
+        }
+
+        synchronized (ROUTERS) {
+            RioResponseRouter router = ROUTERS.get(session);
+            if (router == null) {
+                router = new RioResponseRouter(session);
+                ROUTERS.put(session, router);
+                session.addListener(router);
+            }
+            router.add(listener, keys);
+        }
+    }
+
+    /**
+     * Unregisters the listener from the session, removing the router of the session if it was the last listener
+     *
+     * @param session a non-null {@link SocketSession}
+     * @param listener a non-null {@link SocketSessionListener} to remove
+     */
+    public static void unregister(SocketSession session, SocketSessionListener listener) {
+        synchronized (ROUTERS) {
+            final RioResponseRouter router = ROUTERS.get(session);
+            if (router != null && router.remove(listener)) {
+                ROUTERS.remove(session);
+                session.removeListener(router);
+                router.logStatistics();
+            }
+        }
+    }
+
+    /**
+     * Returns the key of the notifications about a controller ("C[x].name" for example)
+     *
+     * @param controller the controller identifier
+     * @return the key
+     */
+    public static int controllerKey(int controller) {
+        return TYPE_CONTROLLER | (controller & 0xff);
+    }
+
+    /**
+     * Returns the key of the notifications about a zone ("C[x].Z[y].volume" for example)
+     *
+     * @param controller the controller identifier
+     * @param zone the zone identifier
+     * @return the key
+     */
+    public static int zoneKey(int controller, int zone) {
+        return TYPE_ZONE | (controller & 0xff) << 8 | (zone & 0xff);
+    }
+
+    /**
+     * Returns the key of the notifications about a source ("S[x].name" for example)
+     *
+     * @param source the source identifier
+     * @return the key
+     */
+    public static int sourceKey(int source) {
+        return TYPE_SOURCE | (source & 0xff);
+    }
+
+    /**
+     * Parses the key of the response. Notifications look like 'N C[1].Z[2].volume="10"' - the type ('S' or 'N'), a
+     * space and the key path, which is parsed up to the zone, controller, source or "System" part.
+     *
+     * @param response a non-null response
+     * @return the key or {@link #NO_KEY} if the response has no known key
+     */
+    static int parseKey(String response) {
+        final int length = response.length();
+        if (length < 2) {
+            return NO_KEY;
+        }
+
+        final char type = response.charAt(0);
+        if (type == '{') {
+            return KEY_MENU;
+        }
+        if (response.charAt(1) != ' ') {
+            return NO_KEY;
+        }
+        if (type == 'E' || type == 'e') {
+            return KEY_ERROR;
+        }
+        if (type != 'S' && type != 's' && type != 'N' && type != 'n') {
+            return NO_KEY;
+        }
+
+        final char first = length > 2 ? Character.toUpperCase(response.charAt(2)) : 0;
+        if (first == 'C') {
+            final int controller = parseIndex(response, 3);
+            if (controller < 0) {
+                return NO_KEY;
+            }
+            // 'C[x]' followed by '.Z['
+            final int end = response.indexOf(']', 3);
+            if (end + 2 < length && response.charAt(end + 1) == '.'
+                    && Character.toUpperCase(response.charAt(end + 2)) == 'Z') {
+                final int zone = parseIndex(response, end + 3);
+                if (zone >= 0) {
+                    return zoneKey(controller, zone);
+                }
+            }
+            return controllerKey(controller);
+        }
+        if (first == 'S') {
+            final int source = parseIndex(response, 3);
+            if (source >= 0) {
+                return sourceKey(source);
+            }
+            if (response.regionMatches(true, 2, "System.", 0, 7)) {
+                return KEY_SYSTEM;
+            }
+            return NO_KEY;
+        }
+        if (first == 'V' && response.regionMatches(true, 2, "VERSION=", 0, 8)) {
+            return KEY_VERSION;
+        }
+        return NO_KEY;
+    }
+
+    /**
+     * Parses the index in brackets starting at the given position ("[12]" for example)
+     *
+     * @return the index or -1 if there is no index at the position
+     */
+    private static int parseIndex(String response, int pos) {
+        final int length = response.length();
+        if (pos >= length || response.charAt(pos) != '[') {
+            return -1;
+        }
+        int index = 0;
+        int digits = 0;
+        for (int i = pos + 1; i < length; i++) {
+            final char c = response.charAt(i);
+            if (c == ']') {
+                return digits == 0 ? -1 : index;
+            }
+            if (c < '0' || c > '9' || ++digits > 3) {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return -1;
+    }
+
+    private void add(SocketSessionListener listener, int... keys) {
+        for (int key : keys) {
+            routes.computeIfAbsent(key, k -> new CopyOnWriteArrayList<SocketSessionListener>()).add(listener);
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes the listener from all keys
+     *
+     * @return true if there are no more listeners
+     */
+    private boolean remove(SocketSessionListener listener) {
+        listeners.remove(listener);
+        for (List<SocketSessionListener> keyListeners : routes.values()) {
+            keyListeners.remove(listener);
+        }
+        routes.values().removeIf(List::isEmpty);
+        return listeners.isEmpty();
+    }
+
+    /**
+     * Returns the number of responses passed to at least one listener
+     *
+     * @return the number of routed responses
+     */
+    public long getRoutedResponses() {
+        return routedResponses.get();
+    }
+
+    /**
+     * Returns the number of responses without a listener for their key
+     *
+     * @return the number of unrouted responses
+     */
+    public long getUnroutedResponses() {
+        return unroutedResponses.get();
+    }
+
+    /**
+     * Returns the total time spent parsing the keys of the responses
+     *
+     * @return the parse time in nanoseconds
+     */
+    public long getParseNanos() {
+        return parseNanos.get();
+    }
+
+    private void logStatistics() {
+        final long total = routedResponses.get() + unroutedResponses.get();
+        logger.debug("Routed {} of {} responses, average parse time {} ns", routedResponses.get(), total,
+                total == 0 ? 0 : parseNanos.get() / total);
+    }
+
+    /**
+     * Passes the response to the listeners of its key
+     *
+     * @param response a non-null, possibly empty response
+     */
+    @Override
+    public void responseReceived(String response) {
+        final long start = System.nanoTime();
+        final int key = parseKey(response);
+        parseNanos.addAndGet(System.nanoTime() - start);
+
+        final List<SocketSessionListener> keyListeners = key == NO_KEY ? null : routes.get(key);
+        if (keyListeners == null || keyListeners.isEmpty()) {
+            unroutedResponses.incrementAndGet();
+            logger.trace("No listener for response: {}", response);
+            return;
+        }
+
+        routedResponses.incrementAndGet();
+        for (SocketSessionListener listener : keyListeners) {
+            try {
+                listener.responseReceived(response);
+            } catch (Exception e) {
+                logger.warn("Exception occurred processing the response '{}': {}", response, e);
+            }
+        }
+    }
+
+    /**
+     * Passes the exception to all listeners
+     *
+     * @param e the exception
+     */
+    @Override
+    public void responseException(IOException e) {
+        for (SocketSessionListener listener : listeners) {
+            try {
+                listener.responseException(e);
+            } catch (Exception e1) {
+                logger.warn("Exception occurred processing the exception '{}': {}", e, e1);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RioResponseRouter for " + session;
+    }
+}
@@ -0,0 +1,136 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.homekit.internal;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.openhab.io.homekit.internal.accessories.GroupedAccessory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.beowulfe.hap.HomekitAccessory;
+
+/**
+ * Stages the accessories for the tagged items, without touching the bridge, so they can be compared with the created
+ * accessories and applied in one go by the HomekitAccessoryRegistry. GroupedAccessories are held in a pre-created
+ * pending state until all required characteristics are found.
+ *
+ * @author agent - Initial contribution
+ */
+class HomekitAccessoryBatch {
+
+    private final Map<Integer, StagedAccessory> accessories = new LinkedHashMap<>();
+    private final Map<String, StagedAccessory> pendingGroupedAccessories = new HashMap<>();
+    private final List<HomekitTaggedItem> pendingCharacteristics = new LinkedList<>();
+
+    private int added;
+    private int removed;
+    private int unchanged;
+
+    private final Logger logger = LoggerFactory.getLogger(HomekitAccessoryBatch.class);
+
+    public void addRootDevice(HomekitTaggedItem taggedItem, HomekitAccessory accessory) {
+        StagedAccessory stagedAccessory = new StagedAccessory(accessory, taggedItem.getItem());
+        if (accessory instanceof GroupedAccessory) {
+            GroupedAccessory groupedAccessory = (GroupedAccessory) accessory;
+            pendingGroupedAccessories.put(groupedAccessory.getGroupName(), stagedAccessory);
+            for (HomekitTaggedItem characteristic : pendingCharacteristics) {
+                if (characteristic.getItem().getGroupNames().contains(groupedAccessory.getGroupName())) {
+                    addCharacteristicToGroup(groupedAccessory.getGroupName(), characteristic);
+                }
+            }
+        } else {
+            accessories.put(accessory.getId(), stagedAccessory);
+        }
+    }
+
+    public void addCharacteristic(HomekitTaggedItem item) {
+        for (String group : item.getItem().getGroupNames()) {
+            if (pendingGroupedAccessories.containsKey(group)) {
+                addCharacteristicToGroup(group, item);
+                logger.debug("Added {} to {}", item.getItem().getName(), group);
+                return;
+            }
+        }
+        pendingCharacteristics.add(item);
+        logger.debug("Stored {} until group is ready", item.getItem().getName());
+    }
+
+    /**
+     * @return The staged accessories by accessory id, without the incomplete GroupedAccessories.
+     */
+    public Map<Integer, StagedAccessory> getAccessories() {
+        return accessories;
+    }
+
+    public int getAdded() {
+        return added;
+    }
+
+    public int getRemoved() {
+        return removed;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    void setResult(int added, int removed, int unchanged) {
+        this.added = added;
+        this.removed = removed;
+        this.unchanged = unchanged;
+    }
+
+    private void addCharacteristicToGroup(String group, HomekitTaggedItem item) {
+        StagedAccessory stagedAccessory = pendingGroupedAccessories.get(group);
+        GroupedAccessory accessory = (GroupedAccessory) stagedAccessory.getAccessory();
+        accessory.addCharacteristic(item);
+        stagedAccessory.items.add(item.getItem());
+        if (accessory.isComplete()) {
+            pendingGroupedAccessories.remove(group);
+            accessories.put(accessory.getId(), stagedAccessory);
+        }
+    }
+
+    /**
+     * An accessory together with the item instances it was built from. The item registry replaces the instance of an
+     * item when the item changes, so an accessory built from the same instances as another one is equivalent to it.
+     */
+    static class StagedAccessory {
+        private final HomekitAccessory accessory;
+        private final List<Item> items = new LinkedList<>();
+
+        public StagedAccessory(HomekitAccessory accessory, Item item) {
+            this.accessory = accessory;
+            this.items.add(item);
+        }
+
+        public HomekitAccessory getAccessory() {
+            return accessory;
+        }
+
+        public boolean hasSameItems(StagedAccessory other) {
+            if (items.size() != other.items.size()) {
+                return false;
+            }
+            for (Item item : items) {
+                if (!other.items.stream().anyMatch(otherItem -> otherItem == item)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+}
@@ -8,15 +8,13 @@
  */
 package org.openhab.io.homekit.internal;
 
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
-import org.openhab.io.homekit.internal.accessories.GroupedAccessory;
+import org.openhab.io.homekit.internal.HomekitAccessoryBatch.StagedAccessory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -24,87 +22,74 @@ import com.beowulfe.hap.HomekitAccessory;
 import com.beowulfe.hap.HomekitRoot;
 
 /**
- * Stores the created HomekitAccessories. GroupedAccessories are also held here
- * in a pre-created pending state until all required characteristics are found.
+ * Stores the created HomekitAccessories and keeps the bridge in sync with them. A started bridge resets its accessory
+ * database and drops all client connections on every added or removed accessory, so accessories are only replaced
+ * when they actually changed.
  *
  * @author Andy Lintner
  */
 class HomekitAccessoryRegistry {
 
     private HomekitRoot bridge;
-    private final List<HomekitAccessory> createdAccessories = new LinkedList<>();
-    private final Set<Integer> createdIds = new HashSet<>();
-    private final Map<String, GroupedAccessory> pendingGroupedAccessories = new HashMap<>();
-    private final List<HomekitTaggedItem> pendingCharacteristics = new LinkedList<>();
+    private final Map<Integer, StagedAccessory> createdAccessories = new LinkedHashMap<>();
 
     private final Logger logger = LoggerFactory.getLogger(HomekitAccessoryRegistry.class);
 
-    public void remove(HomekitTaggedItem taggedItem) {
-        Iterator<HomekitAccessory> i = createdAccessories.iterator();
-        while (i.hasNext()) {
-            HomekitAccessory accessory = i.next();
-            if (accessory.getId() == taggedItem.getId()) {
-                logger.debug("Removed accessory {}", accessory.getId());
-                bridge.removeAccessory(accessory);
-                i.remove();
-            }
-        }
-    }
-
     public synchronized void clear() {
-        while (!createdAccessories.isEmpty()) {
-            bridge.removeAccessory(createdAccessories.remove(0));
+        if (bridge != null) {
+            createdAccessories.values().forEach(accessory -> bridge.removeAccessory(accessory.getAccessory()));
         }
-        createdIds.clear();
+        createdAccessories.clear();
     }
 
     public synchronized void setBridge(HomekitRoot bridge) {
         this.bridge = bridge;
-        createdAccessories.forEach(accessory -> bridge.addAccessory(accessory));
+        if (bridge != null) {
+            createdAccessories.values().forEach(accessory -> bridge.addAccessory(accessory.getAccessory()));
+        }
     }
 
-    public synchronized void addRootDevice(HomekitAccessory accessory) {
-        if (accessory instanceof GroupedAccessory) {
-            GroupedAccessory groupedAccessory = (GroupedAccessory) accessory;
-            pendingGroupedAccessories.put(groupedAccessory.getGroupName(), groupedAccessory);
-            for (HomekitTaggedItem characteristic : pendingCharacteristics) {
-                if (characteristic.getItem().getGroupNames().contains(groupedAccessory.getGroupName())) {
-                    addCharacteristicToGroup(groupedAccessory.getGroupName(), characteristic);
-                }
+    /**
+     * Replaces the created accessories with the staged ones. Created accessories built from the same items as a staged
+     * one are kept, all others are removed from the bridge before the new ones are added. The result is stored in the
+     * batch.
+     *
+     * @param batch the staged accessories of all tagged items
+     */
+    public synchronized void apply(HomekitAccessoryBatch batch) {
+        Map<Integer, StagedAccessory> stagedAccessories = batch.getAccessories();
+        List<HomekitAccessory> removed = new LinkedList<>();
+        List<HomekitAccessory> added = new LinkedList<>();
+
+        Iterator<StagedAccessory> i = createdAccessories.values().iterator();
+        while (i.hasNext()) {
+            StagedAccessory created = i.next();
+            StagedAccessory staged = stagedAccessories.get(created.getAccessory().getId());
+            if (staged == null || !created.hasSameItems(staged)) {
+                removed.add(created.getAccessory());
+                i.remove();
             }
-        } else {
-            doAddDevice(accessory);
         }
-    }
-
-    public synchronized void addCharacteristic(HomekitTaggedItem item) {
-        for (String group : item.getItem().getGroupNames()) {
-            if (pendingGroupedAccessories.containsKey(group)) {
-                addCharacteristicToGroup(group, item);
-                logger.debug("Added {} to {}", item.getItem().getName(), group);
-                return;
+        for (StagedAccessory staged : stagedAccessories.values()) {
+            if (!createdAccessories.containsKey(staged.getAccessory().getId())) {
+                createdAccessories.put(staged.getAccessory().getId(), staged);
+                added.add(staged.getAccessory());
             }
         }
-        pendingCharacteristics.add(item);
-        logger.debug("Stored {} until group is ready", item.getItem().getName());
-    }
 
-    private void addCharacteristicToGroup(String group, HomekitTaggedItem item) {
-        GroupedAccessory accessory = pendingGroupedAccessories.get(group);
-        accessory.addCharacteristic(item);
-        if (accessory.isComplete()) {
-            pendingGroupedAccessories.remove(group);
-            doAddDevice(accessory);
+        for (HomekitAccessory accessory : removed) {
+            if (bridge != null) {
+                bridge.removeAccessory(accessory);
+            }
+            logger.debug("Removed accessory {}", accessory.getId());
         }
-    }
-
-    private void doAddDevice(HomekitAccessory accessory) {
-        createdAccessories.add(accessory);
-        createdIds.add(accessory.getId());
-        if (bridge != null) {
-            bridge.addAccessory(accessory);
+        for (HomekitAccessory accessory : added) {
+            if (bridge != null) {
+                bridge.addAccessory(accessory);
+            }
+            logger.debug("Added accessory {}", accessory.getId());
         }
-        logger.debug("Added accessory {}", accessory.getId());
+        batch.setResult(added.size(), removed.size(), createdAccessories.size() - added.size());
     }
 
 }
@@ -8,8 +8,16 @@
  */
 package org.openhab.io.homekit.internal;
 
+import java.util.Arrays;
 import java.util.Collection;
-
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.smarthome.core.common.ThreadPoolManager;
 import org.eclipse.smarthome.core.items.Item;
 import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
@@ -23,46 +31,55 @@ import com.beowulfe.hap.HomekitRoot;
  * Listens for changes to the item registry. When changes are detected, check
  * for Homekit tags and, if present, add the items to the HomekitAccessoryRegistry.
  *
+ * Changes are collected until the item registry has been quiet for a moment, as loading or reloading item files
+ * results in a burst of changes. The accessories are then staged for all tagged items and only the ones that differ
+ * from the created accessories are applied to the bridge.
+ *
  * @author Andy Lintner
  */
 public class HomekitChangeListener implements ItemRegistryChangeListener {
 
+    private static final String THREADPOOL_HOMEKIT = "homekit";
+
+    // Time in milliseconds without item changes before the collected changes are applied
+    private static final long QUIET_PERIOD = 1000;
+
+    // Maximum time in milliseconds a change waits for the item registry to become quiet
+    private static final long MAX_APPLY_DELAY = 10000;
+
     private ItemRegistry itemRegistry;
     private HomekitAccessoryUpdater updater = new HomekitAccessoryUpdater();
     private Logger logger = LoggerFactory.getLogger(HomekitChangeListener.class);
     private final HomekitAccessoryRegistry accessoryRegistry = new HomekitAccessoryRegistry();
     private HomekitSettings settings;
 
+    private final Set<String> changedItemNames = new HashSet<>();
+    private long firstChange;
+    private ScheduledFuture<?> applyJob;
+
     @Override
-    public synchronized void added(Item item) {
-        HomekitTaggedItem taggedItem = new HomekitTaggedItem(item, itemRegistry);
-        if (taggedItem.isTagged()) {
-            if (taggedItem.isRootDevice()) {
-                createRootDevice(taggedItem);
-            }
-            if (taggedItem.isCharacteristic()) {
-                createCharacteristic(taggedItem);
-            }
-        }
+    public void added(Item item) {
+        stageChanges(Collections.singletonList(item.getName()));
     }
 
     @Override
     public void allItemsChanged(Collection<String> oldItemNames) {
-        clearAccessories();
+        Set<String> itemNames = new HashSet<>();
+        if (oldItemNames != null) {
+            itemNames.addAll(oldItemNames);
+        }
+        itemRegistry.getAll().forEach(item -> itemNames.add(item.getName()));
+        stageChanges(itemNames);
     }
 
     @Override
-    public synchronized void removed(Item item) {
-        HomekitTaggedItem taggedItem = new HomekitTaggedItem(item, itemRegistry);
-        if (taggedItem.isTagged()) {
-            accessoryRegistry.remove(taggedItem);
-        }
+    public void removed(Item item) {
+        stageChanges(Collections.singletonList(item.getName()));
     }
 
     @Override
     public void updated(Item oldElement, Item element) {
-        removed(oldElement);
-        added(element);
+        stageChanges(Arrays.asList(oldElement.getName(), element.getName()));
     }
 
     public synchronized void clearAccessories() {
@@ -76,7 +93,7 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
     public synchronized void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
         itemRegistry.addRegistryChangeListener(this);
-        itemRegistry.getAll().forEach(item -> added(item));
+        applyChanges(itemRegistry.getAll().size());
     }
 
     public void setUpdater(HomekitAccessoryUpdater updater) {
@@ -87,25 +104,80 @@ public class HomekitChangeListener implements ItemRegistryChangeListener {
         this.settings = settings;
     }
 
-    public void stop() {
+    public synchronized void stop() {
         if (this.itemRegistry != null) {
             this.itemRegistry.removeRegistryChangeListener(this);
         }
+        if (applyJob != null) {
+            applyJob.cancel(false);
+            applyJob = null;
+        }
+        changedItemNames.clear();
+    }
+
+    private synchronized void stageChanges(Collection<String> itemNames) {
+        long now = System.currentTimeMillis();
+        if (changedItemNames.isEmpty()) {
+            firstChange = now;
+        }
+        changedItemNames.addAll(itemNames);
+
+        if (applyJob != null) {
+            applyJob.cancel(false);
+        }
+        long delay = Math.max(0, Math.min(QUIET_PERIOD, firstChange + MAX_APPLY_DELAY - now));
+        ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool(THREADPOOL_HOMEKIT);
+        applyJob = scheduler.schedule(this::applyStagedChanges, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void applyStagedChanges() {
+        if (changedItemNames.isEmpty()) {
+            return;
+        }
+        int changes = changedItemNames.size();
+        changedItemNames.clear();
+        applyJob = null;
+        try {
+            applyChanges(changes);
+        } catch (RuntimeException e) {
+            logger.error("Could not update homekit accessories: {}", e.getMessage(), e);
+        }
+    }
+
+    private void applyChanges(int changes) {
+        long start = System.nanoTime();
+        int items = 0;
+        HomekitAccessoryBatch batch = new HomekitAccessoryBatch();
+        for (Item item : itemRegistry.getAll()) {
+            HomekitTaggedItem taggedItem = new HomekitTaggedItem(item, itemRegistry);
+            if (taggedItem.isTagged()) {
+                if (taggedItem.isRootDevice()) {
+                    createRootDevice(batch, taggedItem);
+                }
+                if (taggedItem.isCharacteristic()) {
+                    createCharacteristic(batch, taggedItem);
+                }
+            }
+            items++;
+        }
+        accessoryRegistry.apply(batch);
+        logger.debug("Applied {} item changes to homekit in {} ms: {} items, {} accessories added, {} removed, "
+                + "{} unchanged", changes, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), items,
+                batch.getAdded(), batch.getRemoved(), batch.getUnchanged());
     }
 
-    private void createRootDevice(HomekitTaggedItem taggedItem) {
+    private void createRootDevice(HomekitAccessoryBatch batch, HomekitTaggedItem taggedItem) {
         try {
-            logger.debug("Adding homekit device {}", taggedItem.getItem().getName());
-            accessoryRegistry
-                    .addRootDevice(HomekitAccessoryFactory.create(taggedItem, itemRegistry, updater, settings));
-            logger.debug("Added homekit device {}", taggedItem.getItem().getName());
+            logger.trace("Staging homekit device {}", taggedItem.getItem().getName());
+            batch.addRootDevice(taggedItem,
+                    HomekitAccessoryFactory.create(taggedItem, itemRegistry, updater, settings));
         } catch (Exception e) {
             logger.error("Could not add device: {}", e.getMessage(), e);
         }
     }
 
-    private void createCharacteristic(HomekitTaggedItem taggedItem) {
-        logger.debug("Adding grouped homekit characteristic {}", taggedItem.getItem().getName());
-        accessoryRegistry.addCharacteristic(taggedItem);
+    private void createCharacteristic(HomekitAccessoryBatch batch, HomekitTaggedItem taggedItem) {
+        logger.trace("Staging grouped homekit characteristic {}", taggedItem.getItem().getName());
+        batch.addCharacteristic(taggedItem);
     }
 }
@@ -65,13 +65,14 @@ public class HomekitImpl implements Homekit {
     }
 
     protected void deactivate() {
-        changeListener.clearAccessories();
+        changeListener.stop();
+        // A stopped bridge does not reset its connections for each removed accessory
         bridge.stop();
         homekit.stop();
+        changeListener.clearAccessories();
         bridge = null;
         homekit = null;
         changeListener.setBridge(null);
-        changeListener.stop();
     }
 
     @Override
@@ -92,7 +93,8 @@ public class HomekitImpl implements Homekit {
         homekit = new HomekitServer(settings.getNetworkInterface(), settings.getPort());
         bridge = homekit.createBridge(new HomekitAuthInfoImpl(storageService, settings.getPin()), settings.getName(),
                 settings.getManufacturer(), settings.getModel(), settings.getSerialNumber());
-        bridge.start();
+        // Add the accessories before starting, a started bridge resets its accessory database for each one
         changeListener.setBridge(bridge);
+        bridge.start();
     }
 }
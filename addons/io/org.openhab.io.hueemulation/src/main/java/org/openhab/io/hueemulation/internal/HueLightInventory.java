@@ -0,0 +1,274 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.hueemulation.internal;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.eclipse.smarthome.core.items.GenericItem;
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistry;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.core.items.StateChangeListener;
+import org.eclipse.smarthome.core.library.types.DecimalType;
+import org.eclipse.smarthome.core.library.types.HSBType;
+import org.eclipse.smarthome.core.library.types.OnOffType;
+import org.eclipse.smarthome.core.types.State;
+import org.openhab.io.hueemulation.internal.api.HueDevice;
+import org.openhab.io.hueemulation.internal.api.HueGroup;
+import org.openhab.io.hueemulation.internal.api.HueState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+
+/**
+ * Keeps the items exposed as Hue lights, the items tagged with one of the supported tags, and the JSON documents
+ * served for them. Echo devices request the lights over and over, so the item registry is not scanned on each
+ * request. The lights are updated from item registry events and the JSON of a light is serialized again after its
+ * state changed.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+public class HueLightInventory implements ItemRegistryChangeListener, StateChangeListener {
+    private Logger logger = LoggerFactory.getLogger(HueLightInventory.class);
+
+    private static final String[] SUPPORTED_TAGS = new String[] { "Switchable", "Lighting", "TargetTemperature" };
+
+    private final ItemRegistry itemRegistry;
+    private final Gson gson;
+
+    /**
+     * The lights by item name
+     */
+    private final Map<String, Light> lights = new HashMap<String, Light>();
+
+    /**
+     * The cached documents, null if they have to be serialized again
+     */
+    private String lightNamesJson;
+    private String lightsJson;
+    private String groupZeroJson;
+
+    public HueLightInventory(ItemRegistry itemRegistry, Gson gson) {
+        this.itemRegistry = itemRegistry;
+        this.gson = gson;
+        itemRegistry.addRegistryChangeListener(this);
+        allItemsChanged(null);
+    }
+
+    public synchronized void dispose() {
+        itemRegistry.removeRegistryChangeListener(this);
+        for (Light light : lights.values()) {
+            removeStateChangeListener(light.item);
+        }
+        lights.clear();
+        invalidate();
+    }
+
+    /**
+     * Returns the JSON of a single light
+     *
+     * @param name
+     * @return
+     *         the HueDevice JSON or null if the item is not a light
+     */
+    public synchronized String getLightJson(String name) {
+        Light light = lights.get(name);
+        if (light == null) {
+            return null;
+        }
+        if (light.json == null) {
+            light.json = gson.toJson(itemToDevice(light.item));
+        }
+        return light.json;
+    }
+
+    /**
+     * Returns the JSON map of the item name and label of each light
+     *
+     * @return
+     *         JSON map <item name, item label>
+     */
+    public synchronized String getLightNamesJson() {
+        if (lightNamesJson == null) {
+            Map<String, String> names = new HashMap<String, String>();
+            for (Light light : lights.values()) {
+                names.put(light.item.getName(), light.item.getLabel());
+            }
+            lightNamesJson = gson.toJson(names);
+        }
+        return lightNamesJson;
+    }
+
+    /**
+     * Returns the JSON map of all lights, built from the JSON of the single lights
+     *
+     * @return
+     *         JSON map <item name, HueDevice>
+     */
+    public synchronized String getLightsJson() {
+        if (lightsJson == null) {
+            StringBuilder json = new StringBuilder("{");
+            for (String name : lights.keySet()) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append(gson.toJson(name)).append(':').append(getLightJson(name));
+            }
+            lightsJson = json.append('}').toString();
+        }
+        return lightsJson;
+    }
+
+    /**
+     * Returns the JSON of group 0, the group of all lights
+     *
+     * @return
+     *         HueGroup JSON
+     */
+    public synchronized String getGroupZeroJson() {
+        if (groupZeroJson == null) {
+            String[] names = lights.keySet().toArray(new String[0]);
+            groupZeroJson = gson.toJson(new HueGroup("0", names, new HueState()));
+        }
+        return groupZeroJson;
+    }
+
+    /**
+     * Converts an Item to a HueDevice
+     *
+     * @param item
+     * @return
+     *         HueDevice
+     */
+    public static HueDevice itemToDevice(Item item) {
+        State itemState = item.getState();
+        HueState hueState;
+        if (itemState instanceof HSBType) {
+            HSBType color = (HSBType) itemState;
+            hueState = new HueState(color);
+        } else if (itemState instanceof DecimalType) {
+            short bri = (short) ((((DecimalType) itemState).intValue() * 255) / 100);
+            hueState = new HueState(bri);
+        } else if (itemState instanceof OnOffType) {
+            short bri = (short) (((OnOffType) itemState) == OnOffType.ON ? 255 : 0);
+            hueState = new HueState(bri);
+        } else {
+            hueState = new HueState((short) 0);
+        }
+
+        HueDevice d = new HueDevice(hueState, item.getLabel(), item.getName());
+        return d;
+    }
+
+    @Override
+    public synchronized void added(Item item) {
+        if (isLight(item)) {
+            addLight(item);
+            invalidate();
+        }
+    }
+
+    @Override
+    public synchronized void removed(Item item) {
+        if (removeLight(item.getName())) {
+            invalidate();
+        }
+    }
+
+    @Override
+    public synchronized void updated(Item oldItem, Item item) {
+        removeLight(oldItem.getName());
+        if (isLight(item)) {
+            addLight(item);
+        }
+        invalidate();
+    }
+
+    @Override
+    public synchronized void allItemsChanged(Collection<String> oldItemNames) {
+        for (Light light : lights.values()) {
+            removeStateChangeListener(light.item);
+        }
+        lights.clear();
+        for (Item item : itemRegistry.getItems()) {
+            if (isLight(item)) {
+                addLight(item);
+            }
+        }
+        invalidate();
+        logger.debug("Found {} items with a supported tag", lights.size());
+    }
+
+    @Override
+    public synchronized void stateChanged(Item item, State oldState, State newState) {
+        Light light = lights.get(item.getName());
+        if (light != null && light.item == item) {
+            light.json = null;
+            lightsJson = null;
+        }
+    }
+
+    @Override
+    public void stateUpdated(Item item, State state) {
+    }
+
+    private boolean isLight(Item item) {
+        for (String tag : item.getTags()) {
+            if (ArrayUtils.contains(SUPPORTED_TAGS, tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void addLight(Item item) {
+        Light old = lights.put(item.getName(), new Light(item));
+        if (old != null) {
+            removeStateChangeListener(old.item);
+        }
+        if (item instanceof GenericItem) {
+            ((GenericItem) item).addStateChangeListener(this);
+        }
+    }
+
+    private boolean removeLight(String name) {
+        Light light = lights.remove(name);
+        if (light == null) {
+            return false;
+        }
+        removeStateChangeListener(light.item);
+        return true;
+    }
+
+    private void removeStateChangeListener(Item item) {
+        if (item instanceof GenericItem) {
+            ((GenericItem) item).removeStateChangeListener(this);
+        }
+    }
+
+    private void invalidate() {
+        lightNamesJson = null;
+        lightsJson = null;
+        groupZeroJson = null;
+    }
+
+    private static class Light {
+        private final Item item;
+        private String json;
+
+        public Light(Item item) {
+            this.item = item;
+        }
+    }
+}
@@ -8,15 +8,14 @@
  */
 package org.openhab.io.imperihome.internal.handler;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
 import java.util.Date;
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.regex.Matcher;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.smarthome.core.library.types.DecimalType;
 import org.eclipse.smarthome.core.persistence.FilterCriteria;
@@ -25,7 +24,6 @@ import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.PersistenceServiceRegistry;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
 import org.eclipse.smarthome.core.types.State;
-import org.openhab.io.imperihome.internal.model.HistoryItem;
 import org.openhab.io.imperihome.internal.model.HistoryList;
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
 import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
@@ -33,7 +31,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Device history request handler.
+ * Device history request handler. The history is downsampled to at most {@link #MAX_POINTS} points while it is read
+ * from persistence, as the graphs of the app are only a few hundred pixels wide. The requested range is aligned to the
+ * downsampling buckets, so repeated requests for the same graph are served from a short-lived cache.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -41,17 +41,32 @@ public class DeviceHistoryHandler {
 
     private static final String CHARSET = "UTF-8";
 
+    private static final int MAX_POINTS = 500;
+
+    private static final int CACHE_ENTRIES = 20;
+    private static final long CACHE_MAX_AGE = 60000;
+
     private final Logger logger = LoggerFactory.getLogger(DeviceHistoryHandler.class);
 
     private final DeviceRegistry deviceRegistry;
     private final PersistenceServiceRegistry persistenceServiceRegistry;
+    private final HistoryCache historyCache = new HistoryCache(CACHE_ENTRIES, CACHE_MAX_AGE);
 
     public DeviceHistoryHandler(DeviceRegistry deviceRegistry, PersistenceServiceRegistry persistenceServiceRegistry) {
         this.deviceRegistry = deviceRegistry;
         this.persistenceServiceRegistry = persistenceServiceRegistry;
     }
 
-    public HistoryList handle(HttpServletRequest req, Matcher urlMatcher) {
+    public void handle(HttpServletRequest req, HttpServletResponse resp, Matcher urlMatcher) throws IOException {
+        HistoryList history = getHistory(urlMatcher);
+        if (history == null) {
+            resp.getWriter().write("null");
+        } else {
+            history.writeJson(resp.getWriter());
+        }
+    }
+
+    private HistoryList getHistory(Matcher urlMatcher) {
         String deviceId, field;
         long start, end;
         try {
@@ -71,6 +86,23 @@ public class DeviceHistoryHandler {
             return null;
         }
 
+        if (end < start) {
+            logger.warn("Received history request with end before start: {}", urlMatcher.group(0));
+            return HistoryList.EMPTY;
+        }
+
+        // Align the range to the buckets, so requests for the same graph a bit later hit the cache
+        long bucketSize = HistoryDownsampler.getBucketSize(start, end, MAX_POINTS);
+        start = start / bucketSize * bucketSize;
+        end = (end + bucketSize - 1) / bucketSize * bucketSize;
+
+        String key = HistoryCache.getKey(deviceId, field, start, end, bucketSize);
+        HistoryList history = historyCache.get(key);
+        if (history != null) {
+            logger.debug("Serving history of Item {} from cache", device.getItemName());
+            return history;
+        }
+
         PersistenceService persistence = persistenceServiceRegistry.getDefault();
         if (persistence == null) {
             logger.warn("Could not retrieve default persistence service; can't serve history request");
@@ -81,39 +113,38 @@ public class DeviceHistoryHandler {
             return null;
         }
 
-        return serveHistory(device, (QueryablePersistenceService) persistence, start, end);
+        history = queryHistory(device, (QueryablePersistenceService) persistence, start, end, bucketSize);
+        historyCache.put(key, history);
+        return history;
     }
 
-    private HistoryList serveHistory(AbstractDevice device, QueryablePersistenceService persistence, long start,
-            long end) {
+    private HistoryList queryHistory(AbstractDevice device, QueryablePersistenceService persistence, long start,
+            long end, long bucketSize) {
         logger.info("Querying persistence for history of Item {}, from {} to {}", device.getItemName(), start, end);
 
         FilterCriteria criteria = new FilterCriteria().setItemName(device.getItemName()).setBeginDate(new Date(start))
                 .setEndDate(new Date(end));
 
-        List<HistoryItem> resultItems = new LinkedList<>();
-        Iterable<HistoricItem> historicItems = persistence.query(criteria);
-
-        Iterator<HistoricItem> iterator = historicItems.iterator();
-        if (!iterator.hasNext()) {
-            logger.info("Persistence returned no results for history query");
-        } else {
-            while (iterator.hasNext()) {
-                HistoricItem historicItem = iterator.next();
-                State state = historicItem.getState();
-                if (state instanceof DecimalType) {
-                    Number value = ((DecimalType) state).toBigDecimal();
-                    resultItems.add(new HistoryItem(historicItem.getTimestamp(), value));
-                }
+        HistoryDownsampler downsampler = new HistoryDownsampler(start, end, bucketSize);
+        int results = 0;
+        for (HistoricItem historicItem : persistence.query(criteria)) {
+            results++;
+            State state = historicItem.getState();
+            if (state instanceof DecimalType) {
+                downsampler.add(historicItem.getTimestamp().getTime(), ((DecimalType) state).doubleValue());
             }
+        }
 
-            if (resultItems.isEmpty()) {
-                logger.warn(
-                        "Persistence returned results for history query, but could not be interpreted as DecimalTypes");
-            }
+        if (results == 0) {
+            logger.info("Persistence returned no results for history query");
+        } else if (downsampler.getAdded() == 0) {
+            logger.warn("Persistence returned results for history query, but could not be interpreted as DecimalTypes");
         }
 
-        return new HistoryList(resultItems);
+        HistoryList history = downsampler.build();
+        logger.debug("Downsampled history of Item {} from {} to {} values", device.getItemName(), results,
+                history.size());
+        return history;
     }
 
 }
@@ -8,43 +8,104 @@
  */
 package org.openhab.io.imperihome.internal.handler;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.openhab.io.imperihome.internal.model.device.AbstractDevice;
-import org.openhab.io.imperihome.internal.model.device.DeviceList;
 import org.openhab.io.imperihome.internal.processor.DeviceRegistry;
+import org.openhab.io.imperihome.internal.util.DigestUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.gson.Gson;
+
 /**
- * Device list request handler.
+ * Device list request handler. The ImperiHome app polls the device list every few seconds, so the serialized list is
+ * kept and only the devices that changed since the last request are serialized again. The list is sent with an ETag,
+ * clients sending a matching If-None-Match header get a 304 (Not Modified) response.
  *
  * @author Pepijn de Geus - Initial contribution
  */
 public class DevicesListHandler {
 
+    private static final String DEVICES_PREFIX = "{\"devices\":[";
+    private static final String DEVICES_SUFFIX = "]}";
+
     private final Logger logger = LoggerFactory.getLogger(DevicesListHandler.class);
 
     private final DeviceRegistry deviceRegistry;
+    private final Gson gson;
+
+    // Serialized devices by ID, ordered so unchanged lists serialize to the same JSON
+    private final Map<String, String> deviceJson = new TreeMap<>();
+    private String devicesJson;
+    private String eTag;
 
-    public DevicesListHandler(DeviceRegistry deviceRegistry) {
+    public DevicesListHandler(DeviceRegistry deviceRegistry, Gson gson) {
         this.deviceRegistry = deviceRegistry;
+        this.gson = gson;
     }
 
-    public DeviceList handle(HttpServletRequest req) {
-        DeviceList response = new DeviceList();
+    public void handle(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+        String json;
+        String currentETag;
+        synchronized (this) {
+            updateDevicesJson();
+            json = devicesJson;
+            currentETag = eTag;
+        }
 
-        Collection<AbstractDevice> devices = deviceRegistry.getDevices().values();
-        for (AbstractDevice device : devices) {
-            device.updateParams();
+        resp.setHeader("ETag", currentETag);
+        if (currentETag.equals(req.getHeader("If-None-Match"))) {
+            logger.trace("Device list not modified");
+            resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
         }
 
-        response.setDevices(devices);
+        logger.trace("Device list response: {}", json);
+        resp.getWriter().write(json);
+    }
+
+    /**
+     * Serializes the changed devices and rebuilds the list if any of them serialized differently.
+     */
+    private void updateDevicesJson() {
+        Set<String> changedDevices = deviceRegistry.takeChangedDevices();
+        boolean modified = devicesJson == null;
 
-        logger.debug("Device list response: {}", response);
-        return response;
+        for (String deviceId : changedDevices) {
+            AbstractDevice device = deviceRegistry.getDevice(deviceId);
+            String json = null;
+            if (device != null) {
+                device.updateParams();
+                json = gson.toJson(device);
+            }
+
+            String oldJson = json == null ? deviceJson.remove(deviceId) : deviceJson.put(deviceId, json);
+            if (json == null ? oldJson != null : !json.equals(oldJson)) {
+                modified = true;
+            }
+        }
+
+        if (modified) {
+            StringBuilder builder = new StringBuilder(DEVICES_PREFIX);
+            for (String json : deviceJson.values()) {
+                if (builder.length() > DEVICES_PREFIX.length()) {
+                    builder.append(',');
+                }
+                builder.append(json);
+            }
+            builder.append(DEVICES_SUFFIX);
+
+            devicesJson = builder.toString();
+            eTag = '"' + DigestUtil.sha1(devicesJson) + '"';
+            logger.debug("Device list rebuilt, {} of {} devices changed", changedDevices.size(), deviceJson.size());
+        }
     }
 
 }
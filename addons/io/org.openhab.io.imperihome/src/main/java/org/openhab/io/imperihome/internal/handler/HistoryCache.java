@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.handler;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.io.imperihome.internal.model.HistoryList;
+
+/**
+ * Short-lived LRU cache of downsampled history, so switching between graphs or several tablets showing the same graph
+ * do not query persistence each time.
+ *
+ * @author agent - Initial contribution
+ */
+public class HistoryCache {
+
+    private final long maxAge;
+    private final Map<String, Entry> entries;
+
+    /**
+     * @param maxEntries Maximum number of cached histories, the least recently used history is removed first.
+     * @param maxAge Time in milliseconds a history is cached.
+     */
+    public HistoryCache(int maxEntries, long maxAge) {
+        this.maxAge = TimeUnit.MILLISECONDS.toNanos(maxAge);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Returns the cache key of a history request.
+     *
+     * @param deviceId Device ID.
+     * @param field Requested field.
+     * @param start Start of the range in milliseconds, aligned to the bucket size.
+     * @param end End of the range in milliseconds, aligned to the bucket size.
+     * @param bucketSize Bucket size in milliseconds.
+     * @return Cache key.
+     */
+    public static String getKey(String deviceId, String field, long start, long end, long bucketSize) {
+        return deviceId + ':' + field + ':' + start + ':' + end + ':' + bucketSize;
+    }
+
+    /**
+     * @return The cached history, or null if it is not cached or too old.
+     */
+    public synchronized HistoryList get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.created > maxAge) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.history;
+    }
+
+    public synchronized void put(String key, HistoryList history) {
+        entries.put(key, new Entry(history));
+    }
+
+    private static class Entry {
+        private final HistoryList history;
+        private final long created = System.nanoTime();
+
+        public Entry(HistoryList history) {
+            this.history = history;
+        }
+    }
+
+}
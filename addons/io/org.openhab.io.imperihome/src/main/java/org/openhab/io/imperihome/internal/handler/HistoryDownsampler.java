@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.imperihome.internal.handler;
+
+import org.openhab.io.imperihome.internal.model.HistoryList;
+
+/**
+ * Aggregates history values into a fixed number of time buckets while they are read from persistence, so a long
+ * history never has to be held in memory. Each bucket results in one point: the average value at the average date of
+ * the values in the bucket. Buckets without values are left out, a bucket with a single value keeps it unchanged.
+ *
+ * @author agent - Initial contribution
+ */
+public class HistoryDownsampler {
+
+    private final long start;
+    private final long end;
+    private final long bucketSize;
+
+    private final double[] valueSums;
+    private final long[] dateOffsetSums;
+    private final int[] counts;
+
+    private int added;
+
+    /**
+     * @param start Start of the range in milliseconds, aligned to the bucket size.
+     * @param end End of the range in milliseconds, aligned to the bucket size.
+     * @param bucketSize Bucket size in milliseconds.
+     */
+    public HistoryDownsampler(long start, long end, long bucketSize) {
+        this.start = start;
+        this.end = end;
+        this.bucketSize = bucketSize;
+
+        int buckets = (int) Math.max(1, (end - start) / bucketSize);
+        valueSums = new double[buckets];
+        dateOffsetSums = new long[buckets];
+        counts = new int[buckets];
+    }
+
+    /**
+     * Returns the bucket size for the given range and maximum number of points. Aligning the range to the buckets
+     * extends it by less than one bucket at each end, so the aligned range has at most the maximum number of buckets.
+     *
+     * @param start Start of the range in milliseconds.
+     * @param end End of the range in milliseconds.
+     * @param maxPoints Maximum number of points, at least 2.
+     * @return Bucket size in milliseconds.
+     */
+    public static long getBucketSize(long start, long end, int maxPoints) {
+        return Math.max(1, (end - start + maxPoints - 2) / (maxPoints - 1));
+    }
+
+    /**
+     * Adds a value. Values can be added in any order, values outside of the range are ignored.
+     *
+     * @param date Date in milliseconds.
+     * @param value Value.
+     */
+    public void add(long date, double value) {
+        if (date < start || date > end || Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+
+        // A value at the end of the range belongs to the last bucket
+        long offset = date - start;
+        int index = (int) Math.min(offset / bucketSize, counts.length - 1);
+        valueSums[index] += value;
+        dateOffsetSums[index] += offset - index * bucketSize;
+        counts[index]++;
+        added++;
+    }
+
+    /**
+     * @return Number of values added.
+     */
+    public int getAdded() {
+        return added;
+    }
+
+    public HistoryList build() {
+        int size = 0;
+        for (int count : counts) {
+            if (count > 0) {
+                size++;
+            }
+        }
+
+        long[] dates = new long[size];
+        double[] values = new double[size];
+        int point = 0;
+        for (int i = 0; i < counts.length; i++) {
+            int count = counts[i];
+            if (count > 0) {
+                dates[point] = start + i * bucketSize + dateOffsetSums[i] / count;
+                values[point] = valueSums[i] / count;
+                point++;
+            }
+        }
+
+        return new HistoryList(dates, values, size);
+    }
+
+}
@@ -8,32 +8,59 @@
  */
 package org.openhab.io.imperihome.internal.model;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.io.IOException;
+import java.io.Writer;
 
 /**
- * History list data object.
+ * History list data object. Holds the dates (in milliseconds) and values in primitive arrays, ordered by date.
  *
  * @author Pepijn de Geus - Initial contribution
  */
 public class HistoryList {
 
-    private List<HistoryItem> values;
+    public static final HistoryList EMPTY = new HistoryList(new long[0], new double[0], 0);
 
-    public HistoryList() {
-        this(new LinkedList<HistoryItem>());
+    private final long[] dates;
+    private final double[] values;
+    private final int size;
+
+    public HistoryList(long[] dates, double[] values, int size) {
+        this.dates = dates;
+        this.values = values;
+        this.size = size;
     }
 
-    public HistoryList(List<HistoryItem> resultItems) {
-        this.values = resultItems;
+    public int size() {
+        return size;
     }
 
-    public List<HistoryItem> getValues() {
-        return values;
+    public long getDate(int index) {
+        return dates[index];
     }
 
-    public void setValues(List<HistoryItem> values) {
-        this.values = values;
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    /**
+     * Writes the history as JSON: {"values":[{"date":1487520000000,"value":21.5},...]}.
+     *
+     * @param writer Writer to write to.
+     * @throws IOException If writing fails.
+     */
+    public void writeJson(Writer writer) throws IOException {
+        writer.write("{\"values\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write("{\"date\":");
+            writer.write(Long.toString(dates[i]));
+            writer.write(",\"value\":");
+            writer.write(Double.toString(values[i]));
+            writer.write('}');
+        }
+        writer.write("]}");
     }
 
 }
@@ -189,7 +189,8 @@ public abstract class AbstractDevice implements StateChangeListener {
     /**
      * Can be implemented by Devices that require their state to be updated manually, instead of relying (only) on Item
      * state change events.
-     * This method is called just before serializing the device to JSON.
+     * This method is called just before serializing the device to JSON, which is done when the device or one of its
+     * linked devices changed.
      */
     public void updateParams() {
         logger.trace("updateParams on {}", this);
@@ -219,6 +220,11 @@ public abstract class AbstractDevice implements StateChangeListener {
 
     @Override
     public void stateChanged(Item item, State oldState, State newState) {
+        // Called after stateUpdated(), so the parameters are already updated
+        DeviceRegistry registry = deviceRegistry;
+        if (registry != null) {
+            registry.markChanged(id);
+        }
     }
 
     @Override
@@ -22,7 +22,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * The device registry stores created devices by ID.
+ * The device registry stores created devices by ID. It keeps track of the devices that changed since the device list
+ * was last serialized: devices that were added or removed, devices whose Item state changed and devices linking to a
+ * changed device.
  *
  * @author Pepijn de Geus - Initial contribution
  */
@@ -31,10 +33,14 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
     private final Logger logger = LoggerFactory.getLogger(DeviceRegistry.class);
 
     private final Map<String, AbstractDevice> devices;
+    private final Set<String> changedDevices;
+    private volatile Map<String, Set<String>> linkingDevices;
     private Set<Room> rooms;
 
     public DeviceRegistry() {
         devices = new ConcurrentHashMap<>();
+        changedDevices = ConcurrentHashMap.newKeySet();
+        linkingDevices = new HashMap<>();
     }
 
     public AbstractDevice getDevice(String deviceId) {
@@ -65,8 +71,11 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
             return;
         }
 
+        device.setDeviceRegistry(this);
         devices.put(device.getId(), device);
         updateRooms();
+        updateLinkingDevices();
+        markChanged(device.getId());
 
         logger.debug("Device {} added, registry now contains {} total", device.getName(), devices.size());
     }
@@ -75,6 +84,8 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
         AbstractDevice removed = devices.remove(deviceId);
         if (removed != null) {
             updateRooms();
+            markChanged(deviceId);
+            updateLinkingDevices();
             logger.debug("Device {} removed, registry now contains {} total", removed.getName(), devices.size());
         }
         return removed;
@@ -85,11 +96,43 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
         return devices.values().iterator();
     }
 
+    /**
+     * Marks the device and the devices linking to it as changed.
+     *
+     * @param deviceId Device ID.
+     */
+    public void markChanged(String deviceId) {
+        changedDevices.add(deviceId);
+
+        Set<String> linking = linkingDevices.get(deviceId);
+        if (linking != null) {
+            changedDevices.addAll(linking);
+        }
+    }
+
+    /**
+     * Returns the IDs of the devices changed since the last call and resets them. Devices that no longer exist in the
+     * registry have been removed.
+     *
+     * @return Changed device IDs.
+     */
+    public Set<String> takeChangedDevices() {
+        Set<String> changed = new HashSet<>();
+        Iterator<String> iterator = changedDevices.iterator();
+        while (iterator.hasNext()) {
+            changed.add(iterator.next());
+            iterator.remove();
+        }
+        return changed;
+    }
+
     public void clear() {
         for (AbstractDevice device : devices.values()) {
             device.destroy();
         }
+        changedDevices.addAll(devices.keySet());
         devices.clear();
+        linkingDevices = new HashMap<>();
 
         if (rooms != null) {
             rooms.clear();
@@ -109,4 +152,15 @@ public class DeviceRegistry implements Iterable<AbstractDevice> {
         rooms = newRooms;
     }
 
+    private void updateLinkingDevices() {
+        Map<String, Set<String>> newLinkingDevices = new HashMap<>();
+        for (AbstractDevice device : devices.values()) {
+            for (String linkedItem : device.getLinks().values()) {
+                String linkedId = ItemProcessor.getDeviceId(linkedItem);
+                newLinkingDevices.computeIfAbsent(linkedId, id -> new HashSet<>()).add(device.getId());
+            }
+        }
+        linkingDevices = newLinkingDevices;
+    }
+
 }
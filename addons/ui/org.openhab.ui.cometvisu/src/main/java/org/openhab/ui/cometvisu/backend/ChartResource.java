@@ -8,20 +8,20 @@
  */
 package org.openhab.ui.cometvisu.backend;
 
+import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.text.DecimalFormat;
-import java.text.NumberFormat;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.TreeMap;
 
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
@@ -31,6 +31,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.eclipse.smarthome.core.items.GroupItem;
@@ -45,6 +46,10 @@ import org.eclipse.smarthome.core.persistence.PersistenceService;
 import org.eclipse.smarthome.core.persistence.QueryablePersistenceService;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.openhab.ui.cometvisu.internal.Config;
+import org.openhab.ui.cometvisu.internal.chart.ChartDownsampler;
+import org.openhab.ui.cometvisu.internal.chart.ChartDownsampler.Mode;
+import org.openhab.ui.cometvisu.internal.chart.ChartSeries;
+import org.openhab.ui.cometvisu.internal.chart.ChartSeriesCache;
 import org.rrd4j.ConsolFun;
 import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
@@ -65,19 +70,13 @@ import org.slf4j.LoggerFactory;
 public class ChartResource implements RESTResource {
     private final Logger logger = LoggerFactory.getLogger(ChartResource.class);
 
-    // pattern RRDTool uses to format doubles in XML files
-    static final String PATTERN = "0.0000000000E00";
-
-    static final DecimalFormat df;
+    /** max number of rows returned for a series, larger series are downsampled */
+    private static final int MAX_ROWS = 2000;
 
     protected static final String RRD_FOLDER = org.eclipse.smarthome.config.core.ConfigConstants.getUserDataFolder()
             + File.separator + "persistence" + File.separator + "rrd4j";
 
-    static {
-        df = (DecimalFormat) NumberFormat.getNumberInstance(Locale.ENGLISH);
-        df.applyPattern(PATTERN);
-        // df.setPositivePrefix("+");
-    }
+    private static final ChartSeriesCache seriesCache = new ChartSeriesCache(50, 60000);
 
     protected static Map<String, QueryablePersistenceService> persistenceServices = new HashMap<String, QueryablePersistenceService>();
 
@@ -140,6 +139,17 @@ public class ChartResource implements RESTResource {
             service = parts[0];
         }
 
+        // one row per bucket of the requested resolution, but not more than MAX_ROWS
+        long bucketSize = Math.max(resolution * 1000L,
+                (endTime.getTime() - startTime.getTime() + MAX_ROWS - 1) / MAX_ROWS);
+        if (bucketSize > 0) {
+            // align the range to the buckets, so that repeated requests hit the cache, the end is rounded up to keep
+            // the newest partial bucket
+            startTime.setTime(startTime.getTime() / bucketSize * bucketSize);
+            endTime.setTime((endTime.getTime() + bucketSize - 1) / bucketSize * bucketSize);
+        }
+        Mode mode = Mode.fromConsolFun(consilidationFunction);
+
         Item item;
         try {
             item = itemRegistry.getItem(itemName);
@@ -157,13 +167,32 @@ public class ChartResource implements RESTResource {
                     throw new IllegalArgumentException("No Persistence service found.");
                 }
             }
-            Object data = null;
-            if (persistenceService.getId().equals("rrd4j")) {
-                data = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime, resolution);
-            } else {
-                data = getPersistenceSeries(persistenceService, item, startTime, endTime, resolution);
+
+            String key = ChartSeriesCache.getKey(persistenceService.getId() + ":" + item.getName() + ":"
+                    + consilidationFunction, mode, startTime.getTime(), endTime.getTime(), bucketSize);
+            ChartSeries series = seriesCache.get(key);
+            if (series == null) {
+                if (persistenceService.getId().equals("rrd4j")) {
+                    series = getRrdSeries(persistenceService, item, consilidationFunction, startTime, endTime,
+                            resolution);
+                } else {
+                    series = getPersistenceSeries(persistenceService, item, startTime, endTime, resolution);
+                }
+                int rows = series.size();
+                series = ChartDownsampler.downsample(series, startTime.getTime(), endTime.getTime(), bucketSize,
+                        mode);
+                logger.debug("downsampled series of item '{}' from {} to {} rows", item.getName(), rows,
+                        series.size());
+                seriesCache.put(key, series);
             }
-            return Response.ok(data, responseType).build();
+
+            final ChartSeries data = series;
+            StreamingOutput output = out -> {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                data.writeJson(writer);
+                writer.flush();
+            };
+            return Response.ok(output, responseType).build();
         } catch (ItemNotFoundException e1) {
             logger.error("Item '{}' not found error while requesting series data.", itemName);
 
@@ -171,9 +200,9 @@ public class ChartResource implements RESTResource {
         return Response.serverError().build();
     }
 
-    public Object getPersistenceSeries(QueryablePersistenceService persistenceService, Item item, Date timeBegin,
-            Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new HashMap<Long, ArrayList<String>>();
+    public ChartSeries getPersistenceSeries(QueryablePersistenceService persistenceService, Item item,
+            Date timeBegin, Date timeEnd, long resolution) {
+        ChartSeries.Builder data = new ChartSeries.Builder();
 
         // Define the data filter
         FilterCriteria filter = new FilterCriteria();
@@ -193,18 +222,17 @@ public class ChartResource implements RESTResource {
             HistoricItem historicItem = it.next();
             org.eclipse.smarthome.core.types.State state = historicItem.getState();
             if (state instanceof DecimalType) {
-                ArrayList<String> vals = new ArrayList<String>();
-                vals.add(formatDouble(((DecimalType) state).doubleValue(), "null", true));
-                data.put(historicItem.getTimestamp().getTime(), vals);
+                data.add(historicItem.getTimestamp().getTime(), ((DecimalType) state).doubleValue());
             }
         }
         logger.debug("'{}' querying item '{}' from '{}' to '{}' => '{}' results", persistenceService.getId(),
                 filter.getItemName(), filter.getBeginDate(), filter.getEndDate(), dataCounter);
-        return convertToRrd(data);
+        return data.build();
     }
 
     /**
-     * returns a rrd series data, an array of [[timestamp,data1,data2,...]]
+     * returns a rrd series data, with one column per data source of the item
+     * or its group members
      *
      * @param persistenceService
      * @param item
@@ -214,9 +242,9 @@ public class ChartResource implements RESTResource {
      * @param resolution
      * @return
      */
-    public Object getRrdSeries(QueryablePersistenceService persistenceService, Item item,
+    public ChartSeries getRrdSeries(QueryablePersistenceService persistenceService, Item item,
             ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) {
-        Map<Long, ArrayList<String>> data = new TreeMap<Long, ArrayList<String>>();
+        List<ChartSeries> series = new ArrayList<ChartSeries>();
         try {
             List<String> itemNames = new ArrayList<String>();
 
@@ -229,7 +257,7 @@ public class ChartResource implements RESTResource {
                 itemNames.add(item.getName());
             }
             for (String itemName : itemNames) {
-                addRrdData(data, itemName, consilidationFunction, timeBegin, timeEnd, resolution);
+                series.add(getRrdData(itemName, consilidationFunction, timeBegin, timeEnd, resolution));
             }
 
         } catch (FileNotFoundException e) {
@@ -240,60 +268,28 @@ public class ChartResource implements RESTResource {
             logger.error("{}: fallback to generic persistance service", e.getLocalizedMessage());
             return getPersistenceSeries(persistenceService, item, timeBegin, timeEnd, resolution);
         }
-        return convertToRrd(data);
+        return ChartSeries.merge(series);
     }
 
-    private ArrayList<Object> convertToRrd(Map<Long, ArrayList<String>> data) {
-        // sort data by key
-        Map<Long, ArrayList<String>> treeMap = new TreeMap<Long, ArrayList<String>>(data);
-        ArrayList<Object> rrd = new ArrayList<Object>();
-        for (Long time : treeMap.keySet()) {
-            Object[] entry = new Object[2];
-            entry[0] = time;
-            entry[1] = data.get(time);
-            rrd.add(entry);
-        }
-        return rrd;
-    }
-
-    private Map<Long, ArrayList<String>> addRrdData(Map<Long, ArrayList<String>> data, String itemName,
-            ConsolFun consilidationFunction, Date timeBegin, Date timeEnd, long resolution) throws IOException {
+    private ChartSeries getRrdData(String itemName, ConsolFun consilidationFunction, Date timeBegin, Date timeEnd,
+            long resolution) throws IOException {
         RrdDb rrdDb = new RrdDb(RRD_FOLDER + File.separator + itemName + ".rrd");
-        FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction, Util.getTimestamp(timeBegin),
-                Util.getTimestamp(timeEnd), resolution);
-        FetchData fetchData = fetchRequest.fetchData();
-        // logger.info(fetchData.toString());
-        long[] timestamps = fetchData.getTimestamps();
-        double[][] values = fetchData.getValues();
-
-        logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
-                fetchData.getColumnCount());
-
-        for (int row = 0; row < fetchData.getRowCount(); row++) {
-            // change to microseconds
-            long time = timestamps[row] * 1000;
-
-            if (!data.containsKey(time)) {
-                data.put(time, new ArrayList<String>());
-            }
-            ArrayList<String> vals = data.get(time);
-            int indexOffset = vals.size();
-            for (int dsIndex = 0; dsIndex < fetchData.getColumnCount(); dsIndex++) {
-                vals.add(dsIndex + indexOffset, formatDouble(values[dsIndex][row], "null", true));
-            }
-        }
-        rrdDb.close();
+        try {
+            FetchRequest fetchRequest = rrdDb.createFetchRequest(consilidationFunction, Util.getTimestamp(timeBegin),
+                    Util.getTimestamp(timeEnd), resolution);
+            FetchData fetchData = fetchRequest.fetchData();
+            long[] timestamps = fetchData.getTimestamps();
 
-        return data;
-    }
+            logger.debug("RRD fetch returned '{}' rows and '{}' columns", fetchData.getRowCount(),
+                    fetchData.getColumnCount());
 
-    static String formatDouble(double x, String nanString, boolean forceExponents) {
-        if (Double.isNaN(x)) {
-            return nanString;
-        }
-        if (forceExponents) {
-            return df.format(x);
+            // change to milliseconds
+            for (int row = 0; row < timestamps.length; row++) {
+                timestamps[row] *= 1000;
+            }
+            return new ChartSeries(timestamps, fetchData.getValues(), fetchData.getRowCount());
+        } finally {
+            rrdDb.close();
         }
-        return "" + x;
     }
 }
@@ -9,14 +9,22 @@
 package org.openhab.ui.cometvisu.backend;
 
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -35,12 +43,10 @@ import org.eclipse.smarthome.core.items.ItemRegistry;
 import org.eclipse.smarthome.core.types.State;
 import org.eclipse.smarthome.io.rest.RESTResource;
 import org.glassfish.jersey.media.sse.EventOutput;
-import org.glassfish.jersey.media.sse.SseBroadcaster;
 import org.glassfish.jersey.media.sse.SseFeature;
 import org.openhab.ui.cometvisu.backend.beans.StateBean;
 import org.openhab.ui.cometvisu.internal.Config;
 import org.openhab.ui.cometvisu.internal.listeners.StateEventListener;
-import org.openhab.ui.cometvisu.internal.util.SseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -48,6 +54,10 @@ import org.slf4j.LoggerFactory;
  * handles read request from the CometVisu client every request initializes a
  * SSE communication
  *
+ * Every client only receives the states of its own requested items. The
+ * clients are indexed by the items they have requested, state changes are
+ * queued per client and a client whose connection stalls is dropped.
+ *
  * @author Tobias Bräutigam
  * @since 2.0.0
  */
@@ -55,16 +65,38 @@ import org.slf4j.LoggerFactory;
 public class ReadResource implements EventBroadcaster, RESTResource {
     private final Logger logger = LoggerFactory.getLogger(ReadResource.class);
 
-    private SseBroadcaster broadcaster = new SseBroadcaster();
+    private static final int WRITER_THREADS = 4;
+
+    /** time in milliseconds a write to a client may take before the client is dropped */
+    private static final long STALL_TIMEOUT = 30000;
+
+    /** interval in seconds of the check for closed or stalled clients */
+    private static final long CHECK_INTERVAL = 10;
 
     private final ExecutorService executorService;
 
+    private final ScheduledExecutorService scheduler;
+
+    private ScheduledFuture<?> checkJob;
+
     private ItemRegistry itemRegistry;
 
     private StateEventListener stateEventListener;
 
-    private List<String> itemNames = new ArrayList<String>();
-    private Map<Item, Map<String, Class<? extends State>>> items = new HashMap<Item, Map<String, Class<? extends State>>>();
+    private final Object indexLock = new Object();
+
+    private final Set<StateSubscriber> subscribers = new CopyOnWriteArraySet<StateSubscriber>();
+
+    /** CometVisu item name -> clients that requested it */
+    private final Map<String, Set<StateSubscriber>> subscribersByName = new ConcurrentHashMap<>();
+
+    /** openHAB item name -> requested CometVisu item names with their state types */
+    private final Map<String, Map<String, Class<? extends State>>> clientItems = new ConcurrentHashMap<>();
+
+    private final LongAdder sentStates = new LongAdder();
+    private long lastSentStates;
+    private long lastCheck = System.nanoTime();
+    private volatile double statesPerSecond;
 
     @Context
     private UriInfo uriInfo;
@@ -78,11 +110,29 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     private Collection<ItemFactory> itemFactories = new CopyOnWriteArrayList<ItemFactory>();
 
     public ReadResource() {
-        this.executorService = Executors.newSingleThreadExecutor();
+        this.executorService = Executors.newFixedThreadPool(WRITER_THREADS);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
         this.stateEventListener = new StateEventListener();
         this.stateEventListener.setEventBroadcaster(this);
     }
 
+    protected void activate() {
+        checkJob = scheduler.scheduleWithFixedDelay(this::checkSubscribers, CHECK_INTERVAL, CHECK_INTERVAL,
+                TimeUnit.SECONDS);
+    }
+
+    protected void deactivate() {
+        if (checkJob != null) {
+            checkJob.cancel(true);
+            checkJob = null;
+        }
+        for (StateSubscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        scheduler.shutdownNow();
+        executorService.shutdownNow();
+    }
+
     protected void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
     }
@@ -115,68 +165,208 @@ public class ReadResource implements EventBroadcaster, RESTResource {
             @QueryParam("t") long time) throws IOException, InterruptedException {
         final EventOutput eventOutput = new EventOutput();
 
-        this.itemNames = itemNames;
+        StateSubscriber subscriber = new StateSubscriber(eventOutput, new LinkedHashSet<String>(itemNames),
+                executorService, this::unsubscribe);
 
-        broadcaster.add(eventOutput);
+        // listen to state changes of the requested items
+        subscribe(subscriber);
 
-        // get all requested items and send their states to the client
-        items = new HashMap<Item, Map<String, Class<? extends State>>>();
-        // send the current states of all items to the client
+        // send the current states of all items to the client, holding the lock of the subscriber
+        // makes sure they are sent together
         if (this.itemRegistry != null) {
-            List<StateBean> states = new ArrayList<StateBean>();
-            for (String cvItemName : itemNames) {
-                try {
-                    String[] parts = cvItemName.split(":");
-                    String ohItemName = cvItemName;
-                    Class<? extends State> stateClass = null;
-                    if (parts.length == 2) {
-                        String classPrefix = parts[0].toLowerCase();
-                        if (Config.itemTypeMapper.containsKey(classPrefix)) {
-                            stateClass = Config.itemTypeMapper.get(classPrefix);
-                            classPrefix += ":";
+            int count = 0;
+            synchronized (subscriber) {
+                for (String cvItemName : subscriber.getItemNames()) {
+                    try {
+                        Class<? extends State> stateClass = getStateClass(cvItemName);
+                        Item item = this.itemRegistry.getItem(getItemName(cvItemName));
+                        String state;
+                        if (stateClass != null) {
+                            state = item.getStateAs(stateClass).toString();
+                            logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, state);
                         } else {
-                            logger.debug("no type found for '{}'", classPrefix);
-                            classPrefix = "";
+                            state = item.getState().toString();
                         }
-                        ohItemName = parts[1];
-                    }
-                    Item item = this.itemRegistry.getItem(ohItemName);
-                    if (!items.containsKey(item)) {
-                        items.put(item, new HashMap<String, Class<? extends State>>());
-                    }
-                    items.get(item).put(cvItemName, stateClass);
-                    StateBean itemState = new StateBean();
-                    itemState.name = cvItemName;
-
-                    if (stateClass != null) {
-                        itemState.state = item.getStateAs(stateClass).toString();
-                        logger.trace("get state of '{}' as '{}' == '{}'", item, stateClass, itemState.state);
-                    } else {
-                        itemState.state = item.getState().toString();
+                        subscriber.enqueue(cvItemName, state);
+                        count++;
+                    } catch (ItemNotFoundException e) {
+                        logger.error("{}", e.getLocalizedMessage());
                     }
-                    states.add(itemState);
-                } catch (ItemNotFoundException e) {
-                    logger.error("{}", e.getLocalizedMessage());
                 }
             }
-            logger.debug("initially broadcasting {}/{} item states", states.size(), itemNames.size());
-            broadcaster.broadcast(SseUtil.buildEvent(states));
+            logger.debug("initially sending {}/{} item states", count, itemNames.size());
         }
-        // listen to state changes of the requested items
-        registerItems();
 
         return eventOutput;
     }
 
+    /**
+     * returns the state type requested by the CometVisu item name or null, if
+     * the name has no known type prefix
+     */
+    private Class<? extends State> getStateClass(String cvItemName) {
+        String[] parts = cvItemName.split(":");
+        if (parts.length == 2) {
+            String classPrefix = parts[0].toLowerCase();
+            if (Config.itemTypeMapper.containsKey(classPrefix)) {
+                return Config.itemTypeMapper.get(classPrefix);
+            }
+            logger.debug("no type found for '{}'", classPrefix);
+        }
+        return null;
+    }
+
+    /**
+     * returns the openHAB item name of the CometVisu item name
+     */
+    private String getItemName(String cvItemName) {
+        String[] parts = cvItemName.split(":");
+        return parts.length == 2 ? parts[1] : cvItemName;
+    }
+
+    /**
+     * adds the client to the index of requested items and listens to all
+     * items, which had no client before
+     */
+    private void subscribe(StateSubscriber subscriber) {
+        synchronized (indexLock) {
+            subscribers.add(subscriber);
+            for (String cvItemName : subscriber.getItemNames()) {
+                Set<StateSubscriber> nameSubscribers = subscribersByName.get(cvItemName);
+                if (nameSubscribers == null) {
+                    nameSubscribers = new CopyOnWriteArraySet<StateSubscriber>();
+                    subscribersByName.put(cvItemName, nameSubscribers);
+                }
+                nameSubscribers.add(subscriber);
+
+                String itemName = getItemName(cvItemName);
+                Map<String, Class<? extends State>> oldNames = clientItems.get(itemName);
+                if (oldNames == null || !oldNames.containsKey(cvItemName)) {
+                    Map<String, Class<? extends State>> names = oldNames == null
+                            ? new HashMap<String, Class<? extends State>>()
+                            : new HashMap<String, Class<? extends State>>(oldNames);
+                    names.put(cvItemName, getStateClass(cvItemName));
+                    clientItems.put(itemName, Collections.unmodifiableMap(names));
+                }
+                if (oldNames == null) {
+                    addStateChangeListener(itemName);
+                }
+            }
+        }
+        logger.debug("client subscribed to {} items, {} clients connected", subscriber.getItemNames().size(),
+                subscribers.size());
+    }
+
+    /**
+     * removes the client from the index of requested items and stops
+     * listening to all items, which have no client anymore
+     */
+    private void unsubscribe(StateSubscriber subscriber) {
+        synchronized (indexLock) {
+            if (!subscribers.remove(subscriber)) {
+                return;
+            }
+            for (String cvItemName : subscriber.getItemNames()) {
+                Set<StateSubscriber> nameSubscribers = subscribersByName.get(cvItemName);
+                if (nameSubscribers == null) {
+                    continue;
+                }
+                nameSubscribers.remove(subscriber);
+                if (!nameSubscribers.isEmpty()) {
+                    continue;
+                }
+                subscribersByName.remove(cvItemName);
+
+                String itemName = getItemName(cvItemName);
+                Map<String, Class<? extends State>> oldNames = clientItems.get(itemName);
+                if (oldNames == null) {
+                    continue;
+                }
+                Map<String, Class<? extends State>> names = new HashMap<String, Class<? extends State>>(oldNames);
+                names.remove(cvItemName);
+                if (names.isEmpty()) {
+                    clientItems.remove(itemName);
+                    removeStateChangeListener(itemName);
+                } else {
+                    clientItems.put(itemName, Collections.unmodifiableMap(names));
+                }
+            }
+        }
+        logger.debug("client unsubscribed, {} clients connected", subscribers.size());
+    }
+
+    private void addStateChangeListener(String itemName) {
+        Item item = itemRegistry != null ? itemRegistry.get(itemName) : null;
+        if (item instanceof GenericItem) {
+            ((GenericItem) item).addStateChangeListener(stateEventListener);
+        }
+    }
+
+    private void removeStateChangeListener(String itemName) {
+        Item item = itemRegistry != null ? itemRegistry.get(itemName) : null;
+        if (item instanceof GenericItem) {
+            ((GenericItem) item).removeStateChangeListener(stateEventListener);
+        }
+    }
+
+    /**
+     * drops closed and stalled clients and updates the metrics
+     */
+    private void checkSubscribers() {
+        for (StateSubscriber subscriber : subscribers) {
+            if (subscriber.isClosed()) {
+                subscriber.close();
+            } else if (subscriber.isStalled(STALL_TIMEOUT)) {
+                logger.warn("dropping client, which has not received its states for {} seconds",
+                        STALL_TIMEOUT / 1000);
+                subscriber.close();
+            }
+        }
+
+        long now = System.nanoTime();
+        long sent = sentStates.sum();
+        statesPerSecond = (sent - lastSentStates) * 1e9 / Math.max(1, now - lastCheck);
+        lastSentStates = sent;
+        lastCheck = now;
+        if (!subscribers.isEmpty()) {
+            logger.debug("{} clients connected, {} states queued, {} states/s", subscribers.size(), getQueueDepth(),
+                    String.format("%.1f", statesPerSecond));
+        }
+    }
+
+    /**
+     * returns the number of connected clients
+     */
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * returns the number of states queued for all clients
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (StateSubscriber subscriber : subscribers) {
+            depth += subscriber.getQueueDepth();
+        }
+        return depth;
+    }
+
+    /**
+     * returns the number of states per second queued for the clients, measured
+     * between the last two checks of the clients
+     */
+    public double getStatesPerSecond() {
+        return statesPerSecond;
+    }
+
     /**
      * listen for state changes from the requested items
      */
     @Override
     public void registerItems() {
-        for (Item item : items.keySet()) {
-            if (item instanceof GenericItem) {
-                ((GenericItem) item).addStateChangeListener(stateEventListener);
-            }
+        for (String itemName : clientItems.keySet()) {
+            addStateChangeListener(itemName);
         }
     }
 
@@ -189,7 +379,7 @@ public class ReadResource implements EventBroadcaster, RESTResource {
      */
     @Override
     public void registerItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
+        if (item == null || !clientItems.containsKey(item.getName())) {
             return;
         }
         if (item instanceof GenericItem) {
@@ -198,45 +388,44 @@ public class ReadResource implements EventBroadcaster, RESTResource {
     }
 
     /**
-     * listens to state changes of the given item, if it is part of the
-     * requested items
+     * stops listening to state changes of the given item
      *
      * @param item
-     *            - the new item, that should be listened to
+     *            - the item, that should not be listened to anymore
      */
     @Override
     public void unregisterItem(Item item) {
-        if (item == null || items.containsKey(item) || !itemNames.contains(item.getName())) {
-            return;
-        }
         if (item instanceof GenericItem) {
             ((GenericItem) item).removeStateChangeListener(stateEventListener);
-            items.remove(item);
         }
     }
 
     /**
-     * Broadcasts an event described by the given parameters to all currently
-     * listening clients.
+     * Sends an event described by the given parameters to all clients, which
+     * have requested the item of the event.
      *
-     * @param item
-     *            - the item which has changed
      * @param eventObject
-     *            - bean that can be converted to a JSON object.
+     *            - the {@link StateBean} of the changed item
      */
     @Override
     public void broadcastEvent(final Object eventObject) {
-        executorService.execute(new Runnable() {
-
-            @Override
-            public void run() {
-                broadcaster.broadcast(SseUtil.buildEvent(eventObject));
-            }
-        });
+        if (!(eventObject instanceof StateBean)) {
+            logger.debug("ignoring unknown event {}", eventObject);
+            return;
+        }
+        StateBean stateBean = (StateBean) eventObject;
+        Set<StateSubscriber> nameSubscribers = subscribersByName.get(stateBean.name);
+        if (nameSubscribers == null) {
+            return;
+        }
+        for (StateSubscriber subscriber : nameSubscribers) {
+            subscriber.enqueue(stateBean.name, stateBean.state);
+            sentStates.increment();
+        }
     }
 
     @Override
     public Map<String, Class<? extends State>> getClientItems(Item item) {
-        return items.get(item);
+        return clientItems.get(item.getName());
     }
 }
@@ -0,0 +1,168 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.backend;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.glassfish.jersey.media.sse.EventOutput;
+import org.openhab.ui.cometvisu.backend.beans.StateBean;
+import org.openhab.ui.cometvisu.internal.util.SseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A CometVisu client listening to the states of its requested items. State updates are queued per item, a newer
+ * state of an item replaces the queued one, so the queue never holds more entries than the client has requested
+ * items. At most one write to the client is running at the same time, all states queued meanwhile are sent with the
+ * next write.
+ *
+ * @author agent - Initial contribution
+ */
+public class StateSubscriber {
+    private final Logger logger = LoggerFactory.getLogger(StateSubscriber.class);
+
+    private final EventOutput eventOutput;
+    private final Set<String> itemNames;
+    private final Executor writer;
+    private final Consumer<StateSubscriber> onClose;
+
+    private Map<String, String> pendingStates = new LinkedHashMap<String, String>();
+    private boolean writeScheduled;
+    private long writeStarted;
+    private boolean closed;
+
+    /**
+     * @param eventOutput
+     *            - the SSE connection of the client
+     * @param itemNames
+     *            - the CometVisu item names (with optional type prefix) requested by the client
+     * @param writer
+     *            - executor sending the queued states
+     * @param onClose
+     *            - called once when the client is closed
+     */
+    public StateSubscriber(EventOutput eventOutput, Set<String> itemNames, Executor writer,
+            Consumer<StateSubscriber> onClose) {
+        this.eventOutput = eventOutput;
+        this.itemNames = Collections.unmodifiableSet(itemNames);
+        this.writer = writer;
+        this.onClose = onClose;
+    }
+
+    /**
+     * returns the CometVisu item names requested by the client
+     */
+    public Set<String> getItemNames() {
+        return itemNames;
+    }
+
+    /**
+     * queues the state of an item, replacing a queued state of the same item
+     *
+     * @param name
+     *            - the CometVisu item name
+     * @param state
+     *            - the new state
+     */
+    public synchronized void enqueue(String name, String state) {
+        if (closed) {
+            return;
+        }
+        pendingStates.put(name, state);
+        if (!writeScheduled) {
+            writeScheduled = true;
+            writer.execute(this::write);
+        }
+    }
+
+    /**
+     * returns the number of queued states
+     */
+    public synchronized int getQueueDepth() {
+        return pendingStates.size();
+    }
+
+    /**
+     * checks if a write to the client is running for longer than the given time
+     */
+    public synchronized boolean isStalled(long timeout) {
+        return writeStarted != 0 && System.nanoTime() - writeStarted > TimeUnit.MILLISECONDS.toNanos(timeout);
+    }
+
+    /**
+     * checks if the connection to the client is closed
+     */
+    public boolean isClosed() {
+        return eventOutput.isClosed();
+    }
+
+    /**
+     * closes the connection to the client and drops all queued states
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pendingStates.clear();
+        }
+        try {
+            eventOutput.close();
+        } catch (IOException e) {
+            logger.debug("error closing client connection: {}", e.getMessage());
+        }
+        onClose.accept(this);
+    }
+
+    private void write() {
+        List<StateBean> states;
+        synchronized (this) {
+            if (closed || pendingStates.isEmpty()) {
+                writeScheduled = false;
+                return;
+            }
+            states = new ArrayList<StateBean>(pendingStates.size());
+            for (Map.Entry<String, String> entry : pendingStates.entrySet()) {
+                StateBean stateBean = new StateBean();
+                stateBean.name = entry.getKey();
+                stateBean.state = entry.getValue();
+                states.add(stateBean);
+            }
+            pendingStates = new LinkedHashMap<String, String>();
+            writeStarted = System.nanoTime();
+        }
+
+        try {
+            eventOutput.write(SseUtil.buildEvent(states));
+        } catch (IOException | RuntimeException e) {
+            logger.debug("error writing to client, closing connection: {}", e.getMessage());
+            close();
+            return;
+        }
+
+        synchronized (this) {
+            writeStarted = 0;
+            if (closed || pendingStates.isEmpty()) {
+                writeScheduled = false;
+            } else {
+                writer.execute(this::write);
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.chart;
+
+import org.rrd4j.ConsolFun;
+
+/**
+ * Reduces a chart series to one row per time bucket. The buckets are either aggregated (average, minimum or maximum
+ * of the values) or represented by a selected row using the Largest-Triangle-Three-Buckets algorithm, which keeps the
+ * visual shape of the series. With LTTB, every column selects its own rows.
+ *
+ * @author agent - Initial contribution
+ */
+public class ChartDownsampler {
+
+    /**
+     * The method used to reduce the rows of a bucket.
+     */
+    public enum Mode {
+        AVERAGE,
+        MIN,
+        MAX,
+        LTTB;
+
+        /**
+         * returns the mode matching the RRD consolidation function, functions without aggregation equivalent use
+         * LTTB
+         */
+        public static Mode fromConsolFun(ConsolFun consolFun) {
+            if (consolFun == null) {
+                return LTTB;
+            }
+            switch (consolFun) {
+                case AVERAGE:
+                    return AVERAGE;
+                case MIN:
+                    return MIN;
+                case MAX:
+                    return MAX;
+                default:
+                    return LTTB;
+            }
+        }
+    }
+
+    private ChartDownsampler() {
+    }
+
+    /**
+     * reduces the series to one row per bucket
+     *
+     * @param series
+     *            - the series with ascending timestamps
+     * @param start
+     *            - start of the first bucket in milliseconds
+     * @param end
+     *            - end of the last bucket in milliseconds
+     * @param bucketSize
+     *            - size of a bucket in milliseconds
+     * @param mode
+     *            - how the rows of a bucket are reduced
+     * @return the reduced series or the given series, if it has no more rows than buckets
+     */
+    public static ChartSeries downsample(ChartSeries series, long start, long end, long bucketSize, Mode mode) {
+        if (bucketSize <= 0 || end <= start) {
+            return series;
+        }
+        int buckets = (int) Math.min(Integer.MAX_VALUE, (end - start + bucketSize - 1) / bucketSize);
+        if (series.size() <= buckets) {
+            return series;
+        }
+        if (mode == Mode.LTTB) {
+            return largestTriangleThreeBuckets(series, buckets);
+        }
+        return aggregate(series, start, bucketSize, buckets, mode);
+    }
+
+    private static ChartSeries aggregate(ChartSeries series, long start, long bucketSize, int buckets, Mode mode) {
+        int columns = series.getColumnCount();
+        long[] timestamps = new long[buckets];
+        double[][] values = new double[columns][buckets];
+        double[] sums = new double[columns];
+        int[] counts = new int[columns];
+        int rows = 0;
+        long currentBucket = -1;
+
+        for (int row = 0; row < series.size(); row++) {
+            long time = series.getTimestamp(row);
+            long bucket = Math.max(0, Math.min(buckets - 1, (time - start) / bucketSize));
+            if (bucket != currentBucket) {
+                if (currentBucket >= 0) {
+                    finishBucket(values, sums, counts, rows++, mode);
+                }
+                currentBucket = bucket;
+                timestamps[rows] = start + bucket * bucketSize;
+            }
+            for (int column = 0; column < columns; column++) {
+                double value = series.getValue(column, row);
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                if (counts[column] == 0) {
+                    sums[column] = value;
+                } else if (mode == Mode.MIN) {
+                    sums[column] = Math.min(sums[column], value);
+                } else if (mode == Mode.MAX) {
+                    sums[column] = Math.max(sums[column], value);
+                } else {
+                    sums[column] += value;
+                }
+                counts[column]++;
+            }
+        }
+        if (currentBucket >= 0) {
+            finishBucket(values, sums, counts, rows++, mode);
+        }
+        return new ChartSeries(timestamps, values, rows);
+    }
+
+    private static void finishBucket(double[][] values, double[] sums, int[] counts, int row, Mode mode) {
+        for (int column = 0; column < sums.length; column++) {
+            if (counts[column] == 0) {
+                values[column][row] = Double.NaN;
+            } else if (mode == Mode.AVERAGE) {
+                values[column][row] = sums[column] / counts[column];
+            } else {
+                values[column][row] = sums[column];
+            }
+            counts[column] = 0;
+        }
+    }
+
+    /**
+     * selects about the given number of rows. Every column selects its own rows, so that the shape of each column is
+     * kept, and the rows selected by any of the columns are returned.
+     */
+    private static ChartSeries largestTriangleThreeBuckets(ChartSeries series, int threshold) {
+        int columns = series.getColumnCount();
+        boolean[] selected = new boolean[series.size()];
+        int columnThreshold = Math.max(threshold / Math.max(columns, 1), 3);
+        for (int column = 0; column < columns; column++) {
+            selectRows(series, column, columnThreshold, selected);
+        }
+
+        int rows = 0;
+        for (boolean row : selected) {
+            if (row) {
+                rows++;
+            }
+        }
+        long[] timestamps = new long[rows];
+        double[][] values = new double[columns][rows];
+        int target = 0;
+        for (int row = 0; row < selected.length; row++) {
+            if (selected[row]) {
+                target = copyRow(series, row, timestamps, values, target);
+            }
+        }
+        return new ChartSeries(timestamps, values, rows);
+    }
+
+    /**
+     * marks the given number of rows with the largest triangles in the column, the first and last row are always
+     * marked
+     */
+    private static void selectRows(ChartSeries series, int column, int threshold, boolean[] marked) {
+        int size = series.size();
+        if (size <= threshold) {
+            for (int row = 0; row < size; row++) {
+                marked[row] = true;
+            }
+            return;
+        }
+
+        // the first row is always selected
+        int selected = 0;
+        marked[selected] = true;
+
+        double bucketSize = (double) (size - 2) / (threshold - 2);
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // average of the next bucket is the third point of the triangle
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, size);
+            double avgTime = 0;
+            double avgValue = 0;
+            int avgCount = 0;
+            for (int row = nextStart; row < nextEnd; row++) {
+                double value = series.getValue(column, row);
+                if (!Double.isNaN(value)) {
+                    avgTime += series.getTimestamp(row);
+                    avgValue += value;
+                    avgCount++;
+                }
+            }
+            if (avgCount > 0) {
+                avgTime /= avgCount;
+                avgValue /= avgCount;
+            } else {
+                avgTime = series.getTimestamp(Math.min(nextStart, size - 1));
+                avgValue = series.getValue(column, selected);
+            }
+
+            // select the row of the current bucket with the largest triangle
+            int rangeStart = (int) Math.floor(bucket * bucketSize) + 1;
+            int rangeEnd = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double selectedTime = series.getTimestamp(selected);
+            double selectedValue = series.getValue(column, selected);
+            double maxArea = -1;
+            int maxRow = rangeStart;
+            for (int row = rangeStart; row < rangeEnd; row++) {
+                double value = series.getValue(column, row);
+                double area = Math.abs((selectedTime - avgTime) * (value - selectedValue)
+                        - (selectedTime - series.getTimestamp(row)) * (avgValue - selectedValue));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxRow = row;
+                }
+            }
+            selected = maxRow;
+            marked[selected] = true;
+        }
+
+        // the last row is always selected
+        marked[size - 1] = true;
+    }
+
+    private static int copyRow(ChartSeries series, int row, long[] timestamps, double[][] values, int target) {
+        timestamps[target] = series.getTimestamp(row);
+        for (int column = 0; column < values.length; column++) {
+            values[column][target] = series.getValue(column, row);
+        }
+        return target + 1;
+    }
+}
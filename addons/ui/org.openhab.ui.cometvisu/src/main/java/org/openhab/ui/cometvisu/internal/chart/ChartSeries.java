@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.chart;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A chart series with one or more values per timestamp, timestamps are in milliseconds and ascending. Missing values
+ * are stored as NaN.
+ *
+ * @author agent - Initial contribution
+ */
+public class ChartSeries {
+
+    // pattern RRDTool uses to format doubles in XML files
+    private static final String PATTERN = "0.0000000000E00";
+
+    public static final ChartSeries EMPTY = new ChartSeries(new long[0], new double[0][0], 0);
+
+    private final long[] timestamps;
+    private final double[][] values;
+    private final int size;
+
+    /**
+     * @param timestamps
+     *            - the timestamps of the rows
+     * @param values
+     *            - the values by column and row
+     * @param size
+     *            - the number of rows
+     */
+    public ChartSeries(long[] timestamps, double[][] values, int size) {
+        this.timestamps = timestamps;
+        this.values = values;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getColumnCount() {
+        return values.length;
+    }
+
+    public long getTimestamp(int row) {
+        return timestamps[row];
+    }
+
+    public double getValue(int column, int row) {
+        return values[column][row];
+    }
+
+    /**
+     * merges the columns of the given series into one series, rows with the same timestamp are joined
+     */
+    public static ChartSeries merge(List<ChartSeries> series) {
+        if (series.isEmpty()) {
+            return EMPTY;
+        }
+        if (series.size() == 1) {
+            return series.get(0);
+        }
+
+        int columns = 0;
+        int maxRows = 0;
+        for (ChartSeries s : series) {
+            columns += s.getColumnCount();
+            maxRows += s.size;
+        }
+        long[] timestamps = new long[maxRows];
+        double[][] values = new double[columns][maxRows];
+        int[] positions = new int[series.size()];
+        int rows = 0;
+
+        while (true) {
+            // find the next timestamp of all series
+            long next = Long.MAX_VALUE;
+            for (int i = 0; i < series.size(); i++) {
+                if (positions[i] < series.get(i).size) {
+                    next = Math.min(next, series.get(i).timestamps[positions[i]]);
+                }
+            }
+            if (next == Long.MAX_VALUE) {
+                break;
+            }
+
+            timestamps[rows] = next;
+            int column = 0;
+            for (int i = 0; i < series.size(); i++) {
+                ChartSeries s = series.get(i);
+                boolean matches = positions[i] < s.size && s.timestamps[positions[i]] == next;
+                for (int c = 0; c < s.getColumnCount(); c++) {
+                    values[column++][rows] = matches ? s.values[c][positions[i]] : Double.NaN;
+                }
+                if (matches) {
+                    positions[i]++;
+                }
+            }
+            rows++;
+        }
+        return new ChartSeries(timestamps, values, rows);
+    }
+
+    /**
+     * writes the series as JSON array in the format expected by the CometVisu diagram plugin:
+     * [[timestamp,["value1","value2",...]],...]
+     */
+    public void writeJson(Writer writer) throws IOException {
+        // DecimalFormat is not thread safe, so every write uses its own instance
+        DecimalFormat df = (DecimalFormat) NumberFormat.getNumberInstance(Locale.ENGLISH);
+        df.applyPattern(PATTERN);
+
+        writer.write('[');
+        for (int row = 0; row < size; row++) {
+            if (row > 0) {
+                writer.write(',');
+            }
+            writer.write('[');
+            writer.write(Long.toString(timestamps[row]));
+            writer.write(",[");
+            for (int column = 0; column < values.length; column++) {
+                if (column > 0) {
+                    writer.write(',');
+                }
+                writer.write('"');
+                double value = values[column][row];
+                writer.write(Double.isNaN(value) ? "null" : df.format(value));
+                writer.write('"');
+            }
+            writer.write("]]");
+        }
+        writer.write(']');
+    }
+
+    /**
+     * Collects the rows of a series with one column.
+     */
+    public static class Builder {
+        private long[] timestamps;
+        private double[] values;
+        private int size;
+
+        public Builder() {
+            this(256);
+        }
+
+        public Builder(int capacity) {
+            timestamps = new long[Math.max(capacity, 16)];
+            values = new double[timestamps.length];
+        }
+
+        public Builder add(long timestamp, double value) {
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            timestamps[size] = timestamp;
+            values[size] = value;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public ChartSeries build() {
+            return new ChartSeries(timestamps, new double[][] { values }, size);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.chart;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived LRU cache for downsampled chart series, so that several clients showing the same diagram do not query
+ * the persistence service each.
+ *
+ * @author agent - Initial contribution
+ */
+public class ChartSeriesCache {
+
+    private final int maxEntries;
+    private final long maxAge;
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * @param maxEntries
+     *            - max number of cached series, the least recently used series is removed first
+     * @param maxAge
+     *            - time in milliseconds a series is cached
+     */
+    public ChartSeriesCache(int maxEntries, long maxAge) {
+        this.maxEntries = maxEntries;
+        this.maxAge = TimeUnit.MILLISECONDS.toNanos(maxAge);
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > ChartSeriesCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * returns the key of a series
+     *
+     * @param itemName
+     *            - name of the item, including the persistence service
+     * @param mode
+     *            - the downsampling mode
+     * @param start
+     *            - start of the range in milliseconds
+     * @param end
+     *            - end of the range in milliseconds
+     * @param resolution
+     *            - bucket size in milliseconds
+     */
+    public static String getKey(String itemName, ChartDownsampler.Mode mode, long start, long end, long resolution) {
+        return itemName + ":" + mode + ":" + start + ":" + end + ":" + resolution;
+    }
+
+    /**
+     * returns the cached series or null, if the series is not cached or too old
+     */
+    public synchronized ChartSeries get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.nanoTime() - entry.created > maxAge) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.series;
+    }
+
+    public synchronized void put(String key, ChartSeries series) {
+        entries.put(key, new Entry(series));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private static class Entry {
+        private final ChartSeries series;
+        private final long created = System.nanoTime();
+
+        public Entry(ChartSeries series) {
+            this.series = series;
+        }
+    }
+}
@@ -12,6 +12,8 @@ import java.io.File;
 import java.io.StringWriter;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.xml.XMLConstants;
@@ -78,12 +80,18 @@ import org.xml.sax.SAXException;
 public class VisuConfig {
     private final Logger logger = LoggerFactory.getLogger(VisuConfig.class);
 
+    /**
+     * JAXB context and XSD schemas are expensive to create and thread-safe, so they are shared by all configs
+     */
+    private static JAXBContext jaxbContext;
+    private static final Map<String, Schema> schemas = new ConcurrentHashMap<>();
+
     private Sitemap sitemap;
 
     /**
      * relative path to the config XSD schema
      */
-    private final String schemaFile = "visu_config.xsd";
+    private static final String SCHEMA_FILE = "visu_config.xsd";
 
     private CometVisuApp app;
 
@@ -101,9 +109,32 @@ public class VisuConfig {
     /**
      * generates a CometVisu config file from a sitemap
      *
-     * @return valid XML config
+     * @return valid XML config or null, if the config could not be generated
      */
     public String getConfigXml(HttpServletRequest req) {
+        return getConfigXml(getRelativeSchemaPath(req));
+    }
+
+    /**
+     * returns the path to the config XSD schema relative to the requested config file
+     */
+    public static String getRelativeSchemaPath(HttpServletRequest req) {
+        int requestFolders = req.getPathInfo().substring(1).split("/").length;
+        String relXsd = "";
+        for (int i = 1; i < requestFolders; i++) {
+            relXsd += "../";
+        }
+        return relXsd + SCHEMA_FILE;
+    }
+
+    /**
+     * generates a CometVisu config file from a sitemap
+     *
+     * @param schemaLocation
+     *            path to the config XSD schema relative to the config file
+     * @return valid XML config or null, if the config could not be generated
+     */
+    public String getConfigXml(String schemaLocation) {
         SchemaPages pagesBean = new SchemaPages();
         pagesBean.setBackend("oh2");
         pagesBean.setDesign("metal");
@@ -114,13 +145,7 @@ public class VisuConfig {
         pagesBean.setScrollSpeed(new BigDecimal(0));
 
         // set relative path to XSD file
-        int requestFolders = req.getPathInfo().substring(1).split("/").length;
-        logger.debug("requestPath '{}' has '{}' parts", req.getPathInfo(), requestFolders);
-        String relXsd = "";
-        for (int i = 1; i < requestFolders; i++) {
-            relXsd += "../";
-        }
-        pagesBean.setNoNamespaceSchemaLocation(relXsd + schemaFile);
+        pagesBean.setNoNamespaceSchemaLocation(schemaLocation);
 
         Meta meta = new Meta();
         pagesBean.setMeta(meta);
@@ -128,17 +153,14 @@ public class VisuConfig {
         configHelper = new ConfigHelper(pagesBean, app, sitemap.getName());
         createPages(pagesBean);
 
-        return marshal(pagesBean, rootFolder.getAbsolutePath() + File.separator + schemaFile);
+        return marshal(pagesBean, rootFolder.getAbsolutePath() + File.separator + SCHEMA_FILE);
     }
 
     private String marshal(Pages bean, String xsdSchema) {
-        String res = "";
+        String res = null;
         try {
-            JAXBContext jaxbContext = JAXBContext.newInstance(bean.getClass());
-            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-            Schema schema = (xsdSchema == null || xsdSchema.trim().length() == 0) ? null
-                    : schemaFactory.newSchema(new File(xsdSchema));
-            Marshaller marshaller = jaxbContext.createMarshaller();
+            Schema schema = (xsdSchema == null || xsdSchema.trim().length() == 0) ? null : getSchema(xsdSchema);
+            Marshaller marshaller = getJaxbContext().createMarshaller();
             marshaller.setSchema(schema);
             marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
@@ -153,6 +175,23 @@ public class VisuConfig {
         return res;
     }
 
+    private static synchronized JAXBContext getJaxbContext() throws JAXBException {
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(SchemaPages.class);
+        }
+        return jaxbContext;
+    }
+
+    private static Schema getSchema(String xsdSchema) throws SAXException {
+        Schema schema = schemas.get(xsdSchema);
+        if (schema == null) {
+            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            schema = schemaFactory.newSchema(new File(xsdSchema));
+            schemas.put(xsdSchema, schema);
+        }
+        return schema;
+    }
+
     private Pages createPages(Pages pagesBean) {
         Page rootPage = new Page();
         rootPage.setName(sitemap.getName());
@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import javax.xml.bind.DatatypeConverter;
+
+import org.eclipse.smarthome.core.items.Item;
+import org.eclipse.smarthome.core.items.ItemRegistryChangeListener;
+import org.eclipse.smarthome.model.core.EventType;
+import org.eclipse.smarthome.model.core.ModelRepositoryChangeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the CometVisu configs generated from the sitemaps. The cache is cleared whenever a sitemap, an item, an icon
+ * provider or the CometVisu configuration changes, because all of them are part of the generated config. Icons added
+ * to or removed from an already registered icon provider are not detected, they are only picked up when the cache is
+ * cleared by one of these changes or after a restart.
+ *
+ * @author agent - Initial contribution
+ */
+public class VisuConfigCache implements ModelRepositoryChangeListener, ItemRegistryChangeListener {
+    private final Logger logger = LoggerFactory.getLogger(VisuConfigCache.class);
+
+    private Map<String, CachedConfig> configs = new ConcurrentHashMap<>();
+    // incremented by clear(), a config generated while the cache has been cleared may be outdated already
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * returns the cached config for the sitemap and generates it, if it is not cached
+     *
+     * @param sitemapName
+     *            name of the sitemap
+     * @param schemaPath
+     *            relative path to the XSD schema used in the config
+     * @param generator
+     *            generates the config XML, returns null if the config could not be generated
+     * @return the config or null, if it could not be generated. Failed configs are not cached.
+     */
+    public CachedConfig get(String sitemapName, String schemaPath, Supplier<String> generator) {
+        String key = sitemapName + ":" + schemaPath;
+        CachedConfig config = configs.get(key);
+        if (config == null) {
+            logger.debug("generating config for sitemap '{}'", sitemapName);
+            long startGeneration = generation.get();
+            String xml = generator.get();
+            if (xml == null || xml.isEmpty()) {
+                return null;
+            }
+            config = new CachedConfig(xml);
+            configs.put(key, config);
+            if (generation.get() != startGeneration) {
+                // cleared during the generation, don't keep the config if the clear has already passed
+                configs.remove(key, config);
+            }
+        }
+        return config;
+    }
+
+    /**
+     * removes all cached configs
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        configs.clear();
+    }
+
+    @Override
+    public void modelChanged(String modelName, EventType type) {
+        if (modelName.endsWith(".sitemap")) {
+            logger.debug("sitemap '{}' changed, clearing config cache", modelName);
+            clear();
+        }
+    }
+
+    @Override
+    public void added(Item element) {
+        clear();
+    }
+
+    @Override
+    public void removed(Item element) {
+        clear();
+    }
+
+    @Override
+    public void updated(Item oldElement, Item element) {
+        clear();
+    }
+
+    @Override
+    public void allItemsChanged(Collection<String> oldItemNames) {
+        clear();
+    }
+
+    /**
+     * A generated config with its compressed content and ETag
+     */
+    public static class CachedConfig {
+        private final byte[] content;
+        private final byte[] gzippedContent;
+        private final String eTag;
+
+        private CachedConfig(String xml) {
+            content = xml.getBytes(StandardCharsets.UTF_8);
+
+            ByteArrayOutputStream bos = new ByteArrayOutputStream(content.length / 4);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(bos)) {
+                gzip.write(content);
+            } catch (IOException e) {
+                // can not happen when writing to memory
+            }
+            gzippedContent = bos.toByteArray();
+
+            String hash;
+            try {
+                hash = DatatypeConverter.printHexBinary(MessageDigest.getInstance("MD5").digest(content));
+            } catch (NoSuchAlgorithmException e) {
+                hash = Integer.toHexString(xml.hashCode());
+            }
+            eTag = "\"" + hash.toLowerCase() + "\"";
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        public byte[] getGzippedContent() {
+            return gzippedContent;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.rss;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import org.apache.commons.lang.StringEscapeUtils;
+import org.openhab.ui.cometvisu.internal.rss.beans.Entry;
+import org.openhab.ui.cometvisu.internal.rss.beans.Feed;
+
+import com.google.gson.Gson;
+
+/**
+ * Writes a {@link Feed} of the rsslog-plugin as RSS or JSON directly to the response.
+ *
+ * @author agent - Initial contribution
+ */
+public class RssFeedWriter {
+
+    private static final Gson GSON = new Gson();
+
+    private RssFeedWriter() {
+    }
+
+    /**
+     * writes the feed in RSS 2.0 format
+     */
+    public static void writeRss(Feed feed, Writer writer) throws IOException {
+        // SimpleDateFormat is not thread safe, so every write uses its own instance
+        DateFormat pubDateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss Z", Locale.ENGLISH);
+
+        // as the json bean structure does not map the rss structure
+        // we cannot just marshal an XML
+        writer.write("<?xml version=\"1.0\"?>\n<rss version=\"2.0\">\n<channel>\n");
+        writeElement(writer, "title", feed.title);
+        writer.write('\n');
+        writeElement(writer, "link", feed.link);
+        writer.write('\n');
+        writeElement(writer, "description", feed.description);
+        writer.write('\n');
+
+        for (Entry entry : feed.entries) {
+            writer.write("<item>");
+            writeElement(writer, "title", entry.title);
+            writeElement(writer, "description", entry.content);
+            writeElement(writer, "pubDate", pubDateFormat.format(new Date(entry.publishedDate)));
+            writer.write("</item>\n");
+        }
+
+        writer.write("</channel></rss>");
+    }
+
+    /**
+     * writes the feed in the JSON format of the Google Feed API
+     */
+    public static void writeJson(Feed feed, Writer writer) throws IOException {
+        writer.write("{\"responseData\": { \"feed\": ");
+        GSON.toJson(feed, writer);
+        writer.write("},\"responseDetails\":null,\"responseStatus\":200}");
+    }
+
+    private static void writeElement(Writer writer, String name, String value) throws IOException {
+        writer.write('<');
+        writer.write(name);
+        writer.write('>');
+        writer.write(StringEscapeUtils.escapeXml(String.valueOf(value)));
+        writer.write("</");
+        writer.write(name);
+        writer.write('>');
+    }
+}
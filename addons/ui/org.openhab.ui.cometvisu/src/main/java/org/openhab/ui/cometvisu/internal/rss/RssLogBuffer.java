@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2010-2017 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.ui.cometvisu.internal.rss;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.openhab.ui.cometvisu.internal.rss.beans.Entry;
+
+/**
+ * Holds the most recent log entries of the items used by the CometVisu rsslog-plugin. New entries are added when the
+ * plugin posts them, the history is loaded from the persistence services when an item is read the first time and
+ * reloaded periodically to pick up entries written by others, e.g. by rules.
+ *
+ * @author agent - Initial contribution
+ */
+public class RssLogBuffer {
+
+    /** max number of entries kept per item */
+    public static final int CAPACITY = 25;
+
+    /** time in milliseconds after which the history of an item is reloaded from the persistence services */
+    private static final long RELOAD_INTERVAL = 60000;
+
+    private final String separator;
+
+    private final Map<String, ItemLog> logs = new ConcurrentHashMap<>();
+
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * @param separator
+     *            - regular expression separating the parts of a log message
+     */
+    public RssLogBuffer(String separator) {
+        this.separator = separator;
+    }
+
+    /**
+     * adds a new log message of an item
+     */
+    public void add(String itemName, String message) {
+        ItemLog log = getLog(itemName);
+        Entry entry = parseEntry(itemName, message, System.currentTimeMillis());
+        synchronized (log) {
+            log.entries.addFirst(entry);
+            while (log.entries.size() > CAPACITY) {
+                log.entries.removeLast();
+            }
+            log.changed(versions.incrementAndGet());
+        }
+    }
+
+    /**
+     * returns the log entries of an item, newest first
+     *
+     * @param itemName
+     *            - name of the item
+     * @param loader
+     *            - loads the persisted entries of the item, newest first, if the history is not loaded or outdated
+     */
+    public List<Entry> getEntries(String itemName, Function<String, List<Entry>> loader) {
+        ItemLog log = getLog(itemName);
+        synchronized (log) {
+            if (log.loaded == 0 || System.nanoTime() - log.loaded > TimeUnit.MILLISECONDS.toNanos(RELOAD_INTERVAL)) {
+                reload(log, loader.apply(itemName));
+            }
+            return new ArrayList<Entry>(log.entries);
+        }
+    }
+
+    /**
+     * returns the time in milliseconds the log of the item changed the last time
+     */
+    public long getLastModified(String itemName) {
+        ItemLog log = getLog(itemName);
+        synchronized (log) {
+            return log.lastModified;
+        }
+    }
+
+    /**
+     * returns a number, which changes whenever the log of the item changes
+     */
+    public long getVersion(String itemName) {
+        ItemLog log = getLog(itemName);
+        synchronized (log) {
+            return log.version;
+        }
+    }
+
+    /**
+     * creates a log entry from a message in the format title|content|state|tag, title, state and tag are optional
+     */
+    public Entry parseEntry(String itemName, String message, long publishedDate) {
+        Entry entry = new Entry();
+        entry.publishedDate = publishedDate;
+        entry.tags.add(itemName);
+        String[] content = message.split(separator);
+        if (content.length == 0) {
+            entry.content = message;
+        } else if (content.length == 1) {
+            entry.content = content[0];
+        } else if (content.length == 2) {
+            entry.title = content[0];
+            entry.content = content[1];
+        } else if (content.length == 3) {
+            entry.title = content[0];
+            entry.content = content[1];
+            entry.state = content[2];
+        } else if (content.length == 4) {
+            entry.title = content[0];
+            entry.content = content[1];
+            entry.state = content[2];
+            // ignore tags in content[3] as is is already known
+            // by item name
+        }
+        return entry;
+    }
+
+    private ItemLog getLog(String itemName) {
+        return logs.computeIfAbsent(itemName, name -> new ItemLog());
+    }
+
+    /**
+     * replaces the entries by the persisted ones, added entries which are newer than the newest persisted entry are
+     * kept, as they may not be persisted yet
+     */
+    private void reload(ItemLog log, List<Entry> persisted) {
+        long newest = persisted.isEmpty() ? Long.MIN_VALUE : persisted.get(0).publishedDate;
+        Deque<Entry> entries = new ArrayDeque<Entry>(CAPACITY);
+        for (Entry entry : log.entries) {
+            if (entry.publishedDate > newest && entries.size() < CAPACITY) {
+                entries.addLast(entry);
+            }
+        }
+        for (Entry entry : persisted) {
+            if (entries.size() == CAPACITY) {
+                break;
+            }
+            entries.addLast(entry);
+        }
+
+        if (!isSame(log.entries, entries)) {
+            log.entries = entries;
+            log.changed(versions.incrementAndGet());
+        }
+        log.loaded = System.nanoTime();
+    }
+
+    private boolean isSame(Deque<Entry> oldEntries, Deque<Entry> newEntries) {
+        if (oldEntries.size() != newEntries.size()) {
+            return false;
+        }
+        Iterator<Entry> oldIt = oldEntries.iterator();
+        for (Entry entry : newEntries) {
+            Entry oldEntry = oldIt.next();
+            if (oldEntry.publishedDate != entry.publishedDate || !Objects.equals(oldEntry.content, entry.content)
+                    || !Objects.equals(oldEntry.title, entry.title) || !Objects.equals(oldEntry.state, entry.state)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The log entries of an item, newest first.
+     */
+    private static class ItemLog {
+        private Deque<Entry> entries = new ArrayDeque<Entry>(CAPACITY);
+        private long loaded;
+        private long version;
+        private long lastModified;
+
+        private void changed(long version) {
+            this.version = version;
+            this.lastModified = System.currentTimeMillis();
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.eclipse.smarthome.model.sitemap.SitemapProvider;
 import org.eclipse.smarthome.ui.icon.IconProvider;
 import org.eclipse.smarthome.ui.items.ItemUIRegistry;
 import org.openhab.ui.cometvisu.internal.Config;
+import org.openhab.ui.cometvisu.internal.config.VisuConfigCache;
 import org.openhab.ui.cometvisu.php.PHProvider;
 import org.osgi.framework.BundleContext;
 import org.osgi.service.cm.ConfigurationException;
@@ -61,6 +62,8 @@ public class CometVisuApp {
 
     private PHProvider phpProvider;
 
+    private VisuConfigCache configCache = new VisuConfigCache();
+
     protected static Map<String, QueryablePersistenceService> persistenceServices = new HashMap<>();
 
     protected void setEventPublisher(EventPublisher eventPublisher) {
@@ -95,14 +98,17 @@ public class CometVisuApp {
 
     public void addIconProvider(IconProvider iconProvider) {
         this.iconProviders.add(iconProvider);
+        configCache.clear();
     }
 
     public void removeIconProvider(IconProvider iconProvider) {
         this.iconProviders.remove(iconProvider);
+        configCache.clear();
     }
 
     protected void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
+        this.itemRegistry.addRegistryChangeListener(configCache);
     }
 
     public ItemRegistry getItemRegistry() {
@@ -110,6 +116,7 @@ public class CometVisuApp {
     }
 
     protected void unsetItemRegistry(ItemRegistry itemRegistry) {
+        this.itemRegistry.removeRegistryChangeListener(configCache);
         this.itemRegistry = null;
     }
 
@@ -123,10 +130,14 @@ public class CometVisuApp {
 
     public void addSitemapProvider(SitemapProvider provider) {
         sitemapProviders.add(provider);
+        provider.addModelChangeListener(configCache);
+        configCache.clear();
     }
 
     public void removeSitemapProvider(SitemapProvider provider) {
         sitemapProviders.remove(provider);
+        provider.removeModelChangeListener(configCache);
+        configCache.clear();
     }
 
     public ItemUIRegistry getItemUIRegistry() {
@@ -137,6 +148,10 @@ public class CometVisuApp {
         return sitemapProviders;
     }
 
+    public VisuConfigCache getConfigCache() {
+        return configCache;
+    }
+
     protected void setHttpService(HttpService httpService) {
         this.httpService = httpService;
     }
@@ -251,6 +266,7 @@ public class CometVisuApp {
             unregisterServlet();
         }
         readConfiguration(configProps);
+        configCache.clear();
         if (configProps.containsKey(Config.COMETVISU_WEBFOLDER_PROPERTY)
                 || configProps.containsKey(Config.COMETVISU_WEBAPP_ALIAS_PROPERTY)) {
             registerServlet();
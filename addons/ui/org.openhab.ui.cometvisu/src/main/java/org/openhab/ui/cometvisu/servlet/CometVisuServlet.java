@@ -17,18 +17,13 @@ import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
-import java.text.DateFormat;
-import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Locale;
-import java.util.Map.Entry;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.GZIPOutputStream;
@@ -58,8 +53,11 @@ import org.eclipse.smarthome.model.sitemap.SitemapProvider;
 import org.openhab.ui.cometvisu.internal.Config;
 import org.openhab.ui.cometvisu.internal.config.ConfigHelper.Transform;
 import org.openhab.ui.cometvisu.internal.config.VisuConfig;
+import org.openhab.ui.cometvisu.internal.config.VisuConfigCache.CachedConfig;
 import org.openhab.ui.cometvisu.internal.editor.dataprovider.beans.DataBean;
 import org.openhab.ui.cometvisu.internal.editor.dataprovider.beans.ItemBean;
+import org.openhab.ui.cometvisu.internal.rss.RssFeedWriter;
+import org.openhab.ui.cometvisu.internal.rss.RssLogBuffer;
 import org.openhab.ui.cometvisu.internal.rss.beans.Feed;
 import org.openhab.ui.cometvisu.php.PHProvider;
 import org.slf4j.Logger;
@@ -80,13 +78,15 @@ public class CometVisuServlet extends HttpServlet {
     private static final long DEFAULT_EXPIRE_TIME = 604800000L; // ..ms = 1
                                                                 // week.
     private static final String MULTIPART_BOUNDARY = "MULTIPART_BYTERANGES";
+    private static final Comparator<org.openhab.ui.cometvisu.internal.rss.beans.Entry> NEWEST_FIRST = (o1,
+            o2) -> Long.compare(o2.publishedDate, o1.publishedDate);
 
     private Pattern sitemapPattern = Pattern.compile(".*/visu_config_?(oh_)?([^\\.]+)?\\.xml");
     private Pattern configStorePattern = Pattern.compile("config/visu_config_oh_([a-z0-9_]+)\\.xml");
 
     private String rssLogPath = "/plugins/rsslog/rsslog_oh.php";
     private final String rssLogMessageSeparator = "\\|";
-    private DateFormat rssPubDateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss Z", Locale.ENGLISH);
+    private final RssLogBuffer rssLogBuffer = new RssLogBuffer(rssLogMessageSeparator);
 
     protected String root;
     protected File rootFolder;
@@ -206,13 +206,14 @@ public class CometVisuServlet extends HttpServlet {
                 Sitemap sitemap = getSitemap(matcher.group(2));
                 if (sitemap != null) {
                     logger.debug("reading sitemap '{}'", sitemap);
-                    VisuConfig config = new VisuConfig(sitemap, cometVisuApp, rootFolder);
-
-                    // logger.info("response: "+config.getConfigXml());
-                    resp.setContentType(MediaType.APPLICATION_XML);
-                    resp.getWriter().write(config.getConfigXml(req));
-                    resp.flushBuffer();
-
+                    String schemaLocation = VisuConfig.getRelativeSchemaPath(req);
+                    CachedConfig config = cometVisuApp.getConfigCache().get(sitemap.getName(), schemaLocation,
+                            () -> new VisuConfig(sitemap, cometVisuApp, rootFolder).getConfigXml(schemaLocation));
+                    if (config == null) {
+                        resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                    } else {
+                        processCachedConfigRequest(config, req, resp);
+                    }
                     return;
                 } else {
                     logger.debug("Config file not found. Neither as normal config ('{}') nor as sitemap ('{}.sitemap')",
@@ -234,6 +235,34 @@ public class CometVisuServlet extends HttpServlet {
         }
     }
 
+    /**
+     * serves a generated config, answers with 304 if the client already has it and sends it gzipped if accepted
+     */
+    private void processCachedConfigRequest(CachedConfig config, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        response.setHeader("ETag", config.getETag());
+        response.setHeader("Vary", "Accept-Encoding");
+
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null && matches(ifNoneMatch, config.getETag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        byte[] content = config.getContent();
+        String acceptEncoding = request.getHeader("Accept-Encoding");
+        if (acceptEncoding != null && accepts(acceptEncoding, "gzip")) {
+            response.setHeader("Content-Encoding", "gzip");
+            content = config.getGzippedContent();
+        }
+
+        response.setContentType(MediaType.APPLICATION_XML);
+        response.setCharacterEncoding("UTF-8");
+        response.setContentLength(content.length);
+        response.getOutputStream().write(content);
+        response.flushBuffer();
+    }
+
     protected void processPhpRequest(File file, HttpServletRequest request, HttpServletResponse response)
             throws ServletException, IOException {
         if (!this.phpEnabled) {
@@ -318,6 +347,7 @@ public class CometVisuServlet extends HttpServlet {
                     // Build message
                     Command command = new StringType(title + rssLogMessageSeparator + message + rssLogMessageSeparator
                             + state + rssLogMessageSeparator + items.get(0).getName());
+                    rssLogBuffer.add(items.get(0).getName(), command.toString());
                     // Use the event publisher to store the item in the defined
                     // persistance services
                     cometVisuApp.getEventPublisher()
@@ -356,115 +386,45 @@ public class CometVisuServlet extends HttpServlet {
                 feed.author = "";
                 feed.description = "RSS supplied logs";
                 feed.type = "rss20";
-                // Define the data filter
-                FilterCriteria filter = new FilterCriteria();
-                Calendar start = Calendar.getInstance();
-                // retrieve only the historic states from the last 7 days + BeginDate is required for RRD4j service
-                start.add(Calendar.DAY_OF_YEAR, -7);
-                // Date end = new Date();
-                filter.setBeginDate(start.getTime());
-                // filter.setEndDate(end);
-                filter.setPageSize(25);
-                filter.setOrdering(Ordering.DESCENDING);
 
+                boolean json = request.getParameter("j") != null;
+                long lastModified = 0;
+                long eTagHash = json ? 1 : 0;
                 for (Item item : items) {
-                    filter.setItemName(item.getName());
-                    Iterator<Entry<String, QueryablePersistenceService>> pit = CometVisuApp.getPersistenceServices()
-                            .entrySet().iterator();
-                    QueryablePersistenceService persistenceService = pit.next().getValue();
-                    // Get the data from the persistence store
-                    Iterable<HistoricItem> result = persistenceService.query(filter);
-                    Iterator<HistoricItem> it = result.iterator();
-                    boolean forceStop = false;
-                    while (!forceStop && !it.hasNext()) {
-                        if (pit.hasNext()) {
-                            persistenceService = pit.next().getValue();
-                            result = persistenceService.query(filter);
-                        } else {
-                            // no persisted data found for this item in any of
-                            // the available persistence services
-                            forceStop = true;
-                        }
-                    }
-                    if (it.hasNext()) {
-                        logger.debug("persisted data for item {} found in service {}", item.getName(),
-                                persistenceService.getId());
-                    }
-
-                    // Iterate through the data
-                    int i = 0;
-                    while (it.hasNext()) {
-                        i++;
-                        HistoricItem historicItem = it.next();
-                        if (historicItem.getState() == null || historicItem.getState().toString().isEmpty()) {
-                            continue;
-                        }
-                        org.openhab.ui.cometvisu.internal.rss.beans.Entry entry = new org.openhab.ui.cometvisu.internal.rss.beans.Entry();
-                        entry.publishedDate = historicItem.getTimestamp().getTime();
-                        entry.tags.add(historicItem.getName());
-                        String[] content = historicItem.getState().toString().split(rssLogMessageSeparator);
-                        if (content.length == 0) {
-                            entry.content = historicItem.getState().toString();
-                        } else if (content.length == 1) {
-                            entry.content = content[0];
-                        } else if (content.length == 2) {
-                            entry.title = content[0];
-                            entry.content = content[1];
-                        } else if (content.length == 3) {
-                            entry.title = content[0];
-                            entry.content = content[1];
-                            entry.state = content[2];
-                        } else if (content.length == 4) {
-                            entry.title = content[0];
-                            entry.content = content[1];
-                            entry.state = content[2];
-                            // ignore tags in content[3] as is is already known
-                            // by item name
-                        }
-                        feed.entries.add(entry);
+                    feed.entries.addAll(rssLogBuffer.getEntries(item.getName(), this::loadRssLogHistory));
+                    lastModified = Math.max(lastModified, rssLogBuffer.getLastModified(item.getName()));
+                    eTagHash = 31 * eTagHash + item.getName().hashCode();
+                    eTagHash = 31 * eTagHash + rssLogBuffer.getVersion(item.getName());
+                }
+                Collections.sort(feed.entries, NEWEST_FIRST);
+
+                String eTag = "\"" + Long.toHexString(eTagHash) + "\"";
+                response.setHeader("ETag", eTag);
+                response.setDateHeader("Last-Modified", lastModified);
+                String ifNoneMatch = request.getHeader("If-None-Match");
+                if (ifNoneMatch != null) {
+                    if (matches(ifNoneMatch, eTag)) {
+                        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                        return;
                     }
-                    if ("rrd4j".equals(persistenceService.getId())
-                            && FilterCriteria.Ordering.DESCENDING.equals(filter.getOrdering())) {
-                        // the RRD4j PersistenceService does not support descending ordering so we do it manually
-                        Collections.sort(feed.entries,
-                                new Comparator<org.openhab.ui.cometvisu.internal.rss.beans.Entry>() {
-                                    @Override
-                                    public int compare(org.openhab.ui.cometvisu.internal.rss.beans.Entry o1,
-                                            org.openhab.ui.cometvisu.internal.rss.beans.Entry o2) {
-                                        return Long.compare(o2.publishedDate, o1.publishedDate);
-                                    }
-                                });
+                } else {
+                    // the header has a precision of seconds
+                    long ifModifiedSince = request.getDateHeader("If-Modified-Since");
+                    if (ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000) {
+                        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                        return;
                     }
-                    logger.debug("querying {} item from {} to {} => {} results on service {}", filter.getItemName(),
-                            filter.getBeginDate(), filter.getEndDate(), i, persistenceService.getId());
                 }
-                if (request.getParameter("j") != null) {
+
+                response.setCharacterEncoding("UTF-8");
+                if (json) {
                     // request data in JSON format
                     response.setContentType("application/json");
-                    response.getWriter().write("{\"responseData\": { \"feed\": " + marshalJson(feed)
-                            + "},\"responseDetails\":null,\"responseStatus\":200}");
+                    RssFeedWriter.writeJson(feed, response.getWriter());
                 } else {
                     // request data in RSS format
                     response.setContentType(MediaType.APPLICATION_ATOM_XML);
-                    // as the json bean structure does not map the rss structure
-                    // we cannot just marshal an XML
-                    String rss = "<?xml version=\"1.0\"?>\n<rss version=\"2.0\">\n<channel>\n";
-                    rss += "<title>" + feed.title + "</title>\n";
-                    rss += "<link>" + feed.link + "</link>\n";
-                    rss += "<desrciption>" + feed.description + "</desription>\n";
-
-                    for (org.openhab.ui.cometvisu.internal.rss.beans.Entry entry : feed.entries) {
-                        rss += "<item>";
-                        rss += "<title>" + entry.title + "</title>";
-                        rss += "<description>" + entry.content + "</description>";
-                        Date pubDate = new Date(entry.publishedDate);
-                        rss += "<pubDate>" + rssPubDateFormat.format(pubDate) + "</pubDate>";
-                        rss += "</item>\n";
-                    }
-
-                    rss += "</channel></rss>";
-                    response.getWriter().write(rss);
-
+                    RssFeedWriter.writeRss(feed, response.getWriter());
                 }
                 response.flushBuffer();
 
@@ -473,6 +433,49 @@ public class CometVisuServlet extends HttpServlet {
 
     }
 
+    /**
+     * loads the log entries of the last 7 days of an item from the first persistence service, which has data for
+     * it, newest first
+     */
+    private List<org.openhab.ui.cometvisu.internal.rss.beans.Entry> loadRssLogHistory(String itemName) {
+        List<org.openhab.ui.cometvisu.internal.rss.beans.Entry> entries = new ArrayList<>();
+
+        // Define the data filter
+        FilterCriteria filter = new FilterCriteria();
+        Calendar start = Calendar.getInstance();
+        // retrieve only the historic states from the last 7 days + BeginDate is required for RRD4j service
+        start.add(Calendar.DAY_OF_YEAR, -7);
+        filter.setBeginDate(start.getTime());
+        filter.setPageSize(RssLogBuffer.CAPACITY);
+        filter.setOrdering(Ordering.DESCENDING);
+        filter.setItemName(itemName);
+
+        for (QueryablePersistenceService persistenceService : CometVisuApp.getPersistenceServices().values()) {
+            // Get the data from the persistence store
+            Iterator<HistoricItem> it = persistenceService.query(filter).iterator();
+            if (!it.hasNext()) {
+                continue;
+            }
+            logger.debug("persisted data for item {} found in service {}", itemName, persistenceService.getId());
+
+            // Iterate through the data
+            while (it.hasNext()) {
+                HistoricItem historicItem = it.next();
+                if (historicItem.getState() == null || historicItem.getState().toString().isEmpty()) {
+                    continue;
+                }
+                entries.add(rssLogBuffer.parseEntry(historicItem.getName(), historicItem.getState().toString(),
+                        historicItem.getTimestamp().getTime()));
+            }
+            // the RRD4j PersistenceService does not support descending ordering so we do it manually
+            Collections.sort(entries, NEWEST_FIRST);
+            logger.debug("querying {} item from {} to {} => {} results on service {}", filter.getItemName(),
+                    filter.getBeginDate(), filter.getEndDate(), entries.size(), persistenceService.getId());
+            break;
+        }
+        return entries;
+    }
+
     /**
      * Process the actual request.
      *